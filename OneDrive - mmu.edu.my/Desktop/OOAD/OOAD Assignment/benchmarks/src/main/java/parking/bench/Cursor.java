@@ -0,0 +1,18 @@
+package parking.bench;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+// Walks through an array of keys so every call looks up a different one (per benchmark thread)
+@State(Scope.Thread)
+public class Cursor {
+
+    private int next;
+
+    public String next(String[] keys) {
+        if (++next >= keys.length) {
+            next = 0;
+        }
+        return keys[next];
+    }
+}
@@ -0,0 +1,48 @@
+package parking.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import parking.data.DataCenter;
+import parking.model.ParkingSpot;
+import parking.model.Vehicle;
+
+// The DataCenter lookups used by the gates and reports, for each lot and history size
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataCenterBenchmark {
+
+    @Benchmark
+    public ArrayList<ParkingSpot> getAvailableSpotsForVehicle(LotState lot) {
+        return DataCenter.getAvailableSpotsForVehicle(lot.arriving);
+    }
+
+    @Benchmark
+    public ParkingSpot findSpotById(LotState lot, Cursor cursor) {
+        return DataCenter.findSpotById(cursor.next(lot.spotIds));
+    }
+
+    @Benchmark
+    public Vehicle findVehicleByPlate(LotState lot, Cursor cursor) {
+        return DataCenter.findVehicleByPlate(cursor.next(lot.parkedPlates));
+    }
+
+    @Benchmark
+    public double getUnpaidFineTotal(LotState lot, Cursor cursor) {
+        return DataCenter.getUnpaidFineTotal(cursor.next(lot.finedPlates));
+    }
+
+    @Benchmark
+    public double getTotalRevenue(LotState lot) {
+        return DataCenter.getTotalRevenue();
+    }
+}
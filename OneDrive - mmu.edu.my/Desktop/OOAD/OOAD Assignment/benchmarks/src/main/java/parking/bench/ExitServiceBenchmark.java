@@ -0,0 +1,34 @@
+package parking.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parking.service.ExitQuote;
+import parking.service.ExitService;
+
+// The exit bill of a parked vehicle. The quote is cancelled again so the
+// pending quotes do not pile up during the run.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExitServiceBenchmark {
+
+    private final ExitService exitService = new ExitService();
+
+    @Benchmark
+    public ExitQuote processExitCalculation(LotState lot, Cursor cursor) {
+        ExitQuote quote = exitService.processExitCalculation(cursor.next(lot.parkedPlates));
+        exitService.cancelQuote(quote.token());
+        return quote;
+    }
+}
@@ -0,0 +1,89 @@
+package parking.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parking.model.Car;
+import parking.model.SpotType;
+import parking.model.Vehicle;
+import parking.rules.RuleParser;
+import parking.strategy.*;
+
+// Each fine scheme on a mix of stays (0-120 hours), one at a time and in batches.
+// Scores are per fine.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FineStrategyBenchmark {
+
+    private static final int STAYS = 1024;
+
+    @Param({"fixed", "progressive", "hourly", "rules"})
+    public String scheme;
+
+    private FineStrategy strategy;
+    private final long[] hours = new long[STAYS];
+    private final double[] fines = new double[STAYS];
+    private final Vehicle car = new Car("BFINE1");
+
+    @Setup
+    public void setUp() {
+        switch (scheme) {
+            case "fixed": strategy = new FixedFineStrategy(); break;
+            case "progressive": strategy = new ProgressiveFineStrategy(); break;
+            case "hourly": strategy = new HourlyFineStrategy(); break;
+            case "rules":
+                strategy = RuleParser.parse("scheme Progressive (rules)\n"
+                        + "fine when hours > 72: 200\n"
+                        + "fine when hours > 48: 150\n"
+                        + "fine when hours > 24: 100\n"
+                        + "fine when hours > 0: 50");
+                break;
+            default: throw new IllegalArgumentException("Unknown scheme: " + scheme);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < STAYS; i++) {
+            hours[i] = random.nextInt(121);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STAYS)
+    public void calculateFine(Blackhole bh) {
+        for (int i = 0; i < STAYS; i++) {
+            bh.consume(strategy.calculateFine(hours[i]));
+        }
+    }
+
+    // What ExitService calls (rule sets can look at the vehicle and spot)
+    @Benchmark
+    @OperationsPerInvocation(STAYS)
+    public void calculateFineForVehicle(Blackhole bh) {
+        for (int i = 0; i < STAYS; i++) {
+            bh.consume(strategy.calculateFine(hours[i], car, SpotType.REGULAR));
+        }
+    }
+
+    // What the nightly FineAssessmentJob calls
+    @Benchmark
+    @OperationsPerInvocation(STAYS)
+    public double[] calculateFines() {
+        strategy.calculateFines(hours, fines, STAYS);
+        return fines;
+    }
+}
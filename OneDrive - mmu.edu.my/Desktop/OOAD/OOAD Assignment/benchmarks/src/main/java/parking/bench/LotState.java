@@ -0,0 +1,90 @@
+package parking.bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.model.*;
+
+/**
+ * LotState - A DataCenter filled once per fork: a lot of lotSize spots, 80% of
+ * them taken by vehicles that entered during the last 3 days, and a history of
+ * `history` payments plus one fine for every 10 payments (half of them unpaid,
+ * some for vehicles that are parked right now).
+ */
+@State(Scope.Benchmark)
+public class LotState {
+
+    private static final int ROWS = 10;
+    private static final int SPOTS_PER_ROW = 20;
+
+    @Param({"1000", "10000", "100000"})
+    public int lotSize;
+
+    @Param({"10000", "1000000"})
+    public int history;
+
+    public String[] parkedPlates;   // one per parked vehicle
+    public String[] finedPlates;    // plates with unpaid fines
+    public String[] spotIds;        // every spot in the lot
+    public Vehicle arriving;        // a car that is not parked yet
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Random random = new Random(42);
+        DataCenter.setLogging(false);
+        DataCenter.reset(Math.max(1, lotSize / (ROWS * SPOTS_PER_ROW)), ROWS, SPOTS_PER_ROW);
+
+        // Parked vehicles
+        ArrayList<String> plates = new ArrayList<>();
+        int target = DataCenter.getTotalSpots() * 8 / 10;
+        for (int i = 0; plates.size() < target && i < target * 2; i++) {
+            String plate = "BP" + i;
+            Vehicle v = i % 5 == 0 ? new Motorcycle(plate) : i % 7 == 0 ? new SUV(plate) : new Car(plate);
+            v.setEntryTime(ParkingClock.now().minusMinutes(random.nextInt(3 * 24 * 60)));
+            ParkingSpot spot = DataCenter.findAvailableSpot(v);
+            if (spot != null && DataCenter.parkVehicle(v, spot)) {
+                DataCenter.addTicket(new Ticket(plate, spot.getSpotId(), v.getEntryTime()));
+                plates.add(plate);
+            }
+        }
+        parkedPlates = plates.toArray(new String[0]);
+
+        // History: payments of earlier visits, and fines
+        int visitors = Math.max(1, history / 5);
+        for (int i = 0; i < history; i++) {
+            String plate = "BH" + (i % visitors);
+            long hours = 1 + random.nextInt(30);
+            double fee = hours * 5.0;
+            DataCenter.addPayment(new Payment(plate, null, null, null, hours, fee, 0.0, fee,
+                    random.nextBoolean() ? PaymentMethod.CASH : PaymentMethod.CARD));
+        }
+        ArrayList<String> fined = new ArrayList<>();
+        for (int i = 0; i < history / 10; i++) {
+            boolean parked = i % 4 == 0 && parkedPlates.length > 0;
+            String plate = parked ? parkedPlates[random.nextInt(parkedPlates.length)] : "BH" + (i % visitors);
+            Fine fine = new Fine(plate, 50.0, "Overstay");
+            if (i % 2 == 0) {
+                fine.setPaid(true);
+            } else {
+                fined.add(plate);
+            }
+            DataCenter.addFine(fine);
+        }
+        finedPlates = fined.isEmpty() ? new String[] {"NONE"} : fined.toArray(new String[0]);
+
+        ArrayList<String> ids = new ArrayList<>();
+        for (Floor floor : DataCenter.getFloors()) {
+            for (ParkingSpot spot : floor.getSpots()) {
+                ids.add(spot.getSpotId());
+            }
+        }
+        spotIds = ids.toArray(new String[0]);
+        arriving = new Car("BNEW1");
+    }
+}
@@ -0,0 +1,37 @@
+package parking.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parking.model.ParkingSpot;
+import parking.service.SpotAllocation;
+
+// Finding a spot for an arriving car: the full list (EntryPanel) vs the first fit
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpotAllocationBenchmark {
+
+    private final SpotAllocation allocation = new SpotAllocation();
+
+    @Benchmark
+    public ArrayList<ParkingSpot> findSuitableSpots(LotState lot) {
+        return allocation.findSuitableSpots(lot.arriving);
+    }
+
+    @Benchmark
+    public ParkingSpot findSpot(LotState lot) {
+        return allocation.findSpot(lot.arriving);
+    }
+}
@@ -1,14 +1,56 @@
 package parking;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import javax.swing.*;
+import parking.export.LedgerExporter;
+import parking.gate.GateServer;
+import parking.replication.ReplicationNode;
+import parking.server.ParkingServer;
+import parking.service.FineAssessmentJob;
 
 /**
  * Main - Entry point of the Parking Lot Management System.
- * Launches the MainFrame GUI.
+ * Launches the MainFrame GUI, or without a window the HTTP API (--server) or
+ * the binary protocol for barrier controllers (--gate-server):
+ *
+ *   java -cp out parking.Main --server port=8080
+ *   java -cp out parking.Main --gate-server port=9090
+ *
+ * A server can replicate its lot to read-only followers (see ReplicationNode):
+ *
+ *   java -cp out parking.Main --server port=8080 replicationPort=7070
+ *   java -cp out parking.Main --server port=8081 follow=127.0.0.1:7070 replicationPort=7071
+ *
+ * The server (a follower only once promoted) runs the nightly jobs: the fine
+ * assessment and the export of yesterday's payments and fines (exportDir=).
  */
 public class Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Headless: gates and kiosks use the HTTP API (see ParkingServer)
+        if (args.length > 0 && args[0].equals("--server")) {
+            ParkingServer server = ParkingServer.startFromArgs(Arrays.copyOfRange(args, 1, args.length));
+            ReplicationNode replication = server.getReplication();
+            if (replication != null && replication.isReadOnly()) {
+                // A follower gets its fines from the primary and writes no files; it does both once promoted
+                replication.onPromotion(() -> startNightlyJobs(server.getExportDir()));
+            } else {
+                startNightlyJobs(server.getExportDir());
+            }
+            return;
+        }
+
+        // Fine long-stay vehicles every night at midnight, even before they leave
+        new FineAssessmentJob().scheduleNightly();
+
+        // Headless: barrier controllers and plate readers use the gate protocol (see GateServer)
+        if (args.length > 0 && args[0].equals("--gate-server")) {
+            GateServer.startFromArgs(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         // Run the GUI on the Swing event thread (best practice)
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
@@ -17,4 +59,13 @@ public class Main {
             }
         });
     }
+
+    // Fines long-stay vehicles every night at midnight, and writes yesterday's payments and
+    // fines as CSV for finance just after midnight (exportDir null: no exports)
+    private static void startNightlyJobs(Path exportDir) {
+        new FineAssessmentJob().scheduleNightly();
+        if (exportDir != null) {
+            new LedgerExporter().scheduleDaily(exportDir);
+        }
+    }
 }
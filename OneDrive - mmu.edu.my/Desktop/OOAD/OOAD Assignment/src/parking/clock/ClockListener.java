@@ -0,0 +1,11 @@
+package parking.clock;
+
+import java.time.LocalDateTime;
+
+// Told when the system time jumps (a simulated time skip, a reset, or another clock)
+@FunctionalInterface
+public interface ClockListener {
+
+    // Called after the change, outside any clock lock; after can be before "before"
+    void timeChanged(LocalDateTime before, LocalDateTime after);
+}
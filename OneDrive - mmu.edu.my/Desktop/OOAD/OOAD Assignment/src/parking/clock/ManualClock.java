@@ -0,0 +1,55 @@
+package parking.clock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * ManualClock - A clock that only moves when told to, for tests and simulations.
+ *
+ *     ManualClock clock = new ManualClock(LocalDateTime.of(2026, 2, 12, 8, 0));
+ *     ParkingClock.set(clock);
+ *     ...                                   // park vehicles
+ *     clock.advance(Duration.ofHours(30));  // they have now stayed 30 hours
+ *
+ * Thread safe. Moving it tells the ClockListeners when it is the active clock.
+ */
+public class ManualClock extends ParkingClock {
+
+    private volatile LocalDateTime time;
+
+    public ManualClock(LocalDateTime start) {
+        this.time = start;
+    }
+
+    public void advance(Duration amount) {
+        moveTo(null, amount);
+    }
+
+    public void setTime(LocalDateTime newTime) {
+        moveTo(newTime, null);
+    }
+
+    // The clock's own time (without the simulated offset)
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    private void moveTo(LocalDateTime newTime, Duration amount) {
+        LocalDateTime before, after;
+        synchronized (this) {
+            before = time;
+            time = newTime != null ? newTime : time.plus(amount);
+            after = time;
+        }
+        if (get() == this) {
+            long offset = getOffset().toNanos();
+            fireTimeChanged(before.plusNanos(offset), after.plusNanos(offset));
+        }
+    }
+
+    @Override
+    protected LocalDateTime time(long offsetNanos) {
+        LocalDateTime t = time;
+        return offsetNanos != 0 ? t.plusNanos(offsetNanos) : t;
+    }
+}
@@ -0,0 +1,148 @@
+package parking.clock;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ParkingClock - The one place the parking system gets the time from.
+ *
+ * Everything that stamps or compares times (vehicles, tickets, payments, fines,
+ * exit bills, the monitors and jobs) calls ParkingClock.now() instead of
+ * LocalDateTime.now(). That gives two things:
+ *
+ *   - A simulated offset. skip(Duration) moves the whole system ahead in one O(1)
+ *     step: entry times stay what they were, so every parked vehicle has simply
+ *     stayed longer, and vehicles that leave in between are billed correctly.
+ *   - Replaceable clocks. The default SystemClock reads the computer's clock
+ *     (cached for a few milliseconds); tests and simulations can set(ManualClock)
+ *     and decide exactly what time it is.
+ *
+ * ClockListeners are told when the time jumps (skip, resetOffset, set, or a
+ * ManualClock being moved), e.g. so timers can be rescheduled.
+ */
+public abstract class ParkingClock {
+
+    private static volatile ParkingClock current = new SystemClock();
+    private static volatile long offsetNanos;
+
+    // Each offset since the simulation started (offset went from 0 to non-zero), with the
+    // system time it started at; guarded by ParkingClock.class
+    private record OffsetChange(LocalDateTime from, long offsetNanos) {
+    }
+    private static final ArrayList<OffsetChange> offsetHistory = new ArrayList<>();
+    private static final CopyOnWriteArrayList<ClockListener> listeners = new CopyOnWriteArrayList<>();
+
+    // ========== THE SYSTEM TIME ==========
+
+    // Current time of the active clock, including the simulated offset
+    public static LocalDateTime now() {
+        return current.time(offsetNanos);
+    }
+
+    public static LocalDate today() {
+        return now().toLocalDate();
+    }
+
+    public static ParkingClock get() {
+        return current;
+    }
+
+    // Makes the clock the system clock (null: back to the computer's clock)
+    public static void set(ParkingClock clock) {
+        LocalDateTime before, after;
+        synchronized (ParkingClock.class) {
+            before = now();
+            current = clock != null ? clock : new SystemClock();
+            after = now();
+        }
+        fireTimeChanged(before, after);
+    }
+
+    // ========== REAL TIME ==========
+
+    // Real time until the computer's clock next reads the given time of day, ignoring the
+    // simulated offset and the active clock: the delay for a ScheduledExecutorService, which
+    // waits in real time (e.g. a nightly job runs at real midnight even during a time skip)
+    public static Duration untilNextRealTime(LocalTime at) {
+        LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
+        LocalDateTime next = now.toLocalDate().atTime(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        return Duration.between(now, next);
+    }
+
+    // ========== SIMULATED OFFSET ==========
+
+    // Moves the system time ahead (or back, if negative) by the given amount
+    public static void skip(Duration amount) {
+        LocalDateTime before, after;
+        synchronized (ParkingClock.class) {
+            before = now();
+            if (offsetNanos == 0) {
+                offsetHistory.clear(); // a new simulation
+            }
+            offsetNanos += amount.toNanos();
+            after = now();
+            if (offsetNanos != 0) {
+                offsetHistory.add(new OffsetChange(after, offsetNanos));
+            }
+        }
+        fireTimeChanged(before, after);
+    }
+
+    // Back to the active clock's own time
+    public static void resetOffset() {
+        skip(Duration.ofNanos(-offsetNanos));
+    }
+
+    public static Duration getOffset() {
+        return Duration.ofNanos(offsetNanos);
+    }
+
+    // The offset that was in effect when the system time read 'time' (e.g. a vehicle's
+    // entry time): the latest offset of the current simulation that started at or before it,
+    // else 0. Exact while the simulation only skips ahead; call it before resetOffset().
+    public static synchronized Duration offsetAt(LocalDateTime time) {
+        if (offsetNanos == 0) {
+            return Duration.ZERO;
+        }
+        for (int i = offsetHistory.size() - 1; i >= 0; i--) {
+            OffsetChange change = offsetHistory.get(i);
+            if (!change.from().isAfter(time)) {
+                return Duration.ofNanos(change.offsetNanos());
+            }
+        }
+        return Duration.ZERO;
+    }
+
+    // ========== LISTENERS ==========
+
+    public static void addListener(ClockListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(ClockListener listener) {
+        listeners.remove(listener);
+    }
+
+    // For clocks that are moved by hand (see ManualClock)
+    protected static void fireTimeChanged(LocalDateTime before, LocalDateTime after) {
+        if (before.equals(after)) {
+            return;
+        }
+        for (ClockListener l : listeners) {
+            l.timeChanged(before, after);
+        }
+    }
+
+    // ========== CLOCKS ==========
+
+    // This clock's time with the offset added
+    protected abstract LocalDateTime time(long offsetNanos);
+}
@@ -0,0 +1,59 @@
+package parking.clock;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * SystemClock - The computer's clock, in the local time zone, read at a coarse
+ * resolution (10 ms by default).
+ *
+ * Turning the system time into a LocalDateTime is the expensive part of
+ * LocalDateTime.now() (time zone rules, several objects). Every gate and monitor
+ * asks for the time, so the last result is kept and handed out again until the
+ * next tick: within a tick, now() is one System.currentTimeMillis() call and a
+ * compare.
+ */
+public class SystemClock extends ParkingClock {
+
+    public static final long DEFAULT_RESOLUTION_MILLIS = 10;
+
+    // The time of one tick (immutable, so it can be swapped in one step)
+    private record Cached(long tick, long offsetNanos, LocalDateTime time) {
+    }
+
+    private final long resolutionMillis;
+    private final ZoneId zone;
+    private volatile Cached cached;
+
+    public SystemClock() {
+        this(DEFAULT_RESOLUTION_MILLIS);
+    }
+
+    public SystemClock(long resolutionMillis) {
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive");
+        }
+        this.resolutionMillis = resolutionMillis;
+        this.zone = ZoneId.systemDefault();
+    }
+
+    @Override
+    protected LocalDateTime time(long offsetNanos) {
+        long tick = System.currentTimeMillis() / resolutionMillis;
+        Cached c = cached;
+        if (c != null && c.tick == tick && c.offsetNanos == offsetNanos) {
+            return c.time;
+        }
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(tick * resolutionMillis), zone);
+        if (offsetNanos != 0) {
+            time = time.plusNanos(offsetNanos);
+        }
+        cached = new Cached(tick, offsetNanos, time);
+        return time;
+    }
+
+    public long getResolutionMillis() {
+        return resolutionMillis;
+    }
+}
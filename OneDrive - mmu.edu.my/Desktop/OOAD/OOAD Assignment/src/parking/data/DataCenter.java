@@ -1,302 +1,295 @@
 package parking.data;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.List;
 import parking.model.*;
-import parking.strategy.*;
+import parking.strategy.FineStrategy;
+import parking.tariff.CompiledTariff;
 
 /**
- * DataCenter - Central data storage for the parking lot system. Uses static
- * ArrayLists to store all data in memory. All methods are static - no need to
- * create an instance.
+ * DataCenter - Central data storage for the parking lot system. All methods are
+ * static - no need to create an instance.
+ *
+ * The data of each parking lot (site) is kept in its own LotPartition, and all
+ * lots of the process are in the ParkingGroup (getGroup()). The methods below
+ * work on the default lot, the "University Parking Lot" (getDefaultLot()),
+ * which is what the GUI, the servers and the tools use unless they are given
+ * another lot.
+ *
+ * Methods that read or change the collections are synchronized on the lot,
+ * so several gates (threads) can use the DataCenter at the same time. To read
+ * several things as one consistent view, synchronize on getDefaultLot(). The
+ * lists returned by getVehicles(), getTickets(), getPayments() and getFines()
+ * are the live lists - only iterate them when no gate is writing.
+ *
+ * The lookups used on every exit (findSpotById, findVehicleByPlate,
+ * getUnpaidFineTotal) read from indexes instead of scanning the lists and
+ * do not take the lock, so exit quotes can be calculated in parallel.
+ *
+ * Other parts of the system can follow changes with addListener() instead of
+ * scanning the lists (see DataListener).
  */
 public class DataCenter {
 
-    // ========== DATA COLLECTIONS ==========
-    private static ParkingLot parkingLot = new ParkingLot("University Parking Lot");
-    private static ArrayList<Vehicle> vehicles = new ArrayList<>();
-    private static ArrayList<Ticket> tickets = new ArrayList<>();
-    private static ArrayList<Payment> payments = new ArrayList<>();
-    private static ArrayList<Fine> fines = new ArrayList<>();
+    // ID of the lot the static methods work on
+    public static final String DEFAULT_LOT_ID = "MAIN";
 
-    // Current fine strategy (default: Fixed Fine Scheme)
-    private static FineStrategy activeFineStrategy = new FixedFineStrategy();
+    // ========== LOTS ==========
+    private static final ParkingGroup group = new ParkingGroup();
+    private static final LotPartition defaultLot;
 
     // ========== INITIALIZATION BLOCK ==========
     // This block runs automatically when the program starts.
+    // Default layout is 5 floors x 2 rows x 5 spots (see LotPartition for the spot types)
     static {
         System.out.println("DataCenter: Initializing system data...");
-        seedParkingLot();
+        defaultLot = group.addLot(DEFAULT_LOT_ID, "University Parking Lot", 2.9276, 101.6413, 5, 2, 5);
         System.out.println("DataCenter: Initialization complete. Total spots: " + getTotalSpots());
     }
 
-    // Creates 5 floors with mixed spot types (Compact, Regular, Handicapped, Reserved)
-    private static void seedParkingLot() {
-        for (int floor = 1; floor <= 5; floor++) {
-            Floor f = new Floor(floor);
-
-            // Each floor has 2 rows, each row has 5 spots
-            for (int row = 1; row <= 2; row++) {
-                for (int spot = 1; spot <= 5; spot++) {
-                    SpotType type;
-
-                    // Assign spot types based on spot number logic:
-                    // Spots 1-2: Compact
-                    // Spots 3-4: Regular
-                    // Spot 5: Row 1 = Handicapped, Row 2 = Reserved
-                    if (spot <= 2) {
-                        type = SpotType.COMPACT;
-                    } else if (spot <= 4) {
-                        type = SpotType.REGULAR;
-                    } else {
-                        if (row == 1) {
-                            type = SpotType.HANDICAPPED;
-                        } else {
-                            type = SpotType.RESERVED;
-                        }
-                    }
-
-                    // Create the spot. 
-                    // Assuming your ParkingSpot constructor is (int floor, int row, int spot, SpotType type)
-                    // If your constructor takes (String id, SpotType type), you need to format the ID here.
-                    ParkingSpot ps = new ParkingSpot(floor, row, spot, type);
-
-                    // Add spot to the floor
-                    f.addSpot(ps);
-                }
-            }
-
-            // Add floor to the parking lot
-            parkingLot.addFloor(f);
-        }
+    // Every lot of this process, by lot ID
+    public static ParkingGroup getGroup() {
+        return group;
+    }
+
+    // The lot the methods below work on
+    public static LotPartition getDefaultLot() {
+        return defaultLot;
+    }
+
+    // ========== RESET ==========
+    // Throws away ALL data and re-seeds a lot of the given size.
+    // Used by the load generator and benchmarks - never called by the GUI.
+    public static void reset(int floors, int rowsPerFloor, int spotsPerRow) {
+        defaultLot.reset(floors, rowsPerFloor, spotsPerRow);
+    }
+
+    // Same, with the spot types of every row given by rowPattern (repeated along the row),
+    // e.g. {COMPACT, REGULAR, REGULAR, REGULAR} - null keeps the default mix
+    public static void reset(int floors, int rowsPerFloor, int spotsPerRow, SpotType[] rowPattern) {
+        defaultLot.reset(floors, rowsPerFloor, spotsPerRow, rowPattern);
+    }
+
+    // Turn the per-vehicle console messages on or off (every lot)
+    public static void setLogging(boolean enabled) {
+        LotPartition.setLogging(enabled);
+    }
+
+    // ========== LISTENERS ==========
+    public static void addListener(DataListener listener) {
+        defaultLot.addListener(listener);
+    }
+
+    public static void removeListener(DataListener listener) {
+        defaultLot.removeListener(listener);
     }
 
     // ========== PARKING LOT METHODS ==========
     public static ParkingLot getParkingLot() {
-        return parkingLot;
+        return defaultLot.getParkingLot();
     }
 
     public static ArrayList<Floor> getFloors() {
-        return parkingLot.getFloors();
+        return defaultLot.getFloors();
     }
 
     public static Floor getFloor(int floorNumber) {
-        return parkingLot.getFloor(floorNumber);
+        return defaultLot.getFloor(floorNumber);
     }
 
     // Find a spot by its ID (e.g., "F1-R1-S1")
     public static ParkingSpot findSpotById(String spotId) {
-        return parkingLot.findSpotById(spotId);
+        return defaultLot.findSpotById(spotId);
     }
 
     // Get all available spots that a specific vehicle can park in
+    // (in lot order; only the free spots are visited, see FreeSpotIndex)
     public static ArrayList<ParkingSpot> getAvailableSpotsForVehicle(Vehicle vehicle) {
-        ArrayList<ParkingSpot> result = new ArrayList<>();
-
-        // Loop through all floors and spots
-        for (Floor floor : parkingLot.getFloors()) {
-            for (ParkingSpot spot : floor.getSpots()) {
-                // Check 1: Is the spot empty?
-                // Check 2: Can this specific vehicle type park here? (Checks logic inside Vehicle class)
-                if (spot.isAvailable() && vehicle.canParkIn(spot.getType())) {
-                    result.add(spot);
-                }
-            }
-        }
-        return result;
+        return defaultLot.getAvailableSpotsForVehicle(vehicle);
     }
 
     // Get all available spots of a specific type (helper method)
     public static ArrayList<ParkingSpot> getAvailableSpotsByType(SpotType type) {
-        ArrayList<ParkingSpot> result = new ArrayList<>();
-        for (Floor floor : parkingLot.getFloors()) {
-            for (ParkingSpot spot : floor.getSpots()) {
-                if (spot.isAvailable() && spot.getType() == type) {
-                    result.add(spot);
-                }
-            }
-        }
-        return result;
+        return defaultLot.getAvailableSpotsByType(type);
+    }
+
+    // The first available spot (in lot order) the vehicle can park in, or null if there is none.
+    // Cheaper than getAvailableSpotsForVehicle() when any spot will do.
+    public static ParkingSpot findAvailableSpot(Vehicle vehicle) {
+        return defaultLot.findAvailableSpot(vehicle);
     }
 
     // ========== VEHICLE METHODS ==========
     // Park a vehicle in a specific spot
-    public static void parkVehicle(Vehicle vehicle, ParkingSpot spot) {
-        if (spot.isAvailable()) {
-            spot.occupy(vehicle);
-            vehicle.setSpotId(spot.getSpotId());
-            vehicles.add(vehicle); // Add to history list
-            System.out.println("DataCenter: Vehicle " + vehicle.getLicensePlate() + " parked at " + spot.getSpotId());
-        }
+    // Returns false if the spot was taken in the meantime (e.g. by another gate)
+    // or if a vehicle with the same plate is already parked
+    public static boolean parkVehicle(Vehicle vehicle, ParkingSpot spot) {
+        return defaultLot.parkVehicle(vehicle, spot);
     }
 
     // Remove a vehicle from its spot (when exiting)
     public static void removeVehicle(String plate) {
-        Vehicle v = findVehicleByPlate(plate);
-        if (v == null) {
-            for (Vehicle temp : vehicles) {
-                if (temp.getLicensePlate().equalsIgnoreCase(plate)) {
-                    v = temp;
-                    break;
-                }
-            }
-        }
-
-        if (v != null) {
-            ParkingSpot spot = findSpotById(v.getSpotId());
-            if (spot != null) {
-                spot.release(); 
-            }
-            vehicles.remove(v); 
-            System.out.println("DataCenter: Vehicle " + plate + " removed and spot released.");
-        } else {
-            System.out.println("DataCenter: Error - Could not find vehicle " + plate + " to remove.");
-        }
+        defaultLot.removeVehicle(plate);
     }
 
     // Find a currently parked vehicle by license plate
     public static Vehicle findVehicleByPlate(String licensePlate) {
-        for (Vehicle v : vehicles) {
-            // Match plate AND ensure vehicle hasn't exited yet (exitTime is null)
-            if (v.getLicensePlate().equalsIgnoreCase(licensePlate) && v.getExitTime() == null) {
-                return v;
-            }
-        }
-        return null;
+        return defaultLot.findVehicleByPlate(licensePlate);
+    }
+
+    // Call after changing a parked vehicle's entry time (or other details) so listeners can catch up
+    public static void vehicleChanged(Vehicle vehicle) {
+        defaultLot.vehicleChanged(vehicle);
+    }
+
+    public static boolean moveEntryTime(Vehicle vehicle, LocalDateTime expected, LocalDateTime corrected) {
+        return defaultLot.moveEntryTime(vehicle, expected, corrected);
     }
 
     // Get all vehicles (both currently parked and historical)
     public static ArrayList<Vehicle> getVehicles() {
-        return vehicles;
+        return defaultLot.getVehicles();
     }
 
     // Get only currently parked vehicles
     public static ArrayList<Vehicle> getAllParkedVehicles() {
-        ArrayList<Vehicle> parked = new ArrayList<>();
-        for (Vehicle v : vehicles) {
-            if (v.getExitTime() == null) {
-                parked.add(v);
-            }
-        }
-        return parked;
+        return defaultLot.getAllParkedVehicles();
     }
 
     // ========== TICKET METHODS ==========
     public static void addTicket(Ticket ticket) {
-        tickets.add(ticket);
+        defaultLot.addTicket(ticket);
     }
 
     public static ArrayList<Ticket> getTickets() {
-        return tickets;
+        return defaultLot.getTickets();
     }
 
     // Find the most recent ticket for a license plate
     public static Ticket findTicketByPlate(String licensePlate) {
-        // Search backwards to find the latest entry
-        for (int i = tickets.size() - 1; i >= 0; i--) {
-            if (tickets.get(i).getLicensePlate().equalsIgnoreCase(licensePlate)) {
-                return tickets.get(i);
-            }
-        }
-        return null;
+        return defaultLot.findTicketByPlate(licensePlate);
     }
 
     // ========== PAYMENT METHODS ==========
     public static void addPayment(Payment payment) {
-        payments.add(payment);
+        defaultLot.addPayment(payment);
     }
 
     public static ArrayList<Payment> getPayments() {
-        return payments;
+        return defaultLot.getPayments();
     }
 
     // Get total revenue from all payments
     public static double getTotalRevenue() {
-        double total = 0;
-        for (Payment p : payments) {
-            total += p.getTotalAmount();
-        }
-        return total;
+        return defaultLot.getTotalRevenue();
+    }
+
+    // Records a complete exit in one step: sets the exit time, saves the payment,
+    // frees the spot and settles the fines. Nothing is changed (returns false) if the
+    // vehicle is no longer parked, changed since the bill was calculated, or the
+    // payment's idempotency key was already committed.
+    public static boolean commitExit(Vehicle vehicle, int expectedVersion, Payment payment) {
+        return defaultLot.commitExit(vehicle, expectedVersion, payment);
     }
 
     // ========== FINE METHODS ==========
     public static void addFine(Fine fine) {
-        fines.add(fine);
+        defaultLot.addFine(fine);
     }
 
     public static ArrayList<Fine> getFines() {
-        return fines;
+        return defaultLot.getFines();
     }
 
     // Get unpaid fines for a specific license plate
     public static ArrayList<Fine> getUnpaidFines(String licensePlate) {
-        ArrayList<Fine> unpaid = new ArrayList<>();
-        for (Fine f : fines) {
-            if (f.getLicensePlate().equalsIgnoreCase(licensePlate) && !f.isPaid()) {
-                unpaid.add(f);
-            }
-        }
-        return unpaid;
+        return defaultLot.getUnpaidFines(licensePlate);
     }
 
     // Get total unpaid fine amount for a license plate
     public static double getUnpaidFineTotal(String licensePlate) {
-        double total = 0;
-        for (Fine f : getUnpaidFines(licensePlate)) {
-            total += f.getAmount();
-        }
-        return total;
+        return defaultLot.getUnpaidFineTotal(licensePlate);
     }
 
     // Mark all fines for a license plate as paid
     public static void markFinesPaid(String licensePlate) {
-        for (Fine f : fines) {
-            if (f.getLicensePlate().equalsIgnoreCase(licensePlate) && !f.isPaid()) {
-                f.setPaid(true);
-            }
-        }
+        defaultLot.markFinesPaid(licensePlate);
+    }
+
+    // Unpaid fine already issued for a parking session by the nightly assessment (0 if none).
+    // The exit bill charges the session's fine itself, so it leaves this amount out.
+    public static double getAssessedFine(String ticketId) {
+        return defaultLot.getAssessedFine(ticketId);
+    }
+
+    // Issues or updates the unpaid fine of each parked session, keyed by ticket ID, so
+    // running the assessment again with the same amounts changes nothing.
+    // Returns {fines issued, fines updated}.
+    public static int[] upsertSessionFines(String[] plates, String[] ticketIds, double[] amounts,
+                                           int count, String reason) {
+        return defaultLot.upsertSessionFines(plates, ticketIds, amounts, count, reason);
     }
 
     // Get all unpaid fines across all vehicles (for Admin Report)
     public static ArrayList<Fine> getAllUnpaidFines() {
-        ArrayList<Fine> unpaid = new ArrayList<>();
-        for (Fine f : fines) {
-            if (!f.isPaid()) {
-                unpaid.add(f);
-            }
-        }
-        return unpaid;
+        return defaultLot.getAllUnpaidFines();
+    }
+
+    // ========== RECONCILIATION ==========
+    // Copies the tickets, payments and fines in one step, so nothing is half-recorded
+    // in the copy (e.g. an exit with its payment but not yet its settled fines)
+    public static LedgerSnapshot snapshotLedger() {
+        return defaultLot.snapshotLedger();
+    }
+
+    // ========== EXPORT ==========
+    // Exports read the history in chunks (see LotPartition)
+    public static int copyTickets(int from, Ticket[] into) {
+        return defaultLot.copyTickets(from, into);
+    }
+
+    public static int copyPayments(int from, Payment[] into) {
+        return defaultLot.copyPayments(from, into);
+    }
+
+    // Fines can still change, so their amount and paid flag are copied too
+    public static int copyFines(int from, Fine[] into, double[] amounts, boolean[] paid) {
+        return defaultLot.copyFines(from, into, amounts, paid);
     }
 
     // ========== FINE STRATEGY METHODS ==========
     public static FineStrategy getActiveFineStrategy() {
-        return activeFineStrategy;
+        return defaultLot.getActiveFineStrategy();
     }
 
     public static void setActiveFineStrategy(FineStrategy strategy) {
-        activeFineStrategy = strategy;
+        defaultLot.setActiveFineStrategy(strategy);
     }
 
     public static String getActiveFineSchemeName() {
-        return activeFineStrategy.getSchemeName();
+        return defaultLot.getActiveFineSchemeName();
+    }
+
+    // ========== TARIFF METHODS ==========
+    public static CompiledTariff getActiveTariff() {
+        return defaultLot.getActiveTariff();
+    }
+
+    public static void setActiveTariff(CompiledTariff tariff) {
+        defaultLot.setActiveTariff(tariff);
     }
 
     // ========== REPORTING HELPER METHODS ==========
     // Get occupancy rate as a percentage
     public static double getOccupancyRate() {
-        int total = parkingLot.getTotalSpots();
-        if (total == 0) {
-            return 0.0;
-        }
-        int occupied = parkingLot.getTotalOccupied();
-        return (occupied * 100.0) / total;
+        return defaultLot.getOccupancyRate();
     }
 
     public static int getTotalSpots() {
-        return parkingLot.getTotalSpots();
+        return defaultLot.getTotalSpots();
     }
 
     public static int getTotalOccupied() {
-        return parkingLot.getTotalOccupied();
+        return defaultLot.getTotalOccupied();
     }
 }
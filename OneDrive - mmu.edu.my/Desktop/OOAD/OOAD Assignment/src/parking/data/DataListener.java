@@ -0,0 +1,50 @@
+package parking.data;
+
+import parking.model.Fine;
+import parking.model.ParkingSpot;
+import parking.model.Payment;
+import parking.model.Ticket;
+import parking.model.Vehicle;
+
+/**
+ * DataListener - Gets told about changes in the DataCenter as they happen.
+ *
+ * Register with DataCenter.addListener() (or addListener() of another
+ * LotPartition). The methods are called on the thread that made the change,
+ * while it still holds the lot's lock, so they must be quick and must not
+ * wait for other threads. Implement only what you need.
+ */
+public interface DataListener {
+
+    // A vehicle was parked in a spot
+    default void vehicleParked(Vehicle vehicle, ParkingSpot spot) {
+    }
+
+    // A vehicle left (or was removed) and its spot was released
+    default void vehicleRemoved(Vehicle vehicle, ParkingSpot spot) {
+    }
+
+    // A parked vehicle's details changed (e.g. entry time moved by the time simulation)
+    default void vehicleChanged(Vehicle vehicle) {
+    }
+
+    // A ticket was issued (right after its vehicle was parked)
+    default void ticketAdded(Ticket ticket) {
+    }
+
+    // A payment was recorded
+    default void paymentAdded(Payment payment) {
+    }
+
+    // A fine was issued
+    default void fineAdded(Fine fine) {
+    }
+
+    // A fine was paid or its amount was re-assessed; the old values are passed along
+    default void fineChanged(Fine fine, double oldAmount, boolean wasPaid) {
+    }
+
+    // DataCenter.reset() threw everything away
+    default void dataReset() {
+    }
+}
@@ -0,0 +1,113 @@
+package parking.data;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import parking.model.ParkingSpot;
+import parking.model.SpotType;
+import parking.model.Vehicle;
+
+/**
+ * FreeSpotIndex - The available spots of each type as one bit per spot, in lot
+ * order (floor, row, spot), so finding a free spot does not look at the occupied
+ * ones: the first free spot is one scan over a few words per spot type, and
+ * listing the free spots only visits those.
+ *
+ * Not thread safe: only used by its LotPartition while holding the lot's lock.
+ */
+class FreeSpotIndex {
+
+    private static final SpotType[] TYPES = SpotType.values(); // values() copies the array every call
+
+    private final ParkingSpot[] spots;                          // in lot order
+    private final IdentityHashMap<ParkingSpot, Integer> positions;
+    private final EnumMap<SpotType, BitSet> free = new EnumMap<>(SpotType.class);
+    private int freeCount;
+
+    FreeSpotIndex(List<ParkingSpot> lotOrder) {
+        spots = lotOrder.toArray(new ParkingSpot[0]);
+        positions = new IdentityHashMap<>(spots.length * 2);
+        for (SpotType type : TYPES) {
+            free.put(type, new BitSet(spots.length));
+        }
+        for (int i = 0; i < spots.length; i++) {
+            positions.put(spots[i], i);
+            if (spots[i].isAvailable()) {
+                free.get(spots[i].getType()).set(i);
+                freeCount++;
+            }
+        }
+    }
+
+    // Call after the spot was occupied / released
+    void occupied(ParkingSpot spot) {
+        update(spot, false);
+    }
+
+    void released(ParkingSpot spot) {
+        update(spot, true);
+    }
+
+    private void update(ParkingSpot spot, boolean available) {
+        Integer at = positions.get(spot);
+        if (at == null) {
+            return;
+        }
+        BitSet bits = free.get(spot.getType());
+        if (bits.get(at) != available) {
+            bits.set(at, available);
+            freeCount += available ? 1 : -1;
+        }
+    }
+
+    // First available spot (in lot order) the vehicle can park in, or null if the lot is full for it
+    ParkingSpot first(Vehicle vehicle) {
+        while (true) {
+            int best = -1;
+            for (SpotType type : TYPES) {
+                if (vehicle.canParkIn(type)) {
+                    int i = free.get(type).nextSetBit(0);
+                    if (i >= 0 && (best < 0 || i < best)) {
+                        best = i;
+                    }
+                }
+            }
+            if (best < 0 || spots[best].isAvailable()) {
+                return best < 0 ? null : spots[best];
+            }
+            // The spot's status was changed directly (not through the DataCenter)
+            occupied(spots[best]);
+        }
+    }
+
+    // Available spots of the given types, in lot order
+    ArrayList<ParkingSpot> list(Vehicle vehicle, SpotType onlyType) {
+        BitSet wanted = new BitSet(spots.length);
+        for (SpotType type : TYPES) {
+            if (onlyType != null ? type == onlyType : vehicle.canParkIn(type)) {
+                wanted.or(free.get(type));
+            }
+        }
+        ArrayList<ParkingSpot> result = new ArrayList<>(wanted.cardinality());
+        for (int i = wanted.nextSetBit(0); i >= 0; i = wanted.nextSetBit(i + 1)) {
+            if (spots[i].isAvailable()) {
+                result.add(spots[i]);
+            }
+        }
+        return result;
+    }
+
+    int getFreeCount() {
+        return freeCount;
+    }
+
+    int getFreeCount(SpotType type) {
+        return free.get(type).cardinality();
+    }
+
+    int getSpotCount() {
+        return spots.length;
+    }
+}
@@ -0,0 +1,19 @@
+package parking.data;
+
+import java.util.List;
+import java.util.Set;
+import parking.model.Fine;
+import parking.model.Payment;
+import parking.model.Ticket;
+
+/**
+ * LedgerSnapshot - Copy of the tickets, payments and fines taken at one moment
+ * (see DataCenter.snapshotLedger()), for jobs that read all of them at once.
+ *
+ * Fines can still change after the copy, so their amount and paid flag are copied
+ * too: fineAmounts[i] and finePaid[i] belong to fines.get(i). openTicketIds holds
+ * the tickets of the vehicles that were still parked.
+ */
+public record LedgerSnapshot(List<Ticket> tickets, List<Payment> payments, List<Fine> fines,
+                             double[] fineAmounts, boolean[] finePaid, Set<String> openTicketIds) {
+}
@@ -0,0 +1,769 @@
+package parking.data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import parking.jfr.FineStrategyChangeEvent;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.Metrics;
+import parking.model.*;
+import parking.strategy.*;
+import parking.tariff.CompiledTariff;
+import parking.tariff.TariffDefinition;
+
+/**
+ * LotPartition - All the data of one parking lot (site): its spots, vehicles,
+ * tickets, payments and fines, with their own indexes, lock, listeners, fine
+ * strategy and tariff. Lots share nothing, so gates of different lots never
+ * wait for each other.
+ *
+ * The methods are the same as DataCenter's, which forwards to the default lot
+ * (see DataCenter.getDefaultLot()). Methods that read or change the collections
+ * are synchronized on the partition; the other lots of the process are found
+ * by lot ID through the ParkingGroup (DataCenter.getGroup()).
+ */
+public class LotPartition {
+
+    // ========== IDENTITY ==========
+    private final String lotId;
+    private final String name;
+    private final double latitude;
+    private final double longitude;
+    private final String logPrefix;
+
+    // ========== DATA COLLECTIONS ==========
+    private ParkingLot parkingLot;
+    private int floorCount;           // layout of the seeded lot (see getRowPattern)
+    private int rowsPerFloor;
+    private int spotsPerRow;
+    private SpotType[] rowPattern;    // null = default mix
+    private ArrayList<Vehicle> vehicles = new ArrayList<>();
+    private ArrayList<Ticket> tickets = new ArrayList<>();
+    private ArrayList<Payment> payments = new ArrayList<>();
+    private ArrayList<Fine> fines = new ArrayList<>();
+
+    // ========== INDEXES ==========
+    // Kept in sync with the lists above (only changed while holding the lock)
+    // All keys are license plates in upper case.
+    private volatile HashMap<String, ParkingSpot> spotsById = new HashMap<>(); // rebuilt on seeding only
+    private final ConcurrentHashMap<String, Vehicle> parkedByPlate = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Double> unpaidFineTotals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Ticket> latestTicketByPlate = new ConcurrentHashMap<>();
+    private final HashMap<String, ArrayList<Fine>> unpaidFinesByPlate = new HashMap<>(); // lock only
+    private final ConcurrentHashMap<String, Fine> assessedFineByTicket = new ConcurrentHashMap<>(); // unpaid only
+    private final HashSet<String> committedPaymentKeys = new HashSet<>(); // lock only
+    private FreeSpotIndex freeSpots; // lock only, rebuilt on seeding
+
+    // Current fine strategy (default: Fixed Fine Scheme)
+    private volatile FineStrategy activeFineStrategy = new FixedFineStrategy();
+
+    // Current parking tariff (default: flat SpotType hourly rates)
+    private volatile CompiledTariff activeTariff = TariffDefinition.standard().compile();
+
+    // Console logging of every park/remove, failed removes included (turned off by load tests)
+    private static volatile boolean logging = true;
+
+    // Told about every park/remove/change (see DataListener)
+    private final CopyOnWriteArrayList<DataListener> listeners = new CopyOnWriteArrayList<>();
+
+    // ========== LATENCY ==========
+    // This lot's parts of the Metrics histograms (merged when Metrics is read), so timing
+    // one lot's operations never writes to counters that another lot's gates write to
+    private final LatencyHistogram findSpotByIdLatency = Metrics.FIND_SPOT_BY_ID.newPart();
+    private final LatencyHistogram availableSpotsLatency = Metrics.AVAILABLE_SPOTS.newPart();
+    private final LatencyHistogram availableSpotsByTypeLatency = Metrics.AVAILABLE_SPOTS_BY_TYPE.newPart();
+    private final LatencyHistogram firstAvailableSpotLatency = Metrics.FIRST_AVAILABLE_SPOT.newPart();
+    private final LatencyHistogram findVehicleLatency = Metrics.FIND_VEHICLE.newPart();
+    private final LatencyHistogram parkedVehiclesLatency = Metrics.PARKED_VEHICLES.newPart();
+    private final LatencyHistogram findTicketLatency = Metrics.FIND_TICKET.newPart();
+    private final LatencyHistogram totalRevenueLatency = Metrics.TOTAL_REVENUE.newPart();
+    private final LatencyHistogram commitExitLatency = Metrics.COMMIT_EXIT.newPart();
+    private final LatencyHistogram unpaidFinesLatency = Metrics.UNPAID_FINES.newPart();
+    private final LatencyHistogram unpaidFineTotalLatency = Metrics.UNPAID_FINE_TOTAL.newPart();
+    private final LatencyHistogram assessedFineLatency = Metrics.ASSESSED_FINE.newPart();
+    private final LatencyHistogram allUnpaidFinesLatency = Metrics.ALL_UNPAID_FINES.newPart();
+    private final LatencyHistogram snapshotLedgerLatency = Metrics.SNAPSHOT_LEDGER.newPart();
+    private final LatencyHistogram occupancyRateLatency = Metrics.OCCUPANCY_RATE.newPart();
+    private final LatencyHistogram totalOccupiedLatency = Metrics.TOTAL_OCCUPIED.newPart();
+    private final ConcurrentHashMap<LatencyHistogram, LatencyHistogram> latencyParts = new ConcurrentHashMap<>();
+
+    // ========== INITIALIZATION ==========
+    // A lot of floors x rowsPerFloor x spotsPerRow spots with the default mix of spot types.
+    // latitude/longitude (degrees) place the lot for ParkingGroup.findNearestLotWithFreeSpot.
+    public LotPartition(String lotId, String name, double latitude, double longitude,
+                        int floors, int rowsPerFloor, int spotsPerRow) {
+        if (lotId == null || lotId.isBlank()) {
+            throw new IllegalArgumentException("Lot ID is required");
+        }
+        this.lotId = lotId;
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.logPrefix = "DataCenter[" + lotId + "]: ";
+        parkingLot = new ParkingLot(name);
+        seedParkingLot(floors, rowsPerFloor, spotsPerRow, null);
+    }
+
+    // rowPattern: spot types repeated along every row, or null for the default mix below
+    private void seedParkingLot(int floors, int rowsPerFloor, int spotsPerRow, SpotType[] rowPattern) {
+        this.floorCount = floors;
+        this.rowsPerFloor = rowsPerFloor;
+        this.spotsPerRow = spotsPerRow;
+        this.rowPattern = rowPattern != null ? rowPattern.clone() : null;
+        HashMap<String, ParkingSpot> index = new HashMap<>();
+        ArrayList<ParkingSpot> lotOrder = new ArrayList<>();
+        for (int floor = 1; floor <= floors; floor++) {
+            Floor f = new Floor(floor);
+
+            // Each floor has the given number of rows and spots per row
+            for (int row = 1; row <= rowsPerFloor; row++) {
+                for (int spot = 1; spot <= spotsPerRow; spot++) {
+                    SpotType type = rowPattern != null
+                            ? rowPattern[(spot - 1) % rowPattern.length]
+                            : defaultSpotType(row, spot);
+
+                    // Create the spot. 
+                    // Assuming your ParkingSpot constructor is (int floor, int row, int spot, SpotType type)
+                    // If your constructor takes (String id, SpotType type), you need to format the ID here.
+                    ParkingSpot ps = new ParkingSpot(floor, row, spot, type);
+
+                    // Add spot to the floor
+                    f.addSpot(ps);
+                    index.put(ps.getSpotId(), ps);
+                    lotOrder.add(ps);
+                }
+            }
+
+            // Add floor to the parking lot
+            parkingLot.addFloor(f);
+        }
+        spotsById = index;
+        freeSpots = new FreeSpotIndex(lotOrder);
+    }
+
+    // Assign spot types based on spot number logic (repeats every 5 spots):
+    // Spots 1-2: Compact
+    // Spots 3-4: Regular
+    // Spot 5: Odd rows = Handicapped, Even rows = Reserved
+    private SpotType defaultSpotType(int row, int spot) {
+        int position = (spot - 1) % 5 + 1;
+        if (position <= 2) {
+            return SpotType.COMPACT;
+        } else if (position <= 4) {
+            return SpotType.REGULAR;
+        } else if (row % 2 == 1) {
+            return SpotType.HANDICAPPED;
+        } else {
+            return SpotType.RESERVED;
+        }
+    }
+
+    // Throws away ALL data and re-seeds a lot of the given size.
+    // Used by the load generator and benchmarks - never called by the GUI.
+    public synchronized void reset(int floors, int rowsPerFloor, int spotsPerRow) {
+        reset(floors, rowsPerFloor, spotsPerRow, null);
+    }
+
+    // Same, with the spot types of every row given by rowPattern (repeated along the row),
+    // e.g. {COMPACT, REGULAR, REGULAR, REGULAR} - null keeps the default mix
+    public synchronized void reset(int floors, int rowsPerFloor, int spotsPerRow, SpotType[] rowPattern) {
+        if (rowPattern != null && rowPattern.length == 0) {
+            throw new IllegalArgumentException("Row pattern must have at least one spot type");
+        }
+        parkingLot = new ParkingLot(name);
+        vehicles.clear();
+        tickets.clear();
+        payments.clear();
+        fines.clear();
+        parkedByPlate.clear();
+        unpaidFineTotals.clear();
+        latestTicketByPlate.clear();
+        unpaidFinesByPlate.clear();
+        assessedFineByTicket.clear();
+        committedPaymentKeys.clear();
+        seedParkingLot(floors, rowsPerFloor, spotsPerRow, rowPattern);
+        for (DataListener l : listeners) {
+            l.dataReset();
+        }
+    }
+
+    // Turn the per-vehicle console messages on or off (for every lot; see DataCenter.setLogging)
+    static void setLogging(boolean enabled) {
+        logging = enabled;
+    }
+
+    // ========== IDENTITY ==========
+    public String getLotId() {
+        return lotId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    // ========== LAYOUT ==========
+    // The sizes the lot was seeded with (reset() with the same values rebuilds it)
+    public synchronized int getFloorCount() {
+        return floorCount;
+    }
+
+    public synchronized int getRowsPerFloor() {
+        return rowsPerFloor;
+    }
+
+    public synchronized int getSpotsPerRow() {
+        return spotsPerRow;
+    }
+
+    // Spot types repeated along every row, or null for the default mix
+    public synchronized SpotType[] getRowPattern() {
+        return rowPattern != null ? rowPattern.clone() : null;
+    }
+
+    // ========== LISTENERS ==========
+    public void addListener(DataListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(DataListener listener) {
+        listeners.remove(listener);
+    }
+
+    // ========== LATENCY ==========
+    // This lot's part of an operation's histogram, for the gate services of the lot
+    // (look it up once, e.g. in the constructor: the first call creates it)
+    public LatencyHistogram latency(LatencyHistogram operation) {
+        return latencyParts.computeIfAbsent(operation, LatencyHistogram::newPart);
+    }
+
+    // ========== PARKING LOT METHODS ==========
+    public synchronized ParkingLot getParkingLot() {
+        return parkingLot;
+    }
+
+    public synchronized ArrayList<Floor> getFloors() {
+        return parkingLot.getFloors();
+    }
+
+    public synchronized Floor getFloor(int floorNumber) {
+        return parkingLot.getFloor(floorNumber);
+    }
+
+    // Find a spot by its ID (e.g., "F1-R1-S1")
+    public ParkingSpot findSpotById(String spotId) {
+        long t0 = System.nanoTime();
+        try {
+            if (spotId == null) {
+                return null;
+            }
+            return spotsById.get(spotId);
+        } finally {
+            findSpotByIdLatency.recordSince(t0);
+        }
+    }
+
+    // Get all available spots that a specific vehicle can park in
+    // (in lot order; only the free spots are visited, see FreeSpotIndex)
+    public synchronized ArrayList<ParkingSpot> getAvailableSpotsForVehicle(Vehicle vehicle) {
+        long t0 = System.nanoTime();
+        try {
+            return freeSpots.list(vehicle, null);
+        } finally {
+            availableSpotsLatency.recordSince(t0);
+        }
+    }
+
+    // Get all available spots of a specific type (helper method)
+    public synchronized ArrayList<ParkingSpot> getAvailableSpotsByType(SpotType type) {
+        long t0 = System.nanoTime();
+        try {
+            return freeSpots.list(null, type);
+        } finally {
+            availableSpotsByTypeLatency.recordSince(t0);
+        }
+    }
+
+    // The first available spot (in lot order) the vehicle can park in, or null if there is none.
+    // Cheaper than getAvailableSpotsForVehicle() when any spot will do.
+    public synchronized ParkingSpot findAvailableSpot(Vehicle vehicle) {
+        long t0 = System.nanoTime();
+        try {
+            return freeSpots.first(vehicle);
+        } finally {
+            firstAvailableSpotLatency.recordSince(t0);
+        }
+    }
+
+    // ========== VEHICLE METHODS ==========
+    // Park a vehicle in a specific spot
+    // Returns false if the spot was taken in the meantime (e.g. by another gate)
+    // or if a vehicle with the same plate is already parked
+    public synchronized boolean parkVehicle(Vehicle vehicle, ParkingSpot spot) {
+        String key = plateKey(vehicle.getLicensePlate());
+        if (!spot.isAvailable() || parkedByPlate.containsKey(key)) {
+            return false;
+        }
+        spot.occupy(vehicle);
+        freeSpots.occupied(spot);
+        vehicle.setSpotId(spot.getSpotId());
+        vehicles.add(vehicle); // Add to history list
+        parkedByPlate.put(key, vehicle);
+        if (logging) {
+            System.out.println(logPrefix + "Vehicle " + vehicle.getLicensePlate() + " parked at " + spot.getSpotId());
+        }
+        for (DataListener l : listeners) {
+            l.vehicleParked(vehicle, spot);
+        }
+        return true;
+    }
+
+    // Remove a vehicle from its spot (when exiting)
+    public synchronized void removeVehicle(String plate) {
+        // The index still holds the vehicle even if its exit time was already set
+        Vehicle v = parkedByPlate.remove(plateKey(plate));
+
+        if (v != null) {
+            ParkingSpot spot = findSpotById(v.getSpotId());
+            if (spot != null) {
+                spot.release(); 
+                freeSpots.released(spot);
+            }
+            vehicles.remove(v); 
+            if (logging) {
+                System.out.println(logPrefix + "Vehicle " + plate + " removed and spot released.");
+            }
+            for (DataListener l : listeners) {
+                l.vehicleRemoved(v, spot);
+            }
+        } else if (logging) {
+            System.out.println(logPrefix + "Error - Could not find vehicle " + plate + " to remove.");
+        }
+    }
+
+    // Find a currently parked vehicle by license plate
+    public Vehicle findVehicleByPlate(String licensePlate) {
+        long t0 = System.nanoTime();
+        try {
+            if (licensePlate == null) {
+                return null;
+            }
+            Vehicle v = parkedByPlate.get(plateKey(licensePlate));
+            // Ensure vehicle hasn't exited yet (exitTime is null)
+            if (v != null && v.getExitTime() == null) {
+                return v;
+            }
+            return null;
+        } finally {
+            findVehicleLatency.recordSince(t0);
+        }
+    }
+
+    // Call after changing a parked vehicle's entry time (or other details) so listeners can catch up
+    public synchronized void vehicleChanged(Vehicle vehicle) {
+        if (parkedByPlate.get(plateKey(vehicle.getLicensePlate())) != vehicle) {
+            return;
+        }
+        for (DataListener l : listeners) {
+            l.vehicleChanged(vehicle);
+        }
+    }
+
+    // Sets a parked vehicle's entry time to corrected and tells the listeners, if it is still
+    // parked here with entry time expected. False if it left or its entry time changed meanwhile.
+    public synchronized boolean moveEntryTime(Vehicle vehicle, LocalDateTime expected, LocalDateTime corrected) {
+        if (parkedByPlate.get(plateKey(vehicle.getLicensePlate())) != vehicle
+                || !expected.equals(vehicle.getEntryTime())) {
+            return false;
+        }
+        vehicle.setEntryTime(corrected);
+        for (DataListener l : listeners) {
+            l.vehicleChanged(vehicle);
+        }
+        return true;
+    }
+
+    // Get all vehicles (both currently parked and historical)
+    public ArrayList<Vehicle> getVehicles() {
+        return vehicles;
+    }
+
+    // Get only currently parked vehicles
+    public synchronized ArrayList<Vehicle> getAllParkedVehicles() {
+        long t0 = System.nanoTime();
+        try {
+            ArrayList<Vehicle> parked = new ArrayList<>();
+            for (Vehicle v : vehicles) {
+                if (v.getExitTime() == null) {
+                    parked.add(v);
+                }
+            }
+            return parked;
+        } finally {
+            parkedVehiclesLatency.recordSince(t0);
+        }
+    }
+
+    // ========== TICKET METHODS ==========
+    public synchronized void addTicket(Ticket ticket) {
+        tickets.add(ticket);
+        latestTicketByPlate.put(plateKey(ticket.getLicensePlate()), ticket);
+        for (DataListener l : listeners) {
+            l.ticketAdded(ticket);
+        }
+    }
+
+    public ArrayList<Ticket> getTickets() {
+        return tickets;
+    }
+
+    // Find the most recent ticket for a license plate
+    public Ticket findTicketByPlate(String licensePlate) {
+        long t0 = System.nanoTime();
+        try {
+            if (licensePlate == null) {
+                return null;
+            }
+            return latestTicketByPlate.get(plateKey(licensePlate));
+        } finally {
+            findTicketLatency.recordSince(t0);
+        }
+    }
+
+    // ========== PAYMENT METHODS ==========
+    public synchronized void addPayment(Payment payment) {
+        payments.add(payment);
+        if (payment.getIdempotencyKey() != null) {
+            committedPaymentKeys.add(payment.getIdempotencyKey());
+        }
+        for (DataListener l : listeners) {
+            l.paymentAdded(payment);
+        }
+    }
+
+    public ArrayList<Payment> getPayments() {
+        return payments;
+    }
+
+    // Get total revenue from all payments
+    public synchronized double getTotalRevenue() {
+        long t0 = System.nanoTime();
+        try {
+            double total = 0;
+            for (Payment p : payments) {
+                total += p.getTotalAmount();
+            }
+            return total;
+        } finally {
+            totalRevenueLatency.recordSince(t0);
+        }
+    }
+
+    // Records a complete exit in one step: sets the exit time, saves the payment,
+    // frees the spot and settles the fines. Nothing is changed (returns false) if the
+    // vehicle is no longer parked, changed since the bill was calculated, or the
+    // payment's idempotency key was already committed.
+    public synchronized boolean commitExit(Vehicle vehicle, int expectedVersion, Payment payment) {
+        long t0 = System.nanoTime();
+        try {
+            String plate = vehicle.getLicensePlate();
+            if (parkedByPlate.get(plateKey(plate)) != vehicle
+                    || vehicle.getExitTime() != null
+                    || vehicle.getVersion() != expectedVersion) {
+                return false;
+            }
+            // A retried payment with a key that was already committed must not be recorded twice
+            String key = payment.getIdempotencyKey();
+            if (key != null && !committedPaymentKeys.add(key)) {
+                return false;
+            }
+            vehicle.setExitTime(payment.getExitTime());
+            addPayment(payment);
+            removeVehicle(plate);
+            markFinesPaid(plate);
+            return true;
+        } finally {
+            commitExitLatency.recordSince(t0);
+        }
+    }
+
+    // ========== FINE METHODS ==========
+    public synchronized void addFine(Fine fine) {
+        fines.add(fine);
+        if (!fine.isPaid()) {
+            String key = plateKey(fine.getLicensePlate());
+            unpaidFineTotals.merge(key, fine.getAmount(), Double::sum);
+            unpaidFinesByPlate.computeIfAbsent(key, k -> new ArrayList<>()).add(fine);
+            // Fines of a parking session (nightly assessment) are found by their ticket
+            if (fine.getTicketId() != null) {
+                assessedFineByTicket.putIfAbsent(fine.getTicketId(), fine);
+            }
+            // A parked vehicle now owes more - any bill already calculated for it is out of date
+            Vehicle parked = parkedByPlate.get(key);
+            if (parked != null) {
+                parked.markChanged();
+            }
+        }
+        for (DataListener l : listeners) {
+            l.fineAdded(fine);
+        }
+    }
+
+    public ArrayList<Fine> getFines() {
+        return fines;
+    }
+
+    // Get unpaid fines for a specific license plate
+    public synchronized ArrayList<Fine> getUnpaidFines(String licensePlate) {
+        long t0 = System.nanoTime();
+        try {
+            ArrayList<Fine> unpaid = unpaidFinesByPlate.get(plateKey(licensePlate));
+            return unpaid != null ? new ArrayList<>(unpaid) : new ArrayList<>();
+        } finally {
+            unpaidFinesLatency.recordSince(t0);
+        }
+    }
+
+    // Get total unpaid fine amount for a license plate
+    public double getUnpaidFineTotal(String licensePlate) {
+        long t0 = System.nanoTime();
+        try {
+            if (licensePlate == null) {
+                return 0.0;
+            }
+            return unpaidFineTotals.getOrDefault(plateKey(licensePlate), 0.0);
+        } finally {
+            unpaidFineTotalLatency.recordSince(t0);
+        }
+    }
+
+    // Mark all fines for a license plate as paid
+    public synchronized void markFinesPaid(String licensePlate) {
+        String key = plateKey(licensePlate);
+        ArrayList<Fine> unpaid = unpaidFinesByPlate.remove(key);
+        if (unpaid != null) {
+            for (Fine f : unpaid) {
+                f.setPaid(true);
+                if (f.getTicketId() != null) {
+                    assessedFineByTicket.remove(f.getTicketId(), f);
+                }
+                for (DataListener l : listeners) {
+                    l.fineChanged(f, f.getAmount(), false);
+                }
+            }
+        }
+        unpaidFineTotals.remove(key);
+    }
+
+    // Unpaid fine already issued for a parking session by the nightly assessment (0 if none).
+    // The exit bill charges the session's fine itself, so it leaves this amount out.
+    public double getAssessedFine(String ticketId) {
+        long t0 = System.nanoTime();
+        try {
+            if (ticketId == null) {
+                return 0.0;
+            }
+            Fine f = assessedFineByTicket.get(ticketId);
+            return f != null ? f.getAmount() : 0.0;
+        } finally {
+            assessedFineLatency.recordSince(t0);
+        }
+    }
+
+    // Issues or updates the unpaid fine of each parked session, keyed by ticket ID, so
+    // running the assessment again with the same amounts changes nothing.
+    // Returns {fines issued, fines updated}.
+    public synchronized int[] upsertSessionFines(String[] plates, String[] ticketIds, double[] amounts,
+                                                        int count, String reason) {
+        int issued = 0;
+        int updated = 0;
+        for (int i = 0; i < count; i++) {
+            String key = plateKey(plates[i]);
+            Vehicle parked = parkedByPlate.get(key);
+            if (parked == null) {
+                continue; // left while the job was running
+            }
+            Fine existing = assessedFineByTicket.get(ticketIds[i]);
+            if (existing == null) {
+                if (amounts[i] <= 0) {
+                    continue;
+                }
+                Fine fine = new Fine(plates[i], amounts[i], reason, ticketIds[i]);
+                addFine(fine);
+                issued++;
+            } else if (existing.getAmount() != amounts[i]) {
+                double oldAmount = existing.getAmount();
+                unpaidFineTotals.merge(key, amounts[i] - oldAmount, Double::sum);
+                existing.setAmount(amounts[i]);
+                parked.markChanged();
+                updated++;
+                for (DataListener l : listeners) {
+                    l.fineChanged(existing, oldAmount, false);
+                }
+            }
+        }
+        return new int[]{issued, updated};
+    }
+
+    // Get all unpaid fines across all vehicles (for Admin Report)
+    public synchronized ArrayList<Fine> getAllUnpaidFines() {
+        long t0 = System.nanoTime();
+        try {
+            ArrayList<Fine> unpaid = new ArrayList<>();
+            for (Fine f : fines) {
+                if (!f.isPaid()) {
+                    unpaid.add(f);
+                }
+            }
+            return unpaid;
+        } finally {
+            allUnpaidFinesLatency.recordSince(t0);
+        }
+    }
+
+    // ========== RECONCILIATION ==========
+    // Copies the tickets, payments and fines in one step, so nothing is half-recorded
+    // in the copy (e.g. an exit with its payment but not yet its settled fines)
+    public synchronized LedgerSnapshot snapshotLedger() {
+        long t0 = System.nanoTime();
+        try {
+            double[] fineAmounts = new double[fines.size()];
+            boolean[] finePaid = new boolean[fines.size()];
+            for (int i = 0; i < fines.size(); i++) {
+                Fine f = fines.get(i);
+                fineAmounts[i] = f.getAmount();
+                finePaid[i] = f.isPaid();
+            }
+            HashSet<String> open = new HashSet<>();
+            for (String key : parkedByPlate.keySet()) {
+                Ticket t = latestTicketByPlate.get(key);
+                if (t != null) {
+                    open.add(t.getTicketId());
+                }
+            }
+            return new LedgerSnapshot(new ArrayList<>(tickets), new ArrayList<>(payments), new ArrayList<>(fines),
+                    fineAmounts, finePaid, open);
+        } finally {
+            snapshotLedgerLatency.recordSince(t0);
+        }
+    }
+
+    // ========== EXPORT ==========
+    // Exports read the history in chunks, so they never hold the lock for long and
+    // never copy the whole list. Each copies up to into.length records starting at
+    // index from and returns how many it copied (0 at the end of the list).
+
+    public synchronized int copyTickets(int from, Ticket[] into) {
+        int n = Math.max(0, Math.min(into.length, tickets.size() - from));
+        for (int i = 0; i < n; i++) {
+            into[i] = tickets.get(from + i);
+        }
+        return n;
+    }
+
+    public synchronized int copyPayments(int from, Payment[] into) {
+        int n = Math.max(0, Math.min(into.length, payments.size() - from));
+        for (int i = 0; i < n; i++) {
+            into[i] = payments.get(from + i);
+        }
+        return n;
+    }
+
+    // Fines can still change, so their amount and paid flag are copied too
+    public synchronized int copyFines(int from, Fine[] into, double[] amounts, boolean[] paid) {
+        int n = Math.max(0, Math.min(into.length, fines.size() - from));
+        for (int i = 0; i < n; i++) {
+            Fine f = fines.get(from + i);
+            into[i] = f;
+            amounts[i] = f.getAmount();
+            paid[i] = f.isPaid();
+        }
+        return n;
+    }
+
+    // ========== FINE STRATEGY METHODS ==========
+    public FineStrategy getActiveFineStrategy() {
+        return activeFineStrategy;
+    }
+
+    public void setActiveFineStrategy(FineStrategy strategy) {
+        FineStrategyChangeEvent event = new FineStrategyChangeEvent();
+        event.begin();
+        FineStrategy previous = activeFineStrategy;
+        activeFineStrategy = strategy;
+        event.end();
+        if (event.shouldCommit()) {
+            event.previousScheme = previous.getSchemeName();
+            event.newScheme = strategy.getSchemeName();
+            event.parkedVehicles = parkedByPlate.size();
+            event.commit();
+        }
+    }
+
+    public String getActiveFineSchemeName() {
+        return activeFineStrategy.getSchemeName();
+    }
+
+    // ========== TARIFF METHODS ==========
+    public CompiledTariff getActiveTariff() {
+        return activeTariff;
+    }
+
+    public void setActiveTariff(CompiledTariff tariff) {
+        activeTariff = tariff;
+    }
+
+    // ========== REPORTING HELPER METHODS ==========
+    // Get occupancy rate as a percentage
+    public synchronized double getOccupancyRate() {
+        long t0 = System.nanoTime();
+        try {
+            int total = freeSpots.getSpotCount();
+            if (total == 0) {
+                return 0.0;
+            }
+            int occupied = total - freeSpots.getFreeCount();
+            return (occupied * 100.0) / total;
+        } finally {
+            occupancyRateLatency.recordSince(t0);
+        }
+    }
+
+    // Free spots of one type (for cross-lot searches)
+    public synchronized int getAvailableCount(SpotType type) {
+        return freeSpots.getFreeCount(type);
+    }
+
+    public synchronized int getPaymentCount() {
+        return payments.size();
+    }
+
+    public synchronized int getTotalSpots() {
+        return parkingLot.getTotalSpots();
+    }
+
+    public synchronized int getTotalOccupied() {
+        long t0 = System.nanoTime();
+        try {
+            return freeSpots.getSpotCount() - freeSpots.getFreeCount();
+        } finally {
+            totalOccupiedLatency.recordSince(t0);
+        }
+    }
+
+    // Plates are matched ignoring case everywhere, so the indexes use upper case keys
+    private static String plateKey(String licensePlate) {
+        return licensePlate.toUpperCase();
+    }
+}
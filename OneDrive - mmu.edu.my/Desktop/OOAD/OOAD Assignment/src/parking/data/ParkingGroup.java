@@ -0,0 +1,154 @@
+package parking.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import parking.model.SpotType;
+
+/**
+ * ParkingGroup - Every parking lot (site) this process serves, one LotPartition
+ * each, found by lot ID. Gates and services work on one lot at a time:
+ *
+ *     LotPartition lot = DataCenter.getGroup().getLot("KL-SENTRAL");
+ *     EntryService entry = new EntryService(lot);
+ *
+ * Questions about the whole group (the nearest lot with a free spot, revenue of
+ * all lots) ask every lot at the same time, each on its own virtual thread and
+ * under its own lock only, and merge the answers. No lock is shared between
+ * lots, so adding lots adds throughput.
+ *
+ * Thread safe. Lots can be added while the group is in use; they are never removed.
+ */
+public class ParkingGroup {
+
+    // Mean radius of the earth, for the distance between two lots
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final ConcurrentHashMap<String, LotPartition> lotsById = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<LotPartition> lots = new CopyOnWriteArrayList<>(); // in the order added
+
+    // One virtual thread per lot and question; they keep no thread alive when idle
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+    // The nearest lot with a free spot of the wanted type
+    public record NearestLot(LotPartition lot, double distanceKm, int freeSpots) {
+    }
+
+    // Revenue of every lot (in the order the lots were added) and of the group
+    public record GroupRevenue(double total, int payments, Map<String, Double> byLot) {
+    }
+
+    // ========== LOTS ==========
+
+    // Creates a lot with the default mix of spot types and adds it to the group
+    public LotPartition addLot(String lotId, String name, double latitude, double longitude,
+                               int floors, int rowsPerFloor, int spotsPerRow) {
+        return addLot(new LotPartition(lotId, name, latitude, longitude, floors, rowsPerFloor, spotsPerRow));
+    }
+
+    public synchronized LotPartition addLot(LotPartition lot) {
+        if (lotsById.putIfAbsent(lot.getLotId(), lot) != null) {
+            throw new IllegalArgumentException("Lot already exists: " + lot.getLotId());
+        }
+        lots.add(lot);
+        return lot;
+    }
+
+    // The lot with this ID; throws if there is none
+    public LotPartition getLot(String lotId) {
+        LotPartition lot = findLot(lotId);
+        if (lot == null) {
+            throw new IllegalArgumentException("Unknown lot: " + lotId);
+        }
+        return lot;
+    }
+
+    // The lot with this ID, or null
+    public LotPartition findLot(String lotId) {
+        return lotId == null ? null : lotsById.get(lotId);
+    }
+
+    public List<LotPartition> getLots() {
+        return new ArrayList<>(lots);
+    }
+
+    public int getLotCount() {
+        return lots.size();
+    }
+
+    // ========== CROSS-LOT QUERIES ==========
+
+    // The lot nearest to (latitude, longitude) with at least one free spot of the type,
+    // or null if every lot is full for it. Ties go to the lot added first.
+    public NearestLot findNearestLotWithFreeSpot(SpotType type, double latitude, double longitude) {
+        List<LotPartition> all = getLots();
+        List<Integer> free = askEveryLot(all, lot -> lot.getAvailableCount(type));
+        NearestLot nearest = null;
+        for (int i = 0; i < all.size(); i++) {
+            if (free.get(i) == 0) {
+                continue;
+            }
+            LotPartition lot = all.get(i);
+            double km = distanceKm(latitude, longitude, lot.getLatitude(), lot.getLongitude());
+            if (nearest == null || km < nearest.distanceKm()) {
+                nearest = new NearestLot(lot, km, free.get(i));
+            }
+        }
+        return nearest;
+    }
+
+    // Total revenue and number of payments of every lot and of the whole group
+    public GroupRevenue getGroupRevenue() {
+        List<LotPartition> all = getLots();
+        // Each lot adds up its revenue and counts its payments under one lock
+        List<double[]> perLot = askEveryLot(all, lot -> {
+            synchronized (lot) {
+                return new double[]{lot.getTotalRevenue(), lot.getPaymentCount()};
+            }
+        });
+        double total = 0;
+        int payments = 0;
+        LinkedHashMap<String, Double> byLot = new LinkedHashMap<>();
+        for (int i = 0; i < all.size(); i++) {
+            double[] r = perLot.get(i);
+            total += r[0];
+            payments += (int) r[1];
+            byLot.put(all.get(i).getLotId(), r[0]);
+        }
+        return new GroupRevenue(total, payments, byLot);
+    }
+
+    // Runs the query on every lot at once; the answers are in the order of lots
+    private <T> List<T> askEveryLot(List<LotPartition> lots, Function<LotPartition, T> query) {
+        ArrayList<T> answers = new ArrayList<>(lots.size());
+        if (lots.size() == 1) {
+            answers.add(query.apply(lots.get(0))); // nothing to run in parallel
+            return answers;
+        }
+        ArrayList<CompletableFuture<T>> pending = new ArrayList<>(lots.size());
+        for (LotPartition lot : lots) {
+            pending.add(CompletableFuture.supplyAsync(() -> query.apply(lot), fanOut));
+        }
+        for (CompletableFuture<T> f : pending) {
+            answers.add(f.join());
+        }
+        return answers;
+    }
+
+    // Great-circle distance (haversine)
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
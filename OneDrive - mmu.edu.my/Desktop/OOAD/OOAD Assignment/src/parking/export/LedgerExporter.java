@@ -0,0 +1,420 @@
+package parking.export;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.model.Fine;
+import parking.model.Payment;
+import parking.model.PaymentMethod;
+import parking.model.Ticket;
+
+/**
+ * LedgerExporter - Writes the tickets, payments and fines to files: CSV for
+ * finance and spreadsheets, and a compact binary format for the full audit history.
+ *
+ * The history is read from the DataCenter CHUNK records at a time and every row is
+ * encoded straight into one reused direct buffer (see RowWriter), so an export
+ * takes the same small amount of memory for ten records or ten million and runs
+ * at about the speed of the disk. Each file is written under a temporary name and
+ * renamed when complete, so a reader never sees half a file. Records added during
+ * an export are included up to the point it reached; a reset ends it early.
+ *
+ * CSV: a header line, then one line per record. Times as yyyy-MM-dd HH:mm:ss,
+ * money with two decimals, text quoted only when it holds a comma, quote or line break.
+ *
+ * Binary: "PKLEDGER", a version byte, then one record per tag byte:
+ *   'T' ticketId plate spotId entryTime
+ *   'P' ticketId plate entryTime exitTime hours feeCents finesCents totalCents
+ *       method paymentTime idempotencyKey
+ *   'F' ticketId plate reason amountCents paid createdTime
+ *   'E' ticketCount paymentCount fineCount (last record of the file)
+ * Numbers are varints (zigzag for signed values). Strings: byte length + 1
+ * (0 = none), then UTF-8. Times: seconds since 1970-01-01T00:00 of the recorded
+ * local time (Long.MIN_VALUE = none). method: ordinal + 1 (0 = none). paid: 0/1.
+ *
+ * One export at a time per exporter; use several exporters to export in parallel.
+ */
+public class LedgerExporter {
+
+    public static final int CHUNK = 4096;
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+    public static final int BINARY_VERSION = 1;
+
+    private static final byte[] MAGIC = ascii("PKLEDGER");
+    private static final byte[] TICKET_HEADER = ascii("ticket_id,license_plate,spot_id,entry_time\n");
+    private static final byte[] PAYMENT_HEADER = ascii("ticket_id,license_plate,entry_time,exit_time,"
+            + "hours_parked,parking_fee,fines_paid,total_amount,payment_method,payment_time\n");
+    private static final byte[] FINE_HEADER = ascii("ticket_id,license_plate,reason,amount,paid,created_time\n");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[][] METHOD_NAMES = methodNames();
+
+    // What one export wrote
+    public record Result(Path file, long records, long bytes, long elapsedNanos) {
+        @Override
+        public String toString() {
+            double ms = elapsedNanos / 1e6;
+            return String.format("%s: %d records, %.1f MB in %.0f ms (%.0f MB/s)", file.getFileName(), records,
+                    bytes / 1e6, ms, ms > 0 ? bytes / 1e3 / ms : 0.0);
+        }
+    }
+
+    private final RowWriter out;
+
+    // Reused for every chunk
+    private final Ticket[] ticketChunk = new Ticket[CHUNK];
+    private final Payment[] paymentChunk = new Payment[CHUNK];
+    private final Fine[] fineChunk = new Fine[CHUNK];
+    private final double[] fineAmounts = new double[CHUNK];
+    private final boolean[] finePaid = new boolean[CHUNK];
+
+    public LedgerExporter() {
+        this(DEFAULT_BUFFER_BYTES);
+    }
+
+    public LedgerExporter(int bufferBytes) {
+        out = new RowWriter(bufferBytes);
+    }
+
+    // ========== CSV ==========
+    // day: only the records of that day (tickets by entry time, payments by payment
+    // time, fines by creation time); null for all of them
+
+    public synchronized Result exportTicketsCsv(Path file, LocalDate day) throws IOException {
+        long start = System.nanoTime();
+        FileChannel channel = begin(file);
+        long records = 0;
+        try {
+            out.raw(TICKET_HEADER);
+            out.endRecord();
+            int from = 0, n;
+            while ((n = DataCenter.copyTickets(from, ticketChunk)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    Ticket t = ticketChunk[i];
+                    if (onDay(t.getEntryTime(), day)) {
+                        ticketCsv(t);
+                        records++;
+                    }
+                }
+                from += n;
+            }
+        } catch (IOException | RuntimeException e) {
+            abort(file, channel);
+            throw e;
+        } finally {
+            Arrays.fill(ticketChunk, null);
+        }
+        return end(file, channel, records, start);
+    }
+
+    public synchronized Result exportPaymentsCsv(Path file, LocalDate day) throws IOException {
+        long start = System.nanoTime();
+        FileChannel channel = begin(file);
+        long records = 0;
+        try {
+            out.raw(PAYMENT_HEADER);
+            out.endRecord();
+            int from = 0, n;
+            while ((n = DataCenter.copyPayments(from, paymentChunk)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    Payment p = paymentChunk[i];
+                    if (onDay(p.getPaymentTime(), day)) {
+                        paymentCsv(p);
+                        records++;
+                    }
+                }
+                from += n;
+            }
+        } catch (IOException | RuntimeException e) {
+            abort(file, channel);
+            throw e;
+        } finally {
+            Arrays.fill(paymentChunk, null);
+        }
+        return end(file, channel, records, start);
+    }
+
+    public synchronized Result exportFinesCsv(Path file, LocalDate day) throws IOException {
+        long start = System.nanoTime();
+        FileChannel channel = begin(file);
+        long records = 0;
+        try {
+            out.raw(FINE_HEADER);
+            out.endRecord();
+            int from = 0, n;
+            while ((n = DataCenter.copyFines(from, fineChunk, fineAmounts, finePaid)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    Fine f = fineChunk[i];
+                    if (onDay(f.getCreatedTime(), day)) {
+                        fineCsv(f, fineAmounts[i], finePaid[i]);
+                        records++;
+                    }
+                }
+                from += n;
+            }
+        } catch (IOException | RuntimeException e) {
+            abort(file, channel);
+            throw e;
+        } finally {
+            Arrays.fill(fineChunk, null);
+        }
+        return end(file, channel, records, start);
+    }
+
+    // ========== BINARY ==========
+
+    // The full history (all tickets, payments and fines) in one file
+    public synchronized Result exportBinary(Path file) throws IOException {
+        long start = System.nanoTime();
+        FileChannel channel = begin(file);
+        long tickets = 0, payments = 0, fines = 0;
+        try {
+            out.raw(MAGIC);
+            out.putByte(BINARY_VERSION);
+            out.endRecord();
+            int from = 0, n;
+            while ((n = DataCenter.copyTickets(from, ticketChunk)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    ticketBinary(ticketChunk[i]);
+                }
+                tickets += n;
+                from += n;
+            }
+            from = 0;
+            while ((n = DataCenter.copyPayments(from, paymentChunk)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    paymentBinary(paymentChunk[i]);
+                }
+                payments += n;
+                from += n;
+            }
+            from = 0;
+            while ((n = DataCenter.copyFines(from, fineChunk, fineAmounts, finePaid)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    fineBinary(fineChunk[i], fineAmounts[i], finePaid[i]);
+                }
+                fines += n;
+                from += n;
+            }
+            out.putByte('E');
+            out.varUnsigned(tickets);
+            out.varUnsigned(payments);
+            out.varUnsigned(fines);
+            out.endRecord();
+        } catch (IOException | RuntimeException e) {
+            abort(file, channel);
+            throw e;
+        } finally {
+            Arrays.fill(ticketChunk, null);
+            Arrays.fill(paymentChunk, null);
+            Arrays.fill(fineChunk, null);
+        }
+        return end(file, channel, tickets + payments + fines, start);
+    }
+
+    // ========== WHOLE EXPORTS ==========
+
+    // Full history into the folder: tickets.csv, payments.csv, fines.csv and ledger.bin
+    public synchronized List<Result> exportAll(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        ArrayList<Result> results = new ArrayList<>();
+        results.add(exportTicketsCsv(dir.resolve("tickets.csv"), null));
+        results.add(exportPaymentsCsv(dir.resolve("payments.csv"), null));
+        results.add(exportFinesCsv(dir.resolve("fines.csv"), null));
+        results.add(exportBinary(dir.resolve("ledger.bin")));
+        return results;
+    }
+
+    // One day's payments and fines into the folder (payments-yyyy-MM-dd.csv, fines-yyyy-MM-dd.csv)
+    public synchronized List<Result> exportDay(Path dir, LocalDate day) throws IOException {
+        Files.createDirectories(dir);
+        ArrayList<Result> results = new ArrayList<>();
+        results.add(exportPaymentsCsv(dir.resolve("payments-" + day + ".csv"), day));
+        results.add(exportFinesCsv(dir.resolve("fines-" + day + ".csv"), day));
+        return results;
+    }
+
+    // Exports the previous day every night just after (real) midnight, on a background thread.
+    // The day exported is the one before ParkingClock.today(). Call shutdown() on the result to stop it.
+    public ScheduledExecutorService scheduleDaily(Path dir) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "daily-export");
+            t.setDaemon(true);
+            return t;
+        });
+        // A minute past midnight, so payments made at 23:59:59 are in
+        long delay = ParkingClock.untilNextRealTime(LocalTime.of(0, 1)).toMillis();
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                for (Result r : exportDay(dir, ParkingClock.today().minusDays(1))) {
+                    System.out.println("LedgerExporter: " + r);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Keep the schedule alive; the next night tries again
+                System.err.println("LedgerExporter failed: " + e.getMessage());
+            }
+        }, delay, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    // ========== ROWS ==========
+
+    private void ticketCsv(Ticket t) throws IOException {
+        out.text(t.getTicketId());
+        out.comma();
+        out.text(t.getLicensePlate());
+        out.comma();
+        out.text(t.getSpotId());
+        out.comma();
+        out.dateTime(t.getEntryTime());
+        out.endRow();
+    }
+
+    private void paymentCsv(Payment p) throws IOException {
+        out.text(p.getTicketId());
+        out.comma();
+        out.text(p.getLicensePlate());
+        out.comma();
+        out.dateTime(p.getEntryTime());
+        out.comma();
+        out.dateTime(p.getExitTime());
+        out.comma();
+        out.number(p.getHoursParked());
+        out.comma();
+        out.money(cents(p.getParkingFee()));
+        out.comma();
+        out.money(cents(p.getFinesPaid()));
+        out.comma();
+        out.money(cents(p.getTotalAmount()));
+        out.comma();
+        if (p.getPaymentMethod() != null) {
+            out.raw(METHOD_NAMES[p.getPaymentMethod().ordinal()]);
+        }
+        out.comma();
+        out.dateTime(p.getPaymentTime());
+        out.endRow();
+    }
+
+    private void fineCsv(Fine f, double amount, boolean paid) throws IOException {
+        out.text(f.getTicketId());
+        out.comma();
+        out.text(f.getLicensePlate());
+        out.comma();
+        out.text(f.getReason());
+        out.comma();
+        out.money(cents(amount));
+        out.comma();
+        out.raw(paid ? TRUE : FALSE);
+        out.comma();
+        out.dateTime(f.getCreatedTime());
+        out.endRow();
+    }
+
+    private void ticketBinary(Ticket t) throws IOException {
+        out.putByte('T');
+        out.varString(t.getTicketId());
+        out.varString(t.getLicensePlate());
+        out.varString(t.getSpotId());
+        out.varTime(t.getEntryTime());
+        out.endRecord();
+    }
+
+    private void paymentBinary(Payment p) throws IOException {
+        out.putByte('P');
+        out.varString(p.getTicketId());
+        out.varString(p.getLicensePlate());
+        out.varTime(p.getEntryTime());
+        out.varTime(p.getExitTime());
+        out.varSigned(p.getHoursParked());
+        out.varSigned(cents(p.getParkingFee()));
+        out.varSigned(cents(p.getFinesPaid()));
+        out.varSigned(cents(p.getTotalAmount()));
+        out.varUnsigned(p.getPaymentMethod() != null ? p.getPaymentMethod().ordinal() + 1 : 0);
+        out.varTime(p.getPaymentTime());
+        out.varString(p.getIdempotencyKey());
+        out.endRecord();
+    }
+
+    private void fineBinary(Fine f, double amount, boolean paid) throws IOException {
+        out.putByte('F');
+        out.varString(f.getTicketId());
+        out.varString(f.getLicensePlate());
+        out.varString(f.getReason());
+        out.varSigned(cents(amount));
+        out.putByte(paid ? 1 : 0);
+        out.varTime(f.getCreatedTime());
+        out.endRecord();
+    }
+
+    // ========== FILES ==========
+
+    private FileChannel begin(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(partOf(file), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        out.open(channel);
+        return channel;
+    }
+
+    private Result end(Path file, FileChannel channel, long records, long start) throws IOException {
+        long bytes;
+        try (channel) {
+            bytes = out.finish();
+        } catch (IOException e) {
+            Files.deleteIfExists(partOf(file));
+            throw e;
+        }
+        Files.move(partOf(file), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Result(file, records, bytes, System.nanoTime() - start);
+    }
+
+    private void abort(Path file, FileChannel channel) {
+        try {
+            channel.close();
+            Files.deleteIfExists(partOf(file));
+        } catch (IOException e) {
+            // Already failing: the first error is the one to report
+        }
+    }
+
+    private static Path partOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".part");
+    }
+
+    // ========== HELPERS ==========
+
+    private static boolean onDay(LocalDateTime time, LocalDate day) {
+        return day == null || (time != null && time.toLocalDate().equals(day));
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] methodNames() {
+        PaymentMethod[] methods = PaymentMethod.values();
+        byte[][] names = new byte[methods.length][];
+        for (int i = 0; i < methods.length; i++) {
+            names[i] = ascii(methods[i].name());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,304 @@
+package parking.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * RowWriter - Encodes one row at a time into a small byte array, copies each
+ * finished row into a direct ByteBuffer in one step, and writes the buffer to a
+ * FileChannel whenever it fills up.
+ *
+ * Numbers, money, times and text are turned into bytes here, digit by digit, so
+ * writing a row creates no Strings or other garbage. Both arrays are allocated once
+ * and reused for every file (see LedgerExporter). Plain array stores per byte and
+ * one bulk copy per row are much cheaper than a buffer put() per byte, and the
+ * direct buffer goes to the file without another copy. Not thread safe.
+ */
+final class RowWriter {
+
+    // Marks a missing time in the binary format
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private final ByteBuffer buf;
+    private byte[] row = new byte[512]; // the row being encoded; grows for very long rows
+    private int len;
+    private char[] chars = new char[128];
+    private final byte[] digits = new byte[20];
+    private FileChannel channel;
+    private long written;
+
+    RowWriter(int capacity) {
+        buf = ByteBuffer.allocateDirect(Math.max(capacity, 4096));
+    }
+
+    void open(FileChannel channel) {
+        this.channel = channel;
+        buf.clear();
+        len = 0;
+        written = 0;
+    }
+
+    // Writes what is still buffered; returns the bytes written to the file in total
+    long finish() throws IOException {
+        endRecord();
+        flush();
+        channel = null;
+        return written;
+    }
+
+    // Moves the finished row into the buffer (CSV rows do this in endRow())
+    void endRecord() throws IOException {
+        int off = 0;
+        while (off < len) {
+            if (!buf.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(buf.remaining(), len - off);
+            buf.put(row, off, n);
+            off += n;
+        }
+        len = 0;
+    }
+
+    private void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            written += channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    // Room for this many more bytes in the row
+    private void room(int bytes) {
+        if (len + bytes > row.length) {
+            byte[] bigger = new byte[Math.max(row.length * 2, len + bytes)];
+            System.arraycopy(row, 0, bigger, 0, len);
+            row = bigger;
+        }
+    }
+
+    // Bytes as they are (headers, constants)
+    void raw(byte[] bytes) {
+        room(bytes.length);
+        System.arraycopy(bytes, 0, row, len, bytes.length);
+        len += bytes.length;
+    }
+
+    // ========== CSV ==========
+
+    void comma() {
+        room(1);
+        row[len++] = ',';
+    }
+
+    void endRow() throws IOException {
+        room(1);
+        row[len++] = '\n';
+        endRecord();
+    }
+
+    // Text field, quoted only when it holds a comma, quote or line break (null = empty)
+    void text(String s) {
+        if (s == null || ascii(s, true)) {
+            return; // plain ASCII: already copied
+        }
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) {
+            room(1);
+            row[len++] = '"';
+            utf8(s, true);
+            room(1);
+            row[len++] = '"';
+        } else {
+            utf8(s, false);
+        }
+    }
+
+    // Whole number in decimal
+    void number(long v) {
+        room(20);
+        if (v < 0) {
+            row[len++] = '-';
+        } else {
+            v = -v; // count in negatives, so Long.MIN_VALUE works too
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' - v % 10);
+            v /= 10;
+        } while (v != 0);
+        while (n > 0) {
+            row[len++] = digits[--n];
+        }
+    }
+
+    // Amount in cents as 12.34
+    void money(long cents) {
+        room(1);
+        if (cents < 0) {
+            row[len++] = '-';
+            cents = -cents;
+        }
+        number(cents / 100);
+        room(3);
+        int c = (int) (cents % 100);
+        row[len++] = '.';
+        row[len++] = (byte) ('0' + c / 10);
+        row[len++] = (byte) ('0' + c % 10);
+    }
+
+    // yyyy-MM-dd HH:mm:ss (null = empty)
+    void dateTime(LocalDateTime t) {
+        if (t == null) {
+            return;
+        }
+        int year = t.getYear();
+        if (year >= 0 && year <= 9999) {
+            room(4);
+            two(year / 100);
+            two(year % 100);
+        } else {
+            number(year);
+        }
+        room(15);
+        row[len++] = '-';
+        two(t.getMonthValue());
+        row[len++] = '-';
+        two(t.getDayOfMonth());
+        row[len++] = ' ';
+        two(t.getHour());
+        row[len++] = ':';
+        two(t.getMinute());
+        row[len++] = ':';
+        two(t.getSecond());
+    }
+
+    private void two(int v) {
+        row[len++] = (byte) ('0' + v / 10);
+        row[len++] = (byte) ('0' + v % 10);
+    }
+
+    // ========== BINARY ==========
+
+    void putByte(int b) {
+        room(1);
+        row[len++] = (byte) b;
+    }
+
+    // Unsigned varint: 7 bits per byte, high bit set on all but the last
+    void varUnsigned(long v) {
+        room(10);
+        while ((v & ~0x7FL) != 0) {
+            row[len++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        row[len++] = (byte) v;
+    }
+
+    // Signed varint (zigzag, so small negative numbers stay short)
+    void varSigned(long v) {
+        varUnsigned((v << 1) ^ (v >> 63));
+    }
+
+    // Byte length + 1 (0 = null), then the UTF-8 bytes
+    void varString(String s) {
+        if (s == null) {
+            varUnsigned(0);
+            return;
+        }
+        int start = len;
+        varUnsigned(s.length() + 1L); // right if the text is plain ASCII
+        if (!ascii(s, false)) {
+            len = start;
+            varUnsigned(utf8Length(s) + 1L);
+            utf8(s, false);
+        }
+    }
+
+    // Seconds since 1970-01-01T00:00 of the recorded (local) time, NO_TIME for null
+    void varTime(LocalDateTime t) {
+        varSigned(t != null ? t.toEpochSecond(ZoneOffset.UTC) : NO_TIME);
+    }
+
+    // ========== TEXT ==========
+
+    // Copies the text if it is plain ASCII (and, for CSV, needs no quotes); false = nothing written
+    private boolean ascii(String s, boolean csv) {
+        int n = s.length();
+        if (n > chars.length) {
+            chars = new char[Math.max(n, chars.length * 2)];
+        }
+        s.getChars(0, n, chars, 0);
+        room(n);
+        byte[] r = row;
+        int at = len;
+        for (int i = 0; i < n; i++) {
+            char c = chars[i];
+            if (c >= 0x80 || (csv && (c == ',' || c == '"' || c == '\n' || c == '\r'))) {
+                return false;
+            }
+            r[at + i] = (byte) c;
+        }
+        len = at + n;
+        return true;
+    }
+
+    // UTF-8 bytes of the text; doubles quotes when writing inside a quoted CSV field
+    private void utf8(String s, boolean escapeQuotes) {
+        for (int i = 0; i < s.length(); i++) {
+            room(4);
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (escapeQuotes && c == '"') {
+                    row[len++] = '"';
+                }
+                row[len++] = (byte) c;
+            } else if (c < 0x800) {
+                row[len++] = (byte) (0xC0 | (c >> 6));
+                row[len++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                row[len++] = (byte) (0xF0 | (cp >> 18));
+                row[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                row[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                row[len++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                row[len++] = '?'; // half of a pair: not valid text
+            } else {
+                row[len++] = (byte) (0xE0 | (c >> 12));
+                row[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                row[len++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    // Bytes utf8() writes for the text (without quote escaping)
+    private static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,36 @@
+package parking.gate;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * BufferPool - Direct buffers of one size, reused from connection to connection
+ * so a gate reconnecting all day does not allocate (and later free) native
+ * memory each time. Keeps at most maxPooled idle buffers.
+ *
+ * Not thread safe: only used by the GateServer's selector thread.
+ */
+class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<>();
+
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    // An empty buffer, ready to be filled
+    ByteBuffer acquire() {
+        ByteBuffer buffer = idle.pollFirst();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buffer) {
+        if (buffer != null && idle.size() < maxPooled) {
+            buffer.clear();
+            idle.addFirst(buffer);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package parking.gate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import parking.model.PaymentMethod;
+import parking.model.VehicleType;
+
+/**
+ * GateClient - A blocking client for the gate protocol, as a barrier
+ * controller would use it (and the load test does). Requests are queued and
+ * sent together by flush(), so any number of them can be in flight; read()
+ * returns the answers as they arrive, matched by request id.
+ *
+ *     GateClient gate = new GateClient(new InetSocketAddress("127.0.0.1", 9090));
+ *     int id = gate.entry("ABC123", VehicleType.CAR, false);
+ *     gate.flush();
+ *     GateClient.Response r = gate.read();   // r.requestId() == id, r.text() is the spot
+ *
+ * One thread per client.
+ */
+public class GateClient implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE); // fill mode
+    private final byte[] text = new byte[GateProtocol.MAX_STRING];
+    private int nextRequestId = 1;
+    private int frameStart; // of the request being written
+
+    /**
+     * One answer. type is the request type it answers (or ERROR), status one of
+     * the GateProtocol status codes. The other fields depend on the type and are
+     * only set when the status is OK: text is the spot ID (ENTRY) or the token
+     * (EXIT_QUOTE); amounts are cents (PAY_EXIT: total is the amount charged).
+     */
+    public record Response(byte type, int requestId, byte status, String text,
+                           long minutes, long hours, long fee, long fine, long unpaidFines, long total,
+                           long spots, long occupied) {
+
+        public boolean isOk() {
+            return status == GateProtocol.OK;
+        }
+    }
+
+    public GateClient(InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    // ========== REQUESTS (sent by flush) ==========
+
+    public int heartbeat() throws IOException {
+        int id = begin(GateProtocol.HEARTBEAT);
+        return end(id);
+    }
+
+    public int entry(String plate, VehicleType type, boolean vip) throws IOException {
+        int id = begin(GateProtocol.ENTRY);
+        out.put((byte) type.ordinal());
+        out.put(vip ? GateProtocol.VIP_FLAG : 0);
+        GateProtocol.putString(out, plate);
+        return end(id);
+    }
+
+    public int quote(String plate) throws IOException {
+        int id = begin(GateProtocol.EXIT_QUOTE);
+        GateProtocol.putString(out, plate);
+        return end(id);
+    }
+
+    public int payExit(String token, PaymentMethod method) throws IOException {
+        int id = begin(GateProtocol.PAY_EXIT);
+        out.put((byte) method.ordinal());
+        GateProtocol.putString(out, token);
+        return end(id);
+    }
+
+    private int begin(byte type) throws IOException {
+        if (out.remaining() < GateProtocol.MAX_FRAME) {
+            flush();
+        }
+        int id = nextRequestId++;
+        frameStart = GateProtocol.beginFrame(out, type, id);
+        return id;
+    }
+
+    private int end(int id) {
+        GateProtocol.endFrame(out, frameStart);
+        return id;
+    }
+
+    // Sends every queued request
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    // ========== ANSWERS ==========
+
+    // The next answer (blocks until it has arrived)
+    public Response read() throws IOException {
+        while (!hasFrame()) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Gate server closed the connection");
+            }
+        }
+        in.flip();
+        int length = in.getShort() & 0xFFFF;
+        int end = in.position() + length;
+        byte type = in.get();
+        int requestId = in.getInt();
+        byte status = in.get();
+        String s = null;
+        long minutes = 0, hours = 0, fee = 0, fine = 0, unpaid = 0, total = 0, spots = 0, occupied = 0;
+        byte requestType = type == GateProtocol.ERROR ? type : (byte) (type & ~GateProtocol.RESPONSE);
+        if (status == GateProtocol.OK) {
+            switch (requestType) {
+                case GateProtocol.HEARTBEAT:
+                    spots = GateProtocol.unsigned(in.getInt());
+                    occupied = GateProtocol.unsigned(in.getInt());
+                    break;
+                case GateProtocol.ENTRY:
+                    s = readString();
+                    break;
+                case GateProtocol.EXIT_QUOTE:
+                    s = readString();
+                    minutes = GateProtocol.unsigned(in.getInt());
+                    hours = GateProtocol.unsigned(in.getInt());
+                    fee = GateProtocol.unsigned(in.getInt());
+                    fine = GateProtocol.unsigned(in.getInt());
+                    unpaid = GateProtocol.unsigned(in.getInt());
+                    total = GateProtocol.unsigned(in.getInt());
+                    break;
+                case GateProtocol.PAY_EXIT:
+                    total = GateProtocol.unsigned(in.getInt());
+                    break;
+                default:
+                    break;
+            }
+        }
+        in.position(end);
+        in.compact();
+        return new Response(requestType, requestId, status, s, minutes, hours, fee, fine, unpaid, total,
+                spots, occupied);
+    }
+
+    private boolean hasFrame() {
+        return in.position() >= 2 && in.position() >= 2 + (in.getShort(0) & 0xFFFF);
+    }
+
+    private String readString() {
+        int length = in.get() & 0xFF;
+        in.get(text, 0, length);
+        return new String(text, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,118 @@
+package parking.gate;
+
+import java.nio.ByteBuffer;
+
+/**
+ * GateProtocol - The binary protocol spoken by barrier controllers and plate
+ * readers (GateServer / GateClient). Every message is one frame, big-endian:
+ *
+ *   u16 length      bytes after this field (type + request id + payload)
+ *   u8  type        request type, or request type | 0x80 for its response
+ *   u32 requestId   chosen by the client, copied into the response
+ *   ...payload
+ *
+ * A connection may send many requests without waiting (pipelining); the
+ * responses carry the request id, and a payment's response can overtake the
+ * responses of requests sent after it. Strings (plates, spot IDs, tokens) are
+ * u8 length + ASCII bytes. Amounts are u32 cents (RM 12.50 = 1250).
+ *
+ *   HEARTBEAT   request:  (nothing)
+ *               response: u8 status, u32 spots, u32 occupied
+ *   ENTRY       request:  u8 vehicleType (VehicleType ordinal), u8 flags (bit 0 = VIP), str plate
+ *               response: u8 status, str spotId
+ *   EXIT_QUOTE  request:  str plate
+ *               response: u8 status, str token, u32 minutes, u32 hours,
+ *                         u32 fee, u32 fine, u32 unpaidFines, u32 total
+ *   PAY_EXIT    request:  u8 method (PaymentMethod ordinal), str token
+ *               response: u8 status, u32 amount charged
+ *
+ * Every response payload starts with a status byte; the fields after it are
+ * only sent with OK. A request the server cannot read gets an ERROR response
+ * (type 0xFF) with BAD_REQUEST; a frame longer than MAX_FRAME closes the
+ * connection.
+ */
+public final class GateProtocol {
+
+    private GateProtocol() {
+    }
+
+    // Length field + type + request id
+    public static final int HEADER_SIZE = 7;
+    // Largest frame (including the length field) either side may send
+    public static final int MAX_FRAME = 256;
+    public static final int MAX_STRING = 64;
+
+    // ========== MESSAGE TYPES ==========
+    public static final byte HEARTBEAT = 0x01;
+    public static final byte ENTRY = 0x02;
+    public static final byte EXIT_QUOTE = 0x03;
+    public static final byte PAY_EXIT = 0x04;
+    public static final byte RESPONSE = (byte) 0x80;
+    public static final byte ERROR = (byte) 0xFF;
+
+    // ========== STATUS CODES ==========
+    public static final byte OK = 0;
+    public static final byte NOT_FOUND = 1;      // plate not parked here
+    public static final byte FULL = 2;           // no suitable spot free
+    public static final byte ALREADY_PARKED = 3;
+    public static final byte EXPIRED = 4;        // quote expired, already paid, or the vehicle changed
+    public static final byte DECLINED = 5;       // card declined, nothing charged
+    public static final byte FAILED = 6;         // payment gateway unreachable, retry with the same token
+    public static final byte BAD_REQUEST = 7;
+
+    public static final byte VIP_FLAG = 0x01;
+
+    public static String statusName(byte status) {
+        switch (status) {
+            case OK: return "OK";
+            case NOT_FOUND: return "NOT_FOUND";
+            case FULL: return "FULL";
+            case ALREADY_PARKED: return "ALREADY_PARKED";
+            case EXPIRED: return "EXPIRED";
+            case DECLINED: return "DECLINED";
+            case FAILED: return "FAILED";
+            case BAD_REQUEST: return "BAD_REQUEST";
+            default: return "STATUS_" + (status & 0xFF);
+        }
+    }
+
+    // ========== ENCODING HELPERS ==========
+
+    // Starts a frame; returns the position of its length field for endFrame()
+    public static int beginFrame(ByteBuffer out, byte type, int requestId) {
+        int start = out.position();
+        out.putShort((short) 0);
+        out.put(type);
+        out.putInt(requestId);
+        return start;
+    }
+
+    // Starts the response to a request of the given type
+    public static int beginResponse(ByteBuffer out, byte requestType, int requestId) {
+        return beginFrame(out, (byte) (requestType | RESPONSE), requestId);
+    }
+
+    // Fills in the length of the frame started at start
+    public static void endFrame(ByteBuffer out, int start) {
+        out.putShort(start, (short) (out.position() - start - 2));
+    }
+
+    // Writes a u8-length ASCII string (characters above 0x7F become '?')
+    public static void putString(ByteBuffer out, CharSequence s) {
+        int length = Math.min(s.length(), MAX_STRING);
+        out.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            out.put((byte) (c < 0x80 ? c : '?'));
+        }
+    }
+
+    // Whole cents of an amount in RM, capped to fit a u32
+    public static int cents(double amount) {
+        return (int) Math.min(0xFFFF_FFFFL, Math.max(0, Math.round(amount * 100.0)));
+    }
+
+    public static long unsigned(int value) {
+        return value & 0xFFFF_FFFFL;
+    }
+}
@@ -0,0 +1,443 @@
+package parking.gate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import parking.data.DataCenter;
+import parking.model.*;
+import parking.service.*;
+
+/**
+ * GateServer - Serves the binary gate protocol (see GateProtocol) to barrier
+ * controllers and plate readers, with one selector thread for all connections
+ * (started by "java -cp out parking.Main --gate-server").
+ *
+ * Each connection has an input and an output buffer from a pool of direct
+ * buffers. Every complete frame in the input is decoded in place and answered
+ * into the output, so a connection can pipeline any number of requests and
+ * one read/write serves them all. Decoding allocates nothing; the only objects
+ * per message are the ones EntryService/ExitService need (the plate String,
+ * the Vehicle, the Ticket, the quote).
+ *
+ * Entries, quotes and heartbeats are answered on the selector thread (they take
+ * microseconds). Payments go to the PaymentProcessor, like the Exit tab: the
+ * answer is written when the batch with the payment is done, without holding
+ * up the other requests on the connection. When a client reads its answers
+ * slower than it sends requests, the server stops reading from it until the
+ * output has drained.
+ */
+public class GateServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 9090;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // Room kept free in the output before another request is decoded
+    private static final int MAX_RESPONSE = 128;
+
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    private static final PaymentMethod[] PAYMENT_METHODS = PaymentMethod.values();
+
+    // Thrown (one shared instance, no stack trace) when a request is shorter than its fields
+    private static final RuntimeException MALFORMED = new RuntimeException("Malformed request", null, false, false) {
+    };
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Thread loop;
+    private final BufferPool buffers = new BufferPool(BUFFER_SIZE, 1024);
+    private final EntryService entryService = new EntryService();
+    private final ExitService exitService = new ExitService();
+    private final PaymentProcessor paymentProcessor;
+
+    // Connections with finished payments to answer (filled by the payment workers)
+    private final ConcurrentLinkedQueue<Connection> paymentsDone = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    // One gate connection. Both buffers stay in fill mode between calls.
+    private static final class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer in;
+        ByteBuffer out;
+        final byte[] text = new byte[GateProtocol.MAX_STRING]; // plate / token being decoded
+        final ConcurrentLinkedQueue<PaymentDone> payments = new ConcurrentLinkedQueue<>();
+        volatile boolean closed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private record PaymentDone(int requestId, PaymentResult result) {
+    }
+
+    // Card payments go to the same simulated gateway as the Exit tab
+    public GateServer(InetSocketAddress address) throws IOException {
+        this(address, new SimulatedPaymentGateway(Duration.ofMillis(300), 0.0, 0.0));
+    }
+
+    public GateServer(InetSocketAddress address, PaymentGateway gateway) throws IOException {
+        paymentProcessor = new PaymentProcessor(exitService, gateway, PaymentProcessor.DEFAULT_MAX_BATCH,
+                PaymentProcessor.DEFAULT_MAX_WAIT, 2);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        loop = new Thread(this::run, "gate-server");
+    }
+
+    public void start() {
+        loop.start();
+    }
+
+    // The address it listens on (with the real port if it was bound to port 0)
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            loop.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        paymentProcessor.close();
+    }
+
+    // ========== SELECTOR LOOP ==========
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                Connection done;
+                while ((done = paymentsDone.poll()) != null) {
+                    if (!done.closed) {
+                        pump(done);
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection c = (Connection) key.attachment();
+                        if (key.isReadable() && !read(c)) {
+                            continue;
+                        }
+                        pump(c);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (!closed) {
+                System.err.println("GateServer: stopped: " + e);
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection c) {
+                    close(c);
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection c = new Connection(channel);
+            c.in = buffers.acquire();
+            c.out = buffers.acquire();
+            c.key = channel.register(selector, SelectionKey.OP_READ, c);
+        }
+    }
+
+    // Reads what has arrived; false if the connection was closed
+    private boolean read(Connection c) {
+        try {
+            if (c.channel.read(c.in) < 0) {
+                close(c);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            close(c);
+            return false;
+        }
+    }
+
+    // Answers everything that can be answered now and writes it out
+    private void pump(Connection c) {
+        try {
+            while (true) {
+                writePayments(c);
+                if (!decode(c)) {
+                    close(c); // protocol error
+                    return;
+                }
+                c.out.flip();
+                c.channel.write(c.out);
+                c.out.compact();
+                boolean drained = c.out.position() == 0;
+                if (!drained || (c.payments.isEmpty() && !hasFrame(c.in))) {
+                    break;
+                }
+            }
+            int ops = 0;
+            if (c.in.hasRemaining()) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (c.out.position() > 0) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            c.key.interestOps(ops);
+        } catch (IOException e) {
+            close(c);
+        }
+    }
+
+    private void close(Connection c) {
+        if (c.closed) {
+            return;
+        }
+        c.closed = true;
+        c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        buffers.release(c.in);
+        buffers.release(c.out);
+        c.in = null;
+        c.out = null;
+    }
+
+    // ========== DECODING ==========
+
+    // True if the input holds at least one complete frame
+    private static boolean hasFrame(ByteBuffer in) {
+        return in.position() >= 2 && in.position() >= 2 + (in.getShort(0) & 0xFFFF);
+    }
+
+    // Answers every complete frame there is room for. False on a frame that is too long.
+    private boolean decode(Connection c) {
+        ByteBuffer in = c.in;
+        in.flip();
+        try {
+            while (in.remaining() >= 2 && c.out.remaining() >= MAX_RESPONSE) {
+                int start = in.position();
+                int length = in.getShort(start) & 0xFFFF;
+                if (length + 2 > GateProtocol.MAX_FRAME) {
+                    return false;
+                }
+                if (in.remaining() < length + 2) {
+                    break; // the rest of this frame has not arrived yet
+                }
+                int end = start + 2 + length;
+                if (length < GateProtocol.HEADER_SIZE - 2) {
+                    answer(c, GateProtocol.ERROR, 0, GateProtocol.BAD_REQUEST);
+                } else {
+                    in.position(start + 2);
+                    byte type = in.get();
+                    int requestId = in.getInt();
+                    try {
+                        handle(c, type, requestId, end);
+                    } catch (RuntimeException e) {
+                        if (e != MALFORMED) {
+                            System.err.println("GateServer: request failed: " + e);
+                        }
+                        answer(c, GateProtocol.ERROR, requestId, GateProtocol.BAD_REQUEST);
+                    }
+                }
+                in.position(end);
+            }
+            return true;
+        } finally {
+            in.compact();
+        }
+    }
+
+    private void handle(Connection c, byte type, int requestId, int end) {
+        ByteBuffer in = c.in;
+        ByteBuffer out = c.out;
+        switch (type) {
+            case GateProtocol.HEARTBEAT: {
+                int frame = GateProtocol.beginResponse(out, GateProtocol.HEARTBEAT, requestId);
+                out.put(GateProtocol.OK);
+                out.putInt(DataCenter.getTotalSpots());
+                out.putInt(DataCenter.getTotalOccupied());
+                GateProtocol.endFrame(out, frame);
+                break;
+            }
+            case GateProtocol.ENTRY: {
+                need(in, end, 2);
+                int vehicleType = in.get() & 0xFF;
+                byte flags = in.get();
+                String plate = readString(c, end);
+                if (vehicleType >= VEHICLE_TYPES.length) {
+                    throw MALFORMED;
+                }
+                Vehicle v = entryService.createVehicle(plate, VEHICLE_TYPES[vehicleType]);
+                if (v == null) {
+                    throw MALFORMED; // empty plate
+                }
+                v.setVip((flags & GateProtocol.VIP_FLAG) != 0);
+                Ticket ticket = null;
+                byte status;
+                if (DataCenter.findVehicleByPlate(v.getLicensePlate()) != null) {
+                    status = GateProtocol.ALREADY_PARKED;
+                } else {
+                    ticket = entryService.parkInFirstFreeSpot(v);
+                    status = ticket != null ? GateProtocol.OK : GateProtocol.FULL;
+                }
+                int frame = GateProtocol.beginResponse(out, GateProtocol.ENTRY, requestId);
+                out.put(status);
+                if (ticket != null) {
+                    GateProtocol.putString(out, ticket.getSpotId());
+                }
+                GateProtocol.endFrame(out, frame);
+                break;
+            }
+            case GateProtocol.EXIT_QUOTE: {
+                String plate = readString(c, end);
+                ExitQuote q = exitService.processExitCalculation(plate.trim().toUpperCase());
+                int frame = GateProtocol.beginResponse(out, GateProtocol.EXIT_QUOTE, requestId);
+                out.put(q != null ? GateProtocol.OK : GateProtocol.NOT_FOUND);
+                if (q != null) {
+                    GateProtocol.putString(out, q.token());
+                    out.putInt((int) q.minutes());
+                    out.putInt((int) q.hours());
+                    out.putInt(GateProtocol.cents(q.fee()));
+                    out.putInt(GateProtocol.cents(q.fine()));
+                    out.putInt(GateProtocol.cents(q.unpaidFines()));
+                    out.putInt(GateProtocol.cents(q.total()));
+                }
+                GateProtocol.endFrame(out, frame);
+                break;
+            }
+            case GateProtocol.PAY_EXIT: {
+                need(in, end, 1);
+                int method = in.get() & 0xFF;
+                String token = readString(c, end);
+                if (method >= PAYMENT_METHODS.length) {
+                    throw MALFORMED;
+                }
+                // Answered from pump() once the payment's batch is done
+                paymentProcessor.submit(token, PAYMENT_METHODS[method]).thenAccept(result -> {
+                    c.payments.add(new PaymentDone(requestId, result));
+                    paymentsDone.add(c);
+                    selector.wakeup();
+                });
+                break;
+            }
+            default:
+                answer(c, GateProtocol.ERROR, requestId, GateProtocol.BAD_REQUEST);
+        }
+    }
+
+    // Writes the answers of finished payments, as far as there is room
+    private void writePayments(Connection c) {
+        PaymentDone done;
+        while (c.out.remaining() >= MAX_RESPONSE && (done = c.payments.poll()) != null) {
+            PaymentResult r = done.result();
+            byte status;
+            switch (r.status()) {
+                case PAID: status = GateProtocol.OK; break;
+                case DECLINED: status = GateProtocol.DECLINED; break;
+                case EXPIRED: status = GateProtocol.EXPIRED; break;
+                default: status = GateProtocol.FAILED;
+            }
+            int frame = GateProtocol.beginResponse(c.out, GateProtocol.PAY_EXIT, done.requestId());
+            c.out.put(status);
+            if (r.isPaid()) {
+                c.out.putInt(GateProtocol.cents(r.payment().getTotalAmount()));
+            }
+            GateProtocol.endFrame(c.out, frame);
+        }
+    }
+
+    private static void answer(Connection c, byte type, int requestId, byte status) {
+        int frame = GateProtocol.beginFrame(c.out, type, requestId);
+        c.out.put(status);
+        GateProtocol.endFrame(c.out, frame);
+    }
+
+    // Checks that the frame still holds n bytes
+    private static void need(ByteBuffer in, int end, int n) {
+        if (end - in.position() < n) {
+            throw MALFORMED;
+        }
+    }
+
+    // A u8-length ASCII string of the frame (the String is what the services take)
+    private static String readString(Connection c, int end) {
+        need(c.in, end, 1);
+        int length = c.in.get() & 0xFF;
+        if (length > GateProtocol.MAX_STRING) {
+            throw MALFORMED;
+        }
+        need(c.in, end, length);
+        c.in.get(c.text, 0, length);
+        return new String(c.text, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    // ========== STANDALONE ==========
+
+    /**
+     * Starts a server from key=value options (host, port, logging). It runs until
+     * the process is stopped. Used by parking.Main --gate-server.
+     */
+    public static GateServer startFromArgs(String[] args) throws IOException {
+        String host = "0.0.0.0";
+        int port = DEFAULT_PORT;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length < 2) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            switch (kv[0]) {
+                case "host": host = kv[1]; break;
+                case "port": port = Integer.parseInt(kv[1]); break;
+                case "logging": DataCenter.setLogging(Boolean.parseBoolean(kv[1])); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        GateServer server = new GateServer(new InetSocketAddress(host, port));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "gate-server-shutdown"));
+        System.out.println("GateServer: listening on " + host + ":" + server.getAddress().getPort());
+        return server;
+    }
+}
@@ -0,0 +1,38 @@
+package parking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ExitQuoteEvent - One ExitService.processExitCalculation() call (the exit
+ * bill). Amounts are in RM; found is false if the plate is not parked.
+ */
+@Name("parking.ExitQuote")
+@Label("Exit Quote")
+@Category({"Parking", "Gates"})
+@Description("The amount due was calculated for a vehicle leaving")
+@StackTrace(false)
+public class ExitQuoteEvent extends ParkingEvent {
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Hours")
+    public long hours;
+
+    @Label("Fee")
+    public double fee;
+
+    @Label("Fine")
+    public double fine;
+
+    @Label("Unpaid Fines")
+    @Description("Earlier unpaid fines added to this bill")
+    public double unpaidFines;
+
+    @Label("Total")
+    public double total;
+}
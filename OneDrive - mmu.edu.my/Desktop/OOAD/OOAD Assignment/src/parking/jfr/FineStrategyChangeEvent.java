@@ -0,0 +1,27 @@
+package parking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * FineStrategyChangeEvent - The active fine scheme was replaced. Carries the
+ * number of vehicles parked at that moment (the ones the new scheme applies to
+ * when they leave). Has no plate or spot.
+ */
+@Name("parking.FineStrategyChange")
+@Label("Fine Strategy Change")
+@Category({"Parking", "Admin"})
+@Description("The active fine scheme was changed")
+public class FineStrategyChangeEvent extends ParkingEvent {
+
+    @Label("Previous Scheme")
+    public String previousScheme;
+
+    @Label("New Scheme")
+    public String newScheme;
+
+    @Label("Parked Vehicles")
+    public int parkedVehicles;
+}
@@ -0,0 +1,26 @@
+package parking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ParkEvent - One EntryService.parkVehicle() call: which vehicle, which spot,
+ * and whether it got the spot (false if another gate took it first).
+ */
+@Name("parking.Park")
+@Label("Park Vehicle")
+@Category({"Parking", "Gates"})
+@Description("A vehicle was parked in a spot at an entry gate")
+@StackTrace(false)
+public class ParkEvent extends ParkingEvent {
+
+    @Label("Vehicle Type")
+    public String vehicleType;
+
+    @Label("Parked")
+    @Description("False if the spot was unknown or already taken")
+    public boolean parked;
+}
@@ -0,0 +1,54 @@
+package parking.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * ParkingEvent - The fields every parking JFR event has: the plate and the
+ * spot (with its floor) the operation was about. Empty / -1 when there is none.
+ *
+ * The events are used the usual JFR way, which costs next to nothing while
+ * the event is not enabled in the running recording (the JIT removes the
+ * object and the calls):
+ *
+ *     ParkEvent event = new ParkEvent();
+ *     event.begin();
+ *     ... the operation ...
+ *     event.end();
+ *     if (event.shouldCommit()) {      // enabled, and longer than the threshold
+ *         event.plate = ...;           // fill in the fields only now
+ *         event.commit();
+ *     }
+ *
+ * The duration is the time between begin() and end(). See parking.jfc for
+ * the settings to record them with.
+ */
+public abstract class ParkingEvent extends Event {
+
+    @Label("License Plate")
+    public String plate;
+
+    @Label("Spot")
+    public String spotId;
+
+    @Label("Floor")
+    public int floor = -1;
+
+    // Sets spotId and floor from the spot's ID ("F2-R1-S3" is floor 2)
+    public void setSpot(String id) {
+        spotId = id;
+        floor = floorOf(id);
+    }
+
+    static int floorOf(String spotId) {
+        if (spotId == null || spotId.length() < 2 || spotId.charAt(0) != 'F') {
+            return -1;
+        }
+        int dash = spotId.indexOf('-');
+        try {
+            return Integer.parseInt(spotId.substring(1, dash < 0 ? spotId.length() : dash));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
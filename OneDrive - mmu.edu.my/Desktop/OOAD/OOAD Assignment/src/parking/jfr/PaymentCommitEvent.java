@@ -0,0 +1,32 @@
+package parking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * PaymentCommitEvent - One ExitService.confirmPayment() call: the exit, the
+ * payment and the fine settlement committed in one step. The result is PAID,
+ * or why it was not (UNKNOWN_TOKEN, EXPIRED, CHANGED).
+ */
+@Name("parking.PaymentCommit")
+@Label("Payment Commit")
+@Category({"Parking", "Gates"})
+@Description("A quoted exit was paid and committed")
+@StackTrace(false)
+public class PaymentCommitEvent extends ParkingEvent {
+
+    @Label("Result")
+    public String result;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Amount")
+    public double amount;
+
+    @Label("Fines Paid")
+    public double finesPaid;
+}
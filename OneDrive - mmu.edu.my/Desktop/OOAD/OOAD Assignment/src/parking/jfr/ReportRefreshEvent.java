@@ -0,0 +1,36 @@
+package parking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ReportRefreshEvent - The Reports tab was refreshed (snapshot taken and every
+ * report reloaded). Lasts from the click until the reports are on screen,
+ * including the work done in the background. The counts are what the reports
+ * showed. Has no plate or spot.
+ */
+@Name("parking.ReportRefresh")
+@Label("Report Refresh")
+@Category({"Parking", "Reports"})
+@Description("All reports were reloaded from a new snapshot")
+@StackTrace(false)
+public class ReportRefreshEvent extends ParkingEvent {
+
+    @Label("Parked Vehicles")
+    public int parkedVehicles;
+
+    @Label("Payments")
+    public int payments;
+
+    @Label("Unpaid Fines")
+    public int unpaidFines;
+
+    @Label("Overstays")
+    public int overstays;
+
+    @Label("Violations")
+    public int violations;
+}
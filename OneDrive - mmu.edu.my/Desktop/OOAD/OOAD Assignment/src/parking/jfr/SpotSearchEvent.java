@@ -0,0 +1,30 @@
+package parking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * SpotSearchEvent - One SpotAllocation search: all suitable spots
+ * (findSuitableSpots) or the first one (findSpot). The spot and floor are
+ * those of the first spot found.
+ */
+@Name("parking.SpotSearch")
+@Label("Spot Search")
+@Category({"Parking", "Gates"})
+@Description("Available spots were looked up for a vehicle")
+@StackTrace(false)
+public class SpotSearchEvent extends ParkingEvent {
+
+    @Label("Vehicle Type")
+    public String vehicleType;
+
+    @Label("First Fit")
+    @Description("True for findSpot (first spot only), false for findSuitableSpots (all spots)")
+    public boolean firstFit;
+
+    @Label("Spots Found")
+    public int spotsFound;
+}
@@ -0,0 +1,159 @@
+package parking.metrics;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram - Counts how long one operation took, in log-sized buckets
+ * (the idea behind HdrHistogram): every time from 1 ns to about 4 hours falls in
+ * one of ~2,500 buckets that are at most 1/64 (1.6%) wide, so percentiles come
+ * out within 1.6% whatever the spread, in a fixed 20 KB.
+ *
+ * Recording finds the bucket with a few shifts and adds one to it: no locks and
+ * no objects, so it can sit in the hot path of every gate. Safe to record from
+ * any number of threads; snapshot() can be taken at any time (a histogram that
+ * is being recorded into is copied bucket by bucket, so the copy may include some
+ * recordings of that moment and not others).
+ *
+ * Work that is partitioned (the lots of a ParkingGroup) records into parts of
+ * the histogram (newPart()): each part has its own counters, so partitions do
+ * not write to the same memory, and reading or resetting the histogram covers
+ * all of its parts.
+ *
+ *     long t0 = System.nanoTime();
+ *     ... the operation ...
+ *     Metrics.EXIT_QUOTE.recordSince(t0);
+ */
+public class LatencyHistogram {
+
+    // Times below 2^LINEAR_BITS ns get a bucket each; above that every power of
+    // two is split into SUB_BUCKETS buckets.
+    private static final int LINEAR_BITS = 7;
+    private static final int LINEAR = 1 << LINEAR_BITS;        // 128
+    private static final int SUB_BUCKETS = LINEAR / 2;         // 64 per power of two
+    private static final int MAX_EXPONENT = 43;                // 2^44 ns is about 4.9 hours
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final CopyOnWriteArrayList<LatencyHistogram> parts = new CopyOnWriteArrayList<>();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // A histogram of the same operation for one partition, with counters of its own;
+    // it is merged into this one when this one is read
+    public LatencyHistogram newPart() {
+        LatencyHistogram part = new LatencyHistogram(name);
+        parts.add(part);
+        return part;
+    }
+
+    // ========== RECORDING ==========
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0; // the clock went back (should not happen with nanoTime)
+        }
+        counts.incrementAndGet(indexOf(Math.min(nanos, MAX_VALUE)));
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    // Records the time since startNanos (a System.nanoTime() value)
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    // Starts counting again from zero
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.set(0);
+        maxNanos.set(0);
+        for (LatencyHistogram part : parts) {
+            part.reset();
+        }
+    }
+
+    // ========== READING ==========
+
+    public LatencySnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long[] totalAndMax = new long[2];
+        addTo(copy, totalAndMax);
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += copy[i];
+        }
+        long total = totalAndMax[0];
+        long max = totalAndMax[1];
+        return new LatencySnapshot(name, count, count == 0 ? 0 : total / count,
+                percentile(copy, count, 0.50, max), percentile(copy, count, 0.90, max),
+                percentile(copy, count, 0.99, max), percentile(copy, count, 0.999, max), max);
+    }
+
+    // Adds the counts of this histogram and its parts to counts, their total time to
+    // totalAndMax[0] and raises totalAndMax[1] to their max
+    private void addTo(long[] counts, long[] totalAndMax) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += this.counts.get(i);
+        }
+        totalAndMax[0] += totalNanos.get();
+        totalAndMax[1] = Math.max(totalAndMax[1], maxNanos.get());
+        for (LatencyHistogram part : parts) {
+            part.addTo(counts, totalAndMax);
+        }
+    }
+
+    // The time that the given share of the recordings did not exceed (the top of its bucket)
+    private static long percentile(long[] counts, long count, double quantile, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    // ========== BUCKETS ==========
+
+    // 0..127 map to themselves. Above that, with e = the highest set bit, the top
+    // 7 bits of the value (64..127) pick one of 64 buckets of the e-th power of two.
+    static int indexOf(long nanos) {
+        if (nanos < LINEAR) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - (LINEAR_BITS - 1);
+        return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+    }
+
+    // Largest value that falls in the bucket
+    static long highestIn(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = index - (long) shift * SUB_BUCKETS; // 64..127
+        return ((top + 1) << shift) - 1;
+    }
+}
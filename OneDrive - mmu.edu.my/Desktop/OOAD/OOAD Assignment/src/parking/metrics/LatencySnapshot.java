@@ -0,0 +1,22 @@
+package parking.metrics;
+
+/**
+ * LatencySnapshot - Immutable copy of one operation's latency figures (from
+ * LatencyHistogram.snapshot() or Metrics.snapshot()). All times are nanoseconds;
+ * the percentiles are within 1.6% (the top of the bucket they fell in).
+ */
+public record LatencySnapshot(String operation, long count, long meanNanos,
+                              long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+
+    // A time for display: "850 ns", "12.4 us", "3.1 ms", "2.0 s"
+    public static String format(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+        return String.format("%.1f s", nanos / 1e9);
+    }
+}
@@ -0,0 +1,92 @@
+package parking.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Metrics - The latency histograms of the parking system, one per operation.
+ * All methods are static, like the DataCenter.
+ *
+ * The gate operations (entry, spot allocation, exit bill, payment) are timed
+ * end to end, including any wait for the DataCenter lock. The DataCenter
+ * queries are timed inside the method: for the synchronized ones that is how
+ * long they held the lock (and so held up every other gate).
+ *
+ *     List<LatencySnapshot> all = Metrics.snapshot();      // every operation
+ *     Metrics.EXIT_QUOTE.snapshot().p99Nanos();            // one figure
+ *     Metrics.reset();                                     // start again from zero
+ *
+ * The Admin tab shows them live (Operation Latency).
+ */
+public class Metrics {
+
+    // In the order they were registered (the order they are shown in)
+    private static final CopyOnWriteArrayList<LatencyHistogram> histograms = new CopyOnWriteArrayList<>();
+
+    // ========== GATES ==========
+    public static final LatencyHistogram ENTRY_PARK = register("EntryService.parkVehicle");
+    public static final LatencyHistogram FIND_SUITABLE_SPOTS = register("SpotAllocation.findSuitableSpots");
+    public static final LatencyHistogram FIND_SPOT = register("SpotAllocation.findSpot");
+    public static final LatencyHistogram EXIT_QUOTE = register("ExitService.processExitCalculation");
+    public static final LatencyHistogram PAYMENT_CONFIRM = register("ExitService.confirmPayment");
+    public static final LatencyHistogram PAYMENT_AUTHORIZE = register("PaymentGateway.authorize (batch)");
+    public static final LatencyHistogram PAYMENT_PROCESS = register("PaymentProcessor (submit to result)");
+
+    // ========== DATACENTER ==========
+    public static final LatencyHistogram COMMIT_EXIT = register("DataCenter.commitExit");
+    public static final LatencyHistogram AVAILABLE_SPOTS = register("DataCenter.getAvailableSpotsForVehicle");
+    public static final LatencyHistogram AVAILABLE_SPOTS_BY_TYPE = register("DataCenter.getAvailableSpotsByType");
+    public static final LatencyHistogram FIRST_AVAILABLE_SPOT = register("DataCenter.findAvailableSpot");
+    public static final LatencyHistogram FIND_SPOT_BY_ID = register("DataCenter.findSpotById");
+    public static final LatencyHistogram FIND_VEHICLE = register("DataCenter.findVehicleByPlate");
+    public static final LatencyHistogram FIND_TICKET = register("DataCenter.findTicketByPlate");
+    public static final LatencyHistogram PARKED_VEHICLES = register("DataCenter.getAllParkedVehicles");
+    public static final LatencyHistogram TOTAL_REVENUE = register("DataCenter.getTotalRevenue");
+    public static final LatencyHistogram UNPAID_FINES = register("DataCenter.getUnpaidFines");
+    public static final LatencyHistogram UNPAID_FINE_TOTAL = register("DataCenter.getUnpaidFineTotal");
+    public static final LatencyHistogram ASSESSED_FINE = register("DataCenter.getAssessedFine");
+    public static final LatencyHistogram ALL_UNPAID_FINES = register("DataCenter.getAllUnpaidFines");
+    public static final LatencyHistogram SNAPSHOT_LEDGER = register("DataCenter.snapshotLedger");
+    public static final LatencyHistogram OCCUPANCY_RATE = register("DataCenter.getOccupancyRate");
+    public static final LatencyHistogram TOTAL_OCCUPIED = register("DataCenter.getTotalOccupied");
+
+    // The histogram for an operation, created the first time (for code outside this list)
+    public static synchronized LatencyHistogram register(String operation) {
+        for (LatencyHistogram h : histograms) {
+            if (h.getName().equals(operation)) {
+                return h;
+            }
+        }
+        LatencyHistogram h = new LatencyHistogram(operation);
+        histograms.add(h);
+        return h;
+    }
+
+    // ========== SNAPSHOTS ==========
+
+    // Every operation, in registration order
+    public static List<LatencySnapshot> snapshot() {
+        ArrayList<LatencySnapshot> result = new ArrayList<>(histograms.size());
+        for (LatencyHistogram h : histograms) {
+            result.add(h.snapshot());
+        }
+        return result;
+    }
+
+    // One operation, or null if there is no histogram by that name
+    public static LatencySnapshot snapshot(String operation) {
+        for (LatencyHistogram h : histograms) {
+            if (h.getName().equals(operation)) {
+                return h.snapshot();
+            }
+        }
+        return null;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram h : histograms) {
+            h.reset();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package parking.model;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import parking.clock.ParkingClock;
 
 // Represents a fine linked to a license plate
 public class Fine {
@@ -10,13 +11,26 @@ public class Fine {
     private String reason;
     private boolean isPaid;
     private LocalDateTime createdTime;
+    private String ticketId;         // parking session this fine belongs to, null if none
 
     public Fine(String licensePlate, double amount, String reason) {
         this.licensePlate = licensePlate;
         this.amount = amount;
         this.reason = reason;
         this.isPaid = false;
-        this.createdTime = LocalDateTime.now();
+        this.createdTime = ParkingClock.now();
+    }
+
+    // Fine for one parking session (e.g. issued by the nightly assessment)
+    public Fine(String licensePlate, double amount, String reason, String ticketId) {
+        this(licensePlate, amount, reason);
+        this.ticketId = ticketId;
+    }
+
+    // Copy of a fine issued elsewhere (replication), keeping its creation time
+    public Fine(String licensePlate, double amount, String reason, String ticketId, LocalDateTime createdTime) {
+        this(licensePlate, amount, reason, ticketId);
+        this.createdTime = createdTime;
     }
 
     // Getters
@@ -40,11 +54,20 @@ public class Fine {
         return createdTime;
     }
 
+    public String getTicketId() {
+        return ticketId;
+    }
+
     // Setters
     public void setPaid(boolean paid) {
         this.isPaid = paid;
     }
 
+    // Only for fines that are re-assessed while unpaid (use DataCenter.upsertSessionFines)
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
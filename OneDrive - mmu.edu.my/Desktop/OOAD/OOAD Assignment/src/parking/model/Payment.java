@@ -2,6 +2,7 @@ package parking.model;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import parking.clock.ParkingClock;
 
 // Represents a payment made when a vehicle exits
 public class Payment {
@@ -15,6 +16,7 @@ public class Payment {
     private double totalAmount;
     private PaymentMethod paymentMethod;
     private LocalDateTime paymentTime;
+    private String idempotencyKey;
 
     public Payment(String licensePlate, String ticketId, LocalDateTime entryTime,
                    LocalDateTime exitTime, long hoursParked, double parkingFee,
@@ -28,7 +30,27 @@ public class Payment {
         this.finesPaid = finesPaid;
         this.totalAmount = totalAmount;
         this.paymentMethod = paymentMethod;
-        this.paymentTime = LocalDateTime.now();
+        this.paymentTime = ParkingClock.now();
+    }
+
+    // Payment with the key that identifies it across retries (the exit quote token)
+    public Payment(String licensePlate, String ticketId, LocalDateTime entryTime,
+                   LocalDateTime exitTime, long hoursParked, double parkingFee,
+                   double finesPaid, double totalAmount, PaymentMethod paymentMethod,
+                   String idempotencyKey) {
+        this(licensePlate, ticketId, entryTime, exitTime, hoursParked, parkingFee,
+             finesPaid, totalAmount, paymentMethod);
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    // Copy of a payment recorded elsewhere (replication), keeping its payment time
+    public Payment(String licensePlate, String ticketId, LocalDateTime entryTime,
+                   LocalDateTime exitTime, long hoursParked, double parkingFee,
+                   double finesPaid, double totalAmount, PaymentMethod paymentMethod,
+                   String idempotencyKey, LocalDateTime paymentTime) {
+        this(licensePlate, ticketId, entryTime, exitTime, hoursParked, parkingFee,
+             finesPaid, totalAmount, paymentMethod, idempotencyKey);
+        this.paymentTime = paymentTime;
     }
 
     // Getters
@@ -72,6 +94,11 @@ public class Payment {
         return paymentTime;
     }
 
+    // Null for payments recorded without one
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -20,6 +20,14 @@ public class Ticket {
         this.ticketId = "T-" + licensePlate + "-" + entryTime.format(formatter);
     }
 
+    // Copy of a ticket issued elsewhere (replication), keeping its ID
+    public Ticket(String ticketId, String licensePlate, String spotId, LocalDateTime entryTime) {
+        this.ticketId = ticketId;
+        this.licensePlate = licensePlate;
+        this.spotId = spotId;
+        this.entryTime = entryTime;
+    }
+
     // Getters
     public String getTicketId() {
         return ticketId;
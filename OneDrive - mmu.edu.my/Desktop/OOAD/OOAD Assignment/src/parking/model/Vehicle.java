@@ -1,6 +1,8 @@
 package parking.model;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import parking.clock.ParkingClock;
 
 // Abstract base class for all vehicle types
 public abstract class Vehicle {
@@ -14,10 +16,14 @@ public abstract class Vehicle {
     private boolean isVip = false;       // is it reservation/vip?
     private boolean hasViolation = false; // is it violation
 
+    // Goes up on every change, so a bill calculated earlier can tell it is out of date
+    // (atomic: setters may run on different threads without the lot lock)
+    private final AtomicInteger version = new AtomicInteger();
+
     public Vehicle(String licensePlate, VehicleType vehicleType) {
         this.licensePlate = licensePlate;
         this.vehicleType = vehicleType;
-        this.entryTime = LocalDateTime.now();
+        this.entryTime = ParkingClock.now();
         this.exitTime = null;
         this.spotId = null;
         // isVip 和 hasViolation 默认为 false，不需要在构造函数里特别写
@@ -55,25 +61,39 @@ public abstract class Vehicle {
         return hasViolation;
     }
 
+    public int getVersion() {
+        return version.get();
+    }
+
     // Setters
     public void setEntryTime(LocalDateTime entryTime) {
         this.entryTime = entryTime;
+        markChanged();
     }
 
     public void setExitTime(LocalDateTime exitTime) {
         this.exitTime = exitTime;
+        markChanged();
     }
 
     public void setSpotId(String spotId) {
         this.spotId = spotId;
+        markChanged();
     }
  
     public void setVip(boolean isVip) {
         this.isVip = isVip;
+        markChanged();
     }
 
     public void setViolation(boolean hasViolation) {
         this.hasViolation = hasViolation;
+        markChanged();
+    }
+
+    // Called when something outside the vehicle changes what it owes (e.g. a new fine)
+    public void markChanged() {
+        version.incrementAndGet();
     }
 
     @Override
@@ -0,0 +1,93 @@
+package parking.monitor;
+
+/**
+ * CountMinSketch - Estimates how often each plate was added, in fixed memory.
+ *
+ * An estimate is never too low, and with probability (1 - delta) it is at most
+ * epsilon x (total of all counts) too high. withError(epsilon, delta) picks the
+ * size: width e/epsilon, depth ln(1/delta). Sketches of the same size can be
+ * merged. Not thread safe: the owner locks (see VisitorStats).
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counts; // depth rows of width counters
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Width and depth must be at least 1");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[width * depth];
+    }
+
+    public static CountMinSketch withError(double epsilon, double delta) {
+        if (epsilon <= 0 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("Need epsilon > 0 and 0 < delta < 1");
+        }
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(width, depth);
+    }
+
+    // Adds to the plate's count and returns its new estimate
+    public long add(String plate, long count) {
+        long h = PlateHash.hash64(plate);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int i = row * width + Math.floorMod(h1 + row * h2, width);
+            counts[i] += count;
+            estimate = Math.min(estimate, counts[i]);
+        }
+        total += count;
+        return estimate;
+    }
+
+    public long estimate(String plate) {
+        long h = PlateHash.hash64(plate);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + Math.floorMod(h1 + row * h2, width)]);
+        }
+        return estimate;
+    }
+
+    // Adds all counts of the other sketch (same width and depth only)
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge sketches of different sizes");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public CountMinSketch copy() {
+        CountMinSketch c = new CountMinSketch(width, depth);
+        System.arraycopy(counts, 0, c.counts, 0, counts.length);
+        c.total = total;
+        return c;
+    }
+
+    // Sum of everything added
+    public long getTotal() {
+        return total;
+    }
+
+    // Largest overestimate to expect (with the chosen confidence)
+    public double getErrorBound() {
+        return Math.E / width * total;
+    }
+
+    public int getFootprintBytes() {
+        return counts.length * 8;
+    }
+}
@@ -0,0 +1,96 @@
+package parking.monitor;
+
+/**
+ * HyperLogLog - Estimates how many different plates were added, in a fixed
+ * amount of memory (2^precision bytes) however many plates there are.
+ *
+ * The typical error is 1.04 / sqrt(2^precision): precision 12 (4 KB) is about
+ * 1.6%, precision 14 (16 KB) about 0.8%. Two sketches with the same precision
+ * can be merged; the result is the sketch of both streams together (e.g. days
+ * merged into a month). Not thread safe: the owner locks (see VisitorStats).
+ */
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be " + MIN_PRECISION + ".." + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    // Smallest sketch whose typical error is at most the given fraction (e.g. 0.01 for 1%)
+    public static HyperLogLog withError(double relativeError) {
+        if (relativeError <= 0) {
+            throw new IllegalArgumentException("Error must be positive");
+        }
+        double registersNeeded = Math.pow(1.04 / relativeError, 2);
+        int p = (int) Math.ceil(Math.log(registersNeeded) / Math.log(2));
+        return new HyperLogLog(Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, p)));
+    }
+
+    public void add(String plate) {
+        long h = PlateHash.hash64(plate);
+        int index = (int) (h >>> (64 - precision));
+        // Position of the first 1 bit in the remaining bits (1-based)
+        int rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros); // small counts: linear counting is more exact
+        }
+        return Math.round(estimate);
+    }
+
+    // Adds everything the other sketch has seen (same precision only)
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog c = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, c.registers, 0, registers.length);
+        return c;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    // Typical relative error of estimate()
+    public double getRelativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int getFootprintBytes() {
+        return registers.length;
+    }
+}
@@ -0,0 +1,223 @@
+package parking.monitor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.data.DataListener;
+import parking.model.Floor;
+import parking.model.ParkingSpot;
+import parking.model.SpotType;
+import parking.model.Vehicle;
+
+/**
+ * OccupancyHistory - Occupied spots over time, for the whole lot, each floor and
+ * each spot type, at 1-minute resolution with hourly and daily rollups.
+ *
+ * Occupied counts are kept up to date from DataCenter events, so taking a sample
+ * is just copying a few counters into their TimeSeries - no spot is looked at.
+ * A background thread samples at the start of every minute. Memory is fixed by
+ * the TimeSeries ring sizes (7 days of minutes, 90 days of hours, 3 years of days
+ * by default) and does not grow while the program runs.
+ */
+public class OccupancyHistory implements DataListener {
+
+    private static volatile OccupancyHistory instance;
+
+    // One point of a history: occupied spots in [time, time + resolution)
+    public record Point(LocalDateTime time, int minOccupied, int maxOccupied, double averageOccupied, int spots) {
+        // Average occupancy as a percentage
+        public double rate() {
+            return spots > 0 ? averageOccupied * 100.0 / spots : 0.0;
+        }
+
+        public double peakRate() {
+            return spots > 0 ? maxOccupied * 100.0 / spots : 0.0;
+        }
+    }
+
+    // Counters and history of one floor / spot type / the whole lot
+    private static class Track {
+        final TimeSeries series = new TimeSeries();
+        int spots;
+        int occupied;
+    }
+
+    // Guarded by this. Replaced by a reset.
+    private Track lot;
+    private final TreeMap<Integer, Track> floors = new TreeMap<>();
+    private final Track[] types = new Track[SpotType.values().length];
+    private ScheduledExecutorService sampler;
+
+    // The shared history. Created on first use: records from then on.
+    public static OccupancyHistory getInstance() {
+        OccupancyHistory h = instance;
+        if (h == null) {
+            synchronized (OccupancyHistory.class) {
+                h = instance;
+                if (h == null) {
+                    h = new OccupancyHistory();
+                    h.attach();
+                    instance = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    private OccupancyHistory() {
+    }
+
+    // Counts the spots once, then follows the events and samples every minute
+    private void attach() {
+        synchronized (DataCenter.getDefaultLot()) {
+            DataCenter.addListener(this);
+            recount();
+        }
+        sample();
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "occupancy-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        LocalDateTime now = ParkingClock.now();
+        long delay = Duration.between(now, now.withSecond(0).withNano(0).plusMinutes(1)).toMillis();
+        sampler.scheduleAtFixedRate(this::sample, delay, 60_000, TimeUnit.MILLISECONDS);
+    }
+
+    // ========== SAMPLING ==========
+
+    // Records the current counts for this minute
+    public void sample() {
+        sample(ParkingClock.now());
+    }
+
+    // Records the current counts as the sample for the minute of the given time
+    public synchronized void sample(LocalDateTime time) {
+        long minute = minuteOf(time);
+        record(lot, minute);
+        for (Track t : floors.values()) {
+            record(t, minute);
+        }
+        for (Track t : types) {
+            record(t, minute);
+        }
+    }
+
+    private static void record(Track t, long minute) {
+        t.series.record(minute, t.occupied);
+    }
+
+    // ========== QUERIES ==========
+    // All return the points whose bucket starts in [from, to), oldest first
+
+    public synchronized List<Point> getLotHistory(TimeSeries.Resolution resolution,
+                                                  LocalDateTime from, LocalDateTime to) {
+        return points(lot, resolution, from, to);
+    }
+
+    // Empty if there is no such floor
+    public synchronized List<Point> getFloorHistory(int floorNumber, TimeSeries.Resolution resolution,
+                                                    LocalDateTime from, LocalDateTime to) {
+        Track t = floors.get(floorNumber);
+        return t != null ? points(t, resolution, from, to) : new ArrayList<>();
+    }
+
+    public synchronized List<Point> getSpotTypeHistory(SpotType type, TimeSeries.Resolution resolution,
+                                                       LocalDateTime from, LocalDateTime to) {
+        return points(types[type.ordinal()], resolution, from, to);
+    }
+
+    // Memory held by all the ring buffers
+    public synchronized long getFootprintBytes() {
+        long bytes = lot.series.getFootprintBytes();
+        for (Track t : floors.values()) {
+            bytes += t.series.getFootprintBytes();
+        }
+        for (Track t : types) {
+            bytes += t.series.getFootprintBytes();
+        }
+        return bytes;
+    }
+
+    private static List<Point> points(Track t, TimeSeries.Resolution resolution,
+                                      LocalDateTime from, LocalDateTime to) {
+        List<TimeSeries.Sample> samples = t.series.query(resolution, minuteOf(from), minuteOf(to));
+        ArrayList<Point> points = new ArrayList<>(samples.size());
+        for (TimeSeries.Sample s : samples) {
+            points.add(new Point(timeOf(s.startMinute()), s.min(), s.max(), s.average(), t.spots));
+        }
+        return points;
+    }
+
+    // ========== DATA EVENTS ==========
+
+    @Override
+    public synchronized void vehicleParked(Vehicle vehicle, ParkingSpot spot) {
+        count(spot != null ? spot : DataCenter.findSpotById(vehicle.getSpotId()), +1);
+    }
+
+    @Override
+    public synchronized void vehicleRemoved(Vehicle vehicle, ParkingSpot spot) {
+        count(spot != null ? spot : DataCenter.findSpotById(vehicle.getSpotId()), -1);
+    }
+
+    // A new lot layout: the old history no longer applies
+    @Override
+    public synchronized void dataReset() {
+        recount();
+    }
+
+    private void count(ParkingSpot spot, int delta) {
+        if (spot == null) {
+            return;
+        }
+        lot.occupied += delta;
+        types[spot.getType().ordinal()].occupied += delta;
+        Track floor = floors.get(spot.getFloorNumber());
+        if (floor != null) {
+            floor.occupied += delta;
+        }
+    }
+
+    // Starts empty histories and counts the spots from scratch (on start and after a reset only)
+    private void recount() {
+        lot = new Track();
+        floors.clear();
+        for (int i = 0; i < types.length; i++) {
+            types[i] = new Track();
+        }
+        for (Floor floor : DataCenter.getFloors()) {
+            Track f = new Track();
+            floors.put(floor.getFloorNumber(), f);
+            for (ParkingSpot spot : floor.getSpots()) {
+                Track t = types[spot.getType().ordinal()];
+                f.spots++;
+                t.spots++;
+                lot.spots++;
+                if (!spot.isAvailable()) {
+                    f.occupied++;
+                    t.occupied++;
+                    lot.occupied++;
+                }
+            }
+        }
+    }
+
+    // ========== TIME ==========
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime timeOf(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,11 @@
+package parking.monitor;
+
+import parking.model.Vehicle;
+
+// Told when a parked vehicle passes one of the OverstayScheduler thresholds
+@FunctionalInterface
+public interface OverstayListener {
+
+    // Called once per vehicle and threshold, outside the scheduler's lock
+    void thresholdPassed(Vehicle vehicle, long thresholdHours);
+}
@@ -0,0 +1,332 @@
+package parking.monitor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import parking.clock.ClockListener;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.data.DataListener;
+import parking.model.ParkingSpot;
+import parking.model.Vehicle;
+
+/**
+ * OverstayScheduler - Knows which parked vehicles are overstaying without
+ * looking at every vehicle.
+ *
+ * Every parked vehicle gets a timer in a TimingWheel for the next threshold it
+ * will pass (default: 24 hours, the same point where the fine schemes start
+ * charging). When a timer fires the vehicle goes into the live overstay set and
+ * OverstayListeners are told. Reports read the set directly, so the work done
+ * depends on the number of thresholds passed, not on the size of the lot.
+ *
+ * A vehicle overstays a threshold of H hours once its stay is longer than H hours
+ * (more than H x 60 minutes). Time comes from ParkingClock. The wheel is moved
+ * forward by a background ticker every few seconds, by advance(), and straight
+ * away when the clock jumps (a simulated time skip).
+ */
+public class OverstayScheduler implements DataListener, ClockListener {
+
+    private static final long TICK_SECONDS = 10;
+
+    private static volatile OverstayScheduler instance;
+
+    // One parked vehicle and where it is in the list of thresholds
+    private static class Session {
+        final Vehicle vehicle;
+        final String key;
+        int next;            // index of the next threshold to pass
+        long announcedHours; // highest threshold listeners were told about
+        TimingWheel.Timer<Session> timer;
+
+        Session(Vehicle vehicle, String key) {
+            this.vehicle = vehicle;
+            this.key = key;
+        }
+    }
+
+    // A threshold passed, waiting to be sent to the listeners
+    private record Event(Vehicle vehicle, long hours) {
+    }
+
+    // Guarded by this
+    private final TimingWheel<Session> wheel = new TimingWheel<>(currentMinute());
+    private final HashMap<String, Session> sessions = new HashMap<>();
+    private long[] thresholds = {24};
+
+    // Live results, readable without the lock. Keys are license plates in upper case.
+    private final ConcurrentHashMap<String, Vehicle> overstaying = new ConcurrentHashMap<>();
+    private final Set<String> violating = ConcurrentHashMap.newKeySet(); // overstaying or reserved-spot violation
+
+    private final CopyOnWriteArrayList<OverstayListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong eventsFired = new AtomicLong();
+    private ScheduledExecutorService ticker;
+
+    // The shared scheduler. Created on first use: follows the DataCenter from then on.
+    public static OverstayScheduler getInstance() {
+        OverstayScheduler s = instance;
+        if (s == null) {
+            synchronized (OverstayScheduler.class) {
+                s = instance;
+                if (s == null) {
+                    s = new OverstayScheduler();
+                    s.attach();
+                    instance = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    private OverstayScheduler() {
+    }
+
+    // Registers and picks up the vehicles already parked while holding the DataCenter lock,
+    // so a vehicle that leaves in between is not added back from a stale list; then ticks
+    private void attach() {
+        ParkingClock.addListener(this);
+        synchronized (DataCenter.getDefaultLot()) {
+            DataCenter.addListener(this);
+            for (Vehicle v : DataCenter.getAllParkedVehicles()) {
+                vehicleParked(v, null);
+            }
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "overstay-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(this::advance, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // ========== LISTENERS ==========
+    public void addListener(OverstayListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OverstayListener listener) {
+        listeners.remove(listener);
+    }
+
+    // ========== LIVE OVERSTAY SET ==========
+
+    // Number of parked vehicles past the first threshold
+    public int getOverstayCount() {
+        return overstaying.size();
+    }
+
+    public boolean isOverstaying(String licensePlate) {
+        return licensePlate != null && overstaying.containsKey(licensePlate.toUpperCase());
+    }
+
+    // Parked vehicles that are overstaying or parked in a reserved spot without a reservation
+    public int getViolatingCount() {
+        return violating.size();
+    }
+
+    public ArrayList<Vehicle> getOverstayingVehicles() {
+        return new ArrayList<>(overstaying.values());
+    }
+
+    // Total threshold events fired since start (shows how much work the scheduler did)
+    public long getEventsFired() {
+        return eventsFired.get();
+    }
+
+    // ========== THRESHOLDS ==========
+    public synchronized long[] getThresholds() {
+        return thresholds.clone();
+    }
+
+    /**
+     * Changes the thresholds (in hours, e.g. 24, 48, 72). Every parked vehicle is
+     * rescheduled; listeners are only told about thresholds they have not heard of yet.
+     */
+    public void setThresholds(long... hours) {
+        if (hours.length == 0) {
+            throw new IllegalArgumentException("At least one threshold is needed");
+        }
+        long[] sorted = hours.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] <= 0) {
+            throw new IllegalArgumentException("Thresholds must be positive");
+        }
+        ArrayList<Event> events = new ArrayList<>();
+        synchronized (this) {
+            thresholds = sorted;
+            long now = advanceWheel(events);
+            for (Session session : sessions.values()) {
+                reschedule(session, now, events);
+            }
+        }
+        publish(events);
+    }
+
+    // ========== CLOCK ==========
+
+    // Fires every threshold that has been reached by now
+    public void advance() {
+        ArrayList<Event> events = new ArrayList<>();
+        synchronized (this) {
+            advanceWheel(events);
+        }
+        publish(events);
+    }
+
+    private long advanceWheel(ArrayList<Event> events) {
+        long now = Math.max(currentMinute(), wheel.getCurrentMinute()); // never backwards
+        for (Session session : wheel.advanceTo(now, new ArrayList<>())) {
+            session.timer = null;
+            if (sessions.get(session.key) == session) {
+                pass(session, events);
+                scheduleNext(session, now, events);
+            }
+        }
+        return now;
+    }
+
+    private static long currentMinute() {
+        return Math.floorDiv(ParkingClock.now().toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // First whole minute at which the stay is longer than the given number of hours
+    private static long deadlineMinute(LocalDateTime entry, long hours) {
+        LocalDateTime over = entry.plusHours(hours).plusMinutes(1);
+        long seconds = over.toEpochSecond(ZoneOffset.UTC) + (over.getNano() > 0 ? 1 : 0);
+        return Math.floorDiv(seconds + 59, 60);
+    }
+
+    // ========== SCHEDULING ==========
+
+    // Schedules the next threshold, passing the ones already behind us straight away
+    private void scheduleNext(Session session, long now, ArrayList<Event> events) {
+        while (session.next < thresholds.length) {
+            long deadline = deadlineMinute(session.vehicle.getEntryTime(), thresholds[session.next]);
+            if (deadline > now) {
+                session.timer = wheel.schedule(session, deadline);
+                return;
+            }
+            pass(session, events);
+        }
+    }
+
+    private void pass(Session session, ArrayList<Event> events) {
+        long hours = thresholds[session.next++];
+        overstaying.put(session.key, session.vehicle);
+        violating.add(session.key);
+        if (hours > session.announcedHours) {
+            session.announcedHours = hours;
+            events.add(new Event(session.vehicle, hours));
+        }
+    }
+
+    // Starts a session over (entry time or thresholds changed)
+    private void reschedule(Session session, long now, ArrayList<Event> events) {
+        wheel.cancel(session.timer);
+        session.timer = null;
+        session.next = 0;
+        overstaying.remove(session.key);
+        if (!session.vehicle.hasViolation()) {
+            violating.remove(session.key);
+        } else {
+            violating.add(session.key);
+        }
+        scheduleNext(session, now, events);
+    }
+
+    private void publish(ArrayList<Event> events) {
+        for (Event e : events) {
+            eventsFired.incrementAndGet();
+            for (OverstayListener l : listeners) {
+                l.thresholdPassed(e.vehicle(), e.hours());
+            }
+        }
+    }
+
+    // ========== CLOCK EVENTS ==========
+
+    // A jump ahead is caught up at once. A jump back restarts the wheel at the new
+    // time and reschedules every parked vehicle (their overstays may not have started yet).
+    @Override
+    public void timeChanged(LocalDateTime before, LocalDateTime after) {
+        if (!after.isBefore(before)) {
+            advance();
+            return;
+        }
+        ArrayList<Event> events = new ArrayList<>();
+        synchronized (this) {
+            long now = currentMinute();
+            wheel.clear(now);
+            for (Session session : sessions.values()) {
+                session.timer = null; // the wheel forgot it
+                reschedule(session, now, events);
+            }
+        }
+        publish(events);
+    }
+
+    // ========== DATACENTER EVENTS ==========
+    @Override
+    public void vehicleParked(Vehicle vehicle, ParkingSpot spot) {
+        ArrayList<Event> events = new ArrayList<>();
+        synchronized (this) {
+            long now = advanceWheel(events);
+            String key = vehicle.getLicensePlate().toUpperCase();
+            Session old = sessions.get(key);
+            if (old != null) {
+                wheel.cancel(old.timer);
+            }
+            Session session = new Session(vehicle, key);
+            sessions.put(key, session);
+            reschedule(session, now, events);
+        }
+        publish(events);
+    }
+
+    @Override
+    public void vehicleRemoved(Vehicle vehicle, ParkingSpot spot) {
+        String key = vehicle.getLicensePlate().toUpperCase();
+        synchronized (this) {
+            Session session = sessions.get(key);
+            if (session == null || session.vehicle != vehicle) {
+                return;
+            }
+            sessions.remove(key);
+            wheel.cancel(session.timer);
+            overstaying.remove(key);
+            violating.remove(key);
+        }
+    }
+
+    @Override
+    public void vehicleChanged(Vehicle vehicle) {
+        ArrayList<Event> events = new ArrayList<>();
+        synchronized (this) {
+            Session session = sessions.get(vehicle.getLicensePlate().toUpperCase());
+            if (session == null || session.vehicle != vehicle) {
+                return;
+            }
+            reschedule(session, advanceWheel(events), events);
+        }
+        publish(events);
+    }
+
+    @Override
+    public void dataReset() {
+        synchronized (this) {
+            sessions.clear();
+            wheel.clear(currentMinute());
+            overstaying.clear();
+            violating.clear();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package parking.monitor;
+
+// 64-bit hash of a license plate for the sketches (FNV-1a, then the MurmurHash3
+// finalizer so every output bit depends on every input character).
+// Plates are hashed ignoring case.
+final class PlateHash {
+
+    private PlateHash() {
+    }
+
+    static long hash64(String plate) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < plate.length(); i++) {
+            h ^= Character.toUpperCase(plate.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
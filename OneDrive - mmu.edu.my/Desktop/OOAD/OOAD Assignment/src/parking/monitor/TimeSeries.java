@@ -0,0 +1,207 @@
+package parking.monitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TimeSeries - One integer value sampled once a minute, kept at three resolutions
+ * in fixed-size ring buffers of primitives.
+ *
+ * Every sample goes into the minute ring and is rolled up straight away into the
+ * current hour and day buckets (min, max, sum, count), so the hourly and daily
+ * views never have to be recalculated. Each ring keeps its last N buckets and
+ * overwrites the oldest, so memory is fixed when the series is created no matter
+ * how long the program runs. Times are minutes since the epoch; buckets start at
+ * whole hours / days of that count.
+ *
+ * Not thread safe: the owner locks (see OccupancyHistory).
+ */
+public class TimeSeries {
+
+    public enum Resolution {
+        MINUTE(1), HOUR(60), DAY(1440);
+
+        private final int minutes;
+
+        Resolution(int minutes) {
+            this.minutes = minutes;
+        }
+
+        public int getMinutes() {
+            return minutes;
+        }
+    }
+
+    // One bucket of the series: the samples in [startMinute, startMinute + resolution)
+    public record Sample(long startMinute, int min, int max, double average, int count) {
+    }
+
+    // Default retention: 7 days of minutes, 90 days of hours, 3 years of days
+    public static final int DEFAULT_MINUTES = 7 * 24 * 60;
+    public static final int DEFAULT_HOURS = 90 * 24;
+    public static final int DEFAULT_DAYS = 3 * 366;
+
+    private static final int NONE = Integer.MIN_VALUE; // minute slot without a sample
+
+    private final MinuteRing minutes;
+    private final RollupRing hours;
+    private final RollupRing days;
+
+    public TimeSeries() {
+        this(DEFAULT_MINUTES, DEFAULT_HOURS, DEFAULT_DAYS);
+    }
+
+    public TimeSeries(int minuteSlots, int hourSlots, int daySlots) {
+        minutes = new MinuteRing(minuteSlots);
+        hours = new RollupRing(Resolution.HOUR.minutes, hourSlots);
+        days = new RollupRing(Resolution.DAY.minutes, daySlots);
+    }
+
+    /**
+     * Records the value for a minute. Only the first sample of a minute counts, and
+     * samples older than the minute ring's window are ignored.
+     */
+    public void record(long minute, int value) {
+        if (!minutes.put(minute, value)) {
+            return;
+        }
+        hours.add(minute, value);
+        days.add(minute, value);
+    }
+
+    /**
+     * The buckets that start in [fromMinute, toMinute) and have at least one sample,
+     * oldest first. Buckets that fell out of the ring are not returned.
+     */
+    public List<Sample> query(Resolution resolution, long fromMinute, long toMinute) {
+        switch (resolution) {
+            case MINUTE: return minutes.query(fromMinute, toMinute);
+            case HOUR: return hours.query(fromMinute, toMinute);
+            default: return days.query(fromMinute, toMinute);
+        }
+    }
+
+    // Newest minute recorded, or Long.MIN_VALUE if nothing was recorded yet
+    public long getLastMinute() {
+        return minutes.newest;
+    }
+
+    // Bytes held by the rings (fixed when the series is created)
+    public long getFootprintBytes() {
+        return 4L * minutes.values.length + hours.footprint() + days.footprint();
+    }
+
+    // Minute values only: one int per minute
+    private static class MinuteRing {
+        final int[] values;
+        long newest = Long.MIN_VALUE;
+
+        MinuteRing(int slots) {
+            values = new int[slots];
+            Arrays.fill(values, NONE);
+        }
+
+        boolean put(long minute, int value) {
+            int n = values.length;
+            if (newest != Long.MIN_VALUE && minute <= newest - n) {
+                return false; // older than the window
+            }
+            if (newest == Long.MIN_VALUE || minute > newest) {
+                // Forget what the slots up to this minute held one turn ago
+                long from = newest == Long.MIN_VALUE ? minute : newest + 1;
+                for (long m = Math.max(from, minute - n + 1); m <= minute; m++) {
+                    values[(int) Math.floorMod(m, (long) n)] = NONE;
+                }
+                newest = minute;
+            }
+            int i = (int) Math.floorMod(minute, (long) n);
+            if (values[i] != NONE) {
+                return false; // this minute already has its sample
+            }
+            values[i] = value;
+            return true;
+        }
+
+        List<Sample> query(long from, long to) {
+            ArrayList<Sample> result = new ArrayList<>();
+            if (newest == Long.MIN_VALUE) {
+                return result;
+            }
+            long start = Math.max(from, newest - values.length + 1);
+            long end = Math.min(to, newest + 1);
+            for (long m = start; m < end; m++) {
+                int v = values[(int) Math.floorMod(m, (long) values.length)];
+                if (v != NONE) {
+                    result.add(new Sample(m, v, v, v, 1));
+                }
+            }
+            return result;
+        }
+    }
+
+    // Rolled-up buckets: min, max, sum and count per bucket
+    private static class RollupRing {
+        final int bucketMinutes;
+        final int[] min;
+        final int[] max;
+        final long[] sum;
+        final int[] count;
+        long newest = Long.MIN_VALUE; // newest bucket number
+
+        RollupRing(int bucketMinutes, int slots) {
+            this.bucketMinutes = bucketMinutes;
+            min = new int[slots];
+            max = new int[slots];
+            sum = new long[slots];
+            count = new int[slots];
+        }
+
+        void add(long minute, int value) {
+            long bucket = Math.floorDiv(minute, bucketMinutes);
+            int n = count.length;
+            if (newest != Long.MIN_VALUE && bucket <= newest - n) {
+                return;
+            }
+            if (newest == Long.MIN_VALUE || bucket > newest) {
+                long from = newest == Long.MIN_VALUE ? bucket : newest + 1;
+                for (long b = Math.max(from, bucket - n + 1); b <= bucket; b++) {
+                    count[(int) Math.floorMod(b, (long) n)] = 0;
+                }
+                newest = bucket;
+            }
+            int i = (int) Math.floorMod(bucket, (long) n);
+            if (count[i] == 0) {
+                min[i] = value;
+                max[i] = value;
+                sum[i] = value;
+            } else {
+                min[i] = Math.min(min[i], value);
+                max[i] = Math.max(max[i], value);
+                sum[i] += value;
+            }
+            count[i]++;
+        }
+
+        List<Sample> query(long from, long to) {
+            ArrayList<Sample> result = new ArrayList<>();
+            if (newest == Long.MIN_VALUE) {
+                return result;
+            }
+            int n = count.length;
+            long first = Math.max(Math.floorDiv(from + bucketMinutes - 1, bucketMinutes), newest - n + 1);
+            long last = Math.min(Math.floorDiv(to - 1, bucketMinutes), newest);
+            for (long b = first; b <= last; b++) {
+                int i = (int) Math.floorMod(b, (long) n);
+                if (count[i] > 0) {
+                    result.add(new Sample(b * bucketMinutes, min[i], max[i], (double) sum[i] / count[i], count[i]));
+                }
+            }
+            return result;
+        }
+
+        long footprint() {
+            return (4L + 4 + 8 + 4) * count.length;
+        }
+    }
+}
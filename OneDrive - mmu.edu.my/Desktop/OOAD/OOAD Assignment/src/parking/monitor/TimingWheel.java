@@ -0,0 +1,181 @@
+package parking.monitor;
+
+import java.util.ArrayList;
+
+/**
+ * TimingWheel - Hierarchical timing wheel with a tick of one minute.
+ *
+ * Four levels of 64 slots each: level 0 holds timers due in the next 64 minutes,
+ * level 1 the next 64 x 64 minutes (about 2.8 days), and so on up to about 31 years.
+ * Scheduling and cancelling are O(1). Advancing costs one step per elapsed minute
+ * plus the work for the timers that are due or move down a level, so it does not
+ * depend on how many timers are waiting.
+ *
+ * Not thread-safe; the owner (OverstayScheduler) locks around it.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS); // minutes the wheel can hold
+
+    // A scheduled timer. Kept in a doubly linked list per slot so it can be cancelled in O(1).
+    public static final class Timer<T> {
+        private final T value;
+        private final long deadline; // epoch minute
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isScheduled() {
+            return prev != null;
+        }
+    }
+
+    // slots[level][slot] is the sentinel head of a circular list
+    private final Timer<T>[][] slots;
+    private long currentMinute;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long startMinute) {
+        slots = new Timer[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int s = 0; s < SLOTS; s++) {
+                Timer<T> head = new Timer<>(null, 0);
+                head.prev = head;
+                head.next = head;
+                slots[level][s] = head;
+            }
+        }
+        currentMinute = startMinute;
+    }
+
+    /**
+     * Schedules a value to come out of advanceTo() at the given epoch minute.
+     * A deadline that is not in the future comes out on the next advanceTo().
+     */
+    public Timer<T> schedule(T value, long deadlineMinute) {
+        Timer<T> timer = new Timer<>(value, deadlineMinute);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    public void cancel(Timer<T> timer) {
+        if (timer != null && timer.isScheduled()) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Moves the wheel forward to the given epoch minute and returns the values
+     * whose deadline has been reached, earliest first.
+     */
+    public ArrayList<T> advanceTo(long minute, ArrayList<T> due) {
+        // Overdue timers (deadline already passed when they were scheduled) wait in the current slot
+        drain(slots[0][(int) (currentMinute & SLOT_MASK)], due);
+        while (currentMinute < minute) {
+            if (size == 0) {
+                currentMinute = minute; // nothing waiting: jump straight there
+                break;
+            }
+            currentMinute++;
+            cascade();
+            drain(slots[0][(int) (currentMinute & SLOT_MASK)], due);
+        }
+        return due;
+    }
+
+    public long getCurrentMinute() {
+        return currentMinute;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Removes every timer, and restarts the wheel at the given minute
+    public void clear(long startMinute) {
+        for (Timer<T>[] level : slots) {
+            for (Timer<T> head : level) {
+                head.prev = head;
+                head.next = head;
+            }
+        }
+        size = 0;
+        currentMinute = startMinute;
+    }
+
+    // When a lower level wraps around, the matching slot of the next level is spread back down
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentMinute & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            Timer<T> head = slots[level][(int) ((currentMinute >>> (SLOT_BITS * level)) & SLOT_MASK)];
+            Timer<T> t = head.next;
+            head.prev = head;
+            head.next = head;
+            while (t != head) {
+                Timer<T> next = t.next;
+                insert(t);
+                t = next;
+            }
+        }
+    }
+
+    private void drain(Timer<T> head, ArrayList<T> due) {
+        Timer<T> t = head.next;
+        while (t != head) {
+            Timer<T> next = t.next;
+            if (t.deadline <= currentMinute) {
+                unlink(t);
+                size--;
+                due.add(t.value);
+            }
+            t = next;
+        }
+    }
+
+    private void insert(Timer<T> timer) {
+        long delta = timer.deadline - currentMinute;
+        Timer<T> head;
+        if (delta <= 0) {
+            head = slots[0][(int) (currentMinute & SLOT_MASK)];
+        } else if (delta >= SPAN) {
+            // Too far away: park it in the last slot of the top level, it is re-placed when cascaded
+            long far = currentMinute + SPAN - 1;
+            head = slots[LEVELS - 1][(int) ((far >>> (SLOT_BITS * (LEVELS - 1))) & SLOT_MASK)];
+        } else {
+            int level = (63 - Long.numberOfLeadingZeros(delta)) / SLOT_BITS;
+            head = slots[level][(int) ((timer.deadline >>> (SLOT_BITS * level)) & SLOT_MASK)];
+        }
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
@@ -0,0 +1,92 @@
+package parking.monitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * TopK - The k most frequent plates, counted with a CountMinSketch.
+ *
+ * Only k plates are kept by name, in a min-heap on their estimated count: a new
+ * plate replaces the smallest one as soon as its estimate is higher. Memory is
+ * the sketch plus k entries. Counts are CountMinSketch estimates (never too low).
+ * Not thread safe: the owner locks (see VisitorStats).
+ */
+public class TopK {
+
+    // A plate and its estimated count
+    public record Entry(String licensePlate, long count) {
+    }
+
+    private final int k;
+    private final CountMinSketch sketch;
+    private final HashMap<String, Entry> byPlate = new HashMap<>();
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>((a, b) -> Long.compare(a.count(), b.count()));
+
+    public TopK(int k, CountMinSketch sketch) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.k = k;
+        this.sketch = sketch;
+    }
+
+    public void add(String plate) {
+        String key = plate.toUpperCase();
+        offer(key, sketch.add(key, 1));
+    }
+
+    private void offer(String key, long estimate) {
+        Entry old = byPlate.get(key);
+        if (old != null) {
+            heap.remove(old); // O(k), k is small
+        } else if (byPlate.size() >= k) {
+            if (estimate <= heap.peek().count()) {
+                return;
+            }
+            byPlate.remove(heap.poll().licensePlate());
+        }
+        Entry e = new Entry(key, estimate);
+        byPlate.put(key, e);
+        heap.add(e);
+    }
+
+    // Most frequent first
+    public List<Entry> top() {
+        ArrayList<Entry> list = new ArrayList<>(heap);
+        list.sort((a, b) -> Long.compare(b.count(), a.count()));
+        return list;
+    }
+
+    // Adds the other stream: merges the sketches, then picks the top k of both candidate lists
+    public void merge(TopK other) {
+        sketch.merge(other.sketch);
+        ArrayList<String> candidates = new ArrayList<>(byPlate.keySet());
+        candidates.addAll(other.byPlate.keySet());
+        byPlate.clear();
+        heap.clear();
+        for (String key : candidates) {
+            if (!byPlate.containsKey(key)) {
+                offer(key, sketch.estimate(key));
+            }
+        }
+    }
+
+    public TopK copy() {
+        TopK c = new TopK(k, sketch.copy());
+        for (Entry e : heap) {
+            c.byPlate.put(e.licensePlate(), e);
+            c.heap.add(e);
+        }
+        return c;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public CountMinSketch getSketch() {
+        return sketch;
+    }
+}
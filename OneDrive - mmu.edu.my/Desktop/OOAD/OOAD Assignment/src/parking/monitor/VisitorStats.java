@@ -0,0 +1,246 @@
+package parking.monitor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.data.DataListener;
+import parking.model.ParkingSpot;
+import parking.model.Payment;
+import parking.model.Ticket;
+import parking.model.Vehicle;
+
+/**
+ * VisitorStats - Distinct visitors and the most frequent visitors and offenders,
+ * over any length of history, in bounded memory.
+ *
+ * Starts from the recorded tickets and payments, then follows DataCenter events:
+ * every vehicle parked is a visit (counted on its entry day), every exit payment
+ * that included fines is an offence. Distinct plates are
+ * counted with one HyperLogLog per day and per month (the last DAYS_KEPT days and
+ * MONTHS_KEPT months) plus one for all time; the frequent plates with a TopK each.
+ * All figures are estimates within the error bounds given to the constructor.
+ *
+ * Two VisitorStats with the same settings can be merged (e.g. several lots).
+ */
+public class VisitorStats implements DataListener {
+
+    public static final int DAYS_KEPT = 400;
+    public static final int MONTHS_KEPT = 60;
+
+    // Defaults: ~1.6% error for distinct counts, counts within 0.1% of all visits (99% sure), top 10
+    public static final double DEFAULT_DISTINCT_ERROR = 0.016;
+    public static final double DEFAULT_FREQUENCY_ERROR = 0.001;
+    public static final double DEFAULT_CONFIDENCE = 0.99;
+    public static final int DEFAULT_TOP = 10;
+
+    private static volatile VisitorStats instance;
+
+    private final double distinctError;
+    private final double frequencyError;
+    private final double confidence;
+    private final int top;
+
+    // Guarded by this
+    private final TreeMap<LocalDate, HyperLogLog> byDay = new TreeMap<>();
+    private final TreeMap<YearMonth, HyperLogLog> byMonth = new TreeMap<>();
+    private HyperLogLog allTime;
+    private TopK visitors;
+    private TopK offenders;
+    private long visits;
+    private long offences;
+
+    // The shared statistics with default error bounds. Created on first use from the
+    // recorded tickets and payments, then kept up to date from events.
+    public static VisitorStats getInstance() {
+        VisitorStats s = instance;
+        if (s == null) {
+            synchronized (VisitorStats.class) {
+                s = instance;
+                if (s == null) {
+                    s = new VisitorStats(DEFAULT_DISTINCT_ERROR, DEFAULT_FREQUENCY_ERROR, DEFAULT_CONFIDENCE,
+                            DEFAULT_TOP);
+                    s.attach();
+                    instance = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Empty statistics (not connected to the DataCenter; add with DataCenter.addListener).
+     * distinctError: typical relative error of the distinct counts (e.g. 0.01 = 1%).
+     * frequencyError and confidence: a visit/offence count is at most frequencyError x
+     * (all visits/offences) too high, with the given probability (e.g. 0.99).
+     */
+    public VisitorStats(double distinctError, double frequencyError, double confidence, int top) {
+        this.distinctError = distinctError;
+        this.frequencyError = frequencyError;
+        this.confidence = confidence;
+        this.top = top;
+        this.allTime = HyperLogLog.withError(distinctError);
+        this.visitors = new TopK(top, CountMinSketch.withError(frequencyError, 1 - confidence));
+        this.offenders = new TopK(top, CountMinSketch.withError(frequencyError, 1 - confidence));
+    }
+
+    // Counts the history, then follows the events (under the DataCenter lock, so
+    // nothing is counted twice or missed in between)
+    private void attach() {
+        synchronized (DataCenter.getDefaultLot()) {
+            for (Ticket t : DataCenter.getTickets()) {
+                recordVisit(t.getLicensePlate(), t.getEntryTime());
+            }
+            for (Payment p : DataCenter.getPayments()) {
+                paymentAdded(p);
+            }
+            DataCenter.addListener(this);
+        }
+    }
+
+    // ========== RECORDING ==========
+
+    // One visit by the plate, on the day of the given time
+    public synchronized void recordVisit(String plate, LocalDateTime time) {
+        LocalDate day = time.toLocalDate();
+        sketch(byDay, day, DAYS_KEPT).add(plate);
+        sketch(byMonth, YearMonth.from(day), MONTHS_KEPT).add(plate);
+        allTime.add(plate);
+        visitors.add(plate);
+        visits++;
+    }
+
+    // One offence (a session that ended with fines) by the plate
+    public synchronized void recordOffence(String plate) {
+        offenders.add(plate);
+        offences++;
+    }
+
+    // ========== QUERIES ==========
+
+    // Estimated distinct plates that visited on the day (0 if the day is no longer kept)
+    public synchronized long getDistinctVisitors(LocalDate day) {
+        HyperLogLog h = byDay.get(day);
+        return h != null ? h.estimate() : 0;
+    }
+
+    public synchronized long getDistinctVisitors(YearMonth month) {
+        HyperLogLog h = byMonth.get(month);
+        return h != null ? h.estimate() : 0;
+    }
+
+    // Estimated distinct plates over the days from..to (inclusive), from the kept days
+    public synchronized long getDistinctVisitors(LocalDate from, LocalDate to) {
+        HyperLogLog merged = HyperLogLog.withError(distinctError);
+        for (HyperLogLog h : byDay.subMap(from, true, to, true).values()) {
+            merged.merge(h);
+        }
+        return merged.estimate();
+    }
+
+    public synchronized long getDistinctVisitorsAllTime() {
+        return allTime.estimate();
+    }
+
+    // Most frequent visitors, highest first, with their estimated number of visits
+    public synchronized List<TopK.Entry> getTopVisitors() {
+        return visitors.top();
+    }
+
+    // Plates with the most sessions that ended with fines, highest first
+    public synchronized List<TopK.Entry> getTopOffenders() {
+        return offenders.top();
+    }
+
+    public synchronized long getVisitCount() {
+        return visits;
+    }
+
+    public synchronized long getOffenceCount() {
+        return offences;
+    }
+
+    // Memory held by all the sketches
+    public synchronized long getFootprintBytes() {
+        long bytes = allTime.getFootprintBytes();
+        for (HyperLogLog h : byDay.values()) {
+            bytes += h.getFootprintBytes();
+        }
+        for (HyperLogLog h : byMonth.values()) {
+            bytes += h.getFootprintBytes();
+        }
+        return bytes + visitors.getSketch().getFootprintBytes() + offenders.getSketch().getFootprintBytes();
+    }
+
+    // ========== MERGING ==========
+
+    // Adds everything the other statistics counted (must use the same error bounds)
+    public void merge(VisitorStats other) {
+        VisitorStats copy = other.copy(); // never hold both locks
+        synchronized (this) {
+            for (Map.Entry<LocalDate, HyperLogLog> e : copy.byDay.entrySet()) {
+                sketch(byDay, e.getKey(), DAYS_KEPT).merge(e.getValue());
+            }
+            for (Map.Entry<YearMonth, HyperLogLog> e : copy.byMonth.entrySet()) {
+                sketch(byMonth, e.getKey(), MONTHS_KEPT).merge(e.getValue());
+            }
+            allTime.merge(copy.allTime);
+            visitors.merge(copy.visitors);
+            offenders.merge(copy.offenders);
+            visits += copy.visits;
+            offences += copy.offences;
+        }
+    }
+
+    public synchronized VisitorStats copy() {
+        VisitorStats c = new VisitorStats(distinctError, frequencyError, confidence, top);
+        for (Map.Entry<LocalDate, HyperLogLog> e : byDay.entrySet()) {
+            c.byDay.put(e.getKey(), e.getValue().copy());
+        }
+        for (Map.Entry<YearMonth, HyperLogLog> e : byMonth.entrySet()) {
+            c.byMonth.put(e.getKey(), e.getValue().copy());
+        }
+        c.allTime = allTime.copy();
+        c.visitors = visitors.copy();
+        c.offenders = offenders.copy();
+        c.visits = visits;
+        c.offences = offences;
+        return c;
+    }
+
+    // ========== DATA EVENTS ==========
+
+    @Override
+    public void vehicleParked(Vehicle vehicle, ParkingSpot spot) {
+        LocalDateTime entry = vehicle.getEntryTime();
+        recordVisit(vehicle.getLicensePlate(), entry != null ? entry : ParkingClock.now());
+    }
+
+    @Override
+    public void paymentAdded(Payment payment) {
+        if (payment.getFinesPaid() > 0) {
+            recordOffence(payment.getLicensePlate());
+        }
+    }
+
+    // History is kept across resets: it describes the visitors, not the lot layout
+
+    // ========== HELPERS ==========
+
+    // The sketch for a key, created if needed; the oldest keys beyond the limit are dropped
+    private <K> HyperLogLog sketch(TreeMap<K, HyperLogLog> map, K key, int keep) {
+        HyperLogLog h = map.get(key);
+        if (h == null) {
+            h = HyperLogLog.withError(distinctError);
+            map.put(key, h);
+            while (map.size() > keep) {
+                map.pollFirstEntry();
+            }
+        }
+        return h;
+    }
+}
@@ -0,0 +1,298 @@
+package parking.replication;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import parking.data.DataListener;
+import parking.data.LotPartition;
+import parking.model.*;
+
+/**
+ * Journal - The mutation log of one lot, kept in memory so a primary can ship
+ * it to its followers (see ReplicationPrimary). It follows the lot as a
+ * DataListener: every change is encoded as one record (ReplicationProtocol)
+ * while the change still holds the lot's lock, so the records are in exactly
+ * the order the changes were made.
+ *
+ * attach() starts the journal with a snapshot of the lot: a RESET with the
+ * lot's layout, then every ticket, fine, parked vehicle and payment. Applying
+ * the journal from record 1 onto any lot therefore rebuilds this lot.
+ *
+ *   RESET        u32 floors, u32 rowsPerFloor, u32 spotsPerRow, u8 patternLength, u8 spotType...
+ *   PARK         str plate, u8 vehicleType, u8 flags (1 = VIP, 2 = violation), time entry, str spotId
+ *   REMOVE       str plate, time exit
+ *   CHANGE       str plate, u8 flags, time entry
+ *   TICKET       str ticketId, str plate, str spotId, time entry
+ *   PAYMENT      str plate, str ticketId, time entry, time exit, i64 hours, f64 fee, f64 finesPaid,
+ *                f64 total, u8 method, str idempotencyKey, time paid
+ *   FINE         str plate, f64 amount, str reason, str ticketId, time created, u8 paid
+ *   FINE_CHANGE  str plate, str ticketId, str reason, f64 amount, u8 paid
+ *
+ * The journal only grows (about 60-150 bytes a record); it is thrown away with
+ * the process. Readers may copy records from any thread.
+ */
+public class Journal implements DataListener {
+
+    private static final int SEGMENT_SIZE = 1 << 20;
+
+    private static final int FLAG_VIP = 1;
+    private static final int FLAG_VIOLATION = 2;
+
+    private final LotPartition lot;
+    private final long id;
+
+    // Records are stored back to back in 1 MB segments; a record never spans two
+    private final ArrayList<byte[]> segments = new ArrayList<>();
+    private long[] offsets = new long[4096];    // offsets[seq - 1] = segment << 32 | position
+    private int writeSegment = -1;
+    private int writePosition = SEGMENT_SIZE;
+    private volatile long headSeq;               // last record written
+    private volatile long sizeBytes;
+    private volatile boolean detached;
+
+    // Encodes one record at a time (only while holding this journal's lock)
+    private final ByteBuffer scratch = ByteBuffer.allocate(ReplicationProtocol.MAX_RECORD);
+
+    private Journal(LotPartition lot) {
+        this.lot = lot;
+        long random;
+        do {
+            random = ThreadLocalRandom.current().nextLong();
+        } while (random == 0);
+        this.id = random;
+    }
+
+    // Starts a journal of the lot with a snapshot of its current data, then follows its changes
+    public static Journal attach(LotPartition lot) {
+        Journal journal = new Journal(lot);
+        synchronized (lot) {
+            journal.writeSnapshot();
+            lot.addListener(journal);
+        }
+        return journal;
+    }
+
+    // Stops following the lot; waiting readers return
+    public void detach() {
+        lot.removeListener(this);
+        synchronized (this) {
+            detached = true;
+            notifyAll();
+        }
+    }
+
+    // ========== READING ==========
+
+    // Identifies this journal (a new one is made on every attach, e.g. after a promotion)
+    public long getId() {
+        return id;
+    }
+
+    public LotPartition getLot() {
+        return lot;
+    }
+
+    // Sequence number of the last record (0 if none yet)
+    public long getHeadSeq() {
+        return headSeq;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    // Copies whole records, starting with record fromSeq, into the buffer until the next one
+    // does not fit. Waits up to timeoutMillis for record fromSeq if it was not written yet.
+    // Returns the number of records copied (0 if none came in time or the journal was detached).
+    public synchronized int copy(long fromSeq, ByteBuffer into, long timeoutMillis) throws InterruptedException {
+        if (fromSeq < 1 || fromSeq > headSeq + 1) {
+            throw new IllegalArgumentException("No record " + fromSeq + " in a journal of " + headSeq);
+        }
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (fromSeq > headSeq && !detached) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return 0;
+            }
+            wait(Math.max(1, left / 1_000_000L));
+        }
+        int copied = 0;
+        for (long seq = fromSeq; seq <= headSeq; seq++) {
+            long at = offsets[(int) (seq - 1)];
+            byte[] segment = segments.get((int) (at >>> 32));
+            int position = (int) at;
+            int length = 4 + ByteBuffer.wrap(segment).getInt(position);
+            if (into.remaining() < length) {
+                if (copied == 0) {
+                    throw new IllegalArgumentException("Buffer too small for record " + seq + " (" + length + " bytes)");
+                }
+                break;
+            }
+            into.put(segment, position, length);
+            copied++;
+        }
+        return copied;
+    }
+
+    // ========== WRITING ==========
+
+    // The current lot as records (called from attach() while holding the lot's lock)
+    private void writeSnapshot() {
+        reset();
+        for (Ticket t : lot.getTickets()) {
+            ticketAdded(t);
+        }
+        for (Fine f : lot.getFines()) {
+            fineAdded(f);
+        }
+        for (Vehicle v : lot.getAllParkedVehicles()) {
+            park(v, v.getSpotId());
+        }
+        for (Payment p : lot.getPayments()) {
+            paymentAdded(p);
+        }
+    }
+
+    private void begin(byte type) {
+        scratch.clear();
+        scratch.putInt(0);
+        scratch.put(type);
+        scratch.putLong(headSeq + 1);
+    }
+
+    // Fills in the length and appends the record in scratch
+    private void append() {
+        scratch.putInt(0, scratch.position() - 4);
+        int length = scratch.position();
+        if (writePosition + length > SEGMENT_SIZE) {
+            segments.add(new byte[SEGMENT_SIZE]);
+            writeSegment++;
+            writePosition = 0;
+        }
+        System.arraycopy(scratch.array(), 0, segments.get(writeSegment), writePosition, length);
+        long seq = headSeq + 1;
+        if (seq > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[(int) (seq - 1)] = ((long) writeSegment << 32) | writePosition;
+        writePosition += length;
+        sizeBytes += length;
+        headSeq = seq;
+        notifyAll();
+    }
+
+    private void reset() {
+        // The layout is read first: the lot's lock is never taken while holding the journal's
+        int floors = lot.getFloorCount();
+        int rows = lot.getRowsPerFloor();
+        int spots = lot.getSpotsPerRow();
+        SpotType[] pattern = lot.getRowPattern();
+        synchronized (this) {
+            begin(ReplicationProtocol.RESET);
+            scratch.putInt(floors);
+            scratch.putInt(rows);
+            scratch.putInt(spots);
+            scratch.put((byte) (pattern == null ? 0 : pattern.length));
+            if (pattern != null) {
+                for (SpotType type : pattern) {
+                    scratch.put((byte) type.ordinal());
+                }
+            }
+            append();
+        }
+    }
+
+    private synchronized void park(Vehicle v, String spotId) {
+        begin(ReplicationProtocol.PARK);
+        ReplicationProtocol.putString(scratch, v.getLicensePlate());
+        scratch.put((byte) v.getVehicleType().ordinal());
+        scratch.put(flags(v));
+        ReplicationProtocol.putTime(scratch, v.getEntryTime());
+        ReplicationProtocol.putString(scratch, spotId);
+        append();
+    }
+
+    private static byte flags(Vehicle v) {
+        return (byte) ((v.isVip() ? FLAG_VIP : 0) | (v.hasViolation() ? FLAG_VIOLATION : 0));
+    }
+
+    // ========== DATA LISTENER ==========
+
+    @Override
+    public void vehicleParked(Vehicle vehicle, ParkingSpot spot) {
+        park(vehicle, spot.getSpotId());
+    }
+
+    @Override
+    public synchronized void vehicleRemoved(Vehicle vehicle, ParkingSpot spot) {
+        begin(ReplicationProtocol.REMOVE);
+        ReplicationProtocol.putString(scratch, vehicle.getLicensePlate());
+        ReplicationProtocol.putTime(scratch, vehicle.getExitTime());
+        append();
+    }
+
+    @Override
+    public synchronized void vehicleChanged(Vehicle vehicle) {
+        begin(ReplicationProtocol.CHANGE);
+        ReplicationProtocol.putString(scratch, vehicle.getLicensePlate());
+        scratch.put(flags(vehicle));
+        ReplicationProtocol.putTime(scratch, vehicle.getEntryTime());
+        append();
+    }
+
+    @Override
+    public synchronized void ticketAdded(Ticket ticket) {
+        begin(ReplicationProtocol.TICKET);
+        ReplicationProtocol.putString(scratch, ticket.getTicketId());
+        ReplicationProtocol.putString(scratch, ticket.getLicensePlate());
+        ReplicationProtocol.putString(scratch, ticket.getSpotId());
+        ReplicationProtocol.putTime(scratch, ticket.getEntryTime());
+        append();
+    }
+
+    @Override
+    public synchronized void paymentAdded(Payment p) {
+        begin(ReplicationProtocol.PAYMENT);
+        ReplicationProtocol.putString(scratch, p.getLicensePlate());
+        ReplicationProtocol.putString(scratch, p.getTicketId());
+        ReplicationProtocol.putTime(scratch, p.getEntryTime());
+        ReplicationProtocol.putTime(scratch, p.getExitTime());
+        scratch.putLong(p.getHoursParked());
+        scratch.putDouble(p.getParkingFee());
+        scratch.putDouble(p.getFinesPaid());
+        scratch.putDouble(p.getTotalAmount());
+        scratch.put((byte) p.getPaymentMethod().ordinal());
+        ReplicationProtocol.putString(scratch, p.getIdempotencyKey());
+        ReplicationProtocol.putTime(scratch, p.getPaymentTime());
+        append();
+    }
+
+    @Override
+    public synchronized void fineAdded(Fine fine) {
+        begin(ReplicationProtocol.FINE);
+        ReplicationProtocol.putString(scratch, fine.getLicensePlate());
+        scratch.putDouble(fine.getAmount());
+        ReplicationProtocol.putString(scratch, fine.getReason());
+        ReplicationProtocol.putString(scratch, fine.getTicketId());
+        ReplicationProtocol.putTime(scratch, fine.getCreatedTime());
+        scratch.put((byte) (fine.isPaid() ? 1 : 0));
+        append();
+    }
+
+    @Override
+    public synchronized void fineChanged(Fine fine, double oldAmount, boolean wasPaid) {
+        begin(ReplicationProtocol.FINE_CHANGE);
+        ReplicationProtocol.putString(scratch, fine.getLicensePlate());
+        ReplicationProtocol.putString(scratch, fine.getTicketId());
+        ReplicationProtocol.putString(scratch, fine.getReason());
+        scratch.putDouble(fine.getAmount());
+        scratch.put((byte) (fine.isPaid() ? 1 : 0));
+        append();
+    }
+
+    @Override
+    public void dataReset() {
+        reset();
+    }
+}
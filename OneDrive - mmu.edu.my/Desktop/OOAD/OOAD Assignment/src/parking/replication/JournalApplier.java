@@ -0,0 +1,174 @@
+package parking.replication;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import parking.data.LotPartition;
+import parking.model.*;
+import parking.service.EntryService;
+
+/**
+ * JournalApplier - Replays journal records (see Journal) onto a follower's lot
+ * through the lot's normal methods, so its indexes and listeners (reports,
+ * occupancy, overstays) stay up to date just like on the primary.
+ *
+ * A record that does not fit the follower's lot (a vehicle that is not there,
+ * a spot that is taken) means the follower is out of step with the primary;
+ * apply() then throws IllegalStateException and the follower starts again from
+ * record 1.
+ */
+class JournalApplier {
+
+    private static final SpotType[] SPOT_TYPES = SpotType.values();
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+
+    private final LotPartition lot;
+    private final EntryService vehicles; // only creates Vehicle objects
+
+    JournalApplier(LotPartition lot) {
+        this.lot = lot;
+        this.vehicles = new EntryService(lot);
+    }
+
+    // Applies the whole records in the buffer, which must start with record nextSeq,
+    // as one step for readers of the lot. Returns the sequence number of the next record.
+    long apply(ByteBuffer in, long nextSeq) {
+        synchronized (lot) {
+            while (in.hasRemaining()) {
+                int end = in.position() + 4 + in.getInt();
+                byte type = in.get();
+                long seq = in.getLong();
+                if (seq != nextSeq) {
+                    throw new IllegalStateException("Expected journal record " + nextSeq + " but got " + seq);
+                }
+                applyRecord(type, seq, in);
+                in.position(end);
+                nextSeq++;
+            }
+        }
+        return nextSeq;
+    }
+
+    private void applyRecord(byte type, long seq, ByteBuffer in) {
+        switch (type) {
+            case ReplicationProtocol.RESET: {
+                int floors = in.getInt();
+                int rows = in.getInt();
+                int spots = in.getInt();
+                int patternLength = in.get() & 0xFF;
+                SpotType[] pattern = null;
+                if (patternLength > 0) {
+                    pattern = new SpotType[patternLength];
+                    for (int i = 0; i < patternLength; i++) {
+                        pattern[i] = SPOT_TYPES[in.get()];
+                    }
+                }
+                lot.reset(floors, rows, spots, pattern);
+                break;
+            }
+            case ReplicationProtocol.PARK: {
+                String plate = ReplicationProtocol.getString(in);
+                VehicleType vehicleType = VEHICLE_TYPES[in.get()];
+                int flags = in.get();
+                LocalDateTime entry = ReplicationProtocol.getTime(in);
+                String spotId = ReplicationProtocol.getString(in);
+                Vehicle v = vehicles.createVehicle(plate, vehicleType);
+                v.setVip((flags & 1) != 0);
+                v.setViolation((flags & 2) != 0);
+                v.setEntryTime(entry);
+                ParkingSpot spot = lot.findSpotById(spotId);
+                if (spot == null || !lot.parkVehicle(v, spot)) {
+                    throw outOfStep(seq, type, "cannot park " + plate + " at " + spotId);
+                }
+                break;
+            }
+            case ReplicationProtocol.REMOVE: {
+                String plate = ReplicationProtocol.getString(in);
+                LocalDateTime exit = ReplicationProtocol.getTime(in);
+                Vehicle v = parked(seq, type, plate);
+                if (exit != null) {
+                    v.setExitTime(exit);
+                }
+                lot.removeVehicle(plate);
+                break;
+            }
+            case ReplicationProtocol.CHANGE: {
+                String plate = ReplicationProtocol.getString(in);
+                int flags = in.get();
+                LocalDateTime entry = ReplicationProtocol.getTime(in);
+                Vehicle v = parked(seq, type, plate);
+                v.setVip((flags & 1) != 0);
+                v.setViolation((flags & 2) != 0);
+                v.setEntryTime(entry);
+                lot.vehicleChanged(v);
+                break;
+            }
+            case ReplicationProtocol.TICKET: {
+                String ticketId = ReplicationProtocol.getString(in);
+                String plate = ReplicationProtocol.getString(in);
+                String spotId = ReplicationProtocol.getString(in);
+                LocalDateTime entry = ReplicationProtocol.getTime(in);
+                lot.addTicket(new Ticket(ticketId, plate, spotId, entry));
+                break;
+            }
+            case ReplicationProtocol.PAYMENT: {
+                String plate = ReplicationProtocol.getString(in);
+                String ticketId = ReplicationProtocol.getString(in);
+                LocalDateTime entry = ReplicationProtocol.getTime(in);
+                LocalDateTime exit = ReplicationProtocol.getTime(in);
+                long hours = in.getLong();
+                double fee = in.getDouble();
+                double finesPaid = in.getDouble();
+                double total = in.getDouble();
+                PaymentMethod method = METHODS[in.get()];
+                String key = ReplicationProtocol.getString(in);
+                LocalDateTime paid = ReplicationProtocol.getTime(in);
+                lot.addPayment(new Payment(plate, ticketId, entry, exit, hours, fee, finesPaid, total, method,
+                        key, paid));
+                break;
+            }
+            case ReplicationProtocol.FINE: {
+                String plate = ReplicationProtocol.getString(in);
+                double amount = in.getDouble();
+                String reason = ReplicationProtocol.getString(in);
+                String ticketId = ReplicationProtocol.getString(in);
+                LocalDateTime created = ReplicationProtocol.getTime(in);
+                boolean paid = in.get() != 0;
+                Fine fine = new Fine(plate, amount, reason, ticketId, created);
+                fine.setPaid(paid);
+                lot.addFine(fine);
+                break;
+            }
+            case ReplicationProtocol.FINE_CHANGE: {
+                String plate = ReplicationProtocol.getString(in);
+                String ticketId = ReplicationProtocol.getString(in);
+                String reason = ReplicationProtocol.getString(in);
+                double amount = in.getDouble();
+                boolean paid = in.get() != 0;
+                if (paid) {
+                    // The primary paid all of the plate's fines at once; the first record does it here too
+                    lot.markFinesPaid(plate);
+                } else {
+                    lot.upsertSessionFines(new String[]{plate}, new String[]{ticketId}, new double[]{amount}, 1,
+                            reason);
+                }
+                break;
+            }
+            default:
+                throw outOfStep(seq, type, "unknown record type");
+        }
+    }
+
+    private Vehicle parked(long seq, byte type, String plate) {
+        Vehicle v = lot.findVehicleByPlate(plate);
+        if (v == null) {
+            throw outOfStep(seq, type, plate + " is not parked");
+        }
+        return v;
+    }
+
+    private static IllegalStateException outOfStep(long seq, byte type, String problem) {
+        return new IllegalStateException("Journal record " + seq + " (" + ReplicationProtocol.typeName(type)
+                + "): " + problem);
+    }
+}
@@ -0,0 +1,248 @@
+package parking.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import parking.data.LotPartition;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.Metrics;
+
+/**
+ * ReplicationFollower - Keeps a lot in step with a primary's lot by applying
+ * the primary's journal (see ReplicationPrimary). The lot should only be read
+ * (reports, the HTTP API's GET requests) while it follows: a change made here
+ * would be overwritten or put the follower out of step.
+ *
+ * When the connection drops it reconnects every second and carries on from
+ * the last record it applied. If the primary has a different journal (it was
+ * restarted or another node was promoted) or a record does not fit the lot,
+ * it starts again from record 1, which throws the lot away and rebuilds it.
+ *
+ * Catch-up (from connecting until the records the primary had at that moment
+ * are applied) is timed and logged; the time to apply each batch goes to the
+ * "Replication apply" histogram in Metrics.
+ */
+public class ReplicationFollower implements AutoCloseable {
+
+    private static final LatencyHistogram APPLY = Metrics.register("Replication apply");
+
+    private final LotPartition lot;
+    private final InetSocketAddress primary;
+    private final JournalApplier applier;
+    private final Thread loop;
+    private volatile Socket socket;
+    private volatile boolean closed;
+
+    // Where this follower stands (read from any thread)
+    private volatile long journalId;
+    private volatile long appliedSeq;
+    private volatile long primaryHeadSeq;
+    private volatile long recordsApplied;
+    private volatile long bytesApplied;
+    private volatile boolean connected;
+    private volatile boolean caughtUp;
+    private volatile CatchUp lastCatchUp;
+
+    // One catch-up: records applied from connecting until caught up, and how long it took
+    public record CatchUp(long records, long bytes, double seconds) {
+        public double recordsPerSecond() {
+            return seconds > 0 ? records / seconds : 0;
+        }
+
+        public double megabytesPerSecond() {
+            return seconds > 0 ? bytes / seconds / (1024 * 1024) : 0;
+        }
+    }
+
+    public ReplicationFollower(LotPartition lot, InetSocketAddress primary) {
+        this.lot = lot;
+        this.primary = primary;
+        this.applier = new JournalApplier(lot);
+        this.loop = new Thread(this::run, "replication-follow");
+        loop.setDaemon(true);
+    }
+
+    public void start() {
+        loop.start();
+    }
+
+    public LotPartition getLot() {
+        return lot;
+    }
+
+    public InetSocketAddress getPrimary() {
+        return primary;
+    }
+
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    // The primary's last record as of its last heartbeat
+    public long getPrimaryHeadSeq() {
+        return primaryHeadSeq;
+    }
+
+    public long getRecordsApplied() {
+        return recordsApplied;
+    }
+
+    public long getBytesApplied() {
+        return bytesApplied;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    // True once the records the primary had when this follower connected are applied
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    // The last completed catch-up, or null
+    public CatchUp getLastCatchUp() {
+        return lastCatchUp;
+    }
+
+    // Stops following; the lot keeps what was applied (e.g. to be promoted)
+    @Override
+    public void close() {
+        closed = true;
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+            }
+        }
+        loop.interrupt();
+        try {
+            loop.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========== FOLLOWING ==========
+
+    private void run() {
+        while (!closed) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(primary, 2000);
+                s.setTcpNoDelay(true);
+                follow(s);
+            } catch (EOFException e) {
+                if (!closed) {
+                    System.out.println("ReplicationFollower: " + primary + " closed the connection");
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("ReplicationFollower: " + primary + " unavailable: " + e.getMessage());
+                }
+            } catch (IllegalStateException | BufferUnderflowException e) {
+                // Out of step with the primary: start again from the beginning
+                System.out.println("ReplicationFollower: " + e.getMessage() + " - resyncing from record 1");
+                journalId = 0;
+            } finally {
+                connected = false;
+                caughtUp = false;
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void follow(Socket s) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 64 * 1024));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+        out.writeByte(ReplicationProtocol.SUBSCRIBE);
+        out.writeLong(journalId);
+        out.writeLong(journalId == 0 ? 1 : appliedSeq + 1);
+        out.flush();
+
+        if (in.readByte() != ReplicationProtocol.HELLO) {
+            throw new IOException("Expected HELLO");
+        }
+        journalId = in.readLong();
+        long nextSeq = in.readLong();
+        long targetSeq = in.readLong();
+        if (nextSeq == 1) {
+            appliedSeq = 0; // the first record is a RESET: the lot is rebuilt
+        }
+        primaryHeadSeq = targetSeq;
+        connected = true;
+        System.out.println("ReplicationFollower: following " + primary + " from record " + nextSeq
+                + " (primary at " + targetSeq + ")");
+
+        long catchUpStart = System.nanoTime();
+        long catchUpRecords = 0;
+        long catchUpBytes = 0;
+        if (appliedSeq >= targetSeq) {
+            finishCatchUp(0, 0, 0);
+        }
+
+        byte[] batch = new byte[256 * 1024];
+        while (!closed) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.RECORDS: {
+                    int length = in.readInt();
+                    if (length > batch.length) {
+                        batch = new byte[length];
+                    }
+                    in.readFully(batch, 0, length);
+                    long t0 = System.nanoTime();
+                    long next = applier.apply(ByteBuffer.wrap(batch, 0, length), appliedSeq + 1);
+                    APPLY.recordSince(t0);
+                    long count = next - 1 - appliedSeq;
+                    appliedSeq = next - 1;
+                    recordsApplied += count;
+                    bytesApplied += length;
+                    if (!caughtUp) {
+                        catchUpRecords += count;
+                        catchUpBytes += length;
+                        if (appliedSeq >= targetSeq) {
+                            finishCatchUp(catchUpRecords, catchUpBytes, (System.nanoTime() - catchUpStart) / 1e9);
+                        }
+                    }
+                    break;
+                }
+                case ReplicationProtocol.HEARTBEAT: {
+                    primaryHeadSeq = in.readLong();
+                    long sentNanos = in.readLong();
+                    out.writeByte(ReplicationProtocol.ACK);
+                    out.writeLong(appliedSeq);
+                    out.writeLong(sentNanos);
+                    out.flush();
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown message type " + type);
+            }
+        }
+    }
+
+    private void finishCatchUp(long records, long bytes, double seconds) {
+        CatchUp c = new CatchUp(records, bytes, seconds);
+        lastCatchUp = c;
+        caughtUp = true;
+        System.out.printf("ReplicationFollower: caught up at record %d (%,d records, %.1f MB in %.2f s,"
+                        + " %,.0f records/s)%n", appliedSeq, records, bytes / (1024.0 * 1024), seconds,
+                c.recordsPerSecond());
+    }
+}
@@ -0,0 +1,177 @@
+package parking.replication;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import parking.data.LotPartition;
+
+/**
+ * ReplicationNode - One process's part in replicating a lot: either the
+ * PRIMARY, which takes changes and ships its journal, or a FOLLOWER, which
+ * applies the primary's journal and only serves reads.
+ *
+ *     ReplicationNode node = ReplicationNode.primary(lot, new InetSocketAddress(7070));
+ *     ReplicationNode node = ReplicationNode.follower(lot, primaryAddress, new InetSocketAddress(7071));
+ *     node.promote();   // the follower becomes a primary, shipping on its own port
+ *
+ * Promotion is manual: nothing stops the old primary from taking changes too,
+ * so it should be stopped (or fenced off from the gates) first. The followers
+ * of the old primary can then follow the new one; they notice the new journal
+ * and rebuild their lot from it.
+ */
+public class ReplicationNode implements AutoCloseable {
+
+    public enum Role { PRIMARY, FOLLOWER }
+
+    private final LotPartition lot;
+    private final InetSocketAddress listenAddress;
+    private final CopyOnWriteArrayList<Runnable> promotionListeners = new CopyOnWriteArrayList<>();
+    private volatile Role role;
+    private volatile ReplicationPrimary primary;
+    private volatile ReplicationFollower follower;
+
+    private ReplicationNode(LotPartition lot, InetSocketAddress listenAddress) {
+        this.lot = lot;
+        this.listenAddress = listenAddress;
+    }
+
+    // Starts shipping the lot's journal to followers connecting to listenAddress
+    public static ReplicationNode primary(LotPartition lot, InetSocketAddress listenAddress) throws IOException {
+        ReplicationNode node = new ReplicationNode(lot, listenAddress);
+        node.startPrimary();
+        return node;
+    }
+
+    // Starts following the primary; listenAddress is where it ships once promoted
+    public static ReplicationNode follower(LotPartition lot, InetSocketAddress primaryAddress,
+                                           InetSocketAddress listenAddress) {
+        ReplicationNode node = new ReplicationNode(lot, listenAddress);
+        node.follower = new ReplicationFollower(lot, primaryAddress);
+        node.role = Role.FOLLOWER;
+        node.follower.start();
+        return node;
+    }
+
+    private void startPrimary() throws IOException {
+        Journal journal = Journal.attach(lot);
+        ReplicationPrimary p;
+        try {
+            p = new ReplicationPrimary(journal, listenAddress);
+        } catch (IOException e) {
+            journal.detach();
+            throw e;
+        }
+        p.start();
+        primary = p;
+        role = Role.PRIMARY;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    // True while following: the lot must not be changed here
+    public boolean isReadOnly() {
+        return role == Role.FOLLOWER;
+    }
+
+    public LotPartition getLot() {
+        return lot;
+    }
+
+    // The primary side (null while following)
+    public ReplicationPrimary getPrimary() {
+        return primary;
+    }
+
+    // The follower side (null once primary)
+    public ReplicationFollower getFollower() {
+        return follower;
+    }
+
+    // Runs after this node is promoted (e.g. to start the jobs only a primary runs)
+    public void onPromotion(Runnable listener) {
+        promotionListeners.add(listener);
+    }
+
+    // Stops following and becomes a primary with what was applied so far.
+    // Returns false if it already is one.
+    public synchronized boolean promote() {
+        if (role == Role.PRIMARY) {
+            return false;
+        }
+        ReplicationFollower old = follower;
+        old.close();
+        try {
+            startPrimary();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + listenAddress + " as primary", e);
+        }
+        follower = null;
+        System.out.println("ReplicationNode: promoted to primary at record " + old.getAppliedSeq()
+                + " of the old primary");
+        for (Runnable r : promotionListeners) {
+            r.run();
+        }
+        return true;
+    }
+
+    // Role, position and lag, for the HTTP API (GET /api/replication)
+    public Map<String, Object> status() {
+        LinkedHashMap<String, Object> status = new LinkedHashMap<>();
+        status.put("role", role.name());
+        status.put("lotId", lot.getLotId());
+        ReplicationPrimary p = primary;
+        ReplicationFollower f = follower;
+        if (p != null) {
+            status.put("listen", p.getAddress().toString());
+            status.put("headSeq", p.getJournal().getHeadSeq());
+            status.put("journalBytes", p.getJournal().getSizeBytes());
+            List<Map<String, Object>> followers = new ArrayList<>();
+            for (ReplicationPrimary.FollowerStatus s : p.getFollowers()) {
+                LinkedHashMap<String, Object> m = new LinkedHashMap<>();
+                m.put("address", s.address());
+                m.put("ackedSeq", s.ackedSeq());
+                m.put("recordsBehind", s.recordsBehind());
+                m.put("lagMillis", s.lastLagNanos() / 1e6);
+                m.put("sentRecords", s.sentRecords());
+                m.put("sentBytes", s.sentBytes());
+                followers.add(m);
+            }
+            status.put("followers", followers);
+        } else if (f != null) {
+            status.put("primary", f.getPrimary().toString());
+            status.put("connected", f.isConnected());
+            status.put("caughtUp", f.isCaughtUp());
+            status.put("appliedSeq", f.getAppliedSeq());
+            status.put("primaryHeadSeq", f.getPrimaryHeadSeq());
+            status.put("recordsBehind", Math.max(0, f.getPrimaryHeadSeq() - f.getAppliedSeq()));
+            status.put("recordsApplied", f.getRecordsApplied());
+            ReplicationFollower.CatchUp c = f.getLastCatchUp();
+            if (c != null) {
+                LinkedHashMap<String, Object> m = new LinkedHashMap<>();
+                m.put("records", c.records());
+                m.put("seconds", c.seconds());
+                m.put("recordsPerSecond", c.recordsPerSecond());
+                m.put("megabytesPerSecond", c.megabytesPerSecond());
+                status.put("lastCatchUp", m);
+            }
+        }
+        return status;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (follower != null) {
+            follower.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package parking.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.Metrics;
+
+/**
+ * ReplicationPrimary - Ships a lot's Journal to any number of followers
+ * (ReplicationFollower) over TCP. Each follower has two threads: one copies
+ * records out of the journal and writes them as fast as the socket takes them
+ * (so a follower that is far behind catches up in large batches), the other
+ * reads its ACKs.
+ *
+ * A heartbeat goes out every 100 ms carrying the primary's clock, right
+ * behind the records shipped before it. The follower echoes it once it has
+ * applied those records, so the replication lag (shipped here -> applied
+ * there) is measured on one clock: the "Replication lag" histogram in Metrics.
+ */
+public class ReplicationPrimary implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final int BATCH_BYTES = 256 * 1024;
+    private static final long HEARTBEAT_NANOS = 100_000_000L;
+
+    private static final LatencyHistogram LAG = Metrics.register("Replication lag");
+
+    private final Journal journal;
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final CopyOnWriteArrayList<Follower> followers = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    // What the primary knows about one follower
+    public record FollowerStatus(String address, long ackedSeq, long recordsBehind, long lastLagNanos,
+                                 long sentRecords, long sentBytes) {
+    }
+
+    private final class Follower {
+        final Socket socket;
+        final String address;
+        volatile long ackedSeq;
+        volatile long lastLagNanos;
+        volatile long sentRecords;
+        volatile long sentBytes;
+
+        Follower(Socket socket) {
+            this.socket = socket;
+            this.address = socket.getRemoteSocketAddress().toString();
+        }
+    }
+
+    public ReplicationPrimary(Journal journal, InetSocketAddress address) throws IOException {
+        this.journal = journal;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(address);
+        acceptor = new Thread(this::acceptLoop, "replication-accept");
+        acceptor.setDaemon(true);
+    }
+
+    public void start() {
+        acceptor.start();
+        System.out.println("ReplicationPrimary: shipping lot " + journal.getLot().getLotId() + " on "
+                + getAddress());
+    }
+
+    // The address it listens on (with the real port if it was bound to port 0)
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public List<FollowerStatus> getFollowers() {
+        long head = journal.getHeadSeq();
+        ArrayList<FollowerStatus> result = new ArrayList<>();
+        for (Follower f : followers) {
+            result.add(new FollowerStatus(f.address, f.ackedSeq, head - f.ackedSeq, f.lastLagNanos,
+                    f.sentRecords, f.sentBytes));
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Follower f : followers) {
+            closeQuietly(f.socket);
+        }
+        journal.detach();
+    }
+
+    // ========== CONNECTIONS ==========
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread shipper = new Thread(() -> serve(socket), "replication-ship-" + socket.getPort());
+                shipper.setDaemon(true);
+                shipper.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("ReplicationPrimary: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Follower follower = new Follower(socket);
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                    64 * 1024));
+
+            // SUBSCRIBE: carry on where the follower stopped if it follows this journal, else from the start
+            if (in.readByte() != ReplicationProtocol.SUBSCRIBE) {
+                throw new IOException("Expected SUBSCRIBE");
+            }
+            long journalId = in.readLong();
+            long nextSeq = in.readLong();
+            if (journalId != journal.getId() || nextSeq < 1 || nextSeq > journal.getHeadSeq() + 1) {
+                nextSeq = 1;
+            }
+            follower.ackedSeq = nextSeq - 1;
+            out.writeByte(ReplicationProtocol.HELLO);
+            out.writeLong(journal.getId());
+            out.writeLong(nextSeq);
+            out.writeLong(journal.getHeadSeq());
+            out.flush();
+            followers.add(follower);
+            System.out.println("ReplicationPrimary: follower " + follower.address + " from record " + nextSeq);
+
+            Thread acks = new Thread(() -> readAcks(in, follower), "replication-ack-" + socket.getPort());
+            acks.setDaemon(true);
+            acks.start();
+
+            ByteBuffer batch = ByteBuffer.allocate(BATCH_BYTES);
+            long lastHeartbeat = 0;
+            while (!closed) {
+                batch.clear();
+                int count = journal.copy(nextSeq, batch, 50);
+                if (count > 0) {
+                    out.writeByte(ReplicationProtocol.RECORDS);
+                    out.writeInt(batch.position());
+                    out.write(batch.array(), 0, batch.position());
+                    nextSeq += count;
+                    follower.sentRecords += count;
+                    follower.sentBytes += batch.position();
+                }
+                long now = System.nanoTime();
+                if (now - lastHeartbeat >= HEARTBEAT_NANOS) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(journal.getHeadSeq());
+                    out.writeLong(now);
+                    lastHeartbeat = now;
+                }
+                // Keep filling the socket while there is more to send; flush once it is caught up
+                if (count == 0 || nextSeq > journal.getHeadSeq()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.out.println("ReplicationPrimary: follower " + follower.address + " dropped: "
+                        + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(follower);
+            closeQuietly(socket);
+        }
+    }
+
+    // ACK: the follower has applied everything up to appliedSeq, including all records
+    // sent before the heartbeat it echoes
+    private void readAcks(DataInputStream in, Follower follower) {
+        try {
+            while (true) {
+                if (in.readByte() != ReplicationProtocol.ACK) {
+                    throw new IOException("Expected ACK");
+                }
+                follower.ackedSeq = in.readLong();
+                long lag = System.nanoTime() - in.readLong();
+                follower.lastLagNanos = lag;
+                LAG.record(lag);
+            }
+        } catch (IOException e) {
+            closeQuietly(follower.socket); // the shipping thread stops on its next write
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
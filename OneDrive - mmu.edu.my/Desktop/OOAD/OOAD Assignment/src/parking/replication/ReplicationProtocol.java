@@ -0,0 +1,116 @@
+package parking.replication;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * ReplicationProtocol - The journal record format and the messages between a
+ * primary (ReplicationPrimary) and its followers (ReplicationFollower). All
+ * numbers are big-endian.
+ *
+ * A journal record is one change of a lot, numbered from 1 in the order the
+ * primary made them:
+ *
+ *   u32 length      bytes after this field
+ *   u8  type        RESET, PARK, REMOVE, CHANGE, TICKET, PAYMENT, FINE, FINE_CHANGE
+ *   u64 seq
+ *   ...payload      see Journal for the fields of each type
+ *
+ * Strings are u16 length + UTF-8 bytes (length 0xFFFF = null). Times are the
+ * local date-time as i64 seconds + i32 nanos (seconds Long.MIN_VALUE = null).
+ *
+ * The connection starts with the follower's SUBSCRIBE, then the primary
+ * sends HELLO and from then on RECORDS and HEARTBEAT; the follower answers
+ * every HEARTBEAT with an ACK once it has applied everything before it:
+ *
+ *   SUBSCRIBE  follower: u64 journalId (0 = none yet), u64 nextSeq
+ *   HELLO      primary:  u64 journalId, u64 firstSeq (1 = from the start: throw the lot away), u64 headSeq
+ *   RECORDS    primary:  u32 byteLength, whole journal records
+ *   HEARTBEAT  primary:  u64 headSeq, i64 sentNanos (primary's clock)
+ *   ACK        follower: u64 appliedSeq, i64 sentNanos (copied from the heartbeat)
+ */
+public final class ReplicationProtocol {
+
+    private ReplicationProtocol() {
+    }
+
+    // Largest journal record (plates, IDs and reasons are short)
+    public static final int MAX_RECORD = 16 * 1024;
+
+    // Length field + type + seq
+    public static final int RECORD_HEADER = 13;
+
+    // ========== JOURNAL RECORD TYPES ==========
+    public static final byte RESET = 1;        // lot thrown away and re-seeded with a layout
+    public static final byte PARK = 2;         // vehicle parked in a spot
+    public static final byte REMOVE = 3;       // vehicle left (or was removed), spot released
+    public static final byte CHANGE = 4;       // parked vehicle's entry time / VIP / violation changed
+    public static final byte TICKET = 5;       // ticket issued
+    public static final byte PAYMENT = 6;      // payment recorded
+    public static final byte FINE = 7;         // fine issued
+    public static final byte FINE_CHANGE = 8;  // fine paid or re-assessed
+
+    // ========== MESSAGE TYPES ==========
+    public static final byte SUBSCRIBE = 1;
+    public static final byte HELLO = 2;
+    public static final byte RECORDS = 3;
+    public static final byte HEARTBEAT = 4;
+    public static final byte ACK = 5;
+
+    public static String typeName(byte type) {
+        switch (type) {
+            case RESET: return "RESET";
+            case PARK: return "PARK";
+            case REMOVE: return "REMOVE";
+            case CHANGE: return "CHANGE";
+            case TICKET: return "TICKET";
+            case PAYMENT: return "PAYMENT";
+            case FINE: return "FINE";
+            case FINE_CHANGE: return "FINE_CHANGE";
+            default: return "TYPE_" + (type & 0xFF);
+        }
+    }
+
+    // ========== ENCODING HELPERS ==========
+
+    public static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.putShort((short) 0xFFFF);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= 0xFFFF) {
+            throw new IllegalArgumentException("String too long for the journal: " + bytes.length + " bytes");
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    public static String getString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == 0xFFFF) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void putTime(ByteBuffer out, LocalDateTime time) {
+        if (time == null) {
+            out.putLong(Long.MIN_VALUE);
+            out.putInt(0);
+            return;
+        }
+        out.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.putInt(time.getNano());
+    }
+
+    public static LocalDateTime getTime(ByteBuffer in) {
+        long seconds = in.getLong();
+        int nanos = in.getInt();
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,291 @@
+package parking.rules;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import parking.model.SpotType;
+import parking.model.VehicleType;
+
+/**
+ * RuleParser - Reads the fee/fine rule language and compiles it into a RuleSet.
+ *
+ * One rule per line, '#' starts a comment:
+ *
+ *   scheme Weekend Crackdown
+ *   fine when hours > 72: 200
+ *   fine when hours > 48: 150
+ *   fine when hours > 24 and type = SUV, CAR: 100 + 20/h after 24 cap 300
+ *   fine when violation and not vip: 80
+ *   fee  when spot = RESERVED and vip: 8/h cap 60
+ *   fee  when type = MOTORCYCLE: 1/h
+ *
+ * Rules:   (fine | fee) [when CONDITION (and CONDITION)*] : AMOUNT
+ * Conditions:
+ *   hours (> | >= | < | <= | =) N     billed hours of the stay
+ *   type = NAME[, NAME...]            VehicleType (MOTORCYCLE, CAR, SUV, HANDICAPPED)
+ *   spot = NAME[, NAME...]            SpotType (COMPACT, REGULAR, HANDICAPPED, RESERVED)
+ *   vip | violation                   vehicle status
+ *   not CONDITION                     negation
+ * Amounts:  TERM (+ TERM)* [cap N]  where TERM is N (flat) or N/h [after H]
+ *           (N per hour for every billed hour after H, default after 0)
+ *
+ * For fines and for fees separately, the first rule that matches wins.
+ * No matching fine rule means no fine; no matching fee rule means the normal tariff.
+ */
+public class RuleParser {
+
+    private static final Pattern TOKEN = Pattern.compile("\\d+(?:\\.\\d+)?|[A-Za-z_]+|>=|<=|[<>=,+/]");
+
+    private final ArrayList<String> tokens = new ArrayList<>();
+    private int pos;
+    private int lineNumber;
+    private boolean needsVehicle; // the rule being parsed has a vehicle or spot condition
+
+    // Compiles rule text. Throws IllegalArgumentException("Line N: ...") on errors.
+    public static RuleSet parse(String text) {
+        return new RuleParser().parseText(text);
+    }
+
+    public static RuleSet parseFile(Path file) throws IOException {
+        return parse(Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    private RuleSet parseText(String text) {
+        String name = "Custom Rules";
+        ArrayList<RuleSet.Rule> fineRules = new ArrayList<>();
+        ArrayList<RuleSet.Rule> feeRules = new ArrayList<>();
+
+        String[] lines = text.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            lineNumber = i + 1;
+            String line = lines[i];
+            int hash = line.indexOf('#');
+            if (hash >= 0) {
+                line = line.substring(0, hash);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String keyword = line.split("[\\s:]", 2)[0].toLowerCase();
+            switch (keyword) {
+                case "scheme":
+                    name = line.substring(keyword.length()).trim();
+                    if (name.isEmpty()) {
+                        throw error("scheme needs a name");
+                    }
+                    break;
+                case "fine":
+                    fineRules.add(parseRule(line));
+                    break;
+                case "fee":
+                    feeRules.add(parseRule(line));
+                    break;
+                default:
+                    throw error("expected 'scheme', 'fine' or 'fee' but found '" + keyword + "'");
+            }
+        }
+        if (fineRules.isEmpty() && feeRules.isEmpty()) {
+            throw new IllegalArgumentException("No rules found");
+        }
+        return new RuleSet(name, fineRules.toArray(new RuleSet.Rule[0]), feeRules.toArray(new RuleSet.Rule[0]));
+    }
+
+    // ========== RULES ==========
+    private RuleSet.Rule parseRule(String line) {
+        int colon = line.indexOf(':');
+        if (colon < 0) {
+            throw error("missing ':' before the amount");
+        }
+        tokenize(line.substring(0, colon));
+        pos = 1; // skip fine/fee
+        needsVehicle = false;
+        RuleSet.Condition condition = (h, t, s, vip, violation) -> true;
+        if (pos < tokens.size()) {
+            expect("when");
+            condition = parseCondition();
+            while (accept("and")) {
+                condition = and(condition, parseCondition());
+            }
+            if (pos < tokens.size()) {
+                throw error("unexpected '" + tokens.get(pos) + "'");
+            }
+        }
+
+        tokenize(line.substring(colon + 1));
+        pos = 0;
+        RuleSet.Amount amount = parseAmount();
+        if (pos < tokens.size()) {
+            throw error("unexpected '" + tokens.get(pos) + "' in amount");
+        }
+        return new RuleSet.Rule(condition, amount, line, needsVehicle);
+    }
+
+    private static RuleSet.Condition and(RuleSet.Condition a, RuleSet.Condition b) {
+        return (h, t, s, vip, violation) -> a.test(h, t, s, vip, violation) && b.test(h, t, s, vip, violation);
+    }
+
+    // ========== CONDITIONS ==========
+    private RuleSet.Condition parseCondition() {
+        if (accept("not")) {
+            RuleSet.Condition inner = parseCondition();
+            return (h, t, s, vip, violation) -> !inner.test(h, t, s, vip, violation);
+        }
+        String word = next("a condition").toLowerCase();
+        if (!word.equals("hours")) {
+            needsVehicle = true;
+        }
+        switch (word) {
+            case "vip":
+                return (h, t, s, vip, violation) -> vip;
+            case "violation":
+                return (h, t, s, vip, violation) -> violation;
+            case "hours":
+                return parseHours();
+            case "type": {
+                expect("=");
+                boolean[] allowed = parseNames(VehicleType.values().length, VehicleType.class);
+                return (h, t, s, vip, violation) -> t != null && allowed[t.ordinal()];
+            }
+            case "spot": {
+                expect("=");
+                boolean[] allowed = parseNames(SpotType.values().length, SpotType.class);
+                return (h, t, s, vip, violation) -> s != null && allowed[s.ordinal()];
+            }
+            default:
+                throw error("unknown condition '" + word + "'");
+        }
+    }
+
+    private RuleSet.Condition parseHours() {
+        String op = next("a comparison");
+        double n = number();
+        switch (op) {
+            case ">":  return (h, t, s, vip, violation) -> h > n;
+            case ">=": return (h, t, s, vip, violation) -> h >= n;
+            case "<":  return (h, t, s, vip, violation) -> h < n;
+            case "<=": return (h, t, s, vip, violation) -> h <= n;
+            case "=":  return (h, t, s, vip, violation) -> h == n;
+            default: throw error("expected >, >=, <, <= or = after 'hours'");
+        }
+    }
+
+    // NAME[, NAME...] of an enum, as a lookup array by ordinal
+    private <E extends Enum<E>> boolean[] parseNames(int size, Class<E> type) {
+        boolean[] allowed = new boolean[size];
+        do {
+            String name = next("a " + type.getSimpleName()).toUpperCase();
+            try {
+                allowed[Enum.valueOf(type, name).ordinal()] = true;
+            } catch (IllegalArgumentException e) {
+                throw error("unknown " + type.getSimpleName() + " '" + name + "'");
+            }
+        } while (accept(","));
+        return allowed;
+    }
+
+    // ========== AMOUNTS ==========
+    private RuleSet.Amount parseAmount() {
+        double flat = 0;
+        ArrayList<double[]> rates = new ArrayList<>(); // {rate per hour, after hours}
+        do {
+            double n = number();
+            if (accept("/")) {
+                expect("h");
+                double after = accept("after") ? number() : 0;
+                rates.add(new double[]{n, after});
+            } else {
+                flat += n;
+            }
+        } while (accept("+"));
+
+        RuleSet.Amount amount = compileAmount(flat, rates);
+        if (accept("cap")) {
+            double cap = number();
+            RuleSet.Amount uncapped = amount;
+            amount = h -> Math.min(cap, uncapped.apply(h));
+        }
+        return amount;
+    }
+
+    // Picks the simplest lambda for the shape of the amount
+    private static RuleSet.Amount compileAmount(double flat, ArrayList<double[]> rates) {
+        if (rates.isEmpty()) {
+            return h -> flat;
+        }
+        if (rates.size() == 1) {
+            double rate = rates.get(0)[0];
+            double after = rates.get(0)[1];
+            return h -> flat + rate * Math.max(0.0, h - after);
+        }
+        double[] rate = new double[rates.size()];
+        double[] after = new double[rates.size()];
+        for (int i = 0; i < rate.length; i++) {
+            rate[i] = rates.get(i)[0];
+            after[i] = rates.get(i)[1];
+        }
+        return h -> {
+            double total = flat;
+            for (int i = 0; i < rate.length; i++) {
+                total += rate[i] * Math.max(0.0, h - after[i]);
+            }
+            return total;
+        };
+    }
+
+    // ========== TOKENS ==========
+    private void tokenize(String text) {
+        tokens.clear();
+        Matcher m = TOKEN.matcher(text);
+        int last = 0;
+        while (m.find()) {
+            if (!text.substring(last, m.start()).isBlank()) {
+                throw error("unexpected '" + text.substring(last, m.start()).trim() + "'");
+            }
+            tokens.add(m.group());
+            last = m.end();
+        }
+        if (!text.substring(last).isBlank()) {
+            throw error("unexpected '" + text.substring(last).trim() + "'");
+        }
+    }
+
+    private String next(String what) {
+        if (pos >= tokens.size()) {
+            throw error("expected " + what);
+        }
+        return tokens.get(pos++);
+    }
+
+    private boolean accept(String token) {
+        if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(token)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("expected '" + token + "'");
+        }
+    }
+
+    private double number() {
+        String token = next("a number");
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw error("expected a number but found '" + token + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,125 @@
+package parking.rules;
+
+import parking.model.SpotType;
+import parking.model.Vehicle;
+import parking.model.VehicleType;
+import parking.strategy.FineStrategy;
+
+/**
+ * RuleSet - Fee and fine rules compiled from the rule language (see RuleParser).
+ *
+ * Each rule is a compiled condition plus a compiled amount (small objects built
+ * from lambdas once, when the text is parsed). Evaluating a rule set is a loop
+ * over an array of those objects: the first rule whose condition matches decides
+ * the amount. Nothing is parsed or looked up at exit time.
+ *
+ * A RuleSet is a FineStrategy, so it can be made the active scheme with
+ * DataCenter.setActiveFineStrategy(). Its fee rules, if any, replace the tariff
+ * for the vehicles they match.
+ */
+public class RuleSet implements FineStrategy {
+
+    // Compiled rule condition. Primitive arguments so evaluation does not allocate.
+    @FunctionalInterface
+    interface Condition {
+        boolean test(long hours, VehicleType type, SpotType spot, boolean vip, boolean violation);
+    }
+
+    // Compiled amount for a number of billed hours
+    @FunctionalInterface
+    interface Amount {
+        double apply(long hours);
+    }
+
+    // One compiled rule
+    static class Rule {
+        final Condition condition;
+        final Amount amount;
+        final String source; // original text, for display
+        final boolean needsVehicle; // has a type, spot, vip or violation condition
+
+        Rule(Condition condition, Amount amount, String source, boolean needsVehicle) {
+            this.condition = condition;
+            this.amount = amount;
+            this.source = source;
+            this.needsVehicle = needsVehicle;
+        }
+    }
+
+    private final String name;
+    private final Rule[] fineRules;
+    private final Rule[] feeRules;
+
+    RuleSet(String name, Rule[] fineRules, Rule[] feeRules) {
+        this.name = name;
+        this.fineRules = fineRules;
+        this.feeRules = feeRules;
+    }
+
+    // ========== FINES ==========
+
+    // Hours only (no vehicle details): rules with a vehicle or spot condition are skipped,
+    // so e.g. "not type = CAR" does not match a vehicle that is not known
+    @Override
+    public double calculateFine(long overstayHours) {
+        return evaluate(fineRules, true, overstayHours, null, null, false, false, 0.0);
+    }
+
+    @Override
+    public double calculateFine(long overstayHours, Vehicle vehicle, SpotType spotType) {
+        return evaluate(fineRules, false, overstayHours, vehicle.getVehicleType(), spotType,
+                vehicle.isVip(), vehicle.hasViolation(), 0.0);
+    }
+
+    // ========== FEES ==========
+
+    // Parking fee from the first matching fee rule, or NaN if no fee rule matches
+    // (the caller then uses the normal tariff)
+    public double fee(long hours, Vehicle vehicle, SpotType spotType) {
+        return evaluate(feeRules, false, hours, vehicle.getVehicleType(), spotType,
+                vehicle.isVip(), vehicle.hasViolation(), Double.NaN);
+    }
+
+    public boolean hasFeeRules() {
+        return feeRules.length > 0;
+    }
+
+    // hoursOnly: there is no vehicle, so only the rules that do not need one are tried
+    private static double evaluate(Rule[] rules, boolean hoursOnly, long hours, VehicleType type, SpotType spot,
+                                   boolean vip, boolean violation, double noMatch) {
+        for (Rule rule : rules) {
+            if (hoursOnly && rule.needsVehicle) {
+                continue;
+            }
+            if (rule.condition.test(hours, type, spot, vip, violation)) {
+                return rule.amount.apply(hours);
+            }
+        }
+        return noMatch;
+    }
+
+    @Override
+    public String getSchemeName() {
+        return name;
+    }
+
+    public int getFineRuleCount() {
+        return fineRules.length;
+    }
+
+    public int getFeeRuleCount() {
+        return feeRules.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("scheme " + name + "\n");
+        for (Rule rule : fineRules) {
+            sb.append(rule.source).append("\n");
+        }
+        for (Rule rule : feeRules) {
+            sb.append(rule.source).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,287 @@
+package parking.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Json - Just enough JSON for the HTTP API, so the app still needs no libraries.
+ *
+ * parse() reads a document into Maps (keys in order), Lists, Strings, Longs,
+ * Doubles, Booleans and null, and throws IllegalArgumentException for anything
+ * that is not valid JSON. write() turns the same kinds of values (any Number,
+ * and anything else as its toString()) back into compact JSON.
+ */
+public class Json {
+
+    private Json() {
+    }
+
+    // ========== WRITING ==========
+
+    public static String write(Object value) {
+        StringBuilder sb = new StringBuilder(256);
+        write(sb, value);
+        return sb.toString();
+    }
+
+    private static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Boolean || value instanceof Integer || value instanceof Long) {
+            sb.append(value);
+        } else if (value instanceof Number n) {
+            double d = n.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                sb.append("null"); // JSON has no NaN / Infinity
+            } else if (d == Math.rint(d) && Math.abs(d) < 1e15) {
+                sb.append((long) d).append(".0");
+            } else {
+                sb.append(d);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                writeString(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                write(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Iterable<?> list) {
+            sb.append('[');
+            boolean first = true;
+            for (Object item : list) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                write(sb, item);
+            }
+            sb.append(']');
+        } else {
+            writeString(sb, value.toString()); // Strings, enums, dates
+        }
+    }
+
+    private static void writeString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    // ========== PARSING ==========
+
+    public static Object parse(String text) {
+        Parser p = new Parser(text);
+        p.skipSpace();
+        Object value = p.value();
+        p.skipSpace();
+        if (p.pos != text.length()) {
+            throw p.error("Unexpected text after the JSON value");
+        }
+        return value;
+    }
+
+    // A JSON object (the body of every POST request)
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            if (pos >= s.length()) {
+                throw error("Unexpected end of JSON");
+            }
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return number();
+                    }
+                    throw error("Unexpected character '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> object() {
+            LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+            pos++; // {
+            skipSpace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipSpace();
+                if (peek() != '"') {
+                    throw error("Expected a field name");
+                }
+                String key = string();
+                skipSpace();
+                expect(':');
+                skipSpace();
+                map.put(key, value());
+                skipSpace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            ArrayList<Object> list = new ArrayList<>();
+            pos++; // [
+            skipSpace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                skipSpace();
+                list.add(value());
+                skipSpace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            pos++; // opening quote
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= s.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= s.length()) {
+                    throw error("Unterminated string");
+                }
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) {
+                            throw error("Bad \\u escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("Bad \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: throw error("Bad escape \\" + e);
+                }
+            }
+        }
+
+        private Object number() {
+            int start = pos;
+            boolean decimal = false;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    decimal = true;
+                } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                    break;
+                }
+                pos++;
+            }
+            String text = s.substring(start, pos);
+            try {
+                return decimal ? (Object) Double.parseDouble(text) : (Object) Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw error("Bad number " + text);
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!s.startsWith(word, pos)) {
+                throw error("Unexpected character '" + s.charAt(pos) + "'");
+            }
+            pos += word.length();
+            return value;
+        }
+
+        private char peek() {
+            if (pos >= s.length()) {
+                throw error("Unexpected end of JSON");
+            }
+            return s.charAt(pos);
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        void skipSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
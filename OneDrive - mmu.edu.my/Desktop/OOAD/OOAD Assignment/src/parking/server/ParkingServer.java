@@ -0,0 +1,623 @@
+package parking.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.LatencySnapshot;
+import parking.metrics.Metrics;
+import parking.model.*;
+import parking.replication.ReplicationNode;
+import parking.replication.ReplicationPrimary;
+import parking.service.*;
+
+/**
+ * ParkingServer - The parking system as an HTTP/JSON API, for gates and kiosks
+ * (started by "java -cp out parking.Main --server"). Uses the JDK's built-in
+ * com.sun.net.httpserver and handles every request on its own virtual thread,
+ * so a request waiting for the DataCenter lock or the card gateway does not
+ * hold up the others.
+ *
+ *   GET  /api/health                  is the server up
+ *   GET  /api/spots?vehicleType=CAR   available spots for a vehicle (limit=50, vip=false)
+ *   POST /api/entries                 park a vehicle, returns the ticket
+ *   POST /api/exits/quote             the bill for a parked vehicle, with a token
+ *   POST /api/exits/pay               pay a bill by its token (the exit is committed)
+ *   GET  /api/reports                 occupancy, revenue and fine totals
+ *   GET  /api/reports/vehicles        the parked vehicles
+ *   GET  /api/metrics                 latency of every operation (see Metrics)
+ *   GET  /api/replication             role, journal position and lag (see ReplicationNode)
+ *   POST /api/replication/promote     make this follower the primary
+ *
+ * A follower (started with follow=host:port) serves every GET from its copy
+ * of the lot and refuses the other POSTs with 503 until it is promoted.
+ *
+ * Requests and responses are described in parking-api.schema.json. Every error
+ * is {"error": "..."} with a 4xx/5xx status.
+ */
+public class ParkingServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    // Largest request body accepted (the requests are a few fields)
+    private static final int MAX_BODY = 64 * 1024;
+
+    static {
+        // The JDK server writes the headers and the body separately; without
+        // TCP_NODELAY the body waits for the client's delayed ACK (~40 ms a request)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final EntryService entryService = new EntryService();
+    private final SpotAllocation spotAllocation = new SpotAllocation();
+    private final ExitService exitService = new ExitService();
+    private final PaymentProcessor paymentProcessor;
+    private volatile ReplicationNode replication; // null when not replicating
+    private volatile Path exportDir; // nightly exports go here; null for none
+
+    // A failed request: sent as {"error": message} with this status
+    static class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Status and body of a successful request
+    private record Reply(int status, Object body) {
+    }
+
+    private interface Handler {
+        Reply handle(HttpExchange exchange) throws IOException;
+    }
+
+    // Card payments go to the same simulated gateway as the Exit tab
+    public ParkingServer(InetSocketAddress address, int backlog) throws IOException {
+        this(address, backlog, new SimulatedPaymentGateway(Duration.ofMillis(300), 0.0, 0.0));
+    }
+
+    public ParkingServer(InetSocketAddress address, int backlog, PaymentGateway gateway) throws IOException {
+        paymentProcessor = new PaymentProcessor(exitService, gateway, PaymentProcessor.DEFAULT_MAX_BATCH,
+                PaymentProcessor.DEFAULT_MAX_WAIT, 2);
+        server = HttpServer.create(address, backlog);
+        server.setExecutor(executor);
+
+        route("GET", "/api/health", this::health);
+        route("GET", "/api/spots", this::spots);
+        route("POST", "/api/entries", this::entry);
+        route("POST", "/api/exits/quote", this::quote);
+        route("POST", "/api/exits/pay", this::pay);
+        route("GET", "/api/reports", this::reports);
+        route("GET", "/api/reports/vehicles", this::vehicles);
+        route("GET", "/api/metrics", this::metrics);
+        route("GET", "/api/replication", this::replication);
+        route("POST", "/api/replication/promote", this::promote);
+
+        // Everything else
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                send(exchange, new Reply(404, Map.of("error", "No such endpoint: " + exchange.getRequestURI().getPath())));
+            } catch (IOException e) {
+                // The client went away
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Folder for the nightly payment and fine exports (see parking.Main), or null for none
+    public void setExportDir(Path exportDir) {
+        this.exportDir = exportDir;
+    }
+
+    public Path getExportDir() {
+        return exportDir;
+    }
+
+    // The replication role of this server's lot; while it follows, changes are refused
+    public void setReplication(ReplicationNode replication) {
+        this.replication = replication;
+    }
+
+    public ReplicationNode getReplication() {
+        return replication;
+    }
+
+    // The address it listens on (with the real port if it was started on port 0)
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Stops accepting requests, waits up to a second for the running ones, then stops
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        paymentProcessor.close();
+        if (replication != null) {
+            replication.close();
+        }
+    }
+
+    // ========== ENDPOINTS ==========
+
+    private Reply health(HttpExchange exchange) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "ok");
+        body.put("time", ParkingClock.now());
+        body.put("spots", DataCenter.getTotalSpots());
+        body.put("occupied", DataCenter.getTotalOccupied());
+        return ok(body);
+    }
+
+    private Reply spots(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        Vehicle probe = entryService.createVehicle("SEARCH", vehicleType(query.get("vehicleType")));
+        probe.setVip(Boolean.parseBoolean(query.getOrDefault("vip", "false")));
+        int limit = intParam(query, "limit", 50);
+
+        // One spot is all a gate needs: first fit does not list the whole lot
+        List<ParkingSpot> found;
+        int available;
+        if (limit == 1) {
+            ParkingSpot spot = spotAllocation.findSpot(probe);
+            found = spot == null ? List.of() : List.of(spot);
+            available = found.size();
+        } else {
+            found = spotAllocation.findSuitableSpots(probe);
+            available = found.size();
+            found = found.subList(0, Math.min(limit, found.size()));
+        }
+        ArrayList<Object> list = new ArrayList<>(found.size());
+        for (ParkingSpot spot : found) {
+            list.add(spot(spot));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("vehicleType", probe.getVehicleType());
+        body.put("available", available);
+        body.put("spots", list);
+        return ok(body);
+    }
+
+    private Reply entry(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = body(exchange);
+        String plate = string(request, "plate", true);
+        VehicleType type = vehicleType(string(request, "vehicleType", true));
+        String spotId = string(request, "spotId", false);
+
+        Vehicle v = entryService.createVehicle(plate, type);
+        if (v == null) {
+            throw new ApiException(400, "plate must not be empty");
+        }
+        if (request.get("vip") instanceof Boolean vip) {
+            v.setVip(vip);
+        }
+        if (DataCenter.findVehicleByPlate(v.getLicensePlate()) != null) {
+            throw new ApiException(409, "Vehicle " + v.getLicensePlate() + " is already parked");
+        }
+
+        Ticket ticket = null;
+        if (spotId != null) {
+            ParkingSpot spot = DataCenter.findSpotById(spotId);
+            if (spot == null) {
+                throw new ApiException(404, "Unknown spot " + spotId);
+            }
+            if (!v.canParkIn(spot.getType())) {
+                throw new ApiException(409, "A " + type + " cannot park in a " + spot.getType() + " spot");
+            }
+            ticket = entryService.parkVehicle(v, spotId);
+            if (ticket == null) {
+                throw new ApiException(409, "Spot " + spotId + " is not available");
+            }
+        } else {
+            ticket = entryService.parkInFirstFreeSpot(v);
+            if (ticket == null) {
+                throw new ApiException(409, "No available spot for a " + type);
+            }
+        }
+
+        ParkingSpot spot = DataCenter.findSpotById(ticket.getSpotId());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ticketId", ticket.getTicketId());
+        body.put("plate", ticket.getLicensePlate());
+        body.put("vehicleType", v.getVehicleType());
+        body.put("vip", v.isVip());
+        body.put("spot", spot(spot));
+        body.put("entryTime", ticket.getEntryTime());
+        return new Reply(201, body);
+    }
+
+    private Reply quote(HttpExchange exchange) throws IOException {
+        String plate = string(body(exchange), "plate", true);
+        ExitQuote q = exitService.processExitCalculation(plate.trim().toUpperCase());
+        if (q == null) {
+            throw new ApiException(404, "Vehicle " + plate + " is not parked here");
+        }
+        Vehicle v = DataCenter.findVehicleByPlate(q.licensePlate());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("token", q.token());
+        body.put("validUntil", q.validUntil());
+        body.put("ticketId", q.ticketId());
+        body.put("plate", q.licensePlate());
+        body.put("vehicleType", v != null ? v.getVehicleType() : null);
+        body.put("spotType", q.spotType());
+        body.put("entryTime", q.entryTime());
+        body.put("exitTime", q.exitTime());
+        body.put("minutes", q.minutes());
+        body.put("hours", q.hours());
+        body.put("rate", money(q.rate()));
+        body.put("fee", money(q.fee()));
+        body.put("fine", money(q.fine()));
+        body.put("unpaidFines", money(q.unpaidFines()));
+        body.put("total", money(q.total()));
+        body.put("vip", q.vip());
+        body.put("violation", q.violation());
+        return ok(body);
+    }
+
+    private Reply pay(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = body(exchange);
+        String token = string(request, "token", true);
+        PaymentMethod method;
+        try {
+            method = PaymentMethod.valueOf(string(request, "method", true).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "method must be CASH or CARD");
+        }
+
+        // Blocks this (virtual) thread until the batch with this payment is done
+        PaymentResult result = paymentProcessor.submit(token, method).join();
+        switch (result.status()) {
+            case PAID: break;
+            case DECLINED: throw new ApiException(402, result.message());
+            case EXPIRED: throw new ApiException(409, result.message());
+            default: throw new ApiException(502, result.message());
+        }
+        Payment p = result.payment();
+        Map<String, Object> payment = new LinkedHashMap<>();
+        payment.put("plate", p.getLicensePlate());
+        payment.put("ticketId", p.getTicketId());
+        payment.put("entryTime", p.getEntryTime());
+        payment.put("exitTime", p.getExitTime());
+        payment.put("hours", p.getHoursParked());
+        payment.put("parkingFee", money(p.getParkingFee()));
+        payment.put("finesPaid", money(p.getFinesPaid()));
+        payment.put("total", money(p.getTotalAmount()));
+        payment.put("method", p.getPaymentMethod());
+        payment.put("paymentTime", p.getPaymentTime());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", result.status());
+        body.put("payment", payment);
+        return ok(body);
+    }
+
+    private Reply reports(HttpExchange exchange) {
+        ReportSnapshot s = ReportService.getInstance().snapshot();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("takenAt", s.takenAt());
+        body.put("lot", occupancy(s.lot()));
+        ArrayList<Object> floors = new ArrayList<>();
+        for (ReportSnapshot.FloorOccupancy f : s.floors()) {
+            Map<String, Object> floor = occupancy(f.occupancy());
+            floor.put("floor", f.floorNumber());
+            floors.add(floor);
+        }
+        body.put("floors", floors);
+        Map<String, Object> types = new LinkedHashMap<>();
+        s.spotTypes().forEach((type, o) -> types.put(type.name(), occupancy(o)));
+        body.put("spotTypes", types);
+
+        ReportSnapshot.Revenue r = s.revenue();
+        Map<String, Object> revenue = new LinkedHashMap<>();
+        revenue.put("payments", r.payments());
+        revenue.put("parkingFees", money(r.parkingFees()));
+        revenue.put("finesCollected", money(r.finesCollected()));
+        revenue.put("total", money(r.total()));
+        Map<String, Object> byMethod = new LinkedHashMap<>();
+        r.byMethod().forEach((method, amount) -> byMethod.put(method.name(), money(amount)));
+        revenue.put("byMethod", byMethod);
+        body.put("revenue", revenue);
+
+        Map<String, Object> unpaid = new LinkedHashMap<>();
+        unpaid.put("fines", s.unpaidFines().fines());
+        unpaid.put("plates", s.unpaidFines().plates());
+        unpaid.put("total", money(s.unpaidFines().total()));
+        body.put("unpaidFines", unpaid);
+        body.put("parkedVehicles", s.vehicles().size());
+        body.put("overstays", s.overstayCount());
+        body.put("violations", s.violationCount());
+        return ok(body);
+    }
+
+    private Reply vehicles(HttpExchange exchange) {
+        ReportSnapshot s = ReportService.getInstance().snapshot();
+        ArrayList<Object> list = new ArrayList<>(s.vehicles().size());
+        for (ReportSnapshot.VehicleRow row : s.vehicles()) {
+            Map<String, Object> vehicle = new LinkedHashMap<>();
+            vehicle.put("plate", row.licensePlate());
+            vehicle.put("vehicleType", row.type());
+            vehicle.put("spotId", row.spotId());
+            vehicle.put("entryTime", row.entryTime());
+            vehicle.put("violation", row.violation());
+            list.add(vehicle);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("takenAt", s.takenAt());
+        body.put("vehicles", list);
+        return ok(body);
+    }
+
+    private Reply metrics(HttpExchange exchange) {
+        ArrayList<Object> list = new ArrayList<>();
+        for (LatencySnapshot s : Metrics.snapshot()) {
+            Map<String, Object> op = new LinkedHashMap<>();
+            op.put("operation", s.operation());
+            op.put("count", s.count());
+            op.put("meanNanos", s.meanNanos());
+            op.put("p50Nanos", s.p50Nanos());
+            op.put("p90Nanos", s.p90Nanos());
+            op.put("p99Nanos", s.p99Nanos());
+            op.put("p999Nanos", s.p999Nanos());
+            op.put("maxNanos", s.maxNanos());
+            list.add(op);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("operations", list);
+        return ok(body);
+    }
+
+    // ========== JSON PARTS ==========
+
+    private static Map<String, Object> spot(ParkingSpot spot) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("spotId", spot.getSpotId());
+        m.put("floor", spot.getFloorNumber());
+        m.put("row", spot.getRowNumber());
+        m.put("type", spot.getType());
+        m.put("hourlyRate", spot.getHourlyRate());
+        return m;
+    }
+
+    private static Map<String, Object> occupancy(ReportSnapshot.Occupancy o) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("spots", o.spots());
+        m.put("occupied", o.occupied());
+        m.put("rate", Math.round(o.rate() * 10.0) / 10.0);
+        return m;
+    }
+
+    // ========== REPLICATION ==========
+
+    private Reply replication(HttpExchange exchange) {
+        ReplicationNode node = replication;
+        if (node == null) {
+            return ok(Map.of("role", "STANDALONE"));
+        }
+        return ok(node.status());
+    }
+
+    private Reply promote(HttpExchange exchange) {
+        ReplicationNode node = replication;
+        if (node == null) {
+            throw new ApiException(409, "This server is not replicating");
+        }
+        if (!node.promote()) {
+            throw new ApiException(409, "This server is already the primary");
+        }
+        return ok(node.status());
+    }
+
+    // Amounts are sent in RM rounded to cents
+    private static double money(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+
+    // ========== REQUEST HANDLING ==========
+
+    // Registers an endpoint. Its latency is recorded as "HTTP <method> <path>".
+    private void route(String method, String path, Handler handler) {
+        LatencyHistogram latency = Metrics.register("HTTP " + method + " " + path);
+        server.createContext(path, exchange -> {
+            long t0 = System.nanoTime();
+            try (exchange) {
+                Reply reply;
+                try {
+                    // A context also gets the paths below it that have no context of their own
+                    if (!exchange.getRequestURI().getPath().equals(path)) {
+                        throw new ApiException(404, "No such endpoint: " + exchange.getRequestURI().getPath());
+                    }
+                    if (!exchange.getRequestMethod().equals(method)) {
+                        exchange.getResponseHeaders().set("Allow", method);
+                        throw new ApiException(405, "Use " + method + " for " + path);
+                    }
+                    ReplicationNode node = replication;
+                    if (method.equals("POST") && node != null && node.isReadOnly()
+                            && !path.equals("/api/replication/promote")) {
+                        throw new ApiException(503, "Read-only follower of " + node.getFollower().getPrimary()
+                                + ": send changes to the primary");
+                    }
+                    reply = handler.handle(exchange);
+                } catch (ApiException e) {
+                    reply = new Reply(e.status, Map.of("error", e.getMessage()));
+                } catch (IllegalArgumentException e) {
+                    reply = new Reply(400, Map.of("error", String.valueOf(e.getMessage())));
+                } catch (RuntimeException e) {
+                    System.err.println("ParkingServer: " + method + " " + path + " failed: " + e);
+                    reply = new Reply(500, Map.of("error", "Internal error"));
+                }
+                send(exchange, reply);
+            } catch (IOException e) {
+                // The client went away; nothing to answer
+            } finally {
+                latency.recordSince(t0);
+            }
+        });
+    }
+
+    private static void send(HttpExchange exchange, Reply reply) throws IOException {
+        byte[] bytes = Json.write(reply.body()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(reply.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Reply ok(Object body) {
+        return new Reply(200, body);
+    }
+
+    // The request body as a JSON object
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY + 1);
+        }
+        if (bytes.length > MAX_BODY) {
+            throw new ApiException(413, "Request body is larger than " + MAX_BODY + " bytes");
+        }
+        if (bytes.length == 0) {
+            throw new ApiException(400, "Expected a JSON object in the request body");
+        }
+        return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static String string(Map<String, Object> request, String field, boolean required) {
+        Object value = request.get(field);
+        if (value == null) {
+            if (required) {
+                throw new ApiException(400, field + " is required");
+            }
+            return null;
+        }
+        if (!(value instanceof String s)) {
+            throw new ApiException(400, field + " must be a string");
+        }
+        return s;
+    }
+
+    private static VehicleType vehicleType(String value) {
+        if (value == null) {
+            throw new ApiException(400, "vehicleType is required");
+        }
+        try {
+            return VehicleType.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "vehicleType must be MOTORCYCLE, CAR, SUV or HANDICAPPED");
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        HashMap<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int n = Integer.parseInt(value);
+            if (n < 0) {
+                throw new ApiException(400, name + " must not be negative");
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a whole number");
+        }
+    }
+
+    // ========== STANDALONE ==========
+
+    /**
+     * Starts a server from key=value options (host, port, backlog) and keeps it
+     * running until the process is stopped. Used by parking.Main --server.
+     *
+     * replicationPort=7070 makes it a primary shipping its lot to followers on
+     * that port; follow=host:7070 makes it a read-only follower of that primary
+     * (which ships on replicationPort once promoted).
+     *
+     * exportDir=exports is where parking.Main writes the nightly exports
+     * (exportDir= with no folder turns them off).
+     */
+    public static ParkingServer startFromArgs(String[] args) throws IOException {
+        String host = "0.0.0.0";
+        int port = DEFAULT_PORT;
+        int backlog = 1024;
+        int replicationPort = -1;
+        String follow = null;
+        String exportDir = "exports";
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length < 2) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            switch (kv[0]) {
+                case "host": host = kv[1]; break;
+                case "port": port = Integer.parseInt(kv[1]); break;
+                case "backlog": backlog = Integer.parseInt(kv[1]); break;
+                case "logging": DataCenter.setLogging(Boolean.parseBoolean(kv[1])); break;
+                case "replicationPort": replicationPort = Integer.parseInt(kv[1]); break;
+                case "follow": follow = kv[1]; break;
+                case "exportDir": exportDir = kv[1]; break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        ParkingServer server = new ParkingServer(new InetSocketAddress(host, port), backlog);
+        server.setExportDir(exportDir.isEmpty() ? null : Paths.get(exportDir));
+        if (follow != null) {
+            int colon = follow.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("follow must be host:port but got: " + follow);
+            }
+            InetSocketAddress primary = new InetSocketAddress(follow.substring(0, colon),
+                    Integer.parseInt(follow.substring(colon + 1)));
+            int listen = replicationPort >= 0 ? replicationPort : ReplicationPrimary.DEFAULT_PORT;
+            server.setReplication(ReplicationNode.follower(DataCenter.getDefaultLot(), primary,
+                    new InetSocketAddress(host, listen)));
+        } else if (replicationPort >= 0) {
+            server.setReplication(ReplicationNode.primary(DataCenter.getDefaultLot(),
+                    new InetSocketAddress(host, replicationPort)));
+        }
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "parking-server-shutdown"));
+        System.out.println("ParkingServer: listening on http://" + host + ":" + server.getAddress().getPort() + "/api");
+        return server;
+    }
+}
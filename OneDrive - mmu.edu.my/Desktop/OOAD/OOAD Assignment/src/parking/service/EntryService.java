@@ -1,9 +1,13 @@
 package parking.service;
 
 import parking.data.DataCenter;
+import parking.data.LotPartition;
 import parking.model.*; // Importing all model classes (Car, SUV, etc.)
 import java.util.List;
 import java.util.ArrayList;
+import parking.jfr.ParkEvent;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.Metrics;
 import parking.model.SpotStatus;
 
 /**
@@ -12,6 +16,26 @@ import parking.model.SpotStatus;
  */
 public class EntryService {
 
+    // Tries of parkInFirstFreeSpot() when other gates keep taking the spot first
+    private static final int FIRST_FIT_ATTEMPTS = 3;
+
+    // The lot this entrance belongs to
+    private final LotPartition lot;
+    private final SpotAllocation spotAllocation;
+    private final LatencyHistogram parkLatency;
+
+    // An entrance of the default lot (DataCenter)
+    public EntryService() {
+        this(DataCenter.getDefaultLot());
+    }
+
+    // An entrance of another lot (see ParkingGroup)
+    public EntryService(LotPartition lot) {
+        this.lot = lot;
+        this.spotAllocation = new SpotAllocation(lot);
+        this.parkLatency = lot.latency(Metrics.ENTRY_PARK);
+    }
+
     /**
      * 1. Create a Vehicle instance.
      * Maps the UI selection string to specific subclass implementations.
@@ -43,6 +67,16 @@ public class EntryService {
         }
     }
 
+    // Same for callers that already have a VehicleType (tools, the simulator)
+    public Vehicle createVehicle(String plate, VehicleType type) {
+        switch (type) {
+            case MOTORCYCLE: return createVehicle(plate, "Motorcycle");
+            case SUV: return createVehicle(plate, "SUV");
+            case HANDICAPPED: return createVehicle(plate, "Handicapped");
+            default: return createVehicle(plate, "Car");
+        }
+    }
+
     /**
      * 2. Find available parking spots.
      * Delegates the search to the DataCenter based on vehicle compatibility.
@@ -51,8 +85,8 @@ public class EntryService {
      */
     public List<ParkingSpot> findAvailableSpots(Vehicle v) {
         try {
-            // DataCenter provides a static utility to filter compatible/vacant spots
-            return DataCenter.getAvailableSpotsForVehicle(v);
+            // The lot filters compatible/vacant spots
+            return lot.getAvailableSpotsForVehicle(v);
         } catch (Exception e) {
             // Fail-safe: log error and return an empty list to prevent UI from crashing
             System.err.println("Error accessing DataCenter: " + e.getMessage());
@@ -69,31 +103,67 @@ public class EntryService {
      * @return The generated Ticket object, or null if the process fails.
      */
     public Ticket parkVehicle(Vehicle v, String spotId) {
-        // Retrieve the spot object from the data center
-        ParkingSpot spot = DataCenter.findSpotById(spotId);
-        
-        if (spot != null) {
-            // Update the DataCenter/Database to reflect that the spot is now occupied
-            DataCenter.parkVehicle(v, spot);
-            
-            // Extract necessary data for Ticket construction
-            String plate = v.getLicensePlate();
-            String assignedSpotId = spot.getSpotId();
-            java.time.LocalDateTime entryTime = v.getEntryTime();
-            
-            /**
-             * Ticket Constructor Requirement: 
-             * new Ticket(String plate, String spotId, LocalDateTime time)
-             */
-            Ticket ticket = new Ticket(plate, assignedSpotId, entryTime); 
-            
-            // Persist the ticket record in the DataCenter
-            DataCenter.addTicket(ticket);
-            
-            return ticket;
+        long t0 = System.nanoTime();
+        ParkEvent event = new ParkEvent();
+        event.begin();
+        try {
+            // Retrieve the spot object from the data center
+            ParkingSpot spot = lot.findSpotById(spotId);
+
+            // Update the DataCenter/Database to reflect that the spot is now occupied.
+            // parkVehicle() fails if another gate took the spot after it was listed.
+            if (spot != null && lot.parkVehicle(v, spot)) {
+
+                // Extract necessary data for Ticket construction
+                String plate = v.getLicensePlate();
+                String assignedSpotId = spot.getSpotId();
+                java.time.LocalDateTime entryTime = v.getEntryTime();
+
+                /**
+                 * Ticket Constructor Requirement: 
+                 * new Ticket(String plate, String spotId, LocalDateTime time)
+                 */
+                Ticket ticket = new Ticket(plate, assignedSpotId, entryTime); 
+
+                // Persist the ticket record in the DataCenter
+                lot.addTicket(ticket);
+
+                event.parked = true;
+                return ticket;
+            }
+
+            // Return null if the spot was not found or is no longer available
+            return null;
+        } finally {
+            parkLatency.recordSince(t0);
+            event.end();
+            if (event.shouldCommit()) {
+                event.plate = v.getLicensePlate();
+                event.vehicleType = v.getVehicleType().name();
+                event.setSpot(spotId);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 4. Park in the first suitable spot, for gates where the driver does not choose
+     * (HTTP API, barrier controllers). Tries again if another gate took the spot
+     * between finding and parking it.
+     * @param v The vehicle being parked (not parked yet).
+     * @return The ticket, or null if no suitable spot could be taken.
+     */
+    public Ticket parkInFirstFreeSpot(Vehicle v) {
+        for (int attempt = 0; attempt < FIRST_FIT_ATTEMPTS; attempt++) {
+            ParkingSpot spot = spotAllocation.findSpot(v);
+            if (spot == null) {
+                return null;
+            }
+            Ticket ticket = parkVehicle(v, spot.getSpotId());
+            if (ticket != null) {
+                return ticket;
+            }
         }
-        
-        // Return null if the spot was not found or is no longer available
         return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package parking.service;
+
+import java.time.LocalDateTime;
+import parking.model.SpotType;
+
+/**
+ * ExitQuote - Immutable result of ExitService.processExitCalculation().
+ * Holds everything the exit lane needs to show the bill and build the Payment,
+ * so one ExitService can be shared by any number of lanes/threads.
+ * The token is passed back to ExitService.confirmPayment() before validUntil.
+ *
+ * @param token        identifies this quote when confirming payment
+ * @param validUntil   the quote can no longer be confirmed after this time
+ * @param ticketId     ticket issued when the vehicle entered (null if none was found)
+ * @param licensePlate plate of the exiting vehicle
+ * @param vehicleType  class name of the vehicle (e.g. "Car")
+ * @param spotType     type of the spot the vehicle was parked in
+ * @param entryTime    when the vehicle entered
+ * @param exitTime     time used as the exit time for this quote
+ * @param minutes      minutes parked
+ * @param hours        billed hours (minutes rounded up, at least 1)
+ * @param rate         average rate per billed hour (0 for exempted handicapped parking)
+ * @param fee          parking fee for this visit
+ * @param fine         fine for this visit (overstay + reserved spot violation)
+ * @param unpaidFines  fines left unpaid from earlier visits
+ * @param vip          VIP / reservation status of the vehicle
+ * @param violation    whether the vehicle parked in a reserved spot without reservation
+ */
+public record ExitQuote(String token, LocalDateTime validUntil, String ticketId,
+                        String licensePlate, String vehicleType, SpotType spotType,
+                        LocalDateTime entryTime, LocalDateTime exitTime,
+                        long minutes, long hours, double rate, double fee, double fine,
+                        double unpaidFines, boolean vip, boolean violation) {
+
+    // Total amount due: fee + this visit's fine + earlier unpaid fines
+    public double total() {
+        return fee + fine + unpaidFines;
+    }
+
+    // Everything that is paid as a fine (this visit and earlier visits)
+    public double finesDue() {
+        return fine + unpaidFines;
+    }
+}
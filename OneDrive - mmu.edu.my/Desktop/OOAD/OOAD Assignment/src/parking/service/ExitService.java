@@ -2,106 +2,255 @@ package parking.service;
 
 import java.time.LocalDateTime;
 import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import parking.clock.ParkingClock;
 import parking.data.DataCenter;
+import parking.data.LotPartition;
+import parking.jfr.ExitQuoteEvent;
+import parking.jfr.PaymentCommitEvent;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.Metrics;
 import parking.model.*;
+import parking.rules.RuleSet;
 import parking.strategy.FineStrategy;
 
 // Service class for managing vehicle exit business logic and fee calculations.
-
+// Every calculation returns its own ExitQuote, so one instance can be shared by
+// several exit lanes (threads) at the same time. Quotes are cached by token for a
+// short time so confirming payment commits the quoted bill without recalculating.
  
 public class ExitService {
-    private PaymentProcessor processor = new PaymentProcessor();
-    
-    // Internal state for billing details display 
-    private String vType = "-";
-    private String sType = "-";
-    private LocalDateTime inTime;
-    private LocalDateTime tempOutTime; 
-    private long mins = 0, hours = 0;
-    private double rate = 0, fee = 0, fine = 0;
-    private boolean isVip = false;        // VIP status 
-    private boolean isViolation = false;  // Violation status 
+    // How long a quote can be confirmed after it was calculated
+    public static final Duration DEFAULT_QUOTE_TTL = Duration.ofMinutes(2);
+
+    // Quotes waiting for payment, by token
+    private final ConcurrentHashMap<String, PendingQuote> pendingQuotes = new ConcurrentHashMap<>();
+    private final AtomicLong quoteCounter = new AtomicLong();
+    private final Duration quoteTtl;
+    private final LotPartition lot; // the lot this exit belongs to
+    private final LatencyHistogram quoteLatency;
+    private final LatencyHistogram confirmLatency;
+    private volatile LocalDateTime nextPurge = LocalDateTime.MIN;
+
+    // A cached quote plus what is needed to commit it without looking anything up again
+    private record PendingQuote(ExitQuote quote, Vehicle vehicle, int vehicleVersion) {
+    }
+
+    public ExitService() {
+        this(DEFAULT_QUOTE_TTL);
+    }
+
+    public ExitService(Duration quoteTtl) {
+        this(DataCenter.getDefaultLot(), quoteTtl);
+    }
+
+    // An exit of another lot (see ParkingGroup)
+    public ExitService(LotPartition lot, Duration quoteTtl) {
+        this.lot = lot;
+        this.quoteTtl = quoteTtl;
+        this.quoteLatency = lot.latency(Metrics.EXIT_QUOTE);
+        this.confirmLatency = lot.latency(Metrics.PAYMENT_CONFIRM);
+    }
+
+    public LotPartition getLot() {
+        return lot;
+    }
 
     //Core method to process all calculations required for vehicle exit.
-   
-     
-    public double processExitCalculation(String plate) {
-        // 1. Retrieve the vehicle object from the data layer
-        
-        Vehicle v = DataCenter.findVehicleByPlate(plate);
-        if (v == null) return -1.0;
-
-        // 2. Load the specific status of the vehicle
-        
-        this.isVip = v.isVip();
-        this.isViolation = v.hasViolation();
-
-        // 3. Set entry and current exit time for duration calculation
-        
-        this.inTime = v.getEntryTime();
-        this.tempOutTime = LocalDateTime.now(); 
-        
-        Duration d = Duration.between(inTime, tempOutTime);
-        this.mins = d.toMinutes();
-        
-        // 4. Apply Ceiling Rounding logic: $hours = \lceil \frac{minutes}{60} \rceil$
-        
-        this.hours = (long) Math.ceil(this.mins / 60.0);
-        if (this.hours <= 0) this.hours = 1;
-
-        // 5. Identify spot and vehicle categories
+    //Returns null if the vehicle is not currently parked.
      
-        var spot = DataCenter.findSpotById(v.getSpotId());
-        this.sType = spot.getType().toString();
-        this.vType = v.getClass().getSimpleName();
-        
-        // 6. Calculate base hourly rate and handle exemptions
-       
-        this.rate = spot.getType().getHourlyRate();
-        
-        // Exemption: Handicapped vehicles in designated spots
-       
-        if (v instanceof HandicappedVehicle && sType.equals("HANDICAPPED")) {
-            this.rate = 0.0;
+    public ExitQuote processExitCalculation(String plate) {
+        long t0 = System.nanoTime();
+        ExitQuoteEvent event = new ExitQuoteEvent();
+        event.begin();
+        Vehicle v = null;
+        ExitQuote quote = null;
+        try {
+            // 1. Retrieve the vehicle object from the data layer
+
+            v = lot.findVehicleByPlate(plate);
+            if (v == null) return null;
+            int version = v.getVersion(); // read first, so any later change invalidates the quote
+
+            // 2. Load the specific status of the vehicle
+
+            boolean isVip = v.isVip();
+            boolean isViolation = v.hasViolation();
+
+            // 3. Set entry and current exit time for duration calculation
+
+            LocalDateTime inTime = v.getEntryTime();
+            LocalDateTime outTime = ParkingClock.now(); 
+
+            Duration d = Duration.between(inTime, outTime);
+            long mins = d.toMinutes();
+
+            // 4. Apply Ceiling Rounding logic: $hours = \lceil \frac{minutes}{60} \rceil$
+
+            long hours = billedHours(mins);
+
+            // 5. Identify spot and vehicle categories
+
+            ParkingSpot spot = lot.findSpotById(v.getSpotId());
+            SpotType sType = spot.getType();
+            String vType = v.getClass().getSimpleName();
+
+            // 6. Price the stay with the active tariff (time bands, daily caps, grace period)
+            //    and handle exemptions. The rate shown is the average per billed hour.
+
+            FineStrategy strategy = lot.getActiveFineStrategy();
+            double fee = lot.getActiveTariff().fee(sType, inTime, outTime);
+
+            // A custom rule set may price this vehicle itself (NaN = no fee rule matched)
+            if (strategy instanceof RuleSet rules && rules.hasFeeRules()) {
+                double ruleFee = rules.fee(hours, v, sType);
+                if (!Double.isNaN(ruleFee)) {
+                    fee = ruleFee;
+                }
+            }
+
+            // Exemption: Handicapped vehicles in designated spots
+
+            if (v instanceof HandicappedVehicle && sType == SpotType.HANDICAPPED) {
+                fee = 0.0;
+            }
+            double rate = fee / hours;
+
+            // 7. Calculate fines based on strategy and violations
+
+            double fine = strategy.calculateFine(hours, v, sType); // Standard overstay fine 
+
+            // Penalty for unauthorized use of a reserved spot
+
+            if (isViolation) {
+                fine += 50.0; 
+            }
+
+            // 8. Include previous unpaid fines in the amount due.
+            //    The nightly assessment may already have fined this session; the fine
+            //    above replaces that one, so it is left out here.
+
+            Ticket ticket = lot.findTicketByPlate(plate);
+            String ticketId = ticket != null ? ticket.getTicketId() : null;
+            double unpaidFines = lot.getUnpaidFineTotal(plate) - lot.getAssessedFine(ticketId);
+            unpaidFines = Math.max(0.0, Math.round(unpaidFines * 100.0) / 100.0);
+
+            // 9. Cache the quote under a new token until it expires
+
+            quote = new ExitQuote(newToken(), outTime.plus(quoteTtl), ticketId,
+                    v.getLicensePlate(), vType, sType, inTime, outTime, mins, hours,
+                    rate, fee, fine, unpaidFines, isVip, isViolation);
+            purgeExpiredQuotes(outTime);
+            pendingQuotes.put(quote.token(), new PendingQuote(quote, v, version));
+            return quote;
+        } finally {
+            quoteLatency.recordSince(t0);
+            event.end();
+            if (event.shouldCommit()) {
+                event.plate = plate;
+                if (v != null) {
+                    event.setSpot(v.getSpotId());
+                }
+                if (quote != null) {
+                    event.found = true;
+                    event.hours = quote.hours();
+                    event.fee = quote.fee();
+                    event.fine = quote.fine();
+                    event.unpaidFines = quote.unpaidFines();
+                    event.total = quote.total();
+                }
+                event.commit();
+            }
         }
-        this.fee = this.hours * this.rate;
-
-        // 7. Calculate fines based on strategy and violations
-       
-        FineStrategy strategy = DataCenter.getActiveFineStrategy();
-        this.fine = strategy.calculateFine(this.hours); // Standard overstay fine 
-        
-        // Penalty for unauthorized use of a reserved spot
-        
-        if (this.isViolation) {
-            this.fine += 50.0; 
+    }
+
+    //Confirms payment of a quote: records the exit, the payment and the fine settlement
+    //in one step using the quoted amounts. Returns null if the token is unknown, already
+    //used, expired, or the vehicle changed after the quote was calculated.
+ 
+    public Payment confirmPayment(String token, PaymentMethod method) {
+        long t0 = System.nanoTime();
+        PaymentCommitEvent event = new PaymentCommitEvent();
+        event.begin();
+        PendingQuote pending = null;
+        String result = "UNKNOWN_TOKEN";
+        try {
+            // remove() makes sure a token can only be used once, even with two lanes racing
+            pending = pendingQuotes.remove(token);
+            if (pending == null) return null;
+
+            ExitQuote q = pending.quote();
+            result = "EXPIRED";
+            if (ParkingClock.now().isAfter(q.validUntil())) return null;
+
+            Payment payment = new Payment(q.licensePlate(), q.ticketId(), q.entryTime(), q.exitTime(),
+                    q.hours(), q.fee(), q.finesDue(), q.total(), method, token);
+            result = "CHANGED";
+            if (!lot.commitExit(pending.vehicle(), pending.vehicleVersion(), payment)) {
+                return null;
+            }
+            result = "PAID";
+            return payment;
+        } finally {
+            confirmLatency.recordSince(t0);
+            event.end();
+            if (event.shouldCommit()) {
+                event.result = result;
+                event.method = method == null ? null : method.name();
+                if (pending != null) {
+                    ExitQuote q = pending.quote();
+                    event.plate = q.licensePlate();
+                    event.setSpot(pending.vehicle().getSpotId());
+                    event.amount = q.total();
+                    event.finesPaid = q.finesDue();
+                }
+                event.commit();
+            }
         }
+    }
 
-        // 8. Return total amount due including previous unpaid fines
-       
-        return fee + fine + DataCenter.getUnpaidFineTotal(plate);
+    //True if the quote can still be confirmed (not expired and the vehicle is unchanged).
+ 
+    public boolean isQuoteValid(String token) {
+        PendingQuote pending = pendingQuotes.get(token);
+        return pending != null
+                && !ParkingClock.now().isAfter(pending.quote().validUntil())
+                && pending.vehicle().getVersion() == pending.vehicleVersion()
+                && pending.vehicle().getExitTime() == null;
     }
 
-    //Formally records the exit timestamp for the vehicle.
+    //The quote for a token while it can still be confirmed, otherwise null.
  
-    public void finalizeExit(String plate) {
-        Vehicle v = DataCenter.findVehicleByPlate(plate);
-        if (v != null) {
-            v.setExitTime(LocalDateTime.now());
-        }
+    public ExitQuote findQuote(String token) {
+        PendingQuote pending = pendingQuotes.get(token);
+        return pending != null && isQuoteValid(token) ? pending.quote() : null;
+    }
+
+    //Drops a quote that will not be paid (e.g. the lane cancelled it).
+ 
+    public void cancelQuote(String token) {
+        pendingQuotes.remove(token);
     }
 
-    // --- Getters for UI and Receipt Data ---
-   
-    public String getVType() { return vType; }
-    public String getSType() { return sType; }
-    public LocalDateTime getIn() { return inTime; }
-    public LocalDateTime getOut() { return tempOutTime; }
-    public long getMins() { return mins; }
-    public long getHours() { return hours; }
-    public double getRate() { return rate; }
-    public double getFee() { return fee; }
-    public double getFine() { return fine; }
-    public boolean isVip() { return isVip; }
-    public boolean isViolation() { return isViolation; }
-}
\ No newline at end of file
+    //Minutes rounded up to whole hours, at least 1 (the hours fines and fees are based on).
+ 
+    public static long billedHours(long minutes) {
+        long hours = (long) Math.ceil(minutes / 60.0);
+        return hours <= 0 ? 1 : hours;
+    }
+
+    // Unique (counter) and hard to guess (random part) without the cost of UUID's SecureRandom
+    private String newToken() {
+        return Long.toHexString(quoteCounter.incrementAndGet()) + "-"
+                + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    // Removes expired quotes, at most once per second so it stays cheap on busy lanes
+    private void purgeExpiredQuotes(LocalDateTime now) {
+        if (now.isBefore(nextPurge)) return;
+        nextPurge = now.plusSeconds(1);
+        pendingQuotes.values().removeIf(p -> now.isAfter(p.quote().validUntil()));
+    }
+}
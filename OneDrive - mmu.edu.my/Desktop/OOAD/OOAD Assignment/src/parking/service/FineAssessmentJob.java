@@ -0,0 +1,189 @@
+package parking.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.model.*;
+import parking.strategy.FineStrategy;
+
+// Nightly batch job that fines long-stay vehicles while they are still parked.
+// The active FineStrategy is evaluated for every parked session in parallel (one
+// fork/join task per floor) and the results are written as one Fine per session,
+// keyed by ticket ID: a second run updates those fines instead of adding more.
+// When the vehicle leaves, the exit bill replaces the assessed fine (see ExitService).
+
+public class FineAssessmentJob {
+
+    public static final String REASON = "Overstay (nightly assessment)";
+
+    private final ForkJoinPool pool;
+
+    // What one run did
+    public record Result(int sessions, int issued, int updated, int skipped,
+                         double totalAssessed, long elapsedNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d sessions, %d fines issued, %d updated, %d without ticket, "
+                    + "RM %.2f assessed, %.1f ms", sessions, issued, updated, skipped,
+                    totalAssessed, elapsedNanos / 1e6);
+        }
+    }
+
+    // Sessions of one floor and their fines
+    private static class FloorBatch {
+        final String[] plates;
+        final String[] ticketIds;
+        final double[] amounts;
+        int count;
+        int skipped;
+        double total;
+
+        FloorBatch(int capacity) {
+            plates = new String[capacity];
+            ticketIds = new String[capacity];
+            amounts = new double[capacity];
+        }
+    }
+
+    public FineAssessmentJob() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public FineAssessmentJob(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //Assesses every parked session as if it ended now.
+
+    public Result run() {
+        return run(ParkingClock.now());
+    }
+
+    //Assesses every parked session as if it ended at the given time.
+
+    public Result run(LocalDateTime asOf) {
+        long start = System.nanoTime();
+        FineStrategy strategy = DataCenter.getActiveFineStrategy();
+        ArrayList<Floor> floors = new ArrayList<>(DataCenter.getFloors());
+        FloorBatch[] batches = new FloorBatch[floors.size()];
+
+        // 1. Calculate in parallel (reads only)
+        pool.invoke(new AssessFloors(floors, batches, 0, floors.size(), strategy, asOf));
+
+        // 2. Write the fines, one lock per floor so gates are not held up for long
+        int sessions = 0, issued = 0, updated = 0, skipped = 0;
+        double total = 0;
+        for (FloorBatch batch : batches) {
+            int[] changed = DataCenter.upsertSessionFines(batch.plates, batch.ticketIds, batch.amounts,
+                    batch.count, REASON);
+            sessions += batch.count + batch.skipped;
+            issued += changed[0];
+            updated += changed[1];
+            skipped += batch.skipped;
+            total += batch.total;
+        }
+        return new Result(sessions, issued, updated, skipped, total, System.nanoTime() - start);
+    }
+
+    //Runs the job every day at midnight on a background thread. Call shutdown() on the result to stop it.
+    //The schedule follows real time; each run assesses as of ParkingClock.now() (simulated time, if skipped).
+
+    public ScheduledExecutorService scheduleNightly() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fine-assessment");
+            t.setDaemon(true);
+            return t;
+        });
+        long delay = ParkingClock.untilNextRealTime(LocalTime.MIDNIGHT).toMillis();
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                System.out.println("FineAssessmentJob: " + run());
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the next night tries again
+                System.err.println("FineAssessmentJob failed: " + e.getMessage());
+            }
+        }, delay, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    // Splits the floors in half until one floor is left, then assesses it
+    private static class AssessFloors extends RecursiveAction {
+        private final ArrayList<Floor> floors;
+        private final FloorBatch[] batches;
+        private final int from, to;
+        private final FineStrategy strategy;
+        private final LocalDateTime asOf;
+
+        AssessFloors(ArrayList<Floor> floors, FloorBatch[] batches, int from, int to,
+                     FineStrategy strategy, LocalDateTime asOf) {
+            this.floors = floors;
+            this.batches = batches;
+            this.from = from;
+            this.to = to;
+            this.strategy = strategy;
+            this.asOf = asOf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AssessFloors(floors, batches, from, mid, strategy, asOf),
+                          new AssessFloors(floors, batches, mid, to, strategy, asOf));
+            } else if (to > from) {
+                batches[from] = assessFloor(floors.get(from), strategy, asOf);
+            }
+        }
+    }
+
+    private static FloorBatch assessFloor(Floor floor, FineStrategy strategy, LocalDateTime asOf) {
+        ArrayList<ParkingSpot> spots = floor.getSpots();
+        FloorBatch batch = new FloorBatch(spots.size());
+        long[] hours = new long[spots.size()];
+        Vehicle[] vehicles = new Vehicle[spots.size()];
+        SpotType[] spotTypes = new SpotType[spots.size()];
+
+        // Collect the sessions on this floor
+        int n = 0;
+        for (ParkingSpot spot : spots) {
+            Vehicle v = spot.getCurrentVehicle();
+            if (v == null || v.getExitTime() != null) {
+                continue;
+            }
+            Ticket ticket = DataCenter.findTicketByPlate(v.getLicensePlate());
+            if (ticket == null) {
+                batch.skipped++; // no ticket, nothing to key the fine on
+                continue;
+            }
+            long minutes = Duration.between(v.getEntryTime(), asOf).toMinutes();
+            batch.plates[n] = v.getLicensePlate();
+            batch.ticketIds[n] = ticket.getTicketId();
+            hours[n] = ExitService.billedHours(minutes);
+            vehicles[n] = v;
+            spotTypes[n] = spot.getType();
+            n++;
+        }
+        batch.count = n;
+
+        // Built-in schemes go through their lookup table in one loop; others per vehicle
+        if (strategy.compile() != null) {
+            strategy.calculateFines(hours, batch.amounts, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                batch.amounts[i] = strategy.calculateFine(hours[i], vehicles[i], spotTypes[i]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            batch.total += batch.amounts[i];
+        }
+        return batch;
+    }
+}
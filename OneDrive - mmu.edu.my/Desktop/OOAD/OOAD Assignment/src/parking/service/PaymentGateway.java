@@ -0,0 +1,32 @@
+package parking.service;
+
+import java.util.List;
+
+/**
+ * PaymentGateway - The card payment provider, as seen by PaymentProcessor.
+ *
+ * Charges are authorized in batches. Every request carries an idempotency key
+ * (the exit quote token): authorizing an approved key again must return the
+ * same approval without charging the card a second time. A declined key must be
+ * tried again, since the driver retries the same bill after a decline.
+ */
+public interface PaymentGateway {
+
+    // One card charge to authorize
+    record Request(String idempotencyKey, String licensePlate, double amount) {
+    }
+
+    // The gateway's answer for one request
+    record Authorization(String idempotencyKey, boolean approved, String authCode, String declineReason) {
+    }
+
+    /**
+     * Authorizes a batch of charges and returns one Authorization per request,
+     * in the same order. Throws a RuntimeException if the gateway cannot be
+     * reached; nothing in the batch is charged in that case.
+     */
+    List<Authorization> authorize(List<Request> batch);
+
+    // Cancels an approved authorization that will not be used (e.g. the bill expired)
+    void voidAuthorization(String idempotencyKey);
+}
@@ -0,0 +1,167 @@
+package parking.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.EnumMap;
+import parking.model.Payment;
+import parking.model.PaymentMethod;
+import parking.service.ReportSnapshot.Revenue;
+
+/**
+ * PaymentIndex - Payments in payment-time order with running totals, so the
+ * revenue of any time window is two binary searches and a subtraction: O(log n)
+ * however many payments were recorded.
+ *
+ * Only primitives are kept: the sorted payment times, and after the i-th payment
+ * the running fee, fine and total amounts (in cents) and the total per payment
+ * method, side by side in one array. Payments normally arrive in time order and
+ * are appended; one that arrives a little late (another gate committed first) is
+ * inserted and only the totals after it are moved up.
+ *
+ * Not thread safe: the owner locks (see ReportService).
+ */
+public class PaymentIndex {
+
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final int FEE = 0, FINE = 1, TOTAL = 2, BY_METHOD = 3;
+    private static final int WIDTH = BY_METHOD + METHODS.length; // longs per running-total row
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private long[] times;  // payment times (nanoseconds since 1970, local time), sorted
+    private long[] sums;   // row i (i = 0..size): totals of the first i payments
+    private int size;
+
+    public PaymentIndex() {
+        times = new long[1024];
+        sums = new long[(times.length + 1) * WIDTH];
+    }
+
+    public void add(Payment payment) {
+        long[] amounts = new long[WIDTH];
+        amounts[FEE] = cents(payment.getParkingFee());
+        amounts[FINE] = cents(payment.getFinesPaid());
+        amounts[TOTAL] = cents(payment.getTotalAmount());
+        if (payment.getPaymentMethod() != null) {
+            amounts[BY_METHOD + payment.getPaymentMethod().ordinal()] = amounts[TOTAL];
+        }
+        add(keyOf(payment.getPaymentTime()), amounts);
+    }
+
+    private void add(long time, long[] amounts) {
+        if (size == times.length) {
+            grow();
+        }
+        // Payments with the same time stay in the order they were added
+        int at = size == 0 || time >= times[size - 1] ? size : upperBound(time);
+        System.arraycopy(times, at, times, at + 1, size - at);
+        times[at] = time;
+        // Rows after the new payment move up one and include its amounts
+        for (int row = size; row >= at; row--) {
+            int from = row * WIDTH, to = from + WIDTH;
+            for (int k = 0; k < WIDTH; k++) {
+                sums[to + k] = sums[from + k] + amounts[k];
+            }
+        }
+        size++;
+    }
+
+    // ========== QUERIES ==========
+
+    // Payments made in [from, to); null means no limit on that side
+    public Revenue between(LocalDateTime from, LocalDateTime to) {
+        int lo = from != null ? lowerBound(keyOf(from)) : 0;
+        int hi = to != null ? lowerBound(keyOf(to)) : size;
+        if (hi < lo) {
+            hi = lo;
+        }
+        int a = lo * WIDTH, b = hi * WIDTH;
+        EnumMap<PaymentMethod, Double> byMethod = new EnumMap<>(PaymentMethod.class);
+        for (PaymentMethod m : METHODS) {
+            int k = BY_METHOD + m.ordinal();
+            byMethod.put(m, (sums[b + k] - sums[a + k]) / 100.0);
+        }
+        return new Revenue(hi - lo, (sums[b + FEE] - sums[a + FEE]) / 100.0,
+                (sums[b + FINE] - sums[a + FINE]) / 100.0, (sums[b + TOTAL] - sums[a + TOTAL]) / 100.0,
+                Collections.unmodifiableMap(byMethod));
+    }
+
+    // Number of payments made in [from, to)
+    public int countBetween(LocalDateTime from, LocalDateTime to) {
+        int lo = from != null ? lowerBound(keyOf(from)) : 0;
+        int hi = to != null ? lowerBound(keyOf(to)) : size;
+        return Math.max(0, hi - lo);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Time of the first / last payment that has one, or null if there are none
+    public LocalDateTime getFirstTime() {
+        int i = upperBound(NO_TIME);
+        return i < size ? timeOf(times[i]) : null;
+    }
+
+    public LocalDateTime getLastTime() {
+        return size > 0 && times[size - 1] != NO_TIME ? timeOf(times[size - 1]) : null;
+    }
+
+    // Bytes held by the arrays (including room to grow)
+    public long getFootprintBytes() {
+        return 8L * times.length + 8L * sums.length;
+    }
+
+    // ========== HELPERS ==========
+
+    private void grow() {
+        long[] t = new long[times.length * 2];
+        System.arraycopy(times, 0, t, 0, size);
+        long[] s = new long[(t.length + 1) * WIDTH];
+        System.arraycopy(sums, 0, s, 0, (size + 1) * WIDTH);
+        times = t;
+        sums = s;
+    }
+
+    // First index whose time is >= key
+    private int lowerBound(long key) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First index whose time is > key
+    private int upperBound(long key) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Payments without a time sort before all others
+    private static long keyOf(LocalDateTime time) {
+        return time != null ? time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano() : NO_TIME;
+    }
+
+    private static LocalDateTime timeOf(long key) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000_000L),
+                (int) Math.floorMod(key, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
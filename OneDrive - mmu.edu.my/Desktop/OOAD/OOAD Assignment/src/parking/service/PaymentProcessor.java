@@ -1,5 +1,222 @@
 package parking.service;
 
-public class PaymentProcessor {
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.Metrics;
+import parking.model.Payment;
+import parking.model.PaymentMethod;
 
+/**
+ * PaymentProcessor - Takes payments for exit quotes off the caller's thread.
+ *
+ * submit() returns straight away with a CompletableFuture. Worker threads collect
+ * the waiting payments into batches (up to maxBatch, or whatever arrived within
+ * maxWait), authorize the card ones with the PaymentGateway in one call, and then
+ * commit each approved payment through ExitService.confirmPayment(): exit time,
+ * payment record, spot release and fine settlement in one DataCenter step.
+ *
+ * The quote token is the idempotency key. Submitting the same token again (double
+ * click, retry after a timeout) returns the same future, the gateway never charges
+ * a key twice, and DataCenter refuses a second payment with the same key.
+ */
+public class PaymentProcessor implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH = 32;
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofMillis(20);
+
+    // How long a finished payment is remembered for repeated submits
+    private static final long REMEMBER_MINUTES = 10;
+
+    private final ExitService exitService;
+    private final PaymentGateway gateway;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, CompletableFuture<PaymentResult>> byKey = new ConcurrentHashMap<>();
+    private final Thread[] workers;
+    private final LatencyHistogram processLatency;
+    private final LatencyHistogram authorizeLatency;
+    private volatile boolean closed;
+
+    // A payment waiting for its batch
+    private record Pending(ExitQuote quote, PaymentMethod method, CompletableFuture<PaymentResult> future) {
+    }
+
+    // Simulated card gateway with a short delay, 2 workers
+    public PaymentProcessor(ExitService exitService) {
+        this(exitService, new SimulatedPaymentGateway(Duration.ofMillis(300), 0.0, 0.0),
+                DEFAULT_MAX_BATCH, DEFAULT_MAX_WAIT, 2);
+    }
+
+    public PaymentProcessor(ExitService exitService, PaymentGateway gateway,
+                            int maxBatch, Duration maxWait, int workerCount) {
+        this.exitService = exitService;
+        this.processLatency = exitService.getLot().latency(Metrics.PAYMENT_PROCESS);
+        this.authorizeLatency = exitService.getLot().latency(Metrics.PAYMENT_AUTHORIZE);
+        this.gateway = gateway;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::runWorker, "payment-batcher-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Pays the quote with the given token. The future completes with PAID once the
+     * exit is committed, or with DECLINED / FAILED / EXPIRED (nothing committed).
+     * It never completes exceptionally.
+     */
+    public CompletableFuture<PaymentResult> submit(String quoteToken, PaymentMethod method) {
+        long submitted = System.nanoTime();
+        CompletableFuture<PaymentResult> future = new CompletableFuture<>();
+        CompletableFuture<PaymentResult> existing = byKey.putIfAbsent(quoteToken, future);
+        if (existing != null) {
+            return existing; // same key: same answer, no second charge
+        }
+        future.thenAccept(result -> {
+            processLatency.recordSince(submitted);
+            if (result.isPaid()) {
+                // Keep answering repeats for a while, then forget
+                CompletableFuture.delayedExecutor(REMEMBER_MINUTES, TimeUnit.MINUTES)
+                        .execute(() -> byKey.remove(quoteToken, future));
+            } else {
+                byKey.remove(quoteToken, future); // the quote can be paid again (e.g. with cash)
+            }
+        });
+
+        ExitQuote quote = exitService.findQuote(quoteToken);
+        if (quote == null) {
+            future.complete(PaymentResult.failed(PaymentResult.Status.EXPIRED,
+                    "This bill has expired or was already paid"));
+        } else if (closed) {
+            future.complete(PaymentResult.failed(PaymentResult.Status.FAILED, "Payment processing is shut down"));
+        } else {
+            queue.add(new Pending(quote, method, future));
+        }
+        return future;
+    }
+
+    // ========== WORKERS ==========
+    private void runWorker() {
+        ArrayList<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || left <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                break; // close()
+            } catch (RuntimeException e) {
+                // Never lose a caller's future, whatever went wrong
+                for (Pending p : batch) {
+                    p.future().complete(PaymentResult.failed(PaymentResult.Status.FAILED, e.toString()));
+                }
+            }
+            batch.clear();
+        }
+        for (Pending p : batch) {
+            p.future().complete(PaymentResult.failed(PaymentResult.Status.FAILED, "Payment processing is shut down"));
+        }
+    }
+
+    private void process(List<Pending> batch) {
+        ArrayList<Pending> cards = new ArrayList<>();
+        ArrayList<PaymentGateway.Request> requests = new ArrayList<>();
+        for (Pending p : batch) {
+            if (p.method() == PaymentMethod.CARD) {
+                cards.add(p);
+                ExitQuote q = p.quote();
+                requests.add(new PaymentGateway.Request(q.token(), q.licensePlate(), q.total()));
+            } else {
+                commit(p, false); // cash needs no authorization
+            }
+        }
+        if (cards.isEmpty()) {
+            return;
+        }
+
+        List<PaymentGateway.Authorization> answers;
+        long t0 = System.nanoTime();
+        try {
+            answers = gateway.authorize(requests);
+        } catch (RuntimeException e) {
+            for (Pending p : cards) {
+                p.future().complete(PaymentResult.failed(PaymentResult.Status.FAILED,
+                        "Card payment failed: " + e.getMessage() + ". Please try again."));
+            }
+            return;
+        } finally {
+            authorizeLatency.recordSince(t0);
+        }
+        for (int i = 0; i < cards.size(); i++) {
+            PaymentGateway.Authorization answer = answers.get(i);
+            if (answer.approved()) {
+                commit(cards.get(i), true);
+            } else {
+                cards.get(i).future().complete(PaymentResult.failed(PaymentResult.Status.DECLINED,
+                        answer.declineReason()));
+            }
+        }
+    }
+
+    // Commits the quoted exit; an unused card authorization is voided
+    private void commit(Pending p, boolean authorized) {
+        Payment payment = exitService.confirmPayment(p.quote().token(), p.method());
+        if (payment == null) {
+            if (authorized) {
+                gateway.voidAuthorization(p.quote().token());
+            }
+            p.future().complete(PaymentResult.failed(PaymentResult.Status.EXPIRED,
+                    "This bill has expired or the vehicle's details changed"));
+            return;
+        }
+        p.future().complete(PaymentResult.paid(payment));
+    }
+
+    // Stops the workers. Payments still waiting complete with FAILED.
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread w : workers) {
+            w.interrupt();
+        }
+        for (Thread w : workers) {
+            try {
+                w.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            p.future().complete(PaymentResult.failed(PaymentResult.Status.FAILED, "Payment processing is shut down"));
+        }
+    }
 }
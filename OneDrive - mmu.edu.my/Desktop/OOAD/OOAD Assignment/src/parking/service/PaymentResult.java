@@ -0,0 +1,26 @@
+package parking.service;
+
+import parking.model.Payment;
+
+// Outcome of one payment submitted to PaymentProcessor
+public record PaymentResult(Status status, Payment payment, String message) {
+
+    public enum Status {
+        PAID,     // charged and committed (exit, payment, fines settled)
+        DECLINED, // the card was declined; nothing was committed
+        FAILED,   // the gateway could not be reached; safe to retry with the same quote
+        EXPIRED   // the quote expired, was already used, or the vehicle changed
+    }
+
+    public static PaymentResult paid(Payment payment) {
+        return new PaymentResult(Status.PAID, payment, "Payment successful");
+    }
+
+    public static PaymentResult failed(Status status, String message) {
+        return new PaymentResult(status, null, message);
+    }
+
+    public boolean isPaid() {
+        return status == Status.PAID;
+    }
+}
@@ -0,0 +1,269 @@
+package parking.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import parking.data.DataCenter;
+import parking.data.LedgerSnapshot;
+import parking.model.*;
+
+// Checks the books: every finished parking session (ticket) must have exactly one
+// payment, every payment must belong to a real session and add up, and every
+// session fine must belong to a session and be settled when that session was paid.
+// Tickets, payments and fines are joined by ticket ID. The ticket ID holds the entry
+// date (T-PLATE-yyyyMMddHHmmss), so everything with the same ID lands in the same
+// day; the days are then checked in parallel (fork/join), one task per day.
+
+public class ReconciliationJob {
+
+    // Partition for records whose ticket ID has no readable date
+    public static final String UNDATED = "undated";
+
+    // Amounts closer than this are equal (half a cent)
+    private static final double TOLERANCE = 0.005;
+
+    public enum Kind {
+        MISSING_PAYMENT,    // the vehicle left but the session has no payment
+        DUPLICATE_PAYMENT,  // the session was paid more than once
+        AMOUNT_MISMATCH,    // total is not parking fee + fines paid
+        SESSION_MISMATCH,   // the payment's plate is not the ticket's plate
+        UNKNOWN_TICKET,     // the payment names a ticket that does not exist
+        ORPHAN_FINE,        // a session fine without its ticket, or marked paid without a payment
+        UNSETTLED_FINE      // the session was paid but its fine is still open
+    }
+
+    // One problem found
+    public record Discrepancy(Kind kind, String day, String ticketId, String licensePlate, String detail) {
+        @Override
+        public String toString() {
+            return kind + " [" + day + "] " + ticketId + " (" + licensePlate + "): " + detail;
+        }
+    }
+
+    // What one run found
+    public record Report(int days, int tickets, int payments, int sessionFines,
+                         List<Discrepancy> discrepancies, long elapsedNanos) {
+
+        public int count(Kind kind) {
+            int n = 0;
+            for (Discrepancy d : discrepancies) {
+                if (d.kind() == kind) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        public boolean isClean() {
+            return discrepancies.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(
+                    "%d days, %d tickets, %d payments, %d session fines, %d discrepancies, %.1f ms",
+                    days, tickets, payments, sessionFines, discrepancies.size(), elapsedNanos / 1e6));
+            EnumMap<Kind, Integer> counts = new EnumMap<>(Kind.class);
+            for (Discrepancy d : discrepancies) {
+                counts.merge(d.kind(), 1, Integer::sum);
+            }
+            for (Map.Entry<Kind, Integer> e : counts.entrySet()) {
+                sb.append("\n  ").append(e.getKey()).append(": ").append(e.getValue());
+            }
+            return sb.toString();
+        }
+    }
+
+    // Everything recorded for one day of entries
+    private static class Day {
+        final String day;
+        final ArrayList<Ticket> tickets = new ArrayList<>();
+        final ArrayList<Payment> payments = new ArrayList<>();
+        final ArrayList<Integer> fines = new ArrayList<>(); // indexes into the snapshot
+        List<Discrepancy> found;
+
+        Day(String day) {
+            this.day = day;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public ReconciliationJob() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ReconciliationJob(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //Reconciles everything recorded so far.
+
+    public Report run() {
+        return run(DataCenter.snapshotLedger());
+    }
+
+    //Reconciles the given snapshot (see DataCenter.snapshotLedger()).
+
+    public Report run(LedgerSnapshot ledger) {
+        long start = System.nanoTime();
+
+        // 1. Partition by entry day (one pass over each list)
+        TreeMap<String, Day> byDay = new TreeMap<>();
+        for (Ticket t : ledger.tickets()) {
+            day(byDay, t.getTicketId()).tickets.add(t);
+        }
+        for (Payment p : ledger.payments()) {
+            day(byDay, p.getTicketId()).payments.add(p);
+        }
+        int sessionFines = 0;
+        List<Fine> fines = ledger.fines();
+        for (int i = 0; i < fines.size(); i++) {
+            String ticketId = fines.get(i).getTicketId();
+            if (ticketId != null) { // plate-only fines belong to no session
+                day(byDay, ticketId).fines.add(i);
+                sessionFines++;
+            }
+        }
+
+        // 2. Check every day in parallel
+        Day[] days = byDay.values().toArray(new Day[0]);
+        pool.invoke(new ReconcileDays(days, 0, days.length, ledger));
+
+        // 3. Collect in day order
+        ArrayList<Discrepancy> all = new ArrayList<>();
+        for (Day d : days) {
+            all.addAll(d.found);
+        }
+        return new Report(days.length, ledger.tickets().size(), ledger.payments().size(), sessionFines,
+                Collections.unmodifiableList(all), System.nanoTime() - start);
+    }
+
+    private static Day day(TreeMap<String, Day> byDay, String ticketId) {
+        String day = dayOf(ticketId);
+        Day d = byDay.get(day);
+        if (d == null) {
+            d = new Day(day);
+            byDay.put(day, d);
+        }
+        return d;
+    }
+
+    // "yyyyMMdd" from T-PLATE-yyyyMMddHHmmss, or UNDATED (e.g. a spot type written as ticket ID)
+    static String dayOf(String ticketId) {
+        if (ticketId == null || ticketId.length() < 16) {
+            return UNDATED;
+        }
+        int stamp = ticketId.length() - 14;
+        if (ticketId.charAt(stamp - 1) != '-') {
+            return UNDATED;
+        }
+        for (int i = stamp; i < ticketId.length(); i++) {
+            char c = ticketId.charAt(i);
+            if (c < '0' || c > '9') {
+                return UNDATED;
+            }
+        }
+        return ticketId.substring(stamp, stamp + 8);
+    }
+
+    // Splits the days in half until one day is left, then checks it
+    private static class ReconcileDays extends RecursiveAction {
+        private final Day[] days;
+        private final int from, to;
+        private final LedgerSnapshot ledger;
+
+        ReconcileDays(Day[] days, int from, int to, LedgerSnapshot ledger) {
+            this.days = days;
+            this.from = from;
+            this.to = to;
+            this.ledger = ledger;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ReconcileDays(days, from, mid, ledger),
+                          new ReconcileDays(days, mid, to, ledger));
+            } else if (to > from) {
+                days[from].found = reconcileDay(days[from], ledger);
+            }
+        }
+    }
+
+    private static List<Discrepancy> reconcileDay(Day d, LedgerSnapshot ledger) {
+        ArrayList<Discrepancy> found = new ArrayList<>();
+        Set<String> open = ledger.openTicketIds();
+
+        HashMap<String, Ticket> tickets = new HashMap<>(d.tickets.size() * 2);
+        for (Ticket t : d.tickets) {
+            tickets.putIfAbsent(t.getTicketId(), t);
+        }
+
+        // Payments: known ticket, once only, right plate, adds up
+        HashMap<String, Payment> paid = new HashMap<>(d.payments.size() * 2);
+        for (Payment p : d.payments) {
+            String id = p.getTicketId();
+            Ticket t = id != null ? tickets.get(id) : null;
+            if (t == null) {
+                found.add(new Discrepancy(Kind.UNKNOWN_TICKET, d.day, id, p.getLicensePlate(),
+                        "payment of " + money(p.getTotalAmount()) + " for a ticket that does not exist"));
+            } else {
+                Payment first = paid.putIfAbsent(id, p);
+                if (first != null) {
+                    found.add(new Discrepancy(Kind.DUPLICATE_PAYMENT, d.day, id, p.getLicensePlate(),
+                            "paid " + money(first.getTotalAmount()) + " and again " + money(p.getTotalAmount())));
+                } else if (!t.getLicensePlate().equalsIgnoreCase(p.getLicensePlate())) {
+                    found.add(new Discrepancy(Kind.SESSION_MISMATCH, d.day, id, p.getLicensePlate(),
+                            "ticket was issued to " + t.getLicensePlate()));
+                }
+            }
+            double expected = p.getParkingFee() + p.getFinesPaid();
+            if (Math.abs(p.getTotalAmount() - expected) > TOLERANCE) {
+                found.add(new Discrepancy(Kind.AMOUNT_MISMATCH, d.day, id, p.getLicensePlate(),
+                        "total " + money(p.getTotalAmount()) + " but fee + fines = " + money(expected)));
+            }
+        }
+
+        // Sessions that ended without being paid
+        for (Ticket t : tickets.values()) {
+            String id = t.getTicketId();
+            if (!paid.containsKey(id) && !open.contains(id)) {
+                found.add(new Discrepancy(Kind.MISSING_PAYMENT, d.day, id, t.getLicensePlate(),
+                        "vehicle is no longer parked and the session was never paid"));
+            }
+        }
+
+        // Session fines: real session, settled together with its payment
+        List<Fine> fines = ledger.fines();
+        for (int i : d.fines) {
+            Fine f = fines.get(i);
+            String id = f.getTicketId();
+            boolean finePaid = ledger.finePaid()[i];
+            double amount = ledger.fineAmounts()[i];
+            if (!tickets.containsKey(id)) {
+                found.add(new Discrepancy(Kind.ORPHAN_FINE, d.day, id, f.getLicensePlate(),
+                        "fine of " + money(amount) + " for a ticket that does not exist"));
+            } else if (paid.containsKey(id) && !finePaid) {
+                found.add(new Discrepancy(Kind.UNSETTLED_FINE, d.day, id, f.getLicensePlate(),
+                        "session was paid but its fine of " + money(amount) + " is still open"));
+            } else if (!paid.containsKey(id) && finePaid) {
+                found.add(new Discrepancy(Kind.ORPHAN_FINE, d.day, id, f.getLicensePlate(),
+                        "fine of " + money(amount) + " is marked paid but the session has no payment"));
+            }
+        }
+        return found;
+    }
+
+    private static String money(double amount) {
+        return String.format("RM %.2f", amount);
+    }
+}
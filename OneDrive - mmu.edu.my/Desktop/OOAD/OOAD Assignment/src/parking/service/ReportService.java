@@ -1,5 +1,332 @@
 package parking.service;
 
-public class ReportService {
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.data.DataListener;
+import parking.model.*;
+import parking.monitor.OverstayScheduler;
+import parking.service.ReportSnapshot.FloorOccupancy;
+import parking.service.ReportSnapshot.Occupancy;
+import parking.service.ReportSnapshot.Revenue;
+import parking.service.ReportSnapshot.UnpaidFines;
+import parking.service.ReportSnapshot.VehicleRow;
 
+/**
+ * ReportService - Keeps the report figures up to date as things happen, so
+ * reading a report never scans the history.
+ *
+ * It follows the DataCenter (see DataListener) and keeps running totals: spots
+ * and occupied spots per floor and spot type, payments and revenue, unpaid fines,
+ * and the list of parked vehicles. snapshot() copies them into an immutable
+ * ReportSnapshot. Its cost depends on the number of floors and parked vehicles,
+ * not on how many payments or fines were ever recorded, and the parts that did
+ * not change since the last snapshot are reused.
+ *
+ * Money is added up in whole cents, so paying and un-paying fines never leaves
+ * rounding dust in the totals. Revenue between two dates comes from a PaymentIndex.
+ */
+public class ReportService implements DataListener {
+
+    private static volatile ReportService instance;
+
+    // ========== VIEWS (guarded by this) ==========
+    private final TreeMap<Integer, int[]> floors = new TreeMap<>(); // floor -> {spots, occupied}
+    private final int[] spotsByType = new int[SpotType.values().length];
+    private final int[] occupiedByType = new int[SpotType.values().length];
+
+    private int paymentCount;
+    private long feeCents;
+    private long fineCents;
+    private long totalCents;
+    private final long[] totalCentsByMethod = new long[PaymentMethod.values().length];
+    private PaymentIndex paymentIndex = new PaymentIndex(); // for revenue between dates
+
+    private final HashMap<String, Integer> unpaidFinesByPlate = new HashMap<>(); // plate -> unpaid fine count
+    private int unpaidFineCount;
+    private long unpaidCents;
+
+    private final LinkedHashMap<String, Vehicle> parked = new LinkedHashMap<>(); // in parking order
+
+    // Reuse what did not change since the last snapshot
+    private boolean countsChanged = true;
+    private boolean vehiclesChanged = true;
+    private ReportSnapshot last;
+
+    // The shared service. Created on first use: follows the DataCenter from then on.
+    public static ReportService getInstance() {
+        ReportService s = instance;
+        if (s == null) {
+            synchronized (ReportService.class) {
+                s = instance;
+                if (s == null) {
+                    s = new ReportService();
+                    s.attach();
+                    instance = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    private ReportService() {
+    }
+
+    // Registers and builds the views while holding the DataCenter lock, so no change
+    // can slip in between the first full count and the first event
+    private void attach() {
+        synchronized (DataCenter.getDefaultLot()) {
+            DataCenter.addListener(this);
+            rebuild();
+        }
+    }
+
+    // ========== READING ==========
+
+    // All report figures as of now
+    public ReportSnapshot snapshot() {
+        OverstayScheduler overstays = OverstayScheduler.getInstance();
+        synchronized (this) {
+            ReportSnapshot previous = last;
+            Occupancy lot;
+            List<FloorOccupancy> floorList;
+            Map<SpotType, Occupancy> typeMap;
+            Revenue revenue;
+            UnpaidFines unpaid;
+            if (countsChanged || previous == null) {
+                int spots = 0, occupied = 0;
+                ArrayList<FloorOccupancy> fl = new ArrayList<>(floors.size());
+                for (Map.Entry<Integer, int[]> e : floors.entrySet()) {
+                    int[] c = e.getValue();
+                    fl.add(new FloorOccupancy(e.getKey(), new Occupancy(c[0], c[1])));
+                    spots += c[0];
+                    occupied += c[1];
+                }
+                EnumMap<SpotType, Occupancy> types = new EnumMap<>(SpotType.class);
+                for (SpotType t : SpotType.values()) {
+                    types.put(t, new Occupancy(spotsByType[t.ordinal()], occupiedByType[t.ordinal()]));
+                }
+                EnumMap<PaymentMethod, Double> byMethod = new EnumMap<>(PaymentMethod.class);
+                for (PaymentMethod m : PaymentMethod.values()) {
+                    byMethod.put(m, totalCentsByMethod[m.ordinal()] / 100.0);
+                }
+                lot = new Occupancy(spots, occupied);
+                floorList = Collections.unmodifiableList(fl);
+                typeMap = Collections.unmodifiableMap(types);
+                revenue = new Revenue(paymentCount, feeCents / 100.0, fineCents / 100.0, totalCents / 100.0,
+                        Collections.unmodifiableMap(byMethod));
+                unpaid = new UnpaidFines(unpaidFineCount, unpaidFinesByPlate.size(), unpaidCents / 100.0);
+                countsChanged = false;
+            } else {
+                lot = previous.lot();
+                floorList = previous.floors();
+                typeMap = previous.spotTypes();
+                revenue = previous.revenue();
+                unpaid = previous.unpaidFines();
+            }
+
+            List<VehicleRow> rows;
+            if (vehiclesChanged || previous == null) {
+                ArrayList<VehicleRow> list = new ArrayList<>(parked.size());
+                for (Vehicle v : parked.values()) {
+                    list.add(new VehicleRow(v.getLicensePlate(), v.getVehicleType(), v.getSpotId(),
+                            v.getEntryTime(), v.hasViolation()));
+                }
+                rows = Collections.unmodifiableList(list);
+                vehiclesChanged = false;
+            } else {
+                rows = previous.vehicles();
+            }
+
+            // Overstays depend on the clock, not on events: always read them fresh
+            last = new ReportSnapshot(ParkingClock.now(), lot, floorList, typeMap, revenue, rows, unpaid,
+                    overstays.getOverstayCount(), overstays.getViolatingCount());
+            return last;
+        }
+    }
+
+    // ========== REVENUE BETWEEN DATES ==========
+    // Answered from the payment index: O(log n) per window, whatever the history size
+
+    // Payments made in [from, to); null means no limit on that side
+    public synchronized Revenue revenueBetween(LocalDateTime from, LocalDateTime to) {
+        return paymentIndex.between(from, to);
+    }
+
+    // One entry per day from..to (both included), oldest first
+    public synchronized SortedMap<LocalDate, Revenue> revenueByDay(LocalDate from, LocalDate to) {
+        TreeMap<LocalDate, Revenue> days = new TreeMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            days.put(d, paymentIndex.between(d.atStartOfDay(), d.plusDays(1).atStartOfDay()));
+        }
+        return days;
+    }
+
+    // One entry per month from..to (both included), oldest first
+    public synchronized SortedMap<YearMonth, Revenue> revenueByMonth(YearMonth from, YearMonth to) {
+        TreeMap<YearMonth, Revenue> months = new TreeMap<>();
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            months.put(m, paymentIndex.between(m.atDay(1).atStartOfDay(), m.plusMonths(1).atDay(1).atStartOfDay()));
+        }
+        return months;
+    }
+
+    // Time of the first payment, or null if there are none
+    public synchronized LocalDateTime getFirstPaymentTime() {
+        return paymentIndex.getFirstTime();
+    }
+
+    // ========== DATA EVENTS ==========
+
+    @Override
+    public synchronized void vehicleParked(Vehicle vehicle, ParkingSpot spot) {
+        if (spot == null) {
+            spot = DataCenter.findSpotById(vehicle.getSpotId());
+        }
+        if (spot != null) {
+            countSpot(spot, +1);
+        }
+        parked.put(vehicle.getLicensePlate().toUpperCase(), vehicle);
+        countsChanged = true;
+        vehiclesChanged = true;
+    }
+
+    @Override
+    public synchronized void vehicleRemoved(Vehicle vehicle, ParkingSpot spot) {
+        if (spot == null) {
+            spot = DataCenter.findSpotById(vehicle.getSpotId());
+        }
+        if (spot != null) {
+            countSpot(spot, -1);
+        }
+        parked.remove(vehicle.getLicensePlate().toUpperCase(), vehicle);
+        countsChanged = true;
+        vehiclesChanged = true;
+    }
+
+    @Override
+    public synchronized void vehicleChanged(Vehicle vehicle) {
+        vehiclesChanged = true;
+    }
+
+    @Override
+    public synchronized void paymentAdded(Payment payment) {
+        paymentCount++;
+        feeCents += cents(payment.getParkingFee());
+        fineCents += cents(payment.getFinesPaid());
+        long total = cents(payment.getTotalAmount());
+        totalCents += total;
+        if (payment.getPaymentMethod() != null) {
+            totalCentsByMethod[payment.getPaymentMethod().ordinal()] += total;
+        }
+        paymentIndex.add(payment);
+        countsChanged = true;
+    }
+
+    @Override
+    public synchronized void fineAdded(Fine fine) {
+        if (!fine.isPaid()) {
+            addUnpaid(fine.getLicensePlate(), fine.getAmount());
+        }
+    }
+
+    @Override
+    public synchronized void fineChanged(Fine fine, double oldAmount, boolean wasPaid) {
+        if (!wasPaid) {
+            removeUnpaid(fine.getLicensePlate(), oldAmount);
+        }
+        if (!fine.isPaid()) {
+            addUnpaid(fine.getLicensePlate(), fine.getAmount());
+        }
+    }
+
+    @Override
+    public synchronized void dataReset() {
+        rebuild();
+    }
+
+    // ========== HELPERS ==========
+
+    // Counts everything from scratch (on start and after a reset only)
+    private void rebuild() {
+        floors.clear();
+        Arrays.fill(spotsByType, 0);
+        Arrays.fill(occupiedByType, 0);
+        paymentCount = 0;
+        feeCents = fineCents = totalCents = 0;
+        Arrays.fill(totalCentsByMethod, 0);
+        paymentIndex = new PaymentIndex();
+        unpaidFinesByPlate.clear();
+        unpaidFineCount = 0;
+        unpaidCents = 0;
+        parked.clear();
+
+        for (Floor floor : DataCenter.getFloors()) {
+            for (ParkingSpot spot : floor.getSpots()) {
+                int[] c = floors.computeIfAbsent(spot.getFloorNumber(), k -> new int[2]);
+                c[0]++;
+                spotsByType[spot.getType().ordinal()]++;
+                if (!spot.isAvailable()) {
+                    c[1]++;
+                    occupiedByType[spot.getType().ordinal()]++;
+                }
+            }
+        }
+        for (Vehicle v : DataCenter.getAllParkedVehicles()) {
+            parked.put(v.getLicensePlate().toUpperCase(), v);
+        }
+        for (Payment p : DataCenter.getPayments()) {
+            paymentAdded(p);
+        }
+        for (Fine f : DataCenter.getFines()) {
+            fineAdded(f);
+        }
+        countsChanged = true;
+        vehiclesChanged = true;
+    }
+
+    private void countSpot(ParkingSpot spot, int delta) {
+        int[] c = floors.computeIfAbsent(spot.getFloorNumber(), k -> new int[2]);
+        c[1] += delta;
+        occupiedByType[spot.getType().ordinal()] += delta;
+    }
+
+    private void addUnpaid(String plate, double amount) {
+        unpaidFinesByPlate.merge(plate.toUpperCase(), 1, Integer::sum);
+        unpaidFineCount++;
+        unpaidCents += cents(amount);
+        countsChanged = true;
+    }
+
+    private void removeUnpaid(String plate, double amount) {
+        String key = plate.toUpperCase();
+        Integer n = unpaidFinesByPlate.get(key);
+        if (n == null) {
+            return; // never counted as unpaid
+        }
+        if (n == 1) {
+            unpaidFinesByPlate.remove(key);
+        } else {
+            unpaidFinesByPlate.put(key, n - 1);
+        }
+        unpaidFineCount--;
+        unpaidCents -= cents(amount);
+        countsChanged = true;
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
 }
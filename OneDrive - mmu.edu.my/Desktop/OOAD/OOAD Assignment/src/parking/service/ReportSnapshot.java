@@ -0,0 +1,47 @@
+package parking.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import parking.model.PaymentMethod;
+import parking.model.SpotType;
+import parking.model.VehicleType;
+
+/**
+ * ReportSnapshot - All report figures at one moment (see ReportService.snapshot()).
+ * Immutable, so it can be handed to the UI, an export or another thread as is.
+ */
+public record ReportSnapshot(LocalDateTime takenAt,
+                             Occupancy lot,
+                             List<FloorOccupancy> floors,
+                             Map<SpotType, Occupancy> spotTypes,
+                             Revenue revenue,
+                             List<VehicleRow> vehicles,
+                             UnpaidFines unpaidFines,
+                             int overstayCount,
+                             int violationCount) {
+
+    // Spots and how many of them are taken
+    public record Occupancy(int spots, int occupied) {
+        public double rate() {
+            return spots > 0 ? occupied * 100.0 / spots : 0.0;
+        }
+    }
+
+    public record FloorOccupancy(int floorNumber, Occupancy occupancy) {
+    }
+
+    // Everything paid so far
+    public record Revenue(int payments, double parkingFees, double finesCollected, double total,
+                          Map<PaymentMethod, Double> byMethod) {
+    }
+
+    // One parked vehicle, as it was when the snapshot was taken
+    public record VehicleRow(String licensePlate, VehicleType type, String spotId,
+                             LocalDateTime entryTime, boolean violation) {
+    }
+
+    // Fines not paid yet: how many, for how many plates, and the amount
+    public record UnpaidFines(int fines, int plates, double total) {
+    }
+}
@@ -0,0 +1,102 @@
+package parking.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SimulatedPaymentGateway - In-process stand-in for a card provider.
+ *
+ * Every batch takes the configured latency (plus up to 50% random jitter).
+ * Each charge is declined with probability declineRate, and a whole batch
+ * fails (throws, nothing charged) with probability outageRate. A key that was
+ * approved gets the same approval back and is not charged again; a declined
+ * key is tried again (the driver retries the same bill).
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private final Duration latency;
+    private final double declineRate;
+    private final double outageRate;
+
+    // Approval per idempotency key (declines are not kept), and the amount charged for each
+    private final ConcurrentHashMap<String, Authorization> approvals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Double> charged = new ConcurrentHashMap<>();
+    private final AtomicLong authCounter = new AtomicLong();
+    private final LongAdder batches = new LongAdder();
+
+    // No delay, never declines
+    public SimulatedPaymentGateway() {
+        this(Duration.ZERO, 0.0, 0.0);
+    }
+
+    public SimulatedPaymentGateway(Duration latency, double declineRate, double outageRate) {
+        this.latency = latency;
+        this.declineRate = declineRate;
+        this.outageRate = outageRate;
+    }
+
+    @Override
+    public List<Authorization> authorize(List<Request> batch) {
+        batches.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sleep(random);
+        if (random.nextDouble() < outageRate) {
+            throw new IllegalStateException("Payment gateway did not respond");
+        }
+
+        ArrayList<Authorization> results = new ArrayList<>(batch.size());
+        for (Request r : batch) {
+            Authorization approval = approvals.computeIfAbsent(r.idempotencyKey(), key -> {
+                if (r.amount() < 0 || random.nextDouble() < declineRate) {
+                    return null; // not stored: a retry asks again
+                }
+                charged.put(key, r.amount());
+                return new Authorization(key, true, "A" + authCounter.incrementAndGet(), null);
+            });
+            results.add(approval != null ? approval
+                    : new Authorization(r.idempotencyKey(), false, null, "Card declined"));
+        }
+        return results;
+    }
+
+    @Override
+    public void voidAuthorization(String idempotencyKey) {
+        charged.remove(idempotencyKey);
+    }
+
+    private void sleep(ThreadLocalRandom random) {
+        long nanos = latency.toNanos();
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(nanos + random.nextLong(nanos / 2 + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========== For tests and load tools ==========
+
+    // Number of charges currently authorized (voided ones excluded)
+    public int getChargeCount() {
+        return charged.size();
+    }
+
+    public double getTotalCharged() {
+        double total = 0;
+        for (double amount : charged.values()) {
+            total += amount;
+        }
+        return total;
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+}
@@ -2,25 +2,74 @@ package parking.service;
 
 import parking.model.*;
 import parking.data.DataCenter;
+import parking.data.LotPartition;
 import java.util.ArrayList;
+import parking.jfr.SpotSearchEvent;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.Metrics;
 
 public class SpotAllocation {
 
-    public ArrayList<ParkingSpot> findSuitableSpots(Vehicle vehicle) {
+    // The lot whose spots are searched
+    private final LotPartition lot;
+    private final LatencyHistogram findSuitableLatency;
+    private final LatencyHistogram findSpotLatency;
 
-        ArrayList<ParkingSpot> result = new ArrayList<>();
+    public SpotAllocation() {
+        this(DataCenter.getDefaultLot());
+    }
 
-        for (Floor floor : DataCenter.getFloors()) {
-            for (ParkingSpot spot : floor.getSpots()) {
+    public SpotAllocation(LotPartition lot) {
+        this.lot = lot;
+        this.findSuitableLatency = lot.latency(Metrics.FIND_SUITABLE_SPOTS);
+        this.findSpotLatency = lot.latency(Metrics.FIND_SPOT);
+    }
 
-                if (spot.getStatus() == SpotStatus.AVAILABLE
-                        && vehicle.canParkIn(spot.getType())) {
+    // All available spots the vehicle can park in, in lot order (floor, row, spot)
+    public ArrayList<ParkingSpot> findSuitableSpots(Vehicle vehicle) {
+        long t0 = System.nanoTime();
+        SpotSearchEvent event = new SpotSearchEvent();
+        event.begin();
+        ArrayList<ParkingSpot> spots = null;
+        try {
+            spots = lot.getAvailableSpotsForVehicle(vehicle);
+            return spots;
+        } finally {
+            findSuitableLatency.recordSince(t0);
+            event.end();
+            if (event.shouldCommit()) {
+                commit(event, vehicle, spots == null || spots.isEmpty() ? null : spots.get(0),
+                        spots == null ? 0 : spots.size());
+            }
+        }
+    }
 
-                    result.add(spot);
-                }
+    // The first suitable spot in lot order, or null if the lot is full for this vehicle
+    public ParkingSpot findSpot(Vehicle vehicle) {
+        long t0 = System.nanoTime();
+        SpotSearchEvent event = new SpotSearchEvent();
+        event.begin();
+        ParkingSpot spot = null;
+        try {
+            spot = lot.findAvailableSpot(vehicle);
+            return spot;
+        } finally {
+            findSpotLatency.recordSince(t0);
+            event.end();
+            if (event.shouldCommit()) {
+                event.firstFit = true;
+                commit(event, vehicle, spot, spot == null ? 0 : 1);
             }
         }
+    }
 
-        return result;
+    private static void commit(SpotSearchEvent event, Vehicle vehicle, ParkingSpot first, int found) {
+        event.plate = vehicle.getLicensePlate();
+        event.vehicleType = vehicle.getVehicleType().name();
+        event.spotsFound = found;
+        if (first != null) {
+            event.setSpot(first.getSpotId());
+        }
+        event.commit();
     }
 }
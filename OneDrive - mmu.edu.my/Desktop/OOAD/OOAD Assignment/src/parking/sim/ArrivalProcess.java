@@ -0,0 +1,83 @@
+package parking.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * ArrivalProcess - When the next vehicle arrives at the lot.
+ *
+ *   poisson:RATE           RATE arrivals per hour on average, all day
+ *   hourly:R0,R1,...,R23   a different rate (per hour) for each hour of the day,
+ *                          repeated every day (e.g. a morning and evening peak)
+ */
+@FunctionalInterface
+public interface ArrivalProcess {
+
+    // Time of the next arrival after the given one (seconds since the start of the simulation,
+    // which starts at midnight)
+    double next(double nowSeconds, SplittableRandom random);
+
+    static ArrivalProcess poisson(double perHour) {
+        if (perHour <= 0) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + perHour);
+        }
+        double meanGap = 3600.0 / perHour;
+        return (now, random) -> now + exponential(random) * meanGap;
+    }
+
+    // Poisson arrivals whose rate changes every hour. The gap is an exponential amount of
+    // "work" used up hour by hour at that hour's rate, so the peaks come out exactly.
+    static ArrivalProcess hourly(double[] perHour) {
+        if (perHour.length != 24) {
+            throw new IllegalArgumentException("Expected 24 hourly rates but got " + perHour.length);
+        }
+        double[] rates = perHour.clone();
+        double daily = 0;
+        for (double r : rates) {
+            if (r < 0) {
+                throw new IllegalArgumentException("Arrival rate must not be negative: " + r);
+            }
+            daily += r;
+        }
+        if (daily == 0) {
+            throw new IllegalArgumentException("At least one hour must have arrivals");
+        }
+        return (now, random) -> {
+            double work = exponential(random); // expected arrivals still to pass
+            double t = now;
+            while (true) {
+                long hour = (long) Math.floor(t / 3600);
+                double rate = rates[(int) (hour % 24)] / 3600;
+                double hourEnd = (hour + 1) * 3600.0;
+                if (rate > 0 && work <= rate * (hourEnd - t)) {
+                    return t + work / rate;
+                }
+                work -= rate * (hourEnd - t);
+                t = hourEnd;
+            }
+        };
+    }
+
+    static ArrivalProcess parse(String spec) {
+        String[] parts = spec.split(":", 2);
+        if (parts.length == 2) {
+            switch (parts[0]) {
+                case "poisson":
+                    return poisson(Double.parseDouble(parts[1]));
+                case "hourly":
+                    String[] values = parts[1].split(",");
+                    double[] rates = new double[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        rates[i] = Double.parseDouble(values[i].trim());
+                    }
+                    return hourly(rates);
+                default:
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Unknown arrival process: " + spec);
+    }
+
+    private static double exponential(SplittableRandom random) {
+        return -Math.log(1.0 - random.nextDouble());
+    }
+}
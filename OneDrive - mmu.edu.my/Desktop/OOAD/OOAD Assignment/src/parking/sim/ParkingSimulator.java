@@ -0,0 +1,274 @@
+package parking.sim;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import parking.clock.ManualClock;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.model.*;
+import parking.service.EntryService;
+import parking.service.ExitQuote;
+import parking.service.ExitService;
+import parking.service.FineAssessmentJob;
+import parking.service.SpotAllocation;
+
+/**
+ * ParkingSimulator - Runs days or weeks of traffic through the real entry and
+ * exit logic in a few seconds (discrete-event simulation).
+ *
+ * Nothing waits: the simulator keeps the next arrival and the departures of the
+ * parked vehicles in time order, moves a ManualClock straight to the next one
+ * and runs it through EntryService / SpotAllocation or ExitService like a gate
+ * would. A capacity or pricing change (another spot mix, the active fine scheme
+ * or tariff) can be tried offline and compared by its occupancy, denied
+ * entries, revenue and fines. The same seed gives the same run.
+ *
+ *     ParkingSimulator sim = new ParkingSimulator();
+ *     sim.setLot(50, 10, 20, null);                    // 10,000 spots, default mix
+ *     sim.setArrivals(ArrivalProcess.poisson(2500));   // per hour
+ *     sim.setStay(StayDistribution.parse("lognormal:150:0.9"));
+ *     SimulationReport report = sim.run(Duration.ofDays(7));
+ *
+ * A run replaces ALL DataCenter data (reset) and the system clock until it
+ * returns: for the headless tools, never the GUI.
+ */
+public class ParkingSimulator {
+
+    private static final long DAY = 86_400;
+
+    // ========== CONFIGURATION ==========
+    private int floors = 50;
+    private int rows = 10;
+    private int spotsPerRow = 20;
+    private SpotType[] rowPattern;  // null: the DataCenter's default mix
+    private ArrivalProcess arrivals = ArrivalProcess.poisson(2500);
+    private StayDistribution stay = StayDistribution.exponential(180);
+    private VehicleType[] mixTypes = {VehicleType.CAR, VehicleType.MOTORCYCLE, VehicleType.SUV, VehicleType.HANDICAPPED};
+    private int[] mixWeights = {60, 20, 15, 5};
+    private LocalDate startDay = LocalDate.of(2026, 2, 9); // a Monday
+    private long seed = 1;
+    private boolean nightlyFineAssessment = true;
+
+    // A departure waiting in the event queue
+    private record Departure(double time, Vehicle vehicle) {
+    }
+
+    public void setLot(int floors, int rows, int spotsPerRow, SpotType[] rowPattern) {
+        this.floors = floors;
+        this.rows = rows;
+        this.spotsPerRow = spotsPerRow;
+        this.rowPattern = rowPattern;
+    }
+
+    public void setArrivals(ArrivalProcess arrivals) {
+        this.arrivals = arrivals;
+    }
+
+    public void setStay(StayDistribution stay) {
+        this.stay = stay;
+    }
+
+    public void setVehicleMix(VehicleType[] types, int[] weights) {
+        if (types.length == 0 || types.length != weights.length) {
+            throw new IllegalArgumentException("Each vehicle type needs one weight");
+        }
+        int total = 0;
+        for (int w : weights) {
+            if (w < 0) {
+                throw new IllegalArgumentException("Vehicle weights must not be negative");
+            }
+            total += w;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one vehicle type needs a weight");
+        }
+        this.mixTypes = types.clone();
+        this.mixWeights = weights.clone();
+    }
+
+    public void setStartDay(LocalDate startDay) {
+        this.startDay = startDay;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Run the FineAssessmentJob at every simulated midnight, like Main does
+    public void setNightlyFineAssessment(boolean enabled) {
+        this.nightlyFineAssessment = enabled;
+    }
+
+    // ========== RUN ==========
+
+    public SimulationReport run(Duration length) {
+        LocalDateTime start = startDay.atStartOfDay();
+        ManualClock clock = new ManualClock(start);
+        ParkingClock previous = ParkingClock.get();
+        Duration previousOffset = ParkingClock.getOffset();
+        ParkingClock.resetOffset();
+        ParkingClock.set(clock);
+        try {
+            DataCenter.reset(floors, rows, spotsPerRow, rowPattern);
+            return new Run(clock, start, length.toNanos() / 1e9).simulate();
+        } finally {
+            ParkingClock.set(previous);
+            ParkingClock.skip(previousOffset);
+        }
+    }
+
+    // The state of one run
+    private class Run {
+        final ManualClock clock;
+        final LocalDateTime start;
+        final double end;  // seconds after start
+        final SplittableRandom random = new SplittableRandom(seed);
+        final EntryService entryService = new EntryService();
+        final SpotAllocation allocation = new SpotAllocation();
+        final ExitService exitService = new ExitService();
+        final FineAssessmentJob fineJob = new FineAssessmentJob();
+        final PriorityQueue<Departure> departures = new PriorityQueue<>((a, b) -> Double.compare(a.time, b.time));
+        final int spots = DataCenter.getTotalSpots();
+        final int totalWeight;
+
+        long plateCounter, arrivalCount, entries, denied, exits, finedExits, finesAssessed;
+        final EnumMap<VehicleType, Long> deniedByType = new EnumMap<>(VehicleType.class);
+        double revenue, fees, fines;
+        int occupied, peak;
+        double now, occupiedSeconds;  // occupiedSeconds: integral of occupied over time
+
+        // Per day, reset at every midnight
+        final List<SimulationReport.Day> days = new ArrayList<>();
+        long dayArrivals, dayDenied;
+        int dayPeak;
+        double dayStart, dayOccupiedSeconds, dayRevenue, dayFines;
+
+        Run(ManualClock clock, LocalDateTime start, double end) {
+            this.clock = clock;
+            this.start = start;
+            this.end = end;
+            int total = 0;
+            for (int w : mixWeights) {
+                total += w;
+            }
+            this.totalWeight = total;
+        }
+
+        SimulationReport simulate() {
+            long t0 = System.nanoTime();
+            double nextArrival = arrivals.next(0, random);
+            double nextMidnight = DAY;
+            while (true) {
+                double nextDeparture = departures.isEmpty() ? Double.POSITIVE_INFINITY : departures.peek().time;
+                double next = Math.min(Math.min(nextArrival, nextDeparture), nextMidnight);
+                if (next >= end) {
+                    break;
+                }
+                advanceTo(next);
+                // Departures first, so a spot freed at the same moment can be taken
+                if (next == nextDeparture) {
+                    depart(departures.poll().vehicle);
+                } else if (next == nextMidnight) {
+                    endDay();
+                    if (nightlyFineAssessment) {
+                        finesAssessed += fineJob.run(clock.getTime()).issued();
+                    }
+                    nextMidnight += DAY;
+                } else {
+                    arrive();
+                    nextArrival = arrivals.next(nextArrival, random);
+                }
+            }
+            advanceTo(end);
+            if (now > dayStart) {
+                endDay();
+            }
+
+            double unpaid = 0;
+            for (Fine f : DataCenter.getAllUnpaidFines()) {
+                unpaid += f.getAmount();
+            }
+            return new SimulationReport(start, clock.getTime(), spots, arrivalCount, entries, denied,
+                    Collections.unmodifiableMap(deniedByType), exits, occupied,
+                    end > 0 ? occupiedSeconds / end / spots : 0, peak,
+                    revenue, fees, fines, finedExits, finesAssessed, unpaid,
+                    Collections.unmodifiableList(days), System.nanoTime() - t0);
+        }
+
+        // Moves the clock, counting how long the lot had this many vehicles
+        void advanceTo(double time) {
+            occupiedSeconds += occupied * (time - now);
+            dayOccupiedSeconds += occupied * (time - now);
+            now = time;
+            clock.setTime(start.plusNanos((long) (time * 1e9)));
+        }
+
+        // Entry gate: create the vehicle, take the first suitable spot, issue the ticket
+        void arrive() {
+            arrivalCount++;
+            dayArrivals++;
+            VehicleType type = pickType();
+            Vehicle vehicle = entryService.createVehicle("SIM" + (++plateCounter), type);
+            ParkingSpot spot = allocation.findSpot(vehicle);
+            if (spot == null || entryService.parkVehicle(vehicle, spot.getSpotId()) == null) {
+                denied++;
+                dayDenied++;
+                deniedByType.merge(type, 1L, Long::sum);
+                return;
+            }
+            entries++;
+            occupied++;
+            peak = Math.max(peak, occupied);
+            dayPeak = Math.max(dayPeak, occupied);
+            departures.add(new Departure(now + stay.sampleSeconds(random), vehicle));
+        }
+
+        // Exit gate: quote the bill and pay it
+        void depart(Vehicle vehicle) {
+            ExitQuote quote = exitService.processExitCalculation(vehicle.getLicensePlate());
+            Payment payment = quote != null ? exitService.confirmPayment(quote.token(), PaymentMethod.CARD) : null;
+            if (payment == null) {
+                throw new IllegalStateException("Exit of " + vehicle.getLicensePlate() + " could not be paid");
+            }
+            exits++;
+            occupied--;
+            revenue += payment.getTotalAmount();
+            fees += payment.getParkingFee();
+            fines += payment.getFinesPaid();
+            dayRevenue += payment.getTotalAmount();
+            dayFines += payment.getFinesPaid();
+            if (payment.getFinesPaid() > 0) {
+                finedExits++;
+            }
+        }
+
+        void endDay() {
+            double length = now - dayStart;
+            days.add(new SimulationReport.Day(start.plusSeconds((long) dayStart).toLocalDate(),
+                    dayArrivals, dayDenied, length > 0 ? dayOccupiedSeconds / length / spots : 0, dayPeak,
+                    dayRevenue, dayFines));
+            dayStart = now;
+            dayArrivals = dayDenied = 0;
+            dayOccupiedSeconds = dayRevenue = dayFines = 0;
+            dayPeak = occupied;
+        }
+
+        VehicleType pickType() {
+            int r = random.nextInt(totalWeight);
+            for (int i = 0; i < mixTypes.length; i++) {
+                r -= mixWeights[i];
+                if (r < 0) {
+                    return mixTypes[i];
+                }
+            }
+            return mixTypes[mixTypes.length - 1];
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package parking.sim;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import parking.model.VehicleType;
+
+/**
+ * SimulationReport - What happened during one simulation run (see ParkingSimulator).
+ * Occupancy is time weighted: a lot that is full for one hour of a day had a
+ * day's average of 1/24 from that hour.
+ */
+public record SimulationReport(LocalDateTime start, LocalDateTime end, int spots,
+                               long arrivals, long entries, long denied, Map<VehicleType, Long> deniedByType,
+                               long exits, int stillParked,
+                               double averageOccupancy, int peakOccupied,
+                               double revenue, double parkingFees, double finesCollected, long finedExits,
+                               long finesAssessed, double unpaidFines,
+                               List<Day> days, long elapsedNanos) {
+
+    // One simulated day (arrivals on that day, payments made that day)
+    public record Day(LocalDate date, long arrivals, long denied, double averageOccupancy, int peakOccupied,
+                      double revenue, double finesCollected) {
+
+        public double denialRate() {
+            return arrivals == 0 ? 0 : (double) denied / arrivals;
+        }
+    }
+
+    // Share of arriving vehicles that found no spot they could use
+    public double denialRate() {
+        return arrivals == 0 ? 0 : (double) denied / arrivals;
+    }
+
+    // Simulated seconds per real second
+    public double speedUp() {
+        double simulated = Duration.between(start, end).toNanos();
+        return elapsedNanos == 0 ? 0 : simulated / elapsedNanos;
+    }
+}
@@ -0,0 +1,71 @@
+package parking.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * StayDistribution - How long an arriving vehicle stays (same syntax as the
+ * gate load generator, in minutes):
+ *
+ *   exp:MEAN                exponential with the given mean
+ *   uniform:MIN:MAX         anything between MIN and MAX
+ *   fixed:N                 always N
+ *   lognormal:MEDIAN:SIGMA  mostly short stays with a long tail (overnight, abandoned)
+ */
+@FunctionalInterface
+public interface StayDistribution {
+
+    // Stay length in seconds (at least one minute)
+    long sampleSeconds(SplittableRandom random);
+
+    static StayDistribution exponential(double meanMinutes) {
+        return random -> seconds(-Math.log(1.0 - random.nextDouble()) * meanMinutes);
+    }
+
+    static StayDistribution uniform(double minMinutes, double maxMinutes) {
+        if (maxMinutes < minMinutes) {
+            throw new IllegalArgumentException("Stay maximum is below the minimum");
+        }
+        return random -> seconds(minMinutes + random.nextDouble() * (maxMinutes - minMinutes));
+    }
+
+    static StayDistribution fixed(double minutes) {
+        long s = seconds(minutes);
+        return random -> s;
+    }
+
+    static StayDistribution lognormal(double medianMinutes, double sigma) {
+        double mu = Math.log(medianMinutes);
+        return random -> seconds(Math.exp(mu + sigma * gaussian(random)));
+    }
+
+    static StayDistribution parse(String spec) {
+        String[] p = spec.split(":");
+        try {
+            switch (p[0]) {
+                case "exp":
+                    return exponential(Double.parseDouble(p[1]));
+                case "uniform":
+                    return uniform(Double.parseDouble(p[1]), Double.parseDouble(p[2]));
+                case "fixed":
+                    return fixed(Double.parseDouble(p[1]));
+                case "lognormal":
+                    return lognormal(Double.parseDouble(p[1]), Double.parseDouble(p[2]));
+                default:
+                    break;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Missing value in stay distribution: " + spec);
+        }
+        throw new IllegalArgumentException("Unknown stay distribution: " + spec);
+    }
+
+    private static long seconds(double minutes) {
+        return Math.max(60, Math.round(minutes * 60));
+    }
+
+    // Standard normal (Box-Muller)
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
@@ -1,5 +1,8 @@
 package parking.strategy;
 
+import parking.model.SpotType;
+import parking.model.Vehicle;
+
 // Strategy Pattern interface for fine calculation
 // The admin can switch between different fine schemes at runtime
 public interface FineStrategy {
@@ -9,4 +12,28 @@ public interface FineStrategy {
 
     // Returns the name of this fine scheme (e.g. "Fixed", "Progressive", "Hourly")
     String getSchemeName();
+
+    // Fine for one exiting vehicle. Schemes that look at the vehicle (type, VIP,
+    // violation) or the spot override this; the built-in schemes only use the hours.
+    default double calculateFine(long overstayHours, Vehicle vehicle, SpotType spotType) {
+        return calculateFine(overstayHours);
+    }
+
+    // Batch version for bulk jobs: out[i] = calculateFine(overstayHours[i]) for the first count entries.
+    // Uses the compiled table when the scheme has one.
+    default void calculateFines(long[] overstayHours, double[] out, int count) {
+        FineTable table = compile();
+        if (table != null) {
+            table.calculateFines(overstayHours, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = calculateFine(overstayHours[i]);
+        }
+    }
+
+    // The same scheme as a lookup table plus closed-form tail, or null if it cannot be expressed that way
+    default FineTable compile() {
+        return null;
+    }
 }
@@ -0,0 +1,65 @@
+package parking.strategy;
+
+// A fine scheme compiled into a lookup table for the first hours plus a
+// straight-line tail for everything after: fine(h) = tailBase + tailSlope * (h - size).
+// Used for bulk evaluation (nightly assessment, what-if previews) where the
+// same scheme is applied to thousands of vehicles in one tight loop.
+public class FineTable {
+    private final double[] table;  // fine for 0 .. size-1 hours
+    private final double tailBase; // fine at exactly size hours
+    private final double tailSlope; // extra fine per hour after that
+
+    public FineTable(double[] table, double tailBase, double tailSlope) {
+        if (table.length == 0) {
+            throw new IllegalArgumentException("Fine table needs at least one entry");
+        }
+        this.table = table.clone();
+        this.tailBase = tailBase;
+        this.tailSlope = tailSlope;
+    }
+
+    // Fills the table by asking the strategy for hours 0 .. size-1
+    public static FineTable build(FineStrategy strategy, int size, double tailBase, double tailSlope) {
+        double[] table = new double[size];
+        for (int h = 0; h < size; h++) {
+            table[h] = strategy.calculateFine(h);
+        }
+        return new FineTable(table, tailBase, tailSlope);
+    }
+
+    public double fine(long hours) {
+        int size = table.length;
+        if (hours < size) {
+            return table[(int) Math.max(hours, 0)];
+        }
+        return tailBase + tailSlope * (hours - size);
+    }
+
+    // out[i] = fine(hours[i]) for the first count entries
+    public void calculateFines(long[] hours, double[] out, int count) {
+        double[] t = table;
+        int size = t.length;
+        double base = tailBase;
+        double slope = tailSlope;
+        for (int i = 0; i < count; i++) {
+            long h = hours[i];
+            out[i] = h < size ? t[(int) Math.max(h, 0)] : base + slope * (h - size);
+        }
+    }
+
+    // Sum of fine(hours[i]) for the first count entries
+    public double totalFines(long[] hours, int count) {
+        double[] t = table;
+        int size = t.length;
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            long h = hours[i];
+            total += h < size ? t[(int) Math.max(h, 0)] : tailBase + tailSlope * (h - size);
+        }
+        return total;
+    }
+
+    public int getTableSize() {
+        return table.length;
+    }
+}
@@ -2,6 +2,9 @@ package parking.strategy;
 
 public class FixedFineStrategy implements FineStrategy {
 
+    // 0 up to 24 hours, then a flat 50
+    private static final FineTable TABLE = FineTable.build(new FixedFineStrategy(), 25, 50.0, 0.0);
+
     @Override
     public double calculateFine(long hours) {
         //hours > 24，pay 50；if no pay 0
@@ -12,6 +15,11 @@ public class FixedFineStrategy implements FineStrategy {
         }
     }
 
+    @Override
+    public FineTable compile() {
+        return TABLE;
+    }
+
     @Override
     public String getSchemeName() {
         return "Fixed RM 50 Scheme"; 
@@ -4,6 +4,9 @@ package parking.strategy;
  
 public class HourlyFineStrategy implements FineStrategy {
 
+    // 0 up to 24 hours, then 20 at 25 hours plus 20 for every hour after
+    private static final FineTable TABLE = FineTable.build(new HourlyFineStrategy(), 25, 20.0, 20.0);
+
     @Override
     public double calculateFine(long overstayHours) {
         // charge if the total hours exceed 24
@@ -15,6 +18,11 @@ public class HourlyFineStrategy implements FineStrategy {
         }
     }
 
+    @Override
+    public FineTable compile() {
+        return TABLE;
+    }
+
     @Override
     public String getSchemeName() {
         return "Hourly Fine (RM 20/hr after 24h)";
@@ -4,6 +4,9 @@ package parking.strategy;
 
 public class ProgressiveFineStrategy implements FineStrategy {
 
+    // Tiers up to 72 hours, then a flat 200
+    private static final FineTable TABLE = FineTable.build(new ProgressiveFineStrategy(), 73, 200.0, 0.0);
+
     @Override
     public double calculateFine(long hours) {
         // check the tiers from longest to shortest for easier logic
@@ -19,6 +22,11 @@ public class ProgressiveFineStrategy implements FineStrategy {
         }
     }
 
+    @Override
+    public FineTable compile() {
+        return TABLE;
+    }
+
     @Override
     public String getSchemeName() {
         return "Progressive Fine (RM 50-200)";
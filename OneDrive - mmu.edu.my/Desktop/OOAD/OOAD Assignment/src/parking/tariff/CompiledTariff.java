@@ -0,0 +1,244 @@
+package parking.tariff;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import parking.model.SpotType;
+
+/**
+ * CompiledTariff - A TariffDefinition turned into lookup tables.
+ *
+ * For every spot type and day type the day is split into bands with a constant
+ * rate, and the charge from midnight to the start of each band is precomputed
+ * (prefix sums). Whole days in the middle of a stay come from a weekly prefix
+ * table plus a per-holiday correction table. The fee for any stay therefore
+ * costs a few binary searches, no matter how many days the vehicle stayed.
+ *
+ * Immutable and safe to share between threads.
+ */
+public class CompiledTariff {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    // Epoch day -3 (1969-12-29) is a Monday; whole weeks are counted from there
+    private static final long MONDAY_EPOCH_DAY = -3;
+
+    private final String name;
+    private final int graceMinutes;
+
+    // Indexed [spotType.ordinal()][dayType.ordinal()][band]
+    private final int[][][] bandStart;        // minute of day where each band starts (first is 0)
+    private final double[][][] ratePerMinute; // rate inside each band
+    private final double[][][] prefix;        // charge from midnight to the start of each band
+    private final double[][] dayCharge;       // uncapped charge for a whole day
+
+    private final double[] dailyCap;          // by spot type, infinity if no cap
+
+    // Whole-day charges (after the cap) for the days of a week starting Monday: [spotType][0..7]
+    private final double[][] weekPrefix;
+
+    // Sorted holidays as epoch days, and per spot type the running sum of
+    // (holiday day charge - normal day charge) over them: [spotType][0..holidays]
+    private final long[] holidays;
+    private final double[][] holidayAdjustPrefix;
+
+    CompiledTariff(TariffDefinition def) {
+        int types = SpotType.values().length;
+        int dayTypes = DayType.values().length;
+
+        this.name = def.getName();
+        this.graceMinutes = def.getGraceMinutes();
+        this.bandStart = new int[types][dayTypes][];
+        this.ratePerMinute = new double[types][dayTypes][];
+        this.prefix = new double[types][dayTypes][];
+        this.dayCharge = new double[types][dayTypes];
+        this.dailyCap = new double[types];
+
+        for (SpotType type : SpotType.values()) {
+            int t = type.ordinal();
+            dailyCap[t] = def.getDailyCap(type);
+            for (DayType dayType : DayType.values()) {
+                compileDay(def, type, dayType);
+            }
+        }
+
+        // Weekly table: Monday..Friday are weekdays, Saturday and Sunday weekend
+        this.weekPrefix = new double[types][8];
+        for (int t = 0; t < types; t++) {
+            for (int i = 0; i < 7; i++) {
+                DayType dayType = i < 5 ? DayType.WEEKDAY : DayType.WEEKEND;
+                weekPrefix[t][i + 1] = weekPrefix[t][i] + cappedDay(t, dayType);
+            }
+        }
+
+        // Holiday correction table
+        this.holidays = new long[def.getHolidays().size()];
+        int h = 0;
+        for (LocalDate date : def.getHolidays()) {
+            holidays[h++] = date.toEpochDay();
+        }
+        this.holidayAdjustPrefix = new double[types][holidays.length + 1];
+        for (int t = 0; t < types; t++) {
+            for (int i = 0; i < holidays.length; i++) {
+                double normal = cappedDay(t, weekDayType(holidays[i]));
+                holidayAdjustPrefix[t][i + 1] = holidayAdjustPrefix[t][i] + cappedDay(t, DayType.HOLIDAY) - normal;
+            }
+        }
+    }
+
+    // Flattens base rate + bands into a minute-by-minute rate, then merges equal neighbours into bands
+    private void compileDay(TariffDefinition def, SpotType type, DayType dayType) {
+        double[] minuteRate = new double[MINUTES_PER_DAY];
+        Arrays.fill(minuteRate, def.getBaseRate(type) / 60.0);
+
+        // Holidays start from the weekend bands, then apply their own
+        if (dayType == DayType.HOLIDAY) {
+            applyBands(def, type, DayType.WEEKEND, minuteRate);
+        }
+        applyBands(def, type, dayType, minuteRate);
+
+        int count = 1;
+        for (int m = 1; m < MINUTES_PER_DAY; m++) {
+            if (minuteRate[m] != minuteRate[m - 1]) {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        double[] rates = new double[count];
+        double[] sums = new double[count];
+        int b = 0;
+        rates[0] = minuteRate[0];
+        for (int m = 1; m < MINUTES_PER_DAY; m++) {
+            if (minuteRate[m] != minuteRate[m - 1]) {
+                b++;
+                starts[b] = m;
+                rates[b] = minuteRate[m];
+                sums[b] = sums[b - 1] + (starts[b] - starts[b - 1]) * rates[b - 1];
+            }
+        }
+
+        int t = type.ordinal();
+        int d = dayType.ordinal();
+        bandStart[t][d] = starts;
+        ratePerMinute[t][d] = rates;
+        prefix[t][d] = sums;
+        dayCharge[t][d] = sums[count - 1] + (MINUTES_PER_DAY - starts[count - 1]) * rates[count - 1];
+    }
+
+    private static void applyBands(TariffDefinition def, SpotType type, DayType dayType, double[] minuteRate) {
+        for (TariffDefinition.Band band : def.getBands()) {
+            if (band.spotType == type && band.dayType == dayType) {
+                Arrays.fill(minuteRate, band.fromMinute, band.toMinute, band.ratePerHour / 60.0);
+            }
+        }
+    }
+
+    // ========== FEE CALCULATION ==========
+
+    /**
+     * Parking fee for a stay, billed per started hour like before:
+     * the stay is rounded up to whole hours (at least 1) from the entry time,
+     * and that window is priced with the bands and daily caps.
+     * If a grace period is set, stays within it cost nothing. An exit before
+     * the entry (clock moved back) counts as a stay of 0 minutes.
+     */
+    public double fee(SpotType type, LocalDateTime entry, LocalDateTime exit) {
+        long minutes = Math.max(0, Duration.between(entry, exit).toMinutes());
+        if (graceMinutes > 0 && minutes <= graceMinutes) {
+            return 0.0;
+        }
+        long hours = Math.max(1, (minutes + 59) / 60);
+        return charge(type, entry, entry.plusHours(hours));
+    }
+
+    /**
+     * Exact charge for the time between from and to (minute precision), rounded to cents.
+     */
+    public double charge(SpotType type, LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            return 0.0;
+        }
+        int t = type.ordinal();
+        long day1 = from.toLocalDate().toEpochDay();
+        long day2 = to.toLocalDate().toEpochDay();
+        int minute1 = from.getHour() * 60 + from.getMinute();
+        int minute2 = to.getHour() * 60 + to.getMinute();
+
+        double total;
+        if (day1 == day2) {
+            int d = dayType(day1).ordinal();
+            total = Math.min(dailyCap[t], cumulative(t, d, minute2) - cumulative(t, d, minute1));
+        } else {
+            int first = dayType(day1).ordinal();
+            int last = dayType(day2).ordinal();
+            total = Math.min(dailyCap[t], dayCharge[t][first] - cumulative(t, first, minute1))
+                  + wholeDays(t, day1 + 1, day2)
+                  + Math.min(dailyCap[t], cumulative(t, last, minute2));
+        }
+        return Math.round(total * 100.0) / 100.0;
+    }
+
+    // Charge from midnight up to the given minute: one binary search over the bands
+    private double cumulative(int t, int d, int minute) {
+        int[] starts = bandStart[t][d];
+        int i = Arrays.binarySearch(starts, minute);
+        if (i < 0) {
+            i = -i - 2; // band that contains the minute
+        }
+        return prefix[t][d][i] + (minute - starts[i]) * ratePerMinute[t][d][i];
+    }
+
+    // Sum of capped whole-day charges for epoch days [fromDay, toDay)
+    private double wholeDays(int t, long fromDay, long toDay) {
+        if (toDay <= fromDay) {
+            return 0.0;
+        }
+        return weeksUpTo(t, toDay) - weeksUpTo(t, fromDay)
+             + holidayAdjustPrefix[t][holidayIndex(toDay)] - holidayAdjustPrefix[t][holidayIndex(fromDay)];
+    }
+
+    // Capped whole-day charges from the reference Monday up to (not including) the given day, ignoring holidays
+    private double weeksUpTo(int t, long epochDay) {
+        long days = epochDay - MONDAY_EPOCH_DAY;
+        long weeks = Math.floorDiv(days, 7);
+        int rest = Math.floorMod(days, 7);
+        return weeks * weekPrefix[t][7] + weekPrefix[t][rest];
+    }
+
+    // Number of holidays before the given day
+    private int holidayIndex(long epochDay) {
+        int i = Arrays.binarySearch(holidays, epochDay);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private double cappedDay(int t, DayType dayType) {
+        return Math.min(dailyCap[t], dayCharge[t][dayType.ordinal()]);
+    }
+
+    // ========== DAY TYPES ==========
+    public DayType dayType(LocalDate date) {
+        return dayType(date.toEpochDay());
+    }
+
+    private DayType dayType(long epochDay) {
+        if (Arrays.binarySearch(holidays, epochDay) >= 0) {
+            return DayType.HOLIDAY;
+        }
+        return weekDayType(epochDay);
+    }
+
+    private static DayType weekDayType(long epochDay) {
+        DayOfWeek dow = LocalDate.ofEpochDay(epochDay).getDayOfWeek();
+        return (dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY) ? DayType.WEEKEND : DayType.WEEKDAY;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getGraceMinutes() {
+        return graceMinutes;
+    }
+}
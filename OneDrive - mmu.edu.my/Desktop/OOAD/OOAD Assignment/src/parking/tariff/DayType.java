@@ -0,0 +1,8 @@
+package parking.tariff;
+
+// Kind of day a tariff band applies to. Holidays take priority over weekends.
+public enum DayType {
+    WEEKDAY,
+    WEEKEND,
+    HOLIDAY
+}
@@ -0,0 +1,135 @@
+package parking.tariff;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.TreeSet;
+import parking.model.SpotType;
+
+/**
+ * TariffDefinition - Describes how parking is priced, before it is compiled.
+ *
+ * Every spot type has a base hourly rate. Time bands override the rate for part
+ * of the day on a given kind of day (e.g. weekday peak 08:00-18:00). A daily cap
+ * limits what is charged per calendar day, and stays up to the grace period are free.
+ *
+ * Example:
+ *   CompiledTariff t = TariffDefinition.standard()
+ *       .band(SpotType.REGULAR, DayType.WEEKDAY, 8, 18, 7.0)   // peak
+ *       .band(SpotType.REGULAR, DayType.WEEKEND, 0, 24, 3.0)   // weekend
+ *       .dailyCap(SpotType.REGULAR, 40.0)
+ *       .graceMinutes(10)
+ *       .holiday(LocalDate.of(2026, 8, 31))
+ *       .compile();
+ */
+public class TariffDefinition {
+
+    // One rate override: [fromMinute, toMinute) of the day, for one spot type and day type
+    static class Band {
+        final SpotType spotType;
+        final DayType dayType;
+        final int fromMinute;
+        final int toMinute;
+        final double ratePerHour;
+
+        Band(SpotType spotType, DayType dayType, int fromMinute, int toMinute, double ratePerHour) {
+            this.spotType = spotType;
+            this.dayType = dayType;
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+            this.ratePerHour = ratePerHour;
+        }
+    }
+
+    private String name;
+    private final EnumMap<SpotType, Double> baseRates = new EnumMap<>(SpotType.class);
+    private final EnumMap<SpotType, Double> dailyCaps = new EnumMap<>(SpotType.class);
+    private final ArrayList<Band> bands = new ArrayList<>();
+    private final TreeSet<LocalDate> holidays = new TreeSet<>();
+    private int graceMinutes = 0;
+
+    public TariffDefinition(String name) {
+        this.name = name;
+    }
+
+    // The original pricing: flat SpotType.getHourlyRate() all day, no caps, no grace period
+    public static TariffDefinition standard() {
+        TariffDefinition def = new TariffDefinition("Standard Hourly");
+        for (SpotType type : SpotType.values()) {
+            def.baseRate(type, type.getHourlyRate());
+        }
+        return def;
+    }
+
+    // Rate used whenever no band applies
+    public TariffDefinition baseRate(SpotType type, double ratePerHour) {
+        baseRates.put(type, ratePerHour);
+        return this;
+    }
+
+    // Rate for [fromHour, toHour) on the given kind of day (hours 0-24)
+    public TariffDefinition band(SpotType type, DayType dayType, int fromHour, int toHour, double ratePerHour) {
+        return bandMinutes(type, dayType, fromHour * 60, toHour * 60, ratePerHour);
+    }
+
+    // Same as band() but with minute precision (minutes of the day 0-1440)
+    public TariffDefinition bandMinutes(SpotType type, DayType dayType, int fromMinute, int toMinute, double ratePerHour) {
+        if (fromMinute < 0 || toMinute > CompiledTariff.MINUTES_PER_DAY || fromMinute >= toMinute) {
+            throw new IllegalArgumentException("Invalid band " + fromMinute + "-" + toMinute + " minutes");
+        }
+        bands.add(new Band(type, dayType, fromMinute, toMinute, ratePerHour));
+        return this;
+    }
+
+    // Maximum charged for one calendar day
+    public TariffDefinition dailyCap(SpotType type, double cap) {
+        dailyCaps.put(type, cap);
+        return this;
+    }
+
+    // Stays of this many minutes or less are free
+    public TariffDefinition graceMinutes(int minutes) {
+        this.graceMinutes = minutes;
+        return this;
+    }
+
+    public TariffDefinition holiday(LocalDate date) {
+        holidays.add(date);
+        return this;
+    }
+
+    public TariffDefinition name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    // Builds the lookup tables. Call once and reuse the result for every exit.
+    public CompiledTariff compile() {
+        return new CompiledTariff(this);
+    }
+
+    // ========== Package-private accessors for CompiledTariff ==========
+    String getName() {
+        return name;
+    }
+
+    double getBaseRate(SpotType type) {
+        return baseRates.getOrDefault(type, type.getHourlyRate());
+    }
+
+    double getDailyCap(SpotType type) {
+        return dailyCaps.getOrDefault(type, Double.POSITIVE_INFINITY);
+    }
+
+    ArrayList<Band> getBands() {
+        return bands;
+    }
+
+    TreeSet<LocalDate> getHolidays() {
+        return holidays;
+    }
+
+    int getGraceMinutes() {
+        return graceMinutes;
+    }
+}
@@ -0,0 +1,112 @@
+package parking.tools;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.model.*;
+import parking.service.ExitQuote;
+import parking.service.ExitService;
+
+/**
+ * ExitQuoteBenchmark - Measures exit quote throughput with 1, 2, 4, ... threads
+ * all sharing ONE ExitService, and prints the speed-up over a single thread.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.ExitQuoteBenchmark vehicles=5000 seconds=3 maxThreads=16
+ */
+public class ExitQuoteBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int vehicles = 5000;
+        int seconds = 3;
+        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "vehicles": vehicles = Integer.parseInt(kv[1]); break;
+                case "seconds": seconds = Integer.parseInt(kv[1]); break;
+                case "maxThreads": maxThreads = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+
+        String[] plates = seedVehicles(vehicles);
+        ExitService exitService = new ExitService();
+
+        System.out.println("Exit quote benchmark: " + plates.length + " parked vehicles, "
+                + Runtime.getRuntime().availableProcessors() + " cores, " + seconds + "s per run");
+
+        // Warm-up so the JIT has compiled the quote path before measuring
+        runQuotes(exitService, plates, 1, 1);
+
+        double singleThread = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double perSecond = runQuotes(exitService, plates, threads, seconds);
+            if (threads == 1) {
+                singleThread = perSecond;
+            }
+            System.out.printf("threads=%-3d %,12.0f quotes/s   speed-up x%.2f%n",
+                    threads, perSecond, perSecond / singleThread);
+        }
+    }
+
+    // Fills a large lot with vehicles that entered at different times during the last 3 days
+    private static String[] seedVehicles(int count) {
+        DataCenter.setLogging(false);
+        int spotsPerRow = 20;
+        int rows = 10;
+        int floors = Math.max(1, (count * 2) / (rows * spotsPerRow) + 1);
+        DataCenter.reset(floors, rows, spotsPerRow);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ArrayList<String> plates = new ArrayList<>();
+        ArrayList<Vehicle> candidates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Vehicle v = (i % 3 == 0) ? new Motorcycle("BQ" + i) : new Car("BQ" + i);
+            v.setEntryTime(ParkingClock.now().minusMinutes(random.nextInt(3 * 24 * 60)));
+            candidates.add(v);
+        }
+        for (Vehicle v : candidates) {
+            ArrayList<ParkingSpot> spots = DataCenter.getAvailableSpotsByType(
+                    v instanceof Motorcycle ? SpotType.COMPACT : SpotType.REGULAR);
+            if (!spots.isEmpty() && DataCenter.parkVehicle(v, spots.get(0))) {
+                plates.add(v.getLicensePlate());
+            }
+        }
+        return plates.toArray(new String[0]);
+    }
+
+    // Runs the given number of platform threads for a fixed time and returns quotes per second
+    private static double runQuotes(ExitService exitService, String[] plates, int threads, int seconds)
+            throws InterruptedException {
+        LongAdder quotes = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long start = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long local = 0;
+                double checksum = 0;
+                while ((local & 255) != 0 || System.nanoTime() < deadline) {
+                    ExitQuote quote = exitService.processExitCalculation(plates[random.nextInt(plates.length)]);
+                    checksum += quote.total();
+                    exitService.cancelQuote(quote.token()); // lanes drop quotes they do not confirm
+                    local++;
+                }
+                quotes.add(local);
+                if (checksum < 0) {
+                    System.out.println("impossible"); // keeps the result alive for the JIT
+                }
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        return quotes.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,149 @@
+package parking.tools;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Random;
+import parking.data.DataCenter;
+import parking.export.LedgerExporter;
+import parking.model.*;
+
+/**
+ * ExportBenchmark - Records a large payment history, exports it with LedgerExporter
+ * (CSV and binary) and prints the speed of each file, the memory each export
+ * allocated, and whether every CSV file has one line per record.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -Xmx3g -cp out parking.tools.ExportBenchmark payments=10000000 tickets=1000000 fines=1000000 dir=export-test keep=false
+ */
+public class ExportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int payments = 1_000_000;
+        int tickets = -1;
+        int fines = -1;
+        Path dir = null;
+        boolean keep = false;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "payments": payments = Integer.parseInt(kv[1]); break;
+                case "tickets": tickets = Integer.parseInt(kv[1]); break;
+                case "fines": fines = Integer.parseInt(kv[1]); break;
+                case "dir": dir = Paths.get(kv[1]); break;
+                case "keep": keep = Boolean.parseBoolean(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        if (tickets < 0) {
+            tickets = payments / 10;
+        }
+        if (fines < 0) {
+            fines = payments / 10;
+        }
+        if (dir == null) {
+            dir = Files.createTempDirectory("parking-export");
+        }
+
+        long seedStart = System.nanoTime();
+        seedHistory(payments, tickets, fines);
+        System.out.printf("Export benchmark: %d payments, %d tickets, %d fines (%.1f s to record) -> %s%n",
+                payments, tickets, fines, (System.nanoTime() - seedStart) / 1e9, dir.toAbsolutePath());
+
+        LedgerExporter exporter = new LedgerExporter();
+        exporter.exportAll(dir); // warm-up
+
+        boolean ok = true;
+        for (int round = 0; round < 2; round++) {
+            long allocated = allocatedBytes();
+            LedgerExporter.Result r = exporter.exportPaymentsCsv(dir.resolve("payments.csv"), null);
+            allocated = allocatedBytes() - allocated;
+            System.out.printf("%s, %.1f KB allocated%n", r, allocated / 1e3);
+            ok &= checkLines(r, payments);
+        }
+        LedgerExporter.Result t = exporter.exportTicketsCsv(dir.resolve("tickets.csv"), null);
+        System.out.println(t);
+        ok &= checkLines(t, tickets);
+        LedgerExporter.Result f = exporter.exportFinesCsv(dir.resolve("fines.csv"), null);
+        System.out.println(f);
+        ok &= checkLines(f, fines);
+        long allocated = allocatedBytes();
+        LedgerExporter.Result b = exporter.exportBinary(dir.resolve("ledger.bin"));
+        allocated = allocatedBytes() - allocated;
+        System.out.printf("%s, %.1f KB allocated%n", b, allocated / 1e3);
+        ok &= b.records() == (long) payments + tickets + fines;
+
+        if (!keep) {
+            for (String name : new String[]{"payments.csv", "tickets.csv", "fines.csv", "ledger.bin"}) {
+                Files.deleteIfExists(dir.resolve(name));
+            }
+        }
+        System.out.println(ok ? "OK: every record exported" : "FAILED: record counts do not match");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    // Records the history straight into the DataCenter (no gates, no listeners)
+    private static void seedHistory(int payments, int tickets, int fines) {
+        DataCenter.setLogging(false);
+        Random random = new Random(42);
+        String[] plates = new String[50_000];
+        for (int i = 0; i < plates.length; i++) {
+            plates[i] = String.format("B%04d%c%c", i % 10_000, (char) ('A' + i / 10_000), (char) ('A' + random.nextInt(26)));
+        }
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        String[] ticketIds = new String[plates.length];
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = new Ticket(plates[i % plates.length], "F1-R1-S" + (i % 50), base.plusMinutes(i));
+            DataCenter.addTicket(ticket);
+            ticketIds[i % plates.length] = ticket.getTicketId();
+        }
+        for (int i = 0; i < payments; i++) {
+            int k = random.nextInt(plates.length);
+            LocalDateTime entry = base.plusMinutes(i % 500_000);
+            long hours = 1 + random.nextInt(30);
+            double fee = hours * 3.0;
+            double finesPaid = hours > 24 ? 50.0 : 0.0;
+            DataCenter.addPayment(new Payment(plates[k], ticketIds[k], entry, entry.plusHours(hours), hours,
+                    fee, finesPaid, fee + finesPaid, (i & 1) == 0 ? PaymentMethod.CARD : PaymentMethod.CASH));
+        }
+        for (int i = 0; i < fines; i++) {
+            DataCenter.addFine(new Fine(plates[i % plates.length], 50.0 + i % 4 * 25,
+                    i % 3 == 0 ? "Overstay, \"long stay\"" : "Overstay", ticketIds[i % plates.length]));
+        }
+    }
+
+    // The CSV file must have the header plus one line per record
+    private static boolean checkLines(LedgerExporter.Result r, long expected) throws IOException {
+        long lines = 0;
+        ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel ch = FileChannel.open(r.file(), StandardOpenOption.READ)) {
+            while (ch.read(buf) > 0) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    if (buf.get() == '\n') {
+                        lines++;
+                    }
+                }
+                buf.clear();
+            }
+        }
+        if (lines != expected + 1 || r.records() != expected) {
+            System.out.printf("  %s: expected %d records, file has %d lines%n", r.file().getFileName(), expected, lines);
+            return false;
+        }
+        return true;
+    }
+
+    // Bytes this thread has allocated so far (HotSpot)
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,87 @@
+package parking.tools;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.model.*;
+import parking.service.FineAssessmentJob;
+import parking.strategy.*;
+
+/**
+ * FineAssessmentBenchmark - Fills a large lot with parked sessions (entered up to
+ * 4 days ago) and times the nightly FineAssessmentJob: a first run that issues the
+ * fines, a second run that must change nothing, and a run after a scheme change.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.FineAssessmentBenchmark sessions=100000 floors=100 threads=8
+ */
+public class FineAssessmentBenchmark {
+
+    public static void main(String[] args) {
+        int sessions = 100_000;
+        int floors = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "sessions": sessions = Integer.parseInt(kv[1]); break;
+                case "floors": floors = Integer.parseInt(kv[1]); break;
+                case "threads": threads = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+
+        int parked = seedSessions(sessions, floors);
+        System.out.println("Fine assessment benchmark: " + parked + " parked sessions on " + floors
+                + " floors, " + threads + " worker threads, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        FineAssessmentJob job = new FineAssessmentJob(pool);
+        LocalDateTime asOf = ParkingClock.now();
+
+        DataCenter.setActiveFineStrategy(new ProgressiveFineStrategy());
+        System.out.println("first run (Progressive):   " + job.run(asOf));
+        System.out.println("second run (no changes):   " + job.run(asOf));
+        DataCenter.setActiveFineStrategy(new HourlyFineStrategy());
+        System.out.println("after switching to Hourly: " + job.run(asOf));
+
+        // Steady state: what a nightly run costs once the fines exist
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            best = Math.min(best, job.run(asOf).elapsedNanos());
+        }
+        System.out.printf("best of 10 repeat runs:    %.1f ms%n", best / 1e6);
+        System.out.println("fines in DataCenter:       " + DataCenter.getFines().size());
+        pool.shutdown();
+    }
+
+    // Parks one vehicle (with a ticket) in each spot until the requested number of sessions
+    private static int seedSessions(int sessions, int floors) {
+        DataCenter.setLogging(false);
+        int rows = 10;
+        int spotsPerRow = Math.max(5, (sessions + floors * rows - 1) / (floors * rows));
+        DataCenter.reset(floors, rows, spotsPerRow);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int parked = 0;
+        for (Floor floor : DataCenter.getFloors()) {
+            for (ParkingSpot spot : floor.getSpots()) {
+                if (parked == sessions) {
+                    return parked;
+                }
+                String plate = "FA" + parked;
+                Vehicle v = spot.getType() == SpotType.REGULAR || spot.getType() == SpotType.COMPACT
+                        ? new Car(plate) : new HandicappedVehicle(plate);
+                v.setEntryTime(ParkingClock.now().minusMinutes(random.nextInt(4 * 24 * 60)));
+                if (DataCenter.parkVehicle(v, spot)) {
+                    DataCenter.addTicket(new Ticket(plate, spot.getSpotId(), v.getEntryTime()));
+                    parked++;
+                }
+            }
+        }
+        return parked;
+    }
+}
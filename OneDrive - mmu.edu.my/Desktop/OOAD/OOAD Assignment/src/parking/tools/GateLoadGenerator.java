@@ -0,0 +1,359 @@
+package parking.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import parking.data.DataCenter;
+import parking.model.*;
+import parking.service.EntryService;
+import parking.service.ExitQuote;
+import parking.service.ExitService;
+
+/**
+ * GateLoadGenerator - Headless load test for the entry and exit logic.
+ * Runs thousands of gates as virtual threads against EntryService and
+ * ExitService (no Swing involved) and reports throughput, latency
+ * percentiles and any consistency problems found in the DataCenter.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.GateLoadGenerator gates=2000 rate=2000 duration=20
+ *        mix=CAR:60,MOTORCYCLE:20,SUV:15,HANDICAPPED:5 stay=exp:120
+ *        msPerSimMinute=1 floors=50 rows=10 spots=20
+ *
+ *   gates          number of concurrent entry gates (virtual threads)
+ *   rate           total vehicle arrivals per second over all gates
+ *   duration       seconds to keep generating arrivals
+ *   mix            vehicle type weights
+ *   stay           stay length in simulated minutes: exp:MEAN, uniform:MIN:MAX or fixed:N
+ *   msPerSimMinute real milliseconds a vehicle waits per simulated minute of stay
+ *   floors/rows/spots  size of the lot to seed (floors x rows x spots per row)
+ */
+public class GateLoadGenerator {
+
+    // ========== CONFIGURATION ==========
+    private int gates = 2000;
+    private double arrivalsPerSecond = 2000;
+    private int durationSeconds = 20;
+    private VehicleType[] mixTypes = {VehicleType.CAR, VehicleType.MOTORCYCLE, VehicleType.SUV, VehicleType.HANDICAPPED};
+    private int[] mixWeights = {60, 20, 15, 5};
+    private String stayDistribution = "exp:120";
+    private double msPerSimMinute = 1.0;
+    private int floors = 50;
+    private int rows = 10;
+    private int spotsPerRow = 20;
+
+    // ========== RESULTS ==========
+    private final AtomicInteger plateCounter = new AtomicInteger();
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong exits = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+    private final AtomicLong lostRaces = new AtomicLong();
+    private final AtomicLong failedExits = new AtomicLong();
+    private final DoubleAdder amountCharged = new DoubleAdder();
+    private final List<String> violations = new ArrayList<>();
+    private final LatencyRecorder entryLatency = new LatencyRecorder(4_000_000);
+    private final LatencyRecorder exitLatency = new LatencyRecorder(4_000_000);
+
+    // One ExitService shared by every exit lane (it keeps no per-vehicle state)
+    private final ExitService exitService = new ExitService();
+
+    public static void main(String[] args) throws Exception {
+        GateLoadGenerator generator = new GateLoadGenerator();
+        generator.parseArgs(args);
+        generator.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "gates": gates = Integer.parseInt(value); break;
+                case "rate": arrivalsPerSecond = Double.parseDouble(value); break;
+                case "duration": durationSeconds = Integer.parseInt(value); break;
+                case "mix": parseMix(value); break;
+                case "stay": stayDistribution = value; sampleStayMinutes(); break;
+                case "msPerSimMinute": msPerSimMinute = Double.parseDouble(value); break;
+                case "floors": floors = Integer.parseInt(value); break;
+                case "rows": rows = Integer.parseInt(value); break;
+                case "spots": spotsPerRow = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+    }
+
+    // Parses "CAR:60,SUV:40" into the type and weight arrays
+    private void parseMix(String value) {
+        String[] parts = value.split(",");
+        mixTypes = new VehicleType[parts.length];
+        mixWeights = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] pair = parts[i].split(":");
+            mixTypes[i] = VehicleType.valueOf(pair[0].trim().toUpperCase());
+            mixWeights[i] = Integer.parseInt(pair[1].trim());
+        }
+    }
+
+    // ========== RUN ==========
+    private void run() throws InterruptedException {
+        DataCenter.setLogging(false);
+        DataCenter.reset(floors, rows, spotsPerRow);
+
+        System.out.println("Gate load test: " + gates + " gates, " + arrivalsPerSecond + " arrivals/s for "
+                + durationSeconds + "s, lot of " + DataCenter.getTotalSpots() + " spots, stay " + stayDistribution);
+
+        EntryService entryService = new EntryService();
+        long start = System.nanoTime();
+        long deadline = start + durationSeconds * 1_000_000_000L;
+        double gateMeanGapMs = gates * 1000.0 / arrivalsPerSecond;
+
+        // Closing an executor waits for its threads: first all gates stop arriving,
+        // then every vehicle still parked finishes its stay and exits
+        try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            try (ExecutorService gateThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int g = 0; g < gates; g++) {
+                    gateThreads.execute(() -> runGate(sessions, entryService, gateMeanGapMs, deadline));
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        checkConsistency();
+        printReport(elapsed);
+    }
+
+    // One gate: waits for the next arrival, parks it, and hands the stay off to its own virtual thread
+    private void runGate(ExecutorService sessions, EntryService entryService, double meanGapMs, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long gapNanos = (long) (-Math.log(1.0 - random.nextDouble()) * meanGapMs * 1_000_000);
+            if (System.nanoTime() + gapNanos >= deadline) {
+                return;
+            }
+            sleepNanos(gapNanos);
+
+            Vehicle vehicle = enter(entryService, random);
+            if (vehicle != null) {
+                long stayMinutes = sampleStayMinutes();
+                sessions.execute(() -> stayAndExit(vehicle, stayMinutes));
+            }
+        }
+    }
+
+    // Entry gate logic: create vehicle, search spots, park. Retries if another gate wins the spot.
+    private Vehicle enter(EntryService entryService, ThreadLocalRandom random) {
+        String plate = "LG" + plateCounter.incrementAndGet();
+        long t0 = System.nanoTime();
+        try {
+            Vehicle vehicle = entryService.createVehicle(plate, pickType(random));
+            for (int attempt = 0; attempt < 3; attempt++) {
+                List<ParkingSpot> spots = entryService.findAvailableSpots(vehicle);
+                if (spots.isEmpty()) {
+                    denied.incrementAndGet();
+                    return null;
+                }
+                ParkingSpot spot = spots.get(random.nextInt(Math.min(spots.size(), 16)));
+                Ticket ticket = entryService.parkVehicle(vehicle, spot.getSpotId());
+                if (ticket != null) {
+                    entries.incrementAndGet();
+                    if (spot.getCurrentVehicle() != vehicle) {
+                        recordViolation("Spot " + spot.getSpotId() + " does not hold " + plate + " right after parking");
+                    }
+                    return vehicle;
+                }
+                lostRaces.incrementAndGet();
+            }
+            denied.incrementAndGet();
+            return null;
+        } finally {
+            entryLatency.record(System.nanoTime() - t0);
+        }
+    }
+
+    // Waits out the (scaled) stay, then runs the same exit steps as ExitPanel
+    private void stayAndExit(Vehicle vehicle, long stayMinutes) {
+        sleepNanos((long) (stayMinutes * msPerSimMinute * 1_000_000));
+        // Make the vehicle look like it stayed the simulated time
+        vehicle.setEntryTime(vehicle.getEntryTime().minusMinutes(stayMinutes));
+
+        String plate = vehicle.getLicensePlate();
+        long t0 = System.nanoTime();
+        ExitQuote quote = exitService.processExitCalculation(plate);
+        if (quote == null) {
+            failedExits.incrementAndGet();
+            recordViolation("Parked vehicle " + plate + " not found at exit");
+            return;
+        }
+        Payment payment = exitService.confirmPayment(quote.token(), PaymentMethod.CARD);
+        exitLatency.record(System.nanoTime() - t0);
+        if (payment == null) {
+            failedExits.incrementAndGet();
+            recordViolation("Quote for " + plate + " could not be confirmed");
+            return;
+        }
+        double total = payment.getTotalAmount();
+
+        exits.incrementAndGet();
+        amountCharged.add(total);
+    }
+
+    // ========== CONSISTENCY CHECKS ==========
+    private void checkConsistency() {
+        Set<Vehicle> seen = new HashSet<>();
+        int occupied = 0;
+        for (Floor floor : DataCenter.getFloors()) {
+            for (ParkingSpot spot : floor.getSpots()) {
+                Vehicle v = spot.getCurrentVehicle();
+                if (spot.isAvailable()) {
+                    if (v != null) {
+                        recordViolation("Available spot " + spot.getSpotId() + " still holds " + v.getLicensePlate());
+                    }
+                    continue;
+                }
+                occupied++;
+                if (v == null) {
+                    recordViolation("Occupied spot " + spot.getSpotId() + " has no vehicle");
+                } else if (!seen.add(v)) {
+                    recordViolation("Vehicle " + v.getLicensePlate() + " occupies more than one spot");
+                } else if (!spot.getSpotId().equals(v.getSpotId())) {
+                    recordViolation("Spot " + spot.getSpotId() + " holds " + v.getLicensePlate()
+                            + " but the vehicle says " + v.getSpotId());
+                }
+            }
+        }
+
+        // Every session has exited by now, so the lot must be empty again
+        if (occupied != 0 || !DataCenter.getAllParkedVehicles().isEmpty()) {
+            recordViolation(occupied + " spots / " + DataCenter.getAllParkedVehicles().size()
+                    + " vehicles still parked after all sessions exited");
+        }
+        if (DataCenter.getTickets().size() != entries.get()) {
+            recordViolation(DataCenter.getTickets().size() + " tickets for " + entries.get() + " successful entries");
+        }
+        if (DataCenter.getPayments().size() != exits.get()) {
+            recordViolation("Lost payments: " + DataCenter.getPayments().size() + " recorded for " + exits.get() + " exits");
+        }
+        if (Math.abs(DataCenter.getTotalRevenue() - amountCharged.sum()) > 0.005) {
+            recordViolation(String.format("Revenue RM %.2f does not match RM %.2f charged",
+                    DataCenter.getTotalRevenue(), amountCharged.sum()));
+        }
+    }
+
+    private synchronized void recordViolation(String message) {
+        violations.add(message);
+    }
+
+    // ========== REPORT ==========
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.println("===== GATE LOAD TEST RESULT =====");
+        System.out.printf("Elapsed        : %.1f s%n", seconds);
+        System.out.printf("Entries        : %d (%.0f/s)%n", entries.get(), entries.get() / seconds);
+        System.out.printf("Exits          : %d (%.0f/s)%n", exits.get(), exits.get() / seconds);
+        System.out.printf("Denied (full)  : %d%n", denied.get());
+        System.out.printf("Lost spot races: %d%n", lostRaces.get());
+        System.out.printf("Failed exits   : %d%n", failedExits.get());
+        System.out.printf("Revenue        : RM %.2f%n", DataCenter.getTotalRevenue());
+        entryLatency.print("Entry latency");
+        exitLatency.print("Exit latency ");
+        System.out.println("Consistency    : " + (violations.isEmpty() ? "OK" : violations.size() + " violation(s)"));
+        for (int i = 0; i < Math.min(violations.size(), 20); i++) {
+            System.out.println("  - " + violations.get(i));
+        }
+        System.out.println("=================================");
+    }
+
+    // ========== HELPERS ==========
+    private VehicleType pickType(ThreadLocalRandom random) {
+        int total = 0;
+        for (int w : mixWeights) {
+            total += w;
+        }
+        int r = random.nextInt(total);
+        for (int i = 0; i < mixTypes.length; i++) {
+            r -= mixWeights[i];
+            if (r < 0) {
+                return mixTypes[i];
+            }
+        }
+        return mixTypes[mixTypes.length - 1];
+    }
+
+    // Draws a stay length in simulated minutes from the configured distribution
+    private long sampleStayMinutes() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] parts = stayDistribution.split(":");
+        switch (parts[0]) {
+            case "exp":
+                return Math.max(1, (long) (-Math.log(1.0 - random.nextDouble()) * Double.parseDouble(parts[1])));
+            case "uniform":
+                return random.nextLong(Long.parseLong(parts[1]), Long.parseLong(parts[2]) + 1);
+            case "fixed":
+                return Long.parseLong(parts[1]);
+            default:
+                throw new IllegalArgumentException("Unknown stay distribution: " + stayDistribution);
+        }
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Collects latency samples (nanoseconds) into a fixed array.
+     * Samples beyond the capacity are counted but not stored.
+     */
+    static class LatencyRecorder {
+        private final long[] samples;
+        private final AtomicInteger count = new AtomicInteger();
+
+        LatencyRecorder(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void record(long nanos) {
+            int i = count.getAndIncrement();
+            if (i < samples.length) {
+                samples[i] = nanos;
+            }
+        }
+
+        void print(String label) {
+            int n = Math.min(count.get(), samples.length);
+            if (n == 0) {
+                System.out.println(label + "  : no samples");
+                return;
+            }
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            System.out.printf("%s  : p50 %s | p90 %s | p99 %s | p99.9 %s | max %s%n", label,
+                    micros(sorted, 0.50), micros(sorted, 0.90), micros(sorted, 0.99),
+                    micros(sorted, 0.999), micros(sorted, 1.0));
+        }
+
+        private static String micros(long[] sorted, double quantile) {
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+            return String.format("%.1fus", sorted[Math.max(0, index)] / 1000.0);
+        }
+    }
+}
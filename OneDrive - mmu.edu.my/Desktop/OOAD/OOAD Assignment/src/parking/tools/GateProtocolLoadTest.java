@@ -0,0 +1,268 @@
+package parking.tools;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import parking.data.DataCenter;
+import parking.gate.GateClient;
+import parking.gate.GateProtocol;
+import parking.gate.GateServer;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.LatencySnapshot;
+import parking.model.PaymentMethod;
+import parking.model.VehicleType;
+import parking.service.SimulatedPaymentGateway;
+
+/**
+ * GateProtocolLoadTest - Load test for the binary gate protocol (GateServer).
+ * Each connection is a thread with a GateClient that drives pipeline vehicles
+ * at a time through their visit in three pipelined rounds: pipeline ENTRY
+ * requests plus a HEARTBEAT, then an EXIT_QUOTE for every vehicle that got a
+ * spot, then a PAY_EXIT for every quote. A round is sent with one flush and
+ * each answer's latency is measured from that flush to the moment it is read.
+ *
+ * Without port= it starts a GateServer in this process on a free loopback
+ * port, with a lot of floors x rows x spots and a card gateway that answers
+ * at once.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.GateProtocolLoadTest connections=16 pipeline=32 duration=20 warmup=5
+ *        method=CASH floors=50 rows=10 spots=20
+ *   java -cp out parking.tools.GateProtocolLoadTest host=127.0.0.1 port=9090 connections=8
+ *
+ *   connections  concurrent connections (one thread each)
+ *   pipeline     vehicles (requests) in flight per connection and round
+ *   duration     seconds to measure, after warmup seconds that are not counted
+ *   method       CASH or CARD for the payments
+ */
+public class GateProtocolLoadTest {
+
+    // ========== CONFIGURATION ==========
+    private String host = "127.0.0.1";
+    private int port = -1;
+    private int connections = 16;
+    private int pipeline = 32;
+    private int durationSeconds = 20;
+    private int warmupSeconds = 5;
+    private PaymentMethod method = PaymentMethod.CASH;
+    private int floors = 50;
+    private int rows = 10;
+    private int spotsPerRow = 20;
+
+    // ========== RESULTS ==========
+    private final LatencyHistogram heartbeatLatency = new LatencyHistogram("HEARTBEAT");
+    private final LatencyHistogram entryLatency = new LatencyHistogram("ENTRY");
+    private final LatencyHistogram quoteLatency = new LatencyHistogram("EXIT_QUOTE");
+    private final LatencyHistogram payLatency = new LatencyHistogram("PAY_EXIT");
+    private final AtomicLong visits = new AtomicLong();
+    private final AtomicLong transportErrors = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> unexpected = new ConcurrentHashMap<>(); // "ENTRY FULL" -> count
+    private volatile boolean measuring;
+    private volatile boolean stopping;
+
+    public static void main(String[] args) throws Exception {
+        GateProtocolLoadTest test = new GateProtocolLoadTest();
+        test.parseArgs(args);
+        test.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length < 2) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            switch (kv[0]) {
+                case "host": host = kv[1]; break;
+                case "port": port = Integer.parseInt(kv[1]); break;
+                case "connections": connections = Integer.parseInt(kv[1]); break;
+                case "pipeline": pipeline = Integer.parseInt(kv[1]); break;
+                case "duration": durationSeconds = Integer.parseInt(kv[1]); break;
+                case "warmup": warmupSeconds = Integer.parseInt(kv[1]); break;
+                case "method": method = PaymentMethod.valueOf(kv[1].toUpperCase()); break;
+                case "floors": floors = Integer.parseInt(kv[1]); break;
+                case "rows": rows = Integer.parseInt(kv[1]); break;
+                case "spots": spotsPerRow = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        if (pipeline < 1) {
+            throw new IllegalArgumentException("pipeline must be at least 1");
+        }
+    }
+
+    private void run() throws Exception {
+        GateServer server = null;
+        InetSocketAddress address;
+        if (port < 0) {
+            DataCenter.setLogging(false);
+            DataCenter.reset(floors, rows, spotsPerRow);
+            server = new GateServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    new SimulatedPaymentGateway());
+            server.start();
+            address = server.getAddress();
+        } else {
+            address = new InetSocketAddress(host, port);
+        }
+
+        System.out.println("Gate protocol load test: " + connections + " connections x " + pipeline
+                + " in flight against " + address + " for " + durationSeconds + " s (+" + warmupSeconds
+                + " s warmup), " + method + " payments");
+
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            int connection = i;
+            Thread t = new Thread(() -> runConnection(connection, address), "gate-load-" + i);
+            threads.add(t);
+            t.start();
+        }
+        Thread.sleep(warmupSeconds * 1000L);
+        for (LatencyHistogram h : histograms()) {
+            h.reset();
+        }
+        visits.set(0);
+        measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000L);
+        measuring = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stopping = true;
+        for (Thread t : threads) {
+            t.join(30_000);
+        }
+        if (server != null) {
+            server.close();
+        }
+        printResult(seconds);
+    }
+
+    // One connection: pipeline vehicles at a time, round after round
+    private void runConnection(int connection, InetSocketAddress address) {
+        String prefix = "G" + connection + "-";
+        String[] plates = new String[pipeline];
+        String[] parkedPlates = new String[pipeline];
+        String[] tokens = new String[pipeline];
+        int[] ids = new int[pipeline];
+        long n = 0;
+        try (GateClient gate = new GateClient(address)) {
+            while (!stopping) {
+                // Round 1: entries (and a heartbeat)
+                for (int i = 0; i < pipeline; i++) {
+                    plates[i] = prefix + n++;
+                    ids[i] = gate.entry(plates[i], VehicleType.CAR, false);
+                }
+                gate.heartbeat();
+                long t0 = flush(gate);
+                int parked = 0;
+                for (int i = 0; i <= pipeline; i++) {
+                    GateClient.Response r = gate.read();
+                    if (r.type() == GateProtocol.HEARTBEAT) {
+                        record(heartbeatLatency, t0, r);
+                        continue;
+                    }
+                    record(entryLatency, t0, r);
+                    if (r.isOk()) {
+                        parkedPlates[parked++] = plateOf(r.requestId(), ids, plates);
+                    }
+                }
+
+                // Round 2: exit quotes
+                for (int i = 0; i < parked; i++) {
+                    gate.quote(parkedPlates[i]);
+                }
+                t0 = flush(gate);
+                int quoted = 0;
+                for (int i = 0; i < parked; i++) {
+                    GateClient.Response r = gate.read();
+                    record(quoteLatency, t0, r);
+                    if (r.isOk()) {
+                        tokens[quoted++] = r.text();
+                    }
+                }
+
+                // Round 3: payments (they may come back in any order)
+                for (int i = 0; i < quoted; i++) {
+                    gate.payExit(tokens[i], method);
+                }
+                t0 = flush(gate);
+                for (int i = 0; i < quoted; i++) {
+                    GateClient.Response r = gate.read();
+                    record(payLatency, t0, r);
+                    if (r.isOk() && measuring) {
+                        visits.incrementAndGet();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            transportErrors.incrementAndGet();
+        }
+    }
+
+    private static long flush(GateClient gate) throws IOException {
+        long t0 = System.nanoTime();
+        gate.flush();
+        return t0;
+    }
+
+    // Entries are answered in order, but look the plate up by request id anyway
+    private static String plateOf(int requestId, int[] ids, String[] plates) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == requestId) {
+                return plates[i];
+            }
+        }
+        throw new IllegalStateException("Answer to unknown request " + requestId);
+    }
+
+    private void record(LatencyHistogram latency, long t0, GateClient.Response r) {
+        if (!measuring) {
+            return;
+        }
+        latency.recordSince(t0);
+        if (!r.isOk()) {
+            String key = latency.getName() + " " + GateProtocol.statusName(r.status());
+            unexpected.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private List<LatencyHistogram> histograms() {
+        return List.of(heartbeatLatency, entryLatency, quoteLatency, payLatency);
+    }
+
+    private void printResult(double seconds) {
+        long messages = 0;
+        ArrayList<LatencySnapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram h : histograms()) {
+            LatencySnapshot s = h.snapshot();
+            snapshots.add(s);
+            messages += s.count();
+        }
+        System.out.println();
+        System.out.println("===== GATE PROTOCOL LOAD TEST RESULT =====");
+        System.out.printf("Measured       : %.1f s, %d connections x %d in flight%n", seconds, connections, pipeline);
+        System.out.printf("Messages       : %d (%.0f/s)%n", messages, messages / seconds);
+        System.out.printf("Visits         : %d (%.0f/s, entry to paid exit)%n", visits.get(), visits.get() / seconds);
+        System.out.printf("Transport errs : %d%n", transportErrors.get());
+        if (unexpected.isEmpty()) {
+            System.out.println("Unexpected     : none");
+        } else {
+            unexpected.forEach((key, count) -> System.out.println("Unexpected     : " + key + " x" + count.get()));
+        }
+        System.out.println();
+        System.out.println("Message      Requests       p50       p90       p99     p99.9       max");
+        for (LatencySnapshot s : snapshots) {
+            if (s.count() == 0) {
+                continue;
+            }
+            System.out.printf("%-10s %10d %9s %9s %9s %9s %9s%n", s.operation(), s.count(),
+                    LatencySnapshot.format(s.p50Nanos()), LatencySnapshot.format(s.p90Nanos()),
+                    LatencySnapshot.format(s.p99Nanos()), LatencySnapshot.format(s.p999Nanos()),
+                    LatencySnapshot.format(s.maxNanos()));
+        }
+        System.out.println("==========================================");
+    }
+}
@@ -0,0 +1,240 @@
+package parking.tools;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import parking.data.DataCenter;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.LatencySnapshot;
+import parking.server.Json;
+import parking.server.ParkingServer;
+import parking.service.SimulatedPaymentGateway;
+
+/**
+ * HttpLoadTest - Load test for the HTTP API (ParkingServer) over loopback.
+ * Each client is a virtual thread that drives one vehicle at a time through
+ * the whole visit: spot search, entry, exit quote and payment, plus a report
+ * now and then. Reports requests per second and the latency percentiles of
+ * every endpoint, as seen by the client (so including HTTP and JSON).
+ *
+ * Without url= it starts a ParkingServer in this process on a free loopback
+ * port, with a lot of floors x rows x spots and a card gateway that answers
+ * at once (so the gateway delay does not hide the server's own latency).
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.HttpLoadTest clients=200 duration=20 warmup=5
+ *        method=CASH reportEvery=20 floors=50 rows=10 spots=20
+ *   java -cp out parking.tools.HttpLoadTest url=http://127.0.0.1:8080 clients=50
+ *
+ *   clients      concurrent clients (virtual threads, one connection each at a time)
+ *   duration     seconds to measure, after warmup seconds that are not counted
+ *   method       CASH or CARD for the payments
+ *   reportEvery  one GET /api/reports per this many visits of a client (0 = none)
+ */
+public class HttpLoadTest {
+
+    // ========== CONFIGURATION ==========
+    private String url;
+    private int clients = 200;
+    private int durationSeconds = 20;
+    private int warmupSeconds = 5;
+    private String method = "CASH";
+    private int reportEvery = 20;
+    private int floors = 50;
+    private int rows = 10;
+    private int spotsPerRow = 20;
+
+    // ========== RESULTS ==========
+    private final LatencyHistogram spotsLatency = new LatencyHistogram("GET  /api/spots");
+    private final LatencyHistogram entryLatency = new LatencyHistogram("POST /api/entries");
+    private final LatencyHistogram quoteLatency = new LatencyHistogram("POST /api/exits/quote");
+    private final LatencyHistogram payLatency = new LatencyHistogram("POST /api/exits/pay");
+    private final LatencyHistogram reportLatency = new LatencyHistogram("GET  /api/reports");
+    private final AtomicLong visits = new AtomicLong();
+    private final AtomicLong transportErrors = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> unexpected = new ConcurrentHashMap<>(); // "POST /x 409" -> count
+    private volatile boolean measuring;
+    private volatile boolean stopping;
+
+    private HttpClient http;
+
+    public static void main(String[] args) throws Exception {
+        HttpLoadTest test = new HttpLoadTest();
+        test.parseArgs(args);
+        test.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length < 2) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            switch (kv[0]) {
+                case "url": url = kv[1].endsWith("/") ? kv[1].substring(0, kv[1].length() - 1) : kv[1]; break;
+                case "clients": clients = Integer.parseInt(kv[1]); break;
+                case "duration": durationSeconds = Integer.parseInt(kv[1]); break;
+                case "warmup": warmupSeconds = Integer.parseInt(kv[1]); break;
+                case "method": method = kv[1].toUpperCase(); break;
+                case "reportEvery": reportEvery = Integer.parseInt(kv[1]); break;
+                case "floors": floors = Integer.parseInt(kv[1]); break;
+                case "rows": rows = Integer.parseInt(kv[1]); break;
+                case "spots": spotsPerRow = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        ParkingServer server = null;
+        if (url == null) {
+            DataCenter.setLogging(false);
+            DataCenter.reset(floors, rows, spotsPerRow);
+            server = new ParkingServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096,
+                    new SimulatedPaymentGateway());
+            server.start();
+            url = "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        System.out.println("HTTP load test: " + clients + " clients against " + url + " for " + durationSeconds
+                + " s (+" + warmupSeconds + " s warmup), " + method + " payments");
+
+        ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            threads.submit(() -> runClient(client));
+        }
+        Thread.sleep(warmupSeconds * 1000L);
+        for (LatencyHistogram h : histograms()) {
+            h.reset();
+        }
+        visits.set(0);
+        measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000L);
+        measuring = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stopping = true;
+        threads.shutdown();
+        threads.awaitTermination(30, TimeUnit.SECONDS);
+        if (server != null) {
+            server.close();
+        }
+        printResult(seconds);
+    }
+
+    // One client: a vehicle at a time, through the whole visit
+    private void runClient(int client) {
+        String prefix = "H" + client + "-";
+        long n = 0;
+        while (!stopping) {
+            String plate = prefix + n++;
+            try {
+                send("GET", "/api/spots?vehicleType=CAR&limit=1", null, spotsLatency, 200);
+                Map<String, Object> ticket = send("POST", "/api/entries",
+                        "{\"plate\":\"" + plate + "\",\"vehicleType\":\"CAR\"}", entryLatency, 201);
+                if (ticket == null) {
+                    continue;
+                }
+                Map<String, Object> quote = send("POST", "/api/exits/quote",
+                        "{\"plate\":\"" + plate + "\"}", quoteLatency, 200);
+                if (quote == null) {
+                    continue;
+                }
+                send("POST", "/api/exits/pay",
+                        "{\"token\":\"" + quote.get("token") + "\",\"method\":\"" + method + "\"}", payLatency, 200);
+                if (measuring) {
+                    visits.incrementAndGet();
+                }
+                if (reportEvery > 0 && n % reportEvery == 0) {
+                    send("GET", "/api/reports", null, reportLatency, 200);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Sends one request; returns the JSON answer, or null if the status was not the expected one
+    private Map<String, Object> send(String verb, String path, String body, LatencyHistogram latency,
+                                     int expected) throws InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path)).timeout(Duration.ofSeconds(30));
+        if (body != null) {
+            request.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            request.GET();
+        }
+        long t0 = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            transportErrors.incrementAndGet();
+            return null;
+        }
+        if (measuring) {
+            latency.recordSince(t0);
+        }
+        if (response.statusCode() != expected) {
+            String key = verb + " " + path.split("\\?")[0] + " " + response.statusCode();
+            unexpected.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+            return null;
+        }
+        return Json.parseObject(response.body());
+    }
+
+    private List<LatencyHistogram> histograms() {
+        return List.of(spotsLatency, entryLatency, quoteLatency, payLatency, reportLatency);
+    }
+
+    private void printResult(double seconds) {
+        long requests = 0;
+        ArrayList<LatencySnapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram h : histograms()) {
+            LatencySnapshot s = h.snapshot();
+            snapshots.add(s);
+            requests += s.count();
+        }
+        System.out.println();
+        System.out.println("===== HTTP LOAD TEST RESULT =====");
+        System.out.printf("Measured       : %.1f s, %d clients%n", seconds, clients);
+        System.out.printf("Requests       : %d (%.0f/s)%n", requests, requests / seconds);
+        System.out.printf("Visits         : %d (%.0f/s, entry to paid exit)%n", visits.get(), visits.get() / seconds);
+        System.out.printf("Transport errs : %d%n", transportErrors.get());
+        if (unexpected.isEmpty()) {
+            System.out.println("Unexpected     : none");
+        } else {
+            unexpected.forEach((key, count) -> System.out.println("Unexpected     : " + key + " x" + count.get()));
+        }
+        System.out.println();
+        System.out.println("Endpoint                 Requests       p50       p90       p99     p99.9       max");
+        for (LatencySnapshot s : snapshots) {
+            if (s.count() == 0) {
+                continue;
+            }
+            System.out.printf("%-22s %10d %9s %9s %9s %9s %9s%n", s.operation(), s.count(),
+                    LatencySnapshot.format(s.p50Nanos()), LatencySnapshot.format(s.p90Nanos()),
+                    LatencySnapshot.format(s.p99Nanos()), LatencySnapshot.format(s.p999Nanos()),
+                    LatencySnapshot.format(s.maxNanos()));
+        }
+        System.out.println("=================================");
+    }
+}
@@ -0,0 +1,141 @@
+package parking.tools;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import parking.data.DataCenter;
+import parking.data.LotPartition;
+import parking.data.ParkingGroup;
+import parking.model.*;
+import parking.service.EntryService;
+import parking.service.ExitQuote;
+import parking.service.ExitService;
+
+/**
+ * LotShardingBenchmark - Measures how visits per second (entry, exit quote and
+ * payment) grow with the number of lots: for 1, 2, 4, ... lots it runs one
+ * gate thread per lot, each on its own lot, and compares that with the same
+ * number of threads all sharing ONE lot. Then times the cross-lot queries
+ * (nearest lot with a free spot, group revenue) over the largest group.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.LotShardingBenchmark maxLots=16 seconds=3 floors=5 rows=10 spots=20
+ */
+public class LotShardingBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxLots = Runtime.getRuntime().availableProcessors() * 2;
+        int seconds = 3;
+        int floors = 5;
+        int rows = 10;
+        int spotsPerRow = 20;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "maxLots": maxLots = Integer.parseInt(kv[1]); break;
+                case "seconds": seconds = Integer.parseInt(kv[1]); break;
+                case "floors": floors = Integer.parseInt(kv[1]); break;
+                case "rows": rows = Integer.parseInt(kv[1]); break;
+                case "spots": spotsPerRow = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        DataCenter.setLogging(false);
+
+        System.out.println("Lot sharding benchmark: " + floors + "x" + rows + "x" + spotsPerRow + " spots per lot, "
+                + Runtime.getRuntime().availableProcessors() + " cores, " + seconds + "s per run");
+
+        // Warm-up so the JIT has compiled the visit path before measuring
+        runVisits(newGroup(2, floors, rows, spotsPerRow), 2, false, seconds);
+        runVisits(newGroup(1, floors, rows, spotsPerRow), 2, true, seconds);
+
+        double single = 0;
+        ParkingGroup group = null;
+        for (int lots = 1; lots <= maxLots; lots *= 2) {
+            group = newGroup(lots, floors, rows, spotsPerRow);
+            double sharded = runVisits(group, lots, false, seconds);
+            double shared = runVisits(newGroup(1, floors, rows, spotsPerRow), lots, true, seconds);
+            if (lots == 1) {
+                single = sharded;
+            }
+            System.out.printf("lots=%-3d %,12.0f visits/s   speed-up x%.2f   (one shared lot: %,.0f visits/s)%n",
+                    lots, sharded, sharded / single, shared);
+        }
+
+        timeCrossLotQueries(group, seconds);
+    }
+
+    // A group of lots spread over a few km
+    private static ParkingGroup newGroup(int lots, int floors, int rows, int spotsPerRow) {
+        ParkingGroup group = new ParkingGroup();
+        for (int i = 0; i < lots; i++) {
+            group.addLot("LOT" + i, "Lot " + i, 3.0 + i * 0.01, 101.6 + i * 0.01, floors, rows, spotsPerRow);
+        }
+        return group;
+    }
+
+    // Runs threads gate threads, thread i on lot i (or all on the first lot when shared),
+    // each parking a car, quoting and paying its exit; returns visits per second
+    private static double runVisits(ParkingGroup group, int threads, boolean shared, int seconds)
+            throws InterruptedException {
+        List<LotPartition> lots = group.getLots();
+        LongAdder visits = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long start = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            LotPartition lot = lots.get(shared ? 0 : t);
+            String prefix = "S" + t + "-";
+            Thread gate = new Thread(() -> {
+                EntryService entry = new EntryService(lot);
+                ExitService exit = new ExitService(lot, ExitService.DEFAULT_QUOTE_TTL);
+                long local = 0;
+                while ((local & 63) != 0 || System.nanoTime() < deadline) {
+                    Vehicle v = new Car(prefix + local);
+                    if (entry.parkInFirstFreeSpot(v) != null) {
+                        ExitQuote quote = exit.processExitCalculation(v.getLicensePlate());
+                        if (quote != null) {
+                            exit.confirmPayment(quote.token(), PaymentMethod.CASH);
+                        }
+                    }
+                    local++;
+                }
+                visits.add(local);
+                done.countDown();
+            });
+            gate.start();
+        }
+        done.await();
+        return visits.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    // Average time of each cross-lot query over the whole group
+    private static void timeCrossLotQueries(ParkingGroup group, int seconds) {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L / 2;
+        long n = 0;
+        long start = System.nanoTime();
+        ParkingGroup.NearestLot nearest = null;
+        while (System.nanoTime() < deadline) {
+            nearest = group.findNearestLotWithFreeSpot(SpotType.REGULAR, 3.05, 101.65);
+            n++;
+        }
+        double nearestMicros = (System.nanoTime() - start) / 1e3 / n;
+
+        deadline = System.nanoTime() + seconds * 1_000_000_000L / 2;
+        long m = 0;
+        start = System.nanoTime();
+        ParkingGroup.GroupRevenue revenue = null;
+        while (System.nanoTime() < deadline) {
+            revenue = group.getGroupRevenue();
+            m++;
+        }
+        double revenueMicros = (System.nanoTime() - start) / 1e3 / m;
+
+        System.out.printf("%nCross-lot queries over %d lots:%n", group.getLotCount());
+        System.out.printf("  nearest lot with a free REGULAR spot  %8.1f us   (%s, %.1f km)%n", nearestMicros,
+                nearest == null ? "none" : nearest.lot().getLotId(), nearest == null ? 0.0 : nearest.distanceKm());
+        System.out.printf("  group revenue                         %8.1f us   (RM %.2f from %d payments)%n",
+                revenueMicros, revenue.total(), revenue.payments());
+    }
+}
@@ -0,0 +1,139 @@
+package parking.tools;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import parking.clock.ParkingClock;
+import parking.data.DataCenter;
+import parking.model.*;
+import parking.service.ReconciliationJob;
+import parking.service.ReconciliationJob.Kind;
+
+/**
+ * ReconciliationBenchmark - Records a month (or any number of days) of finished
+ * sessions - tickets, payments and session fines - with a few deliberate mistakes
+ * mixed in, then times ReconciliationJob and checks it found exactly those mistakes.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.ReconciliationBenchmark days=30 perDay=20000 errorRate=0.001 threads=8
+ */
+public class ReconciliationBenchmark {
+
+    public static void main(String[] args) {
+        int days = 30;
+        int perDay = 20_000;
+        double errorRate = 0.001;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "days": days = Integer.parseInt(kv[1]); break;
+                case "perDay": perDay = Integer.parseInt(kv[1]); break;
+                case "errorRate": errorRate = Double.parseDouble(kv[1]); break;
+                case "threads": threads = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+
+        long seedStart = System.nanoTime();
+        EnumMap<Kind, Integer> planted = seedHistory(days, perDay, errorRate);
+        System.out.printf("Reconciliation benchmark: %d days x %d sessions (%.1f s to record), "
+                + "%d worker threads, %d cores%n", days, perDay, (System.nanoTime() - seedStart) / 1e9,
+                threads, Runtime.getRuntime().availableProcessors());
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ReconciliationJob job = new ReconciliationJob(pool);
+        ReconciliationJob.Report report = job.run();
+        System.out.println("first run: " + report);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            best = Math.min(best, job.run().elapsedNanos());
+        }
+        System.out.printf("best of 5 runs: %.1f ms%n", best / 1e6);
+
+        boolean ok = true;
+        for (Kind kind : Kind.values()) {
+            int expected = planted.getOrDefault(kind, 0);
+            if (report.count(kind) != expected) {
+                System.out.println("MISMATCH " + kind + ": planted " + expected + ", found " + report.count(kind));
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "all planted discrepancies found, nothing else" : "RECONCILIATION CHECK FAILED");
+        pool.shutdown();
+    }
+
+    // Records finished sessions straight into DataCenter and returns the mistakes planted per kind
+    private static EnumMap<Kind, Integer> seedHistory(int days, int perDay, double errorRate) {
+        DataCenter.setLogging(false);
+        DataCenter.reset(1, 1, 1);
+        EnumMap<Kind, Integer> planted = new EnumMap<>(Kind.class);
+        Random random = new Random(42);
+        LocalDateTime firstDay = ParkingClock.now().toLocalDate().minusDays(days).atStartOfDay();
+
+        int n = 0;
+        for (int day = 0; day < days; day++) {
+            for (int i = 0; i < perDay; i++, n++) {
+                String plate = "RC" + n;
+                LocalDateTime in = firstDay.plusDays(day).plusSeconds(random.nextInt(86_400));
+                LocalDateTime out = in.plusMinutes(5 + random.nextInt(600));
+                long hours = (long) Math.ceil(Duration.between(in, out).toMinutes() / 60.0);
+                double fee = hours * 5.0;
+                double fine = random.nextInt(20) == 0 ? 50.0 : 0.0;
+
+                Ticket ticket = new Ticket(plate, "F1-R1-S1", in);
+                String ticketId = ticket.getTicketId();
+                DataCenter.addTicket(ticket);
+
+                Kind mistake = random.nextDouble() < errorRate
+                        ? Kind.values()[random.nextInt(Kind.values().length)] : null;
+                if (mistake == Kind.ORPHAN_FINE || mistake == Kind.UNSETTLED_FINE) {
+                    fine = 50.0; // these need a fine to go wrong
+                } else if (mistake == Kind.MISSING_PAYMENT || mistake == Kind.UNKNOWN_TICKET) {
+                    fine = 0.0;  // a paid fine would also show up as ORPHAN_FINE
+                }
+                if (mistake != null) {
+                    planted.merge(mistake, 1, Integer::sum);
+                }
+
+                double total = fee + fine;
+                if (mistake == Kind.AMOUNT_MISMATCH) {
+                    total += 1.0;
+                }
+                String paidTicket = mistake == Kind.UNKNOWN_TICKET ? "REGULAR" : ticketId;
+                String paidPlate = mistake == Kind.SESSION_MISMATCH ? plate + "X" : plate;
+                if (mistake != Kind.MISSING_PAYMENT && mistake != Kind.ORPHAN_FINE) {
+                    DataCenter.addPayment(new Payment(paidPlate, paidTicket, in, out, hours, fee, fine, total,
+                            PaymentMethod.CARD, "key-" + n));
+                }
+                if (mistake == Kind.UNKNOWN_TICKET) {
+                    planted.merge(Kind.MISSING_PAYMENT, 1, Integer::sum); // the real session is unpaid too
+                }
+                if (mistake == Kind.DUPLICATE_PAYMENT) {
+                    DataCenter.addPayment(new Payment(plate, ticketId, in, out, hours, fee, fine, total,
+                            PaymentMethod.CASH, "key-" + n + "-again"));
+                }
+                if (mistake == Kind.ORPHAN_FINE) {
+                    planted.merge(Kind.MISSING_PAYMENT, 1, Integer::sum); // paid fine, but no payment
+                }
+
+                if (fine > 0) {
+                    Fine f = new Fine(plate, fine, "Overstay", ticketId);
+                    f.setPaid(mistake != Kind.UNSETTLED_FINE);
+                    DataCenter.addFine(f);
+                }
+            }
+        }
+        // A fine for a session that was never recorded
+        Fine stray = new Fine("RCX", 50.0, "Overstay",
+                "T-RCX-" + firstDay.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
+        stray.setPaid(true);
+        DataCenter.addFine(stray);
+        planted.merge(Kind.ORPHAN_FINE, 1, Integer::sum);
+        return planted;
+    }
+}
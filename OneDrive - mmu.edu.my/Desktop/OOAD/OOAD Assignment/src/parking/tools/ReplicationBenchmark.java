@@ -0,0 +1,160 @@
+package parking.tools;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import parking.data.DataCenter;
+import parking.data.LotPartition;
+import parking.metrics.LatencyHistogram;
+import parking.metrics.LatencySnapshot;
+import parking.metrics.Metrics;
+import parking.model.*;
+import parking.replication.Journal;
+import parking.replication.ReplicationFollower;
+import parking.replication.ReplicationPrimary;
+import parking.service.EntryService;
+import parking.service.ExitQuote;
+import parking.service.ExitService;
+
+/**
+ * ReplicationBenchmark - Measures journal shipping between a primary lot and a
+ * follower lot over loopback TCP (both in this process, each with its own
+ * LotPartition; run two "parking.Main --server" processes to try it across
+ * processes):
+ *
+ *   1. catch-up: the primary builds a backlog of visits before the follower
+ *      connects; then the follower applies all of it (records/s, MB/s)
+ *   2. live: gate threads keep making visits while the follower follows;
+ *      the replication lag (Metrics "Replication lag") is reported
+ *   3. the follower's lot is compared with the primary's
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.ReplicationBenchmark backlog=200000 threads=2 seconds=5 floors=5 rows=10 spots=20
+ */
+public class ReplicationBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int backlog = 200_000;
+        int threads = 2;
+        int seconds = 5;
+        int floors = 5;
+        int rows = 10;
+        int spotsPerRow = 20;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "backlog": backlog = Integer.parseInt(kv[1]); break;
+                case "threads": threads = Integer.parseInt(kv[1]); break;
+                case "seconds": seconds = Integer.parseInt(kv[1]); break;
+                case "floors": floors = Integer.parseInt(kv[1]); break;
+                case "rows": rows = Integer.parseInt(kv[1]); break;
+                case "spots": spotsPerRow = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        DataCenter.setLogging(false);
+
+        LotPartition primaryLot = new LotPartition("PRIMARY", "Primary", 0, 0, floors, rows, spotsPerRow);
+        LotPartition followerLot = new LotPartition("FOLLOWER", "Follower", 0, 0, floors, rows, spotsPerRow);
+        Journal journal = Journal.attach(primaryLot);
+        ReplicationPrimary primary = new ReplicationPrimary(journal,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        primary.start();
+
+        System.out.println("Replication benchmark: " + floors + "x" + rows + "x" + spotsPerRow + " spots, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+
+        // ===== 1. Catch-up =====
+        long t0 = System.nanoTime();
+        runVisits(primaryLot, 1, "B", backlog, Long.MAX_VALUE);
+        System.out.printf("%nBacklog: %,d visits -> %,d records, %.1f MB of journal in %.1f s%n", backlog,
+                journal.getHeadSeq(), journal.getSizeBytes() / (1024.0 * 1024), (System.nanoTime() - t0) / 1e9);
+
+        ReplicationFollower follower = new ReplicationFollower(followerLot, primary.getAddress());
+        follower.start();
+        while (!follower.isCaughtUp()) {
+            Thread.sleep(10);
+        }
+        ReplicationFollower.CatchUp catchUp = follower.getLastCatchUp();
+        System.out.printf("Catch-up: %,d records in %.2f s = %,.0f records/s, %.1f MB/s%n", catchUp.records(),
+                catchUp.seconds(), catchUp.recordsPerSecond(), catchUp.megabytesPerSecond());
+
+        // ===== 2. Live =====
+        LatencyHistogram lag = Metrics.register("Replication lag");
+        lag.reset();
+        long startSeq = journal.getHeadSeq();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        t0 = System.nanoTime();
+        long visits = runVisits(primaryLot, threads, "L", Long.MAX_VALUE, deadline);
+        double liveSeconds = (System.nanoTime() - t0) / 1e9;
+        waitUntilApplied(follower, journal.getHeadSeq());
+        LatencySnapshot s = lag.snapshot();
+        System.out.printf("%nLive: %d gate threads, %,.0f visits/s, %,.0f records/s shipped%n", threads,
+                visits / liveSeconds, (journal.getHeadSeq() - startSeq) / liveSeconds);
+        System.out.printf("Replication lag (%d heartbeats): p50 %s   p99 %s   max %s%n", s.count(),
+                LatencySnapshot.format(s.p50Nanos()), LatencySnapshot.format(s.p99Nanos()),
+                LatencySnapshot.format(s.maxNanos()));
+
+        // ===== 3. Compare =====
+        System.out.printf("%n%-16s %12s %12s%n", "", "primary", "follower");
+        boolean same = compare("tickets", primaryLot.getTickets().size(), followerLot.getTickets().size())
+                & compare("payments", primaryLot.getPaymentCount(), followerLot.getPaymentCount())
+                & compare("fines", primaryLot.getFines().size(), followerLot.getFines().size())
+                & compare("parked", primaryLot.getTotalOccupied(), followerLot.getTotalOccupied())
+                & compare("revenue (sen)", Math.round(primaryLot.getTotalRevenue() * 100),
+                        Math.round(followerLot.getTotalRevenue() * 100))
+                & compare("unpaid fines", primaryLot.getAllUnpaidFines().size(),
+                        followerLot.getAllUnpaidFines().size());
+        System.out.println(same ? "Follower matches the primary: OK" : "Follower DIFFERS from the primary");
+
+        follower.close();
+        primary.close();
+    }
+
+    // Gate threads making visits (entry, exit quote, payment) on the lot, up to a number each or
+    // until the deadline; every 50th visitor also gets a fine. Returns the number of visits.
+    private static long runVisits(LotPartition lot, int threads, String prefix, long perThread, long deadline)
+            throws InterruptedException {
+        LongAdder visits = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            String platePrefix = prefix + t + "-";
+            Thread gate = new Thread(() -> {
+                EntryService entry = new EntryService(lot);
+                ExitService exit = new ExitService(lot, ExitService.DEFAULT_QUOTE_TTL);
+                long local = 0;
+                while (local < perThread && ((local & 63) != 0 || System.nanoTime() < deadline)) {
+                    Vehicle v = new Car(platePrefix + local);
+                    if (local % 50 == 0) {
+                        lot.addFine(new Fine(v.getLicensePlate(), 50.0, "Benchmark fine", null));
+                    }
+                    if (entry.parkInFirstFreeSpot(v) != null) {
+                        ExitQuote quote = exit.processExitCalculation(v.getLicensePlate());
+                        if (quote != null) {
+                            exit.confirmPayment(quote.token(), PaymentMethod.CASH);
+                        }
+                    }
+                    local++;
+                }
+                visits.add(local);
+                done.countDown();
+            });
+            gate.start();
+        }
+        done.await();
+        return visits.sum();
+    }
+
+    private static void waitUntilApplied(ReplicationFollower follower, long seq) throws InterruptedException {
+        while (follower.getAppliedSeq() < seq) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static boolean compare(String what, long primary, long follower) {
+        System.out.printf("%-16s %,12d %,12d%s%n", what, primary, follower, primary == follower ? "" : "   <-- differs");
+        return primary == follower;
+    }
+}
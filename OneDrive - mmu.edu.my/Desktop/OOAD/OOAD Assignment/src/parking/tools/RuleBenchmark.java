@@ -0,0 +1,79 @@
+package parking.tools;
+
+import parking.model.*;
+import parking.rules.RuleParser;
+import parking.rules.RuleSet;
+import parking.strategy.*;
+
+/**
+ * RuleBenchmark - Checks that the built-in fine schemes written in the rule language
+ * give exactly the same fines as the hand-written classes, and compares their speed.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.RuleBenchmark maxHours=2000 rounds=20000
+ */
+public class RuleBenchmark {
+
+    public static void main(String[] args) {
+        int maxHours = 2000;
+        int rounds = 20000;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "maxHours": maxHours = Integer.parseInt(kv[1]); break;
+                case "rounds": rounds = Integer.parseInt(kv[1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+
+        FineStrategy[] handWritten = {
+            new FixedFineStrategy(), new ProgressiveFineStrategy(), new HourlyFineStrategy()
+        };
+        RuleSet[] rules = {
+            RuleParser.parse("scheme Fixed (rules)\nfine when hours > 24: 50"),
+            RuleParser.parse("scheme Progressive (rules)\n"
+                    + "fine when hours > 72: 200\n"
+                    + "fine when hours > 48: 150\n"
+                    + "fine when hours > 24: 100\n"
+                    + "fine when hours > 0: 50"),
+            RuleParser.parse("scheme Hourly (rules)\nfine: 20/h after 24")
+        };
+
+        Vehicle car = new Car("BENCH1");
+        System.out.printf("%-32s %12s %12s %8s%n", "scheme", "class ns/op", "rules ns/op", "equal");
+        for (int i = 0; i < handWritten.length; i++) {
+            boolean equal = true;
+            for (long h = 0; h <= maxHours; h++) {
+                if (handWritten[i].calculateFine(h) != rules[i].calculateFine(h, car, SpotType.REGULAR)) {
+                    System.out.println("  mismatch at " + h + " hours");
+                    equal = false;
+                    break;
+                }
+            }
+
+            // Warm-up, then measure
+            time(handWritten[i], car, maxHours, rounds / 10);
+            time(rules[i], car, maxHours, rounds / 10);
+            double classNs = time(handWritten[i], car, maxHours, rounds);
+            double rulesNs = time(rules[i], car, maxHours, rounds);
+            System.out.printf("%-32s %12.2f %12.2f %8s%n",
+                    handWritten[i].getSchemeName(), classNs, rulesNs, equal ? "yes" : "NO");
+        }
+    }
+
+    // Average nanoseconds per vehicle-aware fine over hours 0..maxHours
+    private static double time(FineStrategy strategy, Vehicle vehicle, int maxHours, int rounds) {
+        double checksum = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (long h = 0; h <= maxHours; h++) {
+                checksum += strategy.calculateFine(h, vehicle, SpotType.REGULAR);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum < 0) {
+            System.out.println("impossible"); // keeps the result alive for the JIT
+        }
+        return (double) elapsed / ((long) rounds * (maxHours + 1));
+    }
+}
@@ -0,0 +1,142 @@
+package parking.tools;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import parking.data.DataCenter;
+import parking.model.SpotType;
+import parking.model.VehicleType;
+import parking.rules.RuleParser;
+import parking.sim.ArrivalProcess;
+import parking.sim.ParkingSimulator;
+import parking.sim.SimulationReport;
+import parking.sim.StayDistribution;
+import parking.strategy.*;
+
+/**
+ * TrafficSimulation - Simulates days of traffic on a lot (see ParkingSimulator)
+ * and prints occupancy, denied entries, revenue and fines per day and in total.
+ * Run it twice with one option changed to compare a spot mix or fine scheme.
+ *
+ * Usage (all arguments optional, key=value):
+ *   java -cp out parking.tools.TrafficSimulation days=7 floors=50 rows=10 spots=20
+ *        pattern=COMPACT,COMPACT,REGULAR,REGULAR,HANDICAPPED
+ *        arrivals=poisson:2500 stay=exp:180 mix=CAR:60,MOTORCYCLE:20,SUV:15,HANDICAPPED:5
+ *        fines=fixed seed=1 start=2026-02-09 nightly=true
+ *
+ *   pattern   spot types repeated along every row (default: the normal lot mix)
+ *   arrivals  poisson:PER_HOUR or hourly:R0,...,R23 (per hour, for each hour of the day)
+ *   stay      minutes: exp:MEAN, uniform:MIN:MAX, fixed:N or lognormal:MEDIAN:SIGMA
+ *   fines     fixed, progressive, hourly or a rules file (see CUSTOM FINE RULES)
+ */
+public class TrafficSimulation {
+
+    public static void main(String[] args) throws IOException {
+        ParkingSimulator sim = new ParkingSimulator();
+        int days = 7;
+        int floors = 50;
+        int rows = 10;
+        int spots = 20;
+        SpotType[] pattern = null;
+        String arrivals = "poisson:2500";
+        String stay = "exp:180";
+        FineStrategy fines = new FixedFineStrategy();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "days": days = Integer.parseInt(kv[1]); break;
+                case "floors": floors = Integer.parseInt(kv[1]); break;
+                case "rows": rows = Integer.parseInt(kv[1]); break;
+                case "spots": spots = Integer.parseInt(kv[1]); break;
+                case "pattern": pattern = parsePattern(kv[1]); break;
+                case "arrivals": arrivals = kv[1]; break;
+                case "stay": stay = kv[1]; break;
+                case "mix": parseMix(sim, kv[1]); break;
+                case "fines": fines = parseFines(kv[1]); break;
+                case "seed": sim.setSeed(Long.parseLong(kv[1])); break;
+                case "start": sim.setStartDay(LocalDate.parse(kv[1])); break;
+                case "nightly": sim.setNightlyFineAssessment(Boolean.parseBoolean(kv[1])); break;
+                default: throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        sim.setLot(floors, rows, spots, pattern);
+        sim.setArrivals(ArrivalProcess.parse(arrivals));
+        sim.setStay(StayDistribution.parse(stay));
+        DataCenter.setLogging(false);
+        DataCenter.setActiveFineStrategy(fines);
+
+        System.out.println("Traffic simulation: " + days + " days, " + floors * rows * spots + " spots, arrivals "
+                + arrivals + ", stay " + stay + ", " + fines.getSchemeName() + " fines");
+        SimulationReport report = sim.run(Duration.ofDays(days));
+        print(report);
+    }
+
+    private static void print(SimulationReport r) {
+        System.out.println();
+        System.out.println("Day          Arrivals   Denied  Avg occ.  Peak occ.    Revenue (RM)  Fines (RM)");
+        for (SimulationReport.Day d : r.days()) {
+            System.out.printf("%-10s %10d %7.1f%% %8.1f%% %10d %15.2f %11.2f%n", d.date(), d.arrivals(),
+                    d.denialRate() * 100, d.averageOccupancy() * 100, d.peakOccupied(), d.revenue(),
+                    d.finesCollected());
+        }
+        System.out.println();
+        System.out.println("===== TRAFFIC SIMULATION RESULT =====");
+        System.out.printf("Simulated      : %s to %s (%d spots)%n", r.start(), r.end(), r.spots());
+        System.out.printf("Elapsed        : %.2f s (%.0fx real time)%n", r.elapsedNanos() / 1e9, r.speedUp());
+        System.out.printf("Arrivals       : %d%n", r.arrivals());
+        System.out.printf("Entries / exits: %d / %d (%d still parked)%n", r.entries(), r.exits(), r.stillParked());
+        System.out.printf("Denied         : %d (%.2f%%)%s%n", r.denied(), r.denialRate() * 100,
+                byType(r.deniedByType()));
+        System.out.printf("Occupancy      : %.1f%% average, peak %d (%.1f%%)%n", r.averageOccupancy() * 100,
+                r.peakOccupied(), r.spots() == 0 ? 0 : r.peakOccupied() * 100.0 / r.spots());
+        System.out.printf("Revenue        : RM %.2f (fees RM %.2f, fines RM %.2f)%n", r.revenue(),
+                r.parkingFees(), r.finesCollected());
+        System.out.printf("Fines          : %d exits paid a fine, %d assessed at night, RM %.2f unpaid at the end%n",
+                r.finedExits(), r.finesAssessed(), r.unpaidFines());
+        System.out.println("=====================================");
+    }
+
+    private static String byType(Map<VehicleType, Long> denied) {
+        if (denied.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(" -");
+        denied.forEach((type, n) -> sb.append(' ').append(type).append(' ').append(n));
+        return sb.toString();
+    }
+
+    // ========== OPTIONS ==========
+
+    private static SpotType[] parsePattern(String value) {
+        String[] parts = value.split(",");
+        SpotType[] pattern = new SpotType[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            pattern[i] = SpotType.valueOf(parts[i].trim().toUpperCase());
+        }
+        return pattern;
+    }
+
+    // Parses "CAR:60,SUV:40" into the type and weight arrays
+    private static void parseMix(ParkingSimulator sim, String value) {
+        String[] parts = value.split(",");
+        VehicleType[] types = new VehicleType[parts.length];
+        int[] weights = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] pair = parts[i].split(":");
+            types[i] = VehicleType.valueOf(pair[0].trim().toUpperCase());
+            weights[i] = Integer.parseInt(pair[1].trim());
+        }
+        sim.setVehicleMix(types, weights);
+    }
+
+    private static FineStrategy parseFines(String value) throws IOException {
+        switch (value.toLowerCase()) {
+            case "fixed": return new FixedFineStrategy();
+            case "progressive": return new ProgressiveFineStrategy();
+            case "hourly": return new HourlyFineStrategy();
+            default: return RuleParser.parseFile(Paths.get(value));
+        }
+    }
+}
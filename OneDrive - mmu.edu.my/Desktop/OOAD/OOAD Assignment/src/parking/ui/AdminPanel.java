@@ -3,10 +3,23 @@ package parking.ui;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import parking.clock.ParkingClock;
 import parking.data.DataCenter;
+import parking.data.LotPartition;
+import parking.metrics.LatencySnapshot;
+import parking.metrics.Metrics;
+import parking.rules.RuleParser;
+import parking.rules.RuleSet;
+import parking.service.ExitService;
 import parking.strategy.*;
 import parking.model.*;
 
@@ -24,6 +37,11 @@ public class AdminPanel extends JPanel {
     private ButtonGroup fineSchemeGroup;
     private JButton btnApplyScheme;
     
+    // Custom rule components
+    private JTextArea txtRules;
+    private JButton btnLoadRules;
+    private JButton btnApplyRules;
+    
     // Status display components
     private JLabel lblCurrentScheme;
     private JLabel lblTotalSpots;
@@ -41,12 +59,23 @@ public class AdminPanel extends JPanel {
     private JButton btnResetTime;
     private Timer clockTimer;
     
-    // Time simulation offset (in hours)
-    private static int timeOffsetHours = 0;
+    // Operation latency components
+    private DefaultTableModel latencyTableModel;
+    private JButton btnResetLatency;
     
     // Date formatters
     private static final DateTimeFormatter CLOCK_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE, MMM dd yyyy");
+    
+    // Starting point shown in the rule editor
+    private static final String SAMPLE_RULES =
+        "scheme Custom Rules\n" +
+        "# first matching rule wins\n" +
+        "fine when hours > 72: 200\n" +
+        "fine when hours > 48: 150\n" +
+        "fine when hours > 24 and type = SUV: 100 + 20/h after 24 cap 300\n" +
+        "fine when hours > 24: 50\n" +
+        "fee when spot = RESERVED and vip: 10/h cap 60\n";
 
     public AdminPanel() {
         setLayout(new BorderLayout(20, 20));
@@ -87,7 +116,7 @@ public class AdminPanel extends JPanel {
         lblCurrentTime.setForeground(new Color(0, 100, 200));
         lblCurrentTime.setAlignmentX(Component.RIGHT_ALIGNMENT);
         
-        lblCurrentDate = new JLabel(LocalDateTime.now().format(DATE_FORMATTER));
+        lblCurrentDate = new JLabel(ParkingClock.now().format(DATE_FORMATTER));
         lblCurrentDate.setFont(new Font("Arial", Font.PLAIN, 11));
         lblCurrentDate.setAlignmentX(Component.RIGHT_ALIGNMENT);
         
@@ -111,7 +140,11 @@ public class AdminPanel extends JPanel {
         panel.add(Box.createVerticalStrut(20));
         panel.add(createFineSchemePanel());
         panel.add(Box.createVerticalStrut(20));
+        panel.add(createCustomRulesPanel());
+        panel.add(Box.createVerticalStrut(20));
         panel.add(createSystemStatusPanel());
+        panel.add(Box.createVerticalStrut(20));
+        panel.add(createLatencyPanel());
         
         return panel;
     }
@@ -134,7 +167,7 @@ public class AdminPanel extends JPanel {
         // Info text
         JTextArea info = new JTextArea(
             "Simulate time progression to test fine calculations.\n" +
-            "This will modify entry times of all currently parked vehicles.");
+            "This moves the system clock ahead; parked vehicles simply stay longer.");
         info.setEditable(false);
         info.setOpaque(false);
         info.setFont(new Font("Arial", Font.PLAIN, 11));
@@ -243,6 +276,53 @@ public class AdminPanel extends JPanel {
         return panel;
     }
 
+    /**
+     * Creates the custom fee/fine rules panel
+     */
+    private JPanel createCustomRulesPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BorderLayout(15, 15));
+        panel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(Color.GRAY, 1),
+            "Custom Fine Rules",
+            TitledBorder.LEFT,
+            TitledBorder.TOP,
+            new Font("Arial", Font.BOLD, 14)
+        ));
+        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 300));
+        
+        JLabel desc = new JLabel("Write fine and fee rules (see README), then compile them into the active scheme:");
+        desc.setFont(new Font("Arial", Font.PLAIN, 12));
+        desc.setBorder(new EmptyBorder(10, 15, 0, 15));
+        panel.add(desc, BorderLayout.NORTH);
+        
+        txtRules = new JTextArea(SAMPLE_RULES, 8, 40);
+        txtRules.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        JScrollPane scroll = new JScrollPane(txtRules);
+        scroll.setBorder(BorderFactory.createCompoundBorder(
+            new EmptyBorder(0, 15, 0, 15), BorderFactory.createLineBorder(Color.LIGHT_GRAY)));
+        panel.add(scroll, BorderLayout.CENTER);
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        buttonPanel.setBorder(new EmptyBorder(0, 15, 10, 15));
+        
+        btnLoadRules = new JButton("Load File...");
+        btnLoadRules.setFont(new Font("Arial", Font.PLAIN, 12));
+        btnLoadRules.setPreferredSize(new Dimension(120, 35));
+        btnLoadRules.addActionListener(e -> loadRulesFile());
+        
+        btnApplyRules = new JButton("Compile & Apply");
+        btnApplyRules.setFont(new Font("Arial", Font.BOLD, 12));
+        btnApplyRules.setPreferredSize(new Dimension(170, 35));
+        btnApplyRules.addActionListener(e -> applyCustomRules());
+        
+        buttonPanel.add(btnLoadRules);
+        buttonPanel.add(btnApplyRules);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        return panel;
+    }
+
     /**
      * Creates the system status display panel
      */
@@ -315,6 +395,87 @@ public class AdminPanel extends JPanel {
         return panel;
     }
 
+    /**
+     * Creates the operation latency panel (see parking.metrics.Metrics).
+     * Updated every second by the clock timer.
+     */
+    private JPanel createLatencyPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(Color.GRAY, 1),
+            "Operation Latency",
+            TitledBorder.LEFT,
+            TitledBorder.TOP,
+            new Font("Arial", Font.BOLD, 14)
+        ));
+        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 520));
+        
+        String[] columns = {"Operation", "Count", "Mean", "p50", "p99", "p99.9", "Max"};
+        latencyTableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        
+        JTable table = new JTable(latencyTableModel);
+        table.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 11));
+        table.setRowHeight(20);
+        table.getColumnModel().getColumn(0).setPreferredWidth(280);
+        
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(700, 440));
+        JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.setBorder(new EmptyBorder(10, 15, 0, 15));
+        tablePanel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(tablePanel, BorderLayout.CENTER);
+        
+        // Reset button
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.setBorder(new EmptyBorder(0, 0, 10, 15));
+        btnResetLatency = new JButton("Reset Counters");
+        btnResetLatency.setFont(new Font("Arial", Font.BOLD, 12));
+        btnResetLatency.setPreferredSize(new Dimension(150, 35));
+        btnResetLatency.addActionListener(e -> {
+            Metrics.reset();
+            updateLatency();
+        });
+        buttonPanel.add(btnResetLatency);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        updateLatency();
+        return panel;
+    }
+
+    /**
+     * Refreshes the latency table. Rows are updated in place so the
+     * selection and scroll position are kept.
+     */
+    private void updateLatency() {
+        List<LatencySnapshot> snapshots = Metrics.snapshot();
+        if (latencyTableModel.getRowCount() != snapshots.size()) {
+            latencyTableModel.setRowCount(snapshots.size());
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            LatencySnapshot s = snapshots.get(i);
+            Object[] row = {
+                s.operation(),
+                s.count(),
+                LatencySnapshot.format(s.meanNanos()),
+                LatencySnapshot.format(s.p50Nanos()),
+                LatencySnapshot.format(s.p99Nanos()),
+                LatencySnapshot.format(s.p999Nanos()),
+                LatencySnapshot.format(s.maxNanos())
+            };
+            for (int col = 0; col < row.length; col++) {
+                if (!row[col].equals(latencyTableModel.getValueAt(i, col))) {
+                    latencyTableModel.setValueAt(row[col], i, col);
+                }
+            }
+        }
+    }
+
     /**
      * Starts the live clock timer
      */
@@ -327,36 +488,32 @@ public class AdminPanel extends JPanel {
      * Updates the clock display
      */
     private void updateClock() {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = ParkingClock.now();
         lblCurrentTime.setText(now.format(CLOCK_FORMATTER));
         lblCurrentDate.setText(now.format(DATE_FORMATTER));
+        if (latencyTableModel != null) {
+            updateLatency();
+        }
     }
 
     /**
-     * Skips time forward by specified hours (for testing)
+     * Skips time forward by specified hours (for testing). The system clock
+     * (ParkingClock) moves ahead in one step: parked vehicles have simply stayed
+     * longer, and everything from now on (entries, exits, fines) uses the new time.
      */
     private void skipTime(int hours) {
-        var parkedVehicles = DataCenter.getAllParkedVehicles();
-        
-        if (parkedVehicles.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                "No vehicles are currently parked.\nPark some vehicles first to test time simulation.",
-                "No Vehicles",
-                JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-        
+        int parkedCount = DataCenter.getAllParkedVehicles().size();
         String timeWord = hours == 1 ? "hour" : "hours";
-        String vehicleWord = parkedVehicles.size() == 1 ? "vehicle" : "vehicles";
+        String vehicleWord = parkedCount == 1 ? "vehicle" : "vehicles";
         
         String message = String.format(
             "Skip forward %d %s?\n\n" +
             "This will:\n" +
-            "- Subtract %d %s from entry times of %d parked %s\n" +
-            "- Simulate vehicles staying longer\n" +
+            "- Move the system clock %d %s ahead\n" +
+            "- Make the %d parked %s appear to have stayed %d %s longer\n" +
             "- Help test fine calculations\n\n" +
             "Note: This is for TESTING only!",
-            hours, timeWord, hours, timeWord, parkedVehicles.size(), vehicleWord
+            hours, timeWord, hours, timeWord, parkedCount, vehicleWord, hours, timeWord
         );
         
         int confirm = JOptionPane.showConfirmDialog(this,
@@ -366,16 +523,9 @@ public class AdminPanel extends JPanel {
             JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            // Modify entry times
-            for (Vehicle vehicle : parkedVehicles) {
-                if (vehicle.getEntryTime() != null) {
-                    LocalDateTime newEntryTime = vehicle.getEntryTime().minusHours(hours);
-                    vehicle.setEntryTime(newEntryTime);
-                }
-            }
-            
-            timeOffsetHours += hours;
+            ParkingClock.skip(Duration.ofHours(hours)); // O(1): entry times are not touched
             updateOffsetDisplay();
+            updateClock();
             
             JOptionPane.showMessageDialog(this,
                 String.format("Time skipped forward %d %s!\n\n" +
@@ -389,10 +539,10 @@ public class AdminPanel extends JPanel {
     }
 
     /**
-     * Resets the time simulation
+     * Resets time simulation back to real time
      */
     private void resetTime() {
-        if (timeOffsetHours == 0) {
+        if (ParkingClock.getOffset().isZero()) {
             JOptionPane.showMessageDialog(this,
                 "Time offset is already at 0 (Real Time).",
                 "Already Reset",
@@ -402,27 +552,20 @@ public class AdminPanel extends JPanel {
         
         int confirm = JOptionPane.showConfirmDialog(this,
             "Reset time simulation?\n\n" +
-            "WARNING: This will reset entry times to real time.\n" +
-            "If vehicles have already exited, their data cannot be restored.",
+            "The system clock goes back to real time.\n" +
+            "Vehicles parked during the simulation get their real entry times back.",
             "Confirm Reset",
             JOptionPane.YES_NO_OPTION,
             JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            var parkedVehicles = DataCenter.getAllParkedVehicles();
-            
-            for (Vehicle vehicle : parkedVehicles) {
-                if (vehicle.getEntryTime() != null) {
-                    LocalDateTime realEntryTime = vehicle.getEntryTime().plusHours(timeOffsetHours);
-                    vehicle.setEntryTime(realEntryTime);
-                }
-            }
-            
-            timeOffsetHours = 0;
+            int moved = resetOffsetAndEntryTimes();
             updateOffsetDisplay();
+            updateClock();
             
             JOptionPane.showMessageDialog(this,
-                "Time simulation reset to real time!",
+                "Time simulation reset to real time!\n\n" +
+                moved + " vehicle(s) parked during the simulation moved back to real time.",
                 "Reset Complete",
                 JOptionPane.INFORMATION_MESSAGE);
             
@@ -430,15 +573,52 @@ public class AdminPanel extends JPanel {
         }
     }
 
+    // A parked vehicle whose simulated entry time goes back to real time on reset
+    private record EntryMove(LotPartition lot, Vehicle vehicle, LocalDateTime simulatedEntry,
+                             LocalDateTime realEntry) {
+    }
+
+    /**
+     * Resets the clock to real time. Vehicles that entered while time was skipped
+     * have simulated entry times (in the future once the offset is gone); each is
+     * moved back by the offset it entered with, so its stay, bill and overstay
+     * timer are right again. Vehicles parked before the skip keep their times.
+     * Returns the number of vehicles moved.
+     */
+    private int resetOffsetAndEntryTimes() {
+        // Worked out before the reset, while the offsets of the simulation are known
+        ArrayList<EntryMove> moves = new ArrayList<>();
+        for (LotPartition lot : DataCenter.getGroup().getLots()) {
+            for (Vehicle v : lot.getAllParkedVehicles()) {
+                LocalDateTime entry = v.getEntryTime();
+                Duration offset = entry == null ? Duration.ZERO : ParkingClock.offsetAt(entry);
+                if (!offset.isZero()) {
+                    moves.add(new EntryMove(lot, v, entry, entry.minus(offset)));
+                }
+            }
+        }
+        ParkingClock.resetOffset();
+        
+        int moved = 0;
+        for (EntryMove m : moves) {
+            // Vehicles that left (or were changed) in the meantime are skipped
+            if (m.lot().moveEntryTime(m.vehicle(), m.simulatedEntry(), m.realEntry())) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
     /**
      * Updates the offset display label
      */
     private void updateOffsetDisplay() {
-        if (timeOffsetHours == 0) {
+        long offsetHours = ParkingClock.getOffset().toHours();
+        if (offsetHours == 0) {
             lblSimulationOffset.setText("0 hours (Real Time)");
             lblSimulationOffset.setForeground(new Color(0, 120, 0));
         } else {
-            lblSimulationOffset.setText(String.format("+%d hours (Simulated)", timeOffsetHours));
+            lblSimulationOffset.setText(String.format("%+d hours (Simulated)", offsetHours));
             lblSimulationOffset.setForeground(new Color(200, 100, 0));
         }
     }
@@ -467,18 +647,26 @@ public class AdminPanel extends JPanel {
             return;
         }
         
-        int parkedCount = DataCenter.getAllParkedVehicles().size();
+        ArrayList<Vehicle> parkedVehicles = DataCenter.getAllParkedVehicles();
+        int parkedCount = parkedVehicles.size();
         String vehicleWord = parkedCount == 1 ? "vehicle" : "vehicles";
         
         String message;
         if (parkedCount > 0) {
+            // What-if preview: fines if every parked vehicle left right now
+            long[] hours = billedHoursOf(parkedVehicles);
+            double currentTotal = totalFines(DataCenter.getActiveFineStrategy(), hours);
+            double newTotal = totalFines(newStrategy, hours);
+            
             message = String.format(
                 "There are currently %d %s parked.\n\n" +
                 "The new fine scheme will apply to:\n" +
                 "- All FUTURE vehicle entries\n" +
                 "- Current vehicles when they exit (if they overstay)\n\n" +
+                "If all parked vehicles left now, overstay fines would be\n" +
+                "RM %.2f (currently RM %.2f).\n\n" +
                 "Change to: %s?",
-                parkedCount, vehicleWord, schemeName);
+                parkedCount, vehicleWord, newTotal, currentTotal, schemeName);
         } else {
             message = String.format(
                 "Change fine scheme to: %s?\n\n" +
@@ -503,6 +691,80 @@ public class AdminPanel extends JPanel {
         }
     }
 
+    /**
+     * Loads rule text from a file into the editor
+     */
+    private void loadRulesFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            txtRules.setText(Files.readString(chooser.getSelectedFile().toPath()));
+            txtRules.setCaretPosition(0);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                "Could not read the file:\n" + ex.getMessage(),
+                "Load Failed",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Compiles the rules in the editor and makes them the active fine scheme
+     */
+    private void applyCustomRules() {
+        RuleSet rules;
+        try {
+            rules = RuleParser.parse(txtRules.getText());
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this,
+                "The rules could not be compiled:\n" + ex.getMessage(),
+                "Rule Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        int confirm = JOptionPane.showConfirmDialog(this,
+            String.format("Apply \"%s\" (%d fine rules, %d fee rules)?\n\n" +
+                          "This will apply to all vehicles when they exit.",
+                          rules.getSchemeName(), rules.getFineRuleCount(), rules.getFeeRuleCount()),
+            "Confirm Custom Rules",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.QUESTION_MESSAGE);
+        
+        if (confirm == JOptionPane.YES_OPTION) {
+            DataCenter.setActiveFineStrategy(rules);
+            refreshDisplay();
+        }
+    }
+
+    /**
+     * Billed hours of each vehicle as if it left now
+     */
+    private long[] billedHoursOf(ArrayList<Vehicle> vehicles) {
+        LocalDateTime now = ParkingClock.now();
+        long[] hours = new long[vehicles.size()];
+        for (int i = 0; i < hours.length; i++) {
+            long minutes = Duration.between(vehicles.get(i).getEntryTime(), now).toMinutes();
+            hours[i] = ExitService.billedHours(minutes);
+        }
+        return hours;
+    }
+
+    /**
+     * Total fine of a scheme over many vehicles, using the batch API
+     */
+    private double totalFines(FineStrategy strategy, long[] hours) {
+        double[] fines = new double[hours.length];
+        strategy.calculateFines(hours, fines, hours.length);
+        double total = 0;
+        for (double fine : fines) {
+            total += fine;
+        }
+        return total;
+    }
+
     /**
      * Refreshes all displayed data
      */
@@ -511,8 +773,10 @@ public class AdminPanel extends JPanel {
         String currentScheme = DataCenter.getActiveFineSchemeName();
         lblCurrentScheme.setText("Current: " + currentScheme);
         
-        // Select the appropriate radio button
-        if (currentScheme.contains("Fixed")) {
+        // Select the appropriate radio button (none for custom rules)
+        if (DataCenter.getActiveFineStrategy() instanceof RuleSet) {
+            fineSchemeGroup.clearSelection();
+        } else if (currentScheme.contains("Fixed")) {
             rbFixed.setSelected(true);
         } else if (currentScheme.contains("Progressive")) {
             rbProgressive.setSelected(true);
@@ -4,10 +4,10 @@ import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
-import java.time.LocalDateTime; // Added for Payment constructor 
+import parking.service.ExitQuote;
 import parking.service.ExitService;
-import parking.data.DataCenter;
-import parking.model.Payment;
+import parking.service.PaymentProcessor;
+import parking.service.PaymentResult;
 import parking.model.PaymentMethod;
 
 // Vehicle Exit and Payment Panel - Member 4
@@ -38,7 +38,8 @@ public class ExitPanel extends JPanel {
     // Logic and calculation service 
     
     private ExitService exitService = new ExitService();
-    private double currentTotal = 0;
+    private PaymentProcessor paymentProcessor = new PaymentProcessor(exitService);
+    private ExitQuote currentQuote = null; // last calculated bill, null if none
 
     public ExitPanel() {
         // Main layout settings 
@@ -152,72 +153,68 @@ public class ExitPanel extends JPanel {
         btnSearch.addActionListener(e -> {
             String plate = txtPlate.getText().trim();
             // Calculation only (Preview) 
-            this.currentTotal = exitService.processExitCalculation(plate);
+            ExitQuote quote = exitService.processExitCalculation(plate);
+            this.currentQuote = quote;
             
-            if (currentTotal < 0) {
+            if (quote == null) {
                 JOptionPane.showMessageDialog(this, "Vehicle Not Found!");
             } else {
-                // Update UI labels with service data 
-                lblVType.setText(exitService.getVType());
-                lblSType.setText(exitService.getSType());
-                lblInTime.setText(exitService.getIn().format(dtf));
-                lblOutTime.setText(exitService.getOut().format(dtf));
-                lblDuration.setText(exitService.getMins() + " mins (" + exitService.getHours() + "h)");
-                lblRate.setText("RM " + String.format("%.2f", exitService.getRate()));
-                lblParkingFee.setText("RM " + String.format("%.2f", exitService.getFee()));
-                lblCurrentFine.setText("RM " + String.format("%.2f", exitService.getFine()));
-                lblOldFines.setText("RM " + String.format("%.2f", DataCenter.getUnpaidFineTotal(plate)));
-                lblTotal.setText("RM " + String.format("%.2f", currentTotal));
+                // Update UI labels with the quote 
+                lblVType.setText(quote.vehicleType());
+                lblSType.setText(quote.spotType().toString());
+                lblInTime.setText(quote.entryTime().format(dtf));
+                lblOutTime.setText(quote.exitTime().format(dtf));
+                lblDuration.setText(quote.minutes() + " mins (" + quote.hours() + "h)");
+                lblRate.setText("RM " + String.format("%.2f", quote.rate()));
+                lblParkingFee.setText("RM " + String.format("%.2f", quote.fee()));
+                lblCurrentFine.setText("RM " + String.format("%.2f", quote.fine()));
+                lblOldFines.setText("RM " + String.format("%.2f", quote.unpaidFines()));
+                lblTotal.setText("RM " + String.format("%.2f", quote.total()));
             }
         });
 
         // Action when "Confirm Payment" is clicked 
         
         btnPay.addActionListener(e -> {
-            String plate = txtPlate.getText().trim();
-            if (currentTotal <= 0) return;
-
-            // 1. Permanently record exit timestamp 
-            
-            exitService.finalizeExit(plate); 
-            
-            // 2. Map data to the 9 constructor parameters of Payment.java
-            
-            String ticketId = exitService.getSType(); // Using Spot Type as Ticket ID
-            LocalDateTime inT = exitService.getIn();
-            LocalDateTime outT = exitService.getOut();
-            long hrs = exitService.getHours();
-            double fee = exitService.getFee();
-            double finesPaid = exitService.getFine() + DataCenter.getUnpaidFineTotal(plate);
+            ExitQuote quote = currentQuote;
+            if (quote == null) return;
             PaymentMethod method = (PaymentMethod) comboPayment.getSelectedItem();
 
-            // 3. Save payment record using the 9-parameter constructor
+            // Card payments are authorized in the background; the quoted bill (exit time,
+            // payment record, spot release and fine settlement) is committed once approved.
+            // The button stays disabled until the outcome is known.
             
-            Payment newPayment = new Payment(
-                plate,        // 1. licensePlate
-                ticketId,     // 2. ticketId
-                inT,          // 3. entryTime
-                outT,         // 4. exitTime
-                hrs,          // 5. hoursParked
-                fee,          // 6. parkingFee
-                finesPaid,    // 7. finesPaid
-                currentTotal, // 8. totalAmount
-                method        // 9. paymentMethod
-            );
-            
-            DataCenter.addPayment(newPayment);
-            
-            // 4. Update system: remove vehicle and clear fines 
-            DataCenter.removeVehicle(plate);
-            DataCenter.markFinesPaid(plate);
-            
-            JOptionPane.showMessageDialog(this, "Payment Successful!");
-            resetUI();
+            btnPay.setEnabled(false);
+            paymentProcessor.submit(quote.token(), method).thenAccept(result ->
+                    SwingUtilities.invokeLater(() -> paymentFinished(quote, result)));
         });
     }
 
+    // Shows the outcome of a payment (runs on the Swing thread)
+    private void paymentFinished(ExitQuote quote, PaymentResult result) {
+        btnPay.setEnabled(true);
+        if (currentQuote != quote) return; // the lane already moved on to another bill
+
+        switch (result.status()) {
+            case PAID:
+                JOptionPane.showMessageDialog(this, "Payment Successful!");
+                resetUI();
+                break;
+            case EXPIRED:
+                JOptionPane.showMessageDialog(this,
+                    "This bill has expired or the vehicle's details changed.\nPlease calculate the fees again.");
+                currentQuote = null;
+                break;
+            default:
+                // Declined or gateway down: the bill is still valid, try again or pay another way
+                JOptionPane.showMessageDialog(this, result.message());
+                break;
+        }
+    }
+
     // Clears all fields and resets labels after success.
     private void resetUI() {
+        currentQuote = null;
         txtPlate.setText(""); lblTotal.setText("RM 0.00");
         lblVType.setText("-"); lblSType.setText("-"); lblInTime.setText("-");
         lblOutTime.setText("-"); lblDuration.setText("-"); lblRate.setText("-");
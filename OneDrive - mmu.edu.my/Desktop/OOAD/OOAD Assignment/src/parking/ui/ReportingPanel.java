@@ -3,18 +3,39 @@ package parking.ui;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.time.Duration;
-import parking.data.DataCenter;
+import parking.clock.ParkingClock;
+import parking.export.LedgerExporter;
+import parking.jfr.ReportRefreshEvent;
 import parking.model.*;
+import parking.monitor.OccupancyHistory;
+import parking.monitor.OverstayScheduler;
+import parking.monitor.TimeSeries;
+import parking.monitor.TopK;
+import parking.monitor.VisitorStats;
+import parking.service.ReportService;
+import parking.service.ReportSnapshot;
 
 /**
  * ReportingPanel - Member 5's implementation (Enhanced Version)
  * Displays comprehensive reports about parking lot operations.
+ *
+ * A refresh works out every report on a background SwingWorker (snapshot,
+ * texts and table rows); the Swing thread only puts the results on screen,
+ * and the vehicle table receives just the rows that changed.
  */
 public class ReportingPanel extends JPanel {
 
@@ -25,16 +46,49 @@ public class ReportingPanel extends JPanel {
     private JLabel lblParkingFees;
     private JLabel lblFinesCollected;
     private JTable tblCurrentVehicles;
-    private DefaultTableModel vehicleTableModel;
+    private VehicleTableModel vehicleTableModel;
     private JLabel lblUnpaidFinesCount;
     private JLabel lblUnpaidFinesTotal;
     private JLabel lblViolationCount;
     private JLabel lblTotalPayments;
+    private JTextArea txtVisitors;
+    private JComboBox<String> cmbRevenueRange;
+    private JTextField txtRevenueFrom;
+    private JTextField txtRevenueTo;
+    private JTextArea txtRevenueByDate;
     private JButton btnRefreshAll;
+    private JButton btnExport;
+
+    // The refresh running in the background (null if none), and whether another was asked for meanwhile
+    private SwingWorker<ReportView, Void> refreshWorker;
+    private boolean refreshAgain;
+    
+    // Keeps the live set of overstaying vehicles (no need to check every vehicle here)
+    private final OverstayScheduler overstays = OverstayScheduler.getInstance();
+
+    // Report figures kept up to date by events; a refresh only copies them
+    private final ReportService reports = ReportService.getInstance();
+
+    // Occupancy sampled every minute (for the last-24-hours figures)
+    private final OccupancyHistory history = OccupancyHistory.getInstance();
+
+    // Distinct and frequent visitors/offenders, estimated with sketches
+    private final VisitorStats visitorStats = VisitorStats.getInstance();
+
+    // Writes the full history to CSV and binary files (one reused buffer)
+    private final LedgerExporter exporter = new LedgerExporter();
     
     // Date formatter for display
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    // Ranges longer than this are listed per month instead of per day
+    private static final int MAX_DAYS_LISTED = 62;
+
+    // Everything one refresh shows, worked out off the Swing thread
+    private record ReportView(ReportSnapshot snapshot, String occupancyDetails,
+                              List<VehicleTableModel.Row> vehicles, String visitors, String revenueByDate) {
+    }
+
     public ReportingPanel() {
         setLayout(new BorderLayout(10, 10));
         setBorder(new EmptyBorder(20, 20, 20, 20));
@@ -51,7 +105,16 @@ public class ReportingPanel extends JPanel {
         btnRefreshAll.setFont(new Font("Arial", Font.BOLD, 12));
         btnRefreshAll.setPreferredSize(new Dimension(180, 35));
         btnRefreshAll.addActionListener(e -> refreshAllReports());
-        titlePanel.add(btnRefreshAll, BorderLayout.EAST);
+
+        btnExport = new JButton("Export...");
+        btnExport.setFont(new Font("Arial", Font.PLAIN, 12));
+        btnExport.setPreferredSize(new Dimension(110, 35));
+        btnExport.addActionListener(e -> exportHistory());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttonPanel.add(btnExport);
+        buttonPanel.add(btnRefreshAll);
+        titlePanel.add(buttonPanel, BorderLayout.EAST);
         
         add(titlePanel, BorderLayout.NORTH);
         
@@ -67,6 +130,12 @@ public class ReportingPanel extends JPanel {
         contentPanel.add(topRow);
         contentPanel.add(Box.createVerticalStrut(15));
         
+        // Revenue between two dates (full width)
+        JPanel revenueByDatePanel = createRevenueByDatePanel();
+        revenueByDatePanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 260));
+        contentPanel.add(revenueByDatePanel);
+        contentPanel.add(Box.createVerticalStrut(15));
+        
         // Middle row: Current Vehicles table (full width)
         JPanel vehiclePanel = createCurrentVehiclesPanel();
         vehiclePanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 250));
@@ -79,6 +148,12 @@ public class ReportingPanel extends JPanel {
         bottomRow.add(createUnpaidFinesPanel());
         bottomRow.add(createViolationsPanel());
         contentPanel.add(bottomRow);
+        contentPanel.add(Box.createVerticalStrut(15));
+        
+        // Last row: Visitors (full width)
+        JPanel visitorsPanel = createVisitorsPanel();
+        visitorsPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 200));
+        contentPanel.add(visitorsPanel);
         
         // Wrap in scroll pane
         JScrollPane scrollPane = new JScrollPane(contentPanel);
@@ -188,6 +263,54 @@ public class ReportingPanel extends JPanel {
         return panel;
     }
 
+    /**
+     * Creates the revenue-by-date panel: a preset or custom date range, the totals
+     * for it and one line per day (or per month for long ranges)
+     */
+    private JPanel createRevenueByDatePanel() {
+        JPanel panel = new JPanel(new BorderLayout(5, 8));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            new TitledBorder(BorderFactory.createLineBorder(Color.GRAY, 1), 
+                           "Revenue by Date",
+                           TitledBorder.LEFT,
+                           TitledBorder.TOP,
+                           new Font("Arial", Font.BOLD, 13)),
+            new EmptyBorder(10, 10, 10, 10)
+        ));
+        
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        cmbRevenueRange = new JComboBox<>(new String[]{
+            "Today", "Yesterday", "Last 7 days", "This month", "Last month", "This year", "All time", "Custom"
+        });
+        cmbRevenueRange.addActionListener(e -> applyRevenueRange());
+        controls.add(cmbRevenueRange);
+        
+        controls.add(new JLabel("From:"));
+        txtRevenueFrom = new JTextField(9);
+        controls.add(txtRevenueFrom);
+        controls.add(new JLabel("To:"));
+        txtRevenueTo = new JTextField(9);
+        controls.add(txtRevenueTo);
+        controls.add(new JLabel("(yyyy-MM-dd, both included)"));
+        
+        JButton btnShow = new JButton("Show");
+        btnShow.addActionListener(e -> {
+            cmbRevenueRange.setSelectedItem("Custom");
+            loadRevenueByDate();
+        });
+        controls.add(btnShow);
+        panel.add(controls, BorderLayout.NORTH);
+        
+        txtRevenueByDate = new JTextArea();
+        txtRevenueByDate.setEditable(false);
+        txtRevenueByDate.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        txtRevenueByDate.setBackground(new Color(250, 250, 250));
+        panel.add(new JScrollPane(txtRevenueByDate), BorderLayout.CENTER);
+        
+        cmbRevenueRange.setSelectedItem("Last 7 days");
+        return panel;
+    }
+
     /**
      * Creates the current vehicles table panel
      */
@@ -202,14 +325,8 @@ public class ReportingPanel extends JPanel {
             new EmptyBorder(10, 10, 10, 10)
         ));
         
-        // Create table
-        String[] columns = {"License Plate", "Type", "Spot", "Entry Time", "Duration", "Status"};
-        vehicleTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Create table (rows are updated in place on refresh, see VehicleTableModel)
+        vehicleTableModel = new VehicleTableModel();
         
         tblCurrentVehicles = new JTable(vehicleTableModel);
         tblCurrentVehicles.setFont(new Font("Monospaced", Font.PLAIN, 10));
@@ -337,21 +454,149 @@ public class ReportingPanel extends JPanel {
     }
 
     /**
-     * Refreshes all reports with current data
+     * Creates the visitors panel (distinct plates, regular visitors, repeat offenders)
+     */
+    private JPanel createVisitorsPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            new TitledBorder(BorderFactory.createLineBorder(Color.GRAY, 1), 
+                           "Visitors (estimated)",
+                           TitledBorder.LEFT,
+                           TitledBorder.TOP,
+                           new Font("Arial", Font.BOLD, 13)),
+            new EmptyBorder(10, 10, 10, 10)
+        ));
+        
+        txtVisitors = new JTextArea();
+        txtVisitors.setEditable(false);
+        txtVisitors.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        txtVisitors.setBackground(new Color(250, 250, 250));
+        panel.add(new JScrollPane(txtVisitors), BorderLayout.CENTER);
+        
+        return panel;
+    }
+
+    /**
+     * Refreshes all reports with current data. The reports are worked out in the
+     * background; asking again while a refresh runs queues one more refresh
+     * (however many times it is asked), so the window never waits for a report.
      */
     private void refreshAllReports() {
-        loadOccupancyReport();
-        loadRevenueReport();
-        loadCurrentVehicles();
-        loadUnpaidFinesSummary();
-        loadViolationsSummary();
+        if (refreshWorker != null) {
+            refreshAgain = true;
+            return;
+        }
+        ReportRefreshEvent event = new ReportRefreshEvent();
+        event.begin();
+        String revenueFrom = txtRevenueFrom.getText();
+        String revenueTo = txtRevenueTo.getText();
+        refreshWorker = new SwingWorker<ReportView, Void>() {
+            @Override
+            protected ReportView doInBackground() {
+                return computeReports(revenueFrom, revenueTo);
+            }
+
+            @Override
+            protected void done() {
+                refreshWorker = null;
+                try {
+                    showReports(get(), event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // The reports on screen are the last ones that worked out
+                    Throwable cause = e.getCause();
+                    String reason = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+                    JOptionPane.showMessageDialog(ReportingPanel.this,
+                        "Could not refresh the reports: " + reason + "\n\nThe figures shown are from the last refresh.",
+                        "Reports", JOptionPane.ERROR_MESSAGE);
+                }
+                if (refreshAgain) {
+                    refreshAgain = false;
+                    refreshAllReports();
+                }
+            }
+        };
+        refreshWorker.execute();
+    }
+
+    // On the worker thread: the snapshot and every text and row the reports show
+    private ReportView computeReports(String revenueFrom, String revenueTo) {
+        overstays.advance();
+        ReportSnapshot snapshot = reports.snapshot();
+        return new ReportView(snapshot, occupancyDetails(snapshot), vehicleRows(snapshot),
+            visitorsText(snapshot), revenueByDateText(revenueFrom, revenueTo));
+    }
+
+    // Back on the Swing thread: puts a finished refresh on screen
+    private void showReports(ReportView view, ReportRefreshEvent event) {
+        ReportSnapshot snapshot = view.snapshot();
+        loadOccupancyReport(snapshot, view.occupancyDetails());
+        loadRevenueReport(snapshot);
+        vehicleTableModel.update(view.vehicles());
+        loadUnpaidFinesSummary(snapshot);
+        loadViolationsSummary(snapshot);
+        txtVisitors.setText(view.visitors());
+        txtVisitors.setCaretPosition(0);
+        txtRevenueByDate.setText(view.revenueByDate());
+        txtRevenueByDate.setCaretPosition(0);
+        event.end();
+        if (event.shouldCommit()) {
+            event.parkedVehicles = snapshot.vehicles().size();
+            event.payments = snapshot.revenue().payments();
+            event.unpaidFines = snapshot.unpaidFines().fines();
+            event.overstays = snapshot.overstayCount();
+            event.violations = snapshot.violationCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Exports all tickets, payments and fines into a chosen folder
+     * (tickets.csv, payments.csv, fines.csv and ledger.bin). Runs in the
+     * background, so the window stays usable during a large export.
+     */
+    private void exportHistory() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export to folder");
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path dir = chooser.getSelectedFile().toPath();
+        btnExport.setEnabled(false);
+        Thread worker = new Thread(() -> {
+            try {
+                List<LedgerExporter.Result> results = exporter.exportAll(dir);
+                SwingUtilities.invokeLater(() -> exportFinished(dir, results, null));
+            } catch (IOException | RuntimeException ex) {
+                SwingUtilities.invokeLater(() -> exportFinished(dir, null, ex));
+            }
+        }, "ledger-export");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Back on the Swing thread: one line per file written, or the error
+    private void exportFinished(Path dir, List<LedgerExporter.Result> results, Exception error) {
+        btnExport.setEnabled(true);
+        if (error != null) {
+            JOptionPane.showMessageDialog(this, "Export failed: " + error.getMessage(),
+                "Export", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Exported to " + dir + ":\n");
+        for (LedgerExporter.Result r : results) {
+            sb.append("  ").append(r).append("\n");
+        }
+        JOptionPane.showMessageDialog(this, sb.toString(), "Export", JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
-     * Loads and displays occupancy report
+     * Displays occupancy report (the breakdown comes from occupancyDetails)
      */
-    private void loadOccupancyReport() {
-        double occupancyRate = DataCenter.getOccupancyRate();
+    private void loadOccupancyReport(ReportSnapshot snapshot, String details) {
+        double occupancyRate = snapshot.lot().rate();
         lblOccupancyRate.setText(String.format("%.1f%%", occupancyRate));
         
         // Update color based on occupancy
@@ -363,162 +608,231 @@ public class ReportingPanel extends JPanel {
             lblOccupancyRate.setForeground(new Color(200, 0, 0));
         }
         
-        // Build detailed breakdown
+        txtOccupancyDetails.setText(details);
+        txtOccupancyDetails.setCaretPosition(0);
+    }
+
+    /**
+     * Builds the occupancy breakdown by floor and spot type (any thread)
+     */
+    private String occupancyDetails(ReportSnapshot snapshot) {
         StringBuilder sb = new StringBuilder();
         sb.append("BY FLOOR:\n");
         sb.append("─────────────────────\n");
         
-        for (Floor floor : DataCenter.getFloors()) {
-            int floorSpots = floor.getTotalSpots();
-            int floorOccupied = floor.getOccupiedCount();
-            double floorRate = floorSpots > 0 ? (floorOccupied * 100.0 / floorSpots) : 0.0;
-            
+        for (ReportSnapshot.FloorOccupancy floor : snapshot.floors()) {
+            ReportSnapshot.Occupancy o = floor.occupancy();
             sb.append(String.format("Floor %d: %2d/%2d (%.0f%%)\n",
-                floor.getFloorNumber(), floorOccupied, floorSpots, floorRate));
+                floor.floorNumber(), o.occupied(), o.spots(), o.rate()));
         }
         
         sb.append("\nBY SPOT TYPE:\n");
         sb.append("─────────────────────\n");
         
-        // Count by spot type
-        int[] spotsByType = new int[SpotType.values().length];
-        int[] occupiedByType = new int[SpotType.values().length];
-        
-        for (Floor floor : DataCenter.getFloors()) {
-            for (ParkingSpot spot : floor.getSpots()) {
-                SpotType type = spot.getType();
-                int index = type.ordinal();
-                spotsByType[index]++;
-                if (!spot.isAvailable()) {
-                    occupiedByType[index]++;
-                }
-            }
-        }
-        
         for (SpotType type : SpotType.values()) {
-            int index = type.ordinal();
-            int total = spotsByType[index];
-            int occupied = occupiedByType[index];
-            double rate = total > 0 ? (occupied * 100.0 / total) : 0.0;
-            
+            ReportSnapshot.Occupancy o = snapshot.spotTypes().get(type);
             sb.append(String.format("%-11s: %2d/%2d (%.0f%%)\n",
-                type.name(), occupied, total, rate));
+                type.name(), o.occupied(), o.spots(), o.rate()));
         }
         
-        txtOccupancyDetails.setText(sb.toString());
-        txtOccupancyDetails.setCaretPosition(0);
+        // Busiest hour and average of the last 24 hours, from the hourly rollups
+        var hours = history.getLotHistory(TimeSeries.Resolution.HOUR,
+            snapshot.takenAt().minusHours(24), snapshot.takenAt());
+        if (!hours.isEmpty()) {
+            OccupancyHistory.Point peak = hours.get(0);
+            double averageSum = 0;
+            for (OccupancyHistory.Point p : hours) {
+                if (p.maxOccupied() > peak.maxOccupied()) {
+                    peak = p;
+                }
+                averageSum += p.rate();
+            }
+            sb.append("\nLAST 24 HOURS:\n");
+            sb.append("─────────────────────\n");
+            sb.append(String.format("Peak   : %d/%d (%.0f%%) at %s\n", peak.maxOccupied(), peak.spots(),
+                peak.peakRate(), peak.time().format(DateTimeFormatter.ofPattern("HH:00"))));
+            sb.append(String.format("Average: %.0f%%\n", averageSum / hours.size()));
+        }
+        
+        return sb.toString();
     }
 
     /**
      * Loads and displays revenue report
      */
-    private void loadRevenueReport() {
-        double totalRevenue = DataCenter.getTotalRevenue();
-        int paymentCount = DataCenter.getPayments().size();
-        
-        double parkingFees = 0;
-        double finesCollected = 0;
-        
-        for (Payment payment : DataCenter.getPayments()) {
-            parkingFees += payment.getParkingFee();
-            finesCollected += payment.getFinesPaid();
-        }
-        
-        lblTotalPayments.setText(String.valueOf(paymentCount));
-        lblParkingFees.setText(String.format("RM %.2f", parkingFees));
-        lblFinesCollected.setText(String.format("RM %.2f", finesCollected));
-        lblTotalRevenue.setText(String.format("RM %.2f", totalRevenue));
+    private void loadRevenueReport(ReportSnapshot snapshot) {
+        ReportSnapshot.Revenue revenue = snapshot.revenue();
+        lblTotalPayments.setText(String.valueOf(revenue.payments()));
+        lblParkingFees.setText(String.format("RM %.2f", revenue.parkingFees()));
+        lblFinesCollected.setText(String.format("RM %.2f", revenue.finesCollected()));
+        lblTotalRevenue.setText(String.format("RM %.2f", revenue.total()));
     }
 
     /**
-     * Loads and displays currently parked vehicles
+     * Builds the rows of the currently parked vehicles table (any thread)
      */
-    private void loadCurrentVehicles() {
-        vehicleTableModel.setRowCount(0);
-        
-        var parkedVehicles = DataCenter.getAllParkedVehicles();
+    private List<VehicleTableModel.Row> vehicleRows(ReportSnapshot snapshot) {
+        var parkedVehicles = snapshot.vehicles();
+        LocalDateTime now = snapshot.takenAt();
+        ArrayList<VehicleTableModel.Row> rows = new ArrayList<>(Math.max(1, parkedVehicles.size()));
         
         if (parkedVehicles.isEmpty()) {
-            vehicleTableModel.addRow(new Object[]{
-                "No vehicles currently parked", "", "", "", "", ""
-            });
+            rows.add(new VehicleTableModel.Row("No vehicles currently parked", "", "", "", "", ""));
         } else {
-            for (Vehicle vehicle : parkedVehicles) {
-                String plate = vehicle.getLicensePlate();
-                String type = vehicle.getVehicleType().name();
-                String spotId = vehicle.getSpotId() != null ? vehicle.getSpotId() : "N/A";
-                String entryTime = vehicle.getEntryTime() != null 
-                    ? vehicle.getEntryTime().format(TIME_FORMATTER) 
+            for (ReportSnapshot.VehicleRow vehicle : parkedVehicles) {
+                String plate = vehicle.licensePlate();
+                String type = vehicle.type().name();
+                String spotId = vehicle.spotId() != null ? vehicle.spotId() : "N/A";
+                String entryTime = vehicle.entryTime() != null 
+                    ? vehicle.entryTime().format(TIME_FORMATTER) 
                     : "N/A";
                 
                 String duration = "N/A";
                 String status = "OK";
                 
-                if (vehicle.getEntryTime() != null) {
-                    Duration dur = Duration.between(vehicle.getEntryTime(), LocalDateTime.now());
+                if (vehicle.entryTime() != null) {
+                    Duration dur = Duration.between(vehicle.entryTime(), now);
                     long hours = dur.toHours();
                     long minutes = dur.toMinutes() % 60;
                     duration = String.format("%dh %dm", hours, minutes);
-                    
-                    // Check for violations
-                    if (hours > 24) {
-                        status = "OVERSTAY";
-                    } else if (vehicle.hasViolation()) {
-                        status = "VIOLATION";
-                    }
                 }
                 
-                vehicleTableModel.addRow(new Object[]{
-                    plate, type, spotId, entryTime, duration, status
-                });
+                // Check for violations
+                if (overstays.isOverstaying(plate)) {
+                    status = "OVERSTAY";
+                } else if (vehicle.violation()) {
+                    status = "VIOLATION";
+                }
+                
+                rows.add(new VehicleTableModel.Row(plate, type, spotId, entryTime, duration, status));
             }
         }
+        return rows;
     }
 
     /**
      * Loads and displays unpaid fines summary
      */
-    private void loadUnpaidFinesSummary() {
-        var allUnpaidFines = DataCenter.getAllUnpaidFines();
-        
-        java.util.Set<String> uniquePlates = new java.util.HashSet<>();
-        double totalUnpaid = 0;
-        
-        for (Fine fine : allUnpaidFines) {
-            uniquePlates.add(fine.getLicensePlate());
-            totalUnpaid += fine.getAmount();
-        }
-        
-        lblUnpaidFinesCount.setText(String.valueOf(uniquePlates.size()));
-        lblUnpaidFinesTotal.setText(String.format("RM %.2f", totalUnpaid));
+    private void loadUnpaidFinesSummary(ReportSnapshot snapshot) {
+        ReportSnapshot.UnpaidFines unpaid = snapshot.unpaidFines();
+        lblUnpaidFinesCount.setText(String.valueOf(unpaid.plates()));
+        lblUnpaidFinesTotal.setText(String.format("RM %.2f", unpaid.total()));
     }
 
     /**
      * Loads and displays violations summary (NEW)
      */
-    private void loadViolationsSummary() {
-        var parkedVehicles = DataCenter.getAllParkedVehicles();
+    private void loadViolationsSummary(ReportSnapshot snapshot) {
+        // Overstaying (>24 hours) or parked in a reserved spot without a reservation
+        lblViolationCount.setText(String.valueOf(snapshot.violationCount()));
+    }
+
+    /**
+     * Builds the distinct visitor counts and the top visitors / offenders (any thread)
+     */
+    private String visitorsText(ReportSnapshot snapshot) {
+        LocalDate today = snapshot.takenAt().toLocalDate();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Distinct plates - today: %d   this month: %d   all time: %d   (visits: %d)%n%n",
+            visitorStats.getDistinctVisitors(today),
+            visitorStats.getDistinctVisitors(YearMonth.from(today)),
+            visitorStats.getDistinctVisitorsAllTime(),
+            visitorStats.getVisitCount()));
+        
+        var visitors = visitorStats.getTopVisitors();
+        var offenders = visitorStats.getTopOffenders();
+        sb.append(String.format("%-28s %s%n", "TOP VISITORS (visits)", "REPEAT OFFENDERS (fined exits)"));
+        for (int i = 0; i < Math.min(5, Math.max(visitors.size(), offenders.size())); i++) {
+            sb.append(String.format("%-28s %s%n",
+                i < visitors.size() ? topEntry(i, visitors.get(i)) : "",
+                i < offenders.size() ? topEntry(i, offenders.get(i)) : ""));
+        }
         
-        int violationCount = 0;
+        return sb.toString();
+    }
+
+    private static String topEntry(int rank, TopK.Entry entry) {
+        return String.format("%d. %-12s %5d", rank + 1, entry.licensePlate(), entry.count());
+    }
+
+    /**
+     * Fills in the From/To dates of the selected preset and shows them
+     */
+    private void applyRevenueRange() {
+        LocalDate today = ParkingClock.today();
+        LocalDate from;
+        LocalDate to = today;
+        switch ((String) cmbRevenueRange.getSelectedItem()) {
+            case "Today": from = today; break;
+            case "Yesterday": from = to = today.minusDays(1); break;
+            case "Last 7 days": from = today.minusDays(6); break;
+            case "This month": from = today.withDayOfMonth(1); break;
+            case "Last month":
+                from = today.withDayOfMonth(1).minusMonths(1);
+                to = today.withDayOfMonth(1).minusDays(1);
+                break;
+            case "This year": from = today.withDayOfYear(1); break;
+            case "All time":
+                LocalDateTime first = reports.getFirstPaymentTime();
+                from = first != null && first.toLocalDate().isBefore(today) ? first.toLocalDate() : today;
+                break;
+            default: return; // Custom: keep what was typed
+        }
+        txtRevenueFrom.setText(from.toString());
+        txtRevenueTo.setText(to.toString());
+        loadRevenueByDate();
+    }
+
+    /**
+     * Loads the revenue of the chosen date range. Every line is one O(log n)
+     * lookup in the payment index, so long histories cost no more than short ones.
+     */
+    private void loadRevenueByDate() {
+        if (txtRevenueByDate == null) {
+            return; // still being built
+        }
+        txtRevenueByDate.setText(revenueByDateText(txtRevenueFrom.getText(), txtRevenueTo.getText()));
+        txtRevenueByDate.setCaretPosition(0);
+    }
+
+    /**
+     * Builds the revenue of a date range given as typed (any thread)
+     */
+    private String revenueByDateText(String fromText, String toText) {
+        LocalDate from, to;
+        try {
+            from = LocalDate.parse(fromText.trim());
+            to = LocalDate.parse(toText.trim());
+        } catch (DateTimeParseException e) {
+            return "Enter the dates as yyyy-MM-dd (e.g. " + ParkingClock.today() + ").";
+        }
+        if (to.isBefore(from)) {
+            return "The To date is before the From date.";
+        }
         
-        for (Vehicle vehicle : parkedVehicles) {
-            // Check if vehicle is violating
-            if (vehicle.getEntryTime() != null) {
-                Duration dur = Duration.between(vehicle.getEntryTime(), LocalDateTime.now());
-                long hours = dur.toHours();
-                
-                // Overstaying (>24 hours) is a violation
-                if (hours > 24) {
-                    violationCount++;
-                }
-                // Reserved spot violation
-                else if (vehicle.hasViolation()) {
-                    violationCount++;
-                }
+        ReportSnapshot.Revenue total = reports.revenueBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s to %s: %d payments, fees RM %.2f, fines RM %.2f, total RM %.2f%n%n",
+            from, to, total.payments(), total.parkingFees(), total.finesCollected(), total.total()));
+        sb.append(String.format("%-12s %8s %12s %12s %12s %12s %12s%n",
+            "", "Payments", "Fees", "Fines", "Cash", "Card", "Total"));
+        if (ChronoUnit.DAYS.between(from, to) < MAX_DAYS_LISTED) {
+            for (var day : reports.revenueByDay(from, to).entrySet()) {
+                sb.append(revenueLine(day.getKey().toString(), day.getValue()));
+            }
+        } else {
+            for (var month : reports.revenueByMonth(YearMonth.from(from), YearMonth.from(to)).entrySet()) {
+                sb.append(revenueLine(month.getKey().toString(), month.getValue()));
             }
+            sb.append("(whole months; the total above covers exactly the dates chosen)\n");
         }
-        
-        lblViolationCount.setText(String.valueOf(violationCount));
+        return sb.toString();
+    }
+
+    private static String revenueLine(String label, ReportSnapshot.Revenue r) {
+        return String.format("%-12s %8d %12.2f %12.2f %12.2f %12.2f %12.2f%n", label, r.payments(),
+            r.parkingFees(), r.finesCollected(), r.byMethod().get(PaymentMethod.CASH),
+            r.byMethod().get(PaymentMethod.CARD), r.total());
     }
 
     /**
@@ -0,0 +1,131 @@
+package parking.ui;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * VehicleTableModel - The rows of the "Currently Parked Vehicles" table, one
+ * per plate. update() is given the new rows and tells the table only what
+ * changed (rows deleted, inserted or with new values), so a refresh with
+ * thousands of parked vehicles repaints the few rows that differ instead of
+ * clearing and re-adding the whole table. Used on the Swing thread only.
+ */
+class VehicleTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"License Plate", "Type", "Spot", "Entry Time", "Duration", "Status"};
+
+    // One row as shown; rows with the same plate are the same vehicle
+    record Row(String plate, String type, String spot, String entryTime, String duration, String status) {
+    }
+
+    private ArrayList<Row> rows = new ArrayList<>();
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Row row = rows.get(rowIndex);
+        switch (columnIndex) {
+            case 0: return row.plate();
+            case 1: return row.type();
+            case 2: return row.spot();
+            case 3: return row.entryTime();
+            case 4: return row.duration();
+            default: return row.status();
+        }
+    }
+
+    /**
+     * Replaces the rows with newRows, firing one event per run of deleted,
+     * inserted or changed rows. Rows that stay keep their order (the report
+     * lists vehicles in a fixed order); if they do not, the whole table is
+     * reloaded instead.
+     */
+    void update(List<Row> newRows) {
+        HashSet<String> newPlates = new HashSet<>();
+        for (Row r : newRows) {
+            newPlates.add(r.plate());
+        }
+
+        // 1. Delete the vehicles that left, from the bottom up so the indexes stay valid
+        int i = rows.size() - 1;
+        while (i >= 0) {
+            if (newPlates.contains(rows.get(i).plate())) {
+                i--;
+                continue;
+            }
+            int last = i;
+            while (i >= 0 && !newPlates.contains(rows.get(i).plate())) {
+                i--;
+            }
+            rows.subList(i + 1, last + 1).clear();
+            fireTableRowsDeleted(i + 1, last);
+        }
+
+        // 2. The rows left must appear in newRows in the same order
+        if (!isInOrder(newRows)) {
+            rows = new ArrayList<>(newRows);
+            fireTableDataChanged();
+            return;
+        }
+
+        // 3. Walk both lists: insert the new vehicles, update the rows that changed
+        int r = 0;
+        int n = 0;
+        while (n < newRows.size()) {
+            if (r < rows.size() && rows.get(r).plate().equals(newRows.get(n).plate())) {
+                int first = r;
+                while (r < rows.size() && n < newRows.size()
+                        && rows.get(r).plate().equals(newRows.get(n).plate())
+                        && !rows.get(r).equals(newRows.get(n))) {
+                    rows.set(r, newRows.get(n));
+                    r++;
+                    n++;
+                }
+                if (r > first) {
+                    fireTableRowsUpdated(first, r - 1);
+                } else {
+                    r++; // unchanged
+                    n++;
+                }
+            } else {
+                // newRows[n] is not in the table: it and the next new ones go in before row r
+                ArrayList<Row> added = new ArrayList<>();
+                while (n < newRows.size()
+                        && (r >= rows.size() || !rows.get(r).plate().equals(newRows.get(n).plate()))) {
+                    added.add(newRows.get(n));
+                    n++;
+                }
+                rows.addAll(r, added);
+                fireTableRowsInserted(r, r + added.size() - 1);
+                r += added.size();
+            }
+        }
+    }
+
+    // True if the current rows are a subsequence of newRows (by plate)
+    private boolean isInOrder(List<Row> newRows) {
+        int k = 0;
+        for (Row row : newRows) {
+            if (k < rows.size() && rows.get(k).plate().equals(row.plate())) {
+                k++;
+            }
+        }
+        return k == rows.size();
+    }
+}